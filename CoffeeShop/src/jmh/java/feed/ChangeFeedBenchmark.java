@@ -0,0 +1,96 @@
+package feed;
+
+import item.ItemList;
+import item.SetupItemFile;
+import logs.CoffeeShopLogger;
+import order.Order;
+import order.OrderList;
+import order.OrderState;
+import org.openjdk.jmh.annotations.*;
+import protocol.BinaryCodec;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * JMH benchmark comparing the cost of telling a client about one new order as the order history grows
+ *
+ * fullBroadcast serializes every order, completed or not, as the server tried to before by broadcasting the OrderList
+ * The OrderList itself cannot be serialized as it holds the logger, so its orders are serialized in its place
+ * delta writes the one change with the BinaryCodec, as the ChangeFeed sends it now
+ * The number of bytes each takes is printed when the benchmark is set up
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChangeFeedBenchmark {
+    /** Number of orders already completed */
+    @Param({"100", "1000", "10000"})
+    public int completed;
+
+    /** Every order added to the order list */
+    private final ArrayList<Order> orders = new ArrayList<>();
+
+    private Delta delta;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(java.util.logging.Level.OFF);
+
+        ItemList menu = SetupItemFile.generateItemList();
+        OrderList.resetInstance();
+        OrderList orderList = OrderList.getInstance();
+
+        for (int i = 0; i < completed; i++) {
+            orders.add(createOrder(menu));
+            orderList.add(orders.getLast());
+            orderList.completeOrder(orderList.removeOnline());
+        }
+
+        Order order = createOrder(menu);
+        orders.add(order);
+        orderList.add(order);
+        delta = new Delta(ChangeFeed.getInstance().getSequence(), new Change.OrderAdded(OrderSummary.of(order, OrderState.PENDING)));
+
+        System.out.printf("%nBytes to send one new order with %d completed: full %d, delta %d%n",
+                completed, fullBroadcast().length, delta().length);
+    }
+
+    @Benchmark
+    public byte[] fullBroadcast() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(orders);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] delta() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        BinaryCodec.writeDelta(new DataOutputStream(bytes), delta);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Creates an order without playing the sound for each item
+     *
+     * @param menu the menu
+     * @return the order
+     */
+    private static Order createOrder(ItemList menu) throws Exception {
+        return new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                LocalDateTime.now(), new ArrayList<>(List.of("HD1", "PSY1", "RL1")), menu, true);
+    }
+}
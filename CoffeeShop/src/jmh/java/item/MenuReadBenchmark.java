@@ -0,0 +1,136 @@
+package item;
+
+import exceptions.InvalidItemIDException;
+import logs.CoffeeShopLogger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * JMH benchmark for reading item costs and categories while the menu's prices are being changed
+ *
+ * Three threads read costs and categories from the ItemList while one thread keeps changing a price,
+ * reads never take a lock as each change publishes a new menu version
+ * readSnapshot prices every item from one menu version, as an order does
+ * readByID and readByCode price every item on one thread, looking each item up by its ID or by its code
+ */
+@State(Scope.Group)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MenuReadBenchmark {
+    private ItemList menu;
+
+    private String[] itemIDs;
+
+    private int[] codes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(java.util.logging.Level.OFF);
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+
+        menu = SetupItemFile.generateItemList();
+        itemIDs = menu.getItemIDs();
+        codes = menu.getSnapshot().resolve(List.of(itemIDs));
+    }
+
+    /**
+     * Reads the cost and category of one item
+     */
+    @Benchmark
+    @Group("lookup")
+    @GroupThreads(3)
+    public void read(ReaderState reader, Blackhole blackhole) {
+        String itemID = itemIDs[reader.next(itemIDs.length)];
+
+        blackhole.consume(menu.getCost(itemID));
+        blackhole.consume(menu.getCategory(itemID));
+    }
+
+    /**
+     * Changes the price of one item, publishing a new menu version
+     */
+    @Benchmark
+    @Group("lookup")
+    @GroupThreads(1)
+    public void write(ReaderState writer) throws InvalidItemIDException {
+        String itemID = itemIDs[writer.next(itemIDs.length)];
+
+        menu.setCost(itemID, menu.getCost(itemID));
+    }
+
+    /**
+     * Prices every item on the menu from one version
+     */
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(3)
+    public double readSnapshot() {
+        MenuVersion snapshot = menu.getSnapshot();
+        double total = 0;
+
+        for (String itemID : itemIDs) total += snapshot.getCost(itemID);
+
+        return total;
+    }
+
+    /**
+     * Changes the price of one item while the snapshots are read
+     */
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(1)
+    public void writeSnapshot(ReaderState writer) throws InvalidItemIDException {
+        write(writer);
+    }
+
+    /**
+     * Prices and categorises every item by item ID
+     */
+    @Benchmark
+    @Group("byID")
+    public double readByID() {
+        MenuVersion snapshot = menu.getSnapshot();
+        double total = 0;
+
+        for (String itemID : itemIDs) total += snapshot.getCost(itemID) + snapshot.getCategory(itemID).ordinal();
+
+        return total;
+    }
+
+    /**
+     * Prices and categorises every item by code
+     */
+    @Benchmark
+    @Group("byCode")
+    public long readByCode() {
+        MenuVersion snapshot = menu.getSnapshot();
+        long total = 0;
+
+        for (int code : codes) total += snapshot.getPence(code) + snapshot.getCategoryOrdinal(code);
+
+        return total;
+    }
+
+    /**
+     * The position of each thread in the menu
+     */
+    @State(Scope.Thread)
+    public static class ReaderState {
+        private int position;
+
+        int next(int length) {
+            position = position + 1 == length ? 0 : position + 1;
+            return position;
+        }
+    }
+}
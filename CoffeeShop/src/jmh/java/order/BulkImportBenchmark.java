@@ -0,0 +1,86 @@
+package order;
+
+import item.ItemList;
+import item.SetupItemFile;
+import logs.CoffeeShopLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * JMH benchmark for importing a large synthetic orders file with the OrderImporter
+ *
+ * importOrders is run with 1 thread up to the number of cores to show how the import scales,
+ * sequential reads the same file with OrderFileReadWrite for comparison
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BulkImportBenchmark {
+    /** Number of orders in the file */
+    @Param({"200000"})
+    public int lines;
+
+    /** Number of threads parsing chunks */
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ItemList menu;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(java.util.logging.Level.OFF);
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+
+        menu = SetupItemFile.generateItemList();
+        String[] itemIDs = menu.getItemIDs();
+
+        file = Files.createTempFile("orders", ".txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < lines; i++) {
+                writer.write(UUID.randomUUID() + "," + UUID.randomUUID() + ",Jane,2025-04-04T23:13:45.514,"
+                        + itemIDs[i % itemIDs.length] + ";" + itemIDs[(i * 7) % itemIDs.length] + "," + (i % 2 == 0) + ",");
+                writer.newLine();
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void resetOrderList() {
+        OrderList.resetInstance();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Imports the file with the given number of threads
+     */
+    @Benchmark
+    public OrderImporter.ImportResult importOrders() throws IOException {
+        return new OrderImporter(file, menu, threads).importOrders(OrderList.getInstance());
+    }
+
+    /**
+     * Reads the file on one thread, the number of threads is not used
+     */
+    @Benchmark
+    public OrderList sequential() throws FileNotFoundException {
+        new OrderFileReadWrite(file).readFile();
+
+        return OrderList.getInstance();
+    }
+}
@@ -0,0 +1,89 @@
+package order;
+
+import exceptions.InvalidOrderException;
+import item.ItemFileReader;
+import item.ItemList;
+import item.SetupItemFile;
+import logs.CoffeeShopLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.FileNotFoundException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * JMH benchmark for reading the menu and orders files
+ *
+ * The files are read from src/main/java/files, so the benchmark must be run from the CoffeeShop directory
+ * Parsing is also measured on generated order lines, as orders.txt only holds a handful of orders
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileParsingBenchmark {
+    /** Number of generated order lines parsed */
+    @Param({"1000"})
+    public int lines;
+
+    private ItemList menu;
+
+    private String[] orderLines;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(java.util.logging.Level.OFF);
+
+        menu = SetupItemFile.generateItemList();
+
+        String[] itemIDs = menu.getItemIDs();
+        Random random = new Random(lines);
+        orderLines = new String[lines];
+
+        for (int i = 0; i < lines; i++) {
+            String items = String.join(";", itemIDs[random.nextInt(itemIDs.length)], itemIDs[random.nextInt(itemIDs.length)]);
+
+            orderLines[i] = String.join(",", UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                    LocalDateTime.now().toString(), items, Boolean.toString(i % 2 == 0), "");
+        }
+    }
+
+    /**
+     * Reads menu.txt into an empty ItemList
+     */
+    @Benchmark
+    public ItemList readMenu() throws FileNotFoundException {
+        ItemList.resetInstance();
+        new ItemFileReader("menu.txt").readFile();
+
+        return ItemList.getInstance();
+    }
+
+    /**
+     * Reads orders.txt without adding the orders to the OrderList
+     */
+    @Benchmark
+    public List<Order> readOrders() throws FileNotFoundException {
+        return new OrderFileReadWrite("orders.txt").readOrders();
+    }
+
+    /**
+     * Parses generated order lines
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Order parseOrders() throws InvalidOrderException {
+        Order last = null;
+
+        for (String line : orderLines) last = OrderFileReadWrite.parseOrder(line, menu);
+
+        return last;
+    }
+}
@@ -0,0 +1,87 @@
+package order;
+
+import exceptions.InvalidItemIDException;
+import exceptions.InvalidOrderException;
+import item.ItemList;
+import item.SetupItemFile;
+import logs.CoffeeShopLogger;
+import org.openjdk.jmh.annotations.*;
+import utils.SoundPlayer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * JMH benchmark for building an order item by item and working out its discounted cost
+ *
+ * Sounds are turned off so adding an item measures the order rather than starting a thread to play a sound
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-D" + SoundPlayer.PROPERTY + "=false")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderBenchmark {
+    /** Number of items in the order */
+    @Param({"3", "20"})
+    public int items;
+
+    private ItemList menu;
+
+    private String[] details;
+
+    private Order order;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InvalidOrderException, InvalidItemIDException {
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(java.util.logging.Level.OFF);
+
+        menu = SetupItemFile.generateItemList();
+
+        String[] itemIDs = menu.getItemIDs();
+        Random random = new Random(items);
+        details = new String[items];
+        for (int i = 0; i < items; i++) details[i] = itemIDs[random.nextInt(itemIDs.length)];
+
+        order = addItems();
+    }
+
+    /**
+     * Builds an order one item at a time, as a customer does
+     */
+    @Benchmark
+    public Order addItems() throws InvalidOrderException, InvalidItemIDException {
+        Order built = new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                LocalDateTime.now(), new ArrayList<>(), menu, false);
+
+        for (String itemID : details) built.addItem(itemID);
+
+        return built;
+    }
+
+    /**
+     * Works out the discounted cost of a built order
+     */
+    @Benchmark
+    public double discountedCost() {
+        return order.getDiscountedCost();
+    }
+
+    /**
+     * Adds an item and removes it again, working out the discounted cost each time
+     */
+    @Benchmark
+    public double addAndRemoveItem() throws InvalidItemIDException {
+        order.addItem(details[0]);
+        double cost = order.getDiscountedCost();
+        order.removeLastItem();
+
+        return cost + order.getDiscountedCost();
+    }
+}
@@ -0,0 +1,63 @@
+package order;
+
+import item.ItemList;
+import item.SetupItemFile;
+import logs.CoffeeShopLogger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Measures the heap retained by orders read from a file
+ *
+ * Builds the orders the same way the orders file reader does, with each item ID a new string,
+ * then reports the heap in use after a full collection divided by the number of orders
+ * Run with: java -Xmx4g -cp target/test-classes:target/classes order.OrderFootprint 1000000 3
+ */
+public class OrderFootprint {
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int items = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(Level.OFF);
+
+        ItemList menu = SetupItemFile.generateItemList();
+        String[] itemIDs = menu.getItemIDs();
+        LocalDateTime now = LocalDateTime.now();
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long before = usedAfterGc(memory);
+
+        Order[] orders = new Order[count];
+        for (int i = 0; i < count; i++) {
+            ArrayList<String> details = new ArrayList<>();
+            for (int j = 0; j < items; j++) details.add(new String(itemIDs[(i + j * 7) % itemIDs.length]));
+
+            orders[i] = new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Customer " + (i % 1000),
+                    now.minusSeconds(i), details, menu, i % 2 == 0);
+        }
+
+        long after = usedAfterGc(memory);
+
+        System.out.printf("%d orders of %d items retain %.1f MB, %d bytes per order%n",
+                count, items, (after - before) / 1048576.0, (after - before) / count);
+
+        // Keeps the orders reachable until they have been measured
+        if (orders[count - 1].getDetails().isEmpty()) System.out.println();
+    }
+
+    private static long usedAfterGc(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
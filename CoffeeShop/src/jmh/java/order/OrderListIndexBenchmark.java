@@ -0,0 +1,147 @@
+package order;
+
+import exceptions.DuplicateOrderException;
+import exceptions.InvalidOrderException;
+import item.ItemList;
+import item.SetupItemFile;
+import logs.CoffeeShopLogger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * JMH benchmark for the OrderList order index
+ *
+ * Measures add, remove by ID, lookup by ID and duplicate detection with an increasing number of completed orders
+ * already held by the OrderList, the latency of each operation should stay flat as the completed orders grow
+ *
+ * Every add and remove moves another order into the completed orders, so each measurement iteration adds
+ * BATCH_SIZE orders on top of the configured amount
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class OrderListIndexBenchmark {
+    /** Number of orders added and removed in each single shot measurement */
+    private static final int BATCH_SIZE = 1000;
+
+    /** Number of completed orders held by the OrderList before measuring */
+    @Param({"100", "10000", "100000", "1000000"})
+    public int completedOrders;
+
+    private OrderList orderList;
+
+    /** An order that is still waiting in the queue */
+    private Order pendingOrder;
+
+    /** An order that has already been completed */
+    private Order completedOrder;
+
+    /** An ID that is never added to the OrderList */
+    private final UUID missingID = UUID.randomUUID();
+
+    /** Fresh orders used by the add and remove benchmark, rebuilt before each iteration */
+    private Order[] batch;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InvalidOrderException, DuplicateOrderException {
+        SetupItemFile.generateItemList();
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(java.util.logging.Level.OFF);
+
+        OrderList.resetInstance();
+        orderList = OrderList.getInstance();
+
+        for (int i = 0; i < completedOrders; i++) {
+            completedOrder = newOrder();
+            orderList.add(completedOrder);
+            orderList.remove(completedOrder.getOrderID());
+        }
+
+        pendingOrder = newOrder();
+        orderList.add(pendingOrder);
+    }
+
+    @Setup(Level.Iteration)
+    public void buildBatch() throws InvalidOrderException {
+        batch = new Order[BATCH_SIZE];
+
+        for (int i = 0; i < BATCH_SIZE; i++) batch[i] = newOrder();
+
+        next = 0;
+    }
+
+    /**
+     * Adds a new order and removes it by ID, moving it to the completed orders
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 5, batchSize = BATCH_SIZE)
+    @Warmup(iterations = 3, batchSize = BATCH_SIZE)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean addAndRemove() throws InvalidOrderException, DuplicateOrderException {
+        Order order = batch[next++];
+
+        orderList.add(order);
+
+        return orderList.remove(order.getOrderID());
+    }
+
+    /**
+     * Looks up a pending order by ID
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Order getOrder() throws InvalidOrderException {
+        return orderList.getOrder(pendingOrder.getOrderID());
+    }
+
+    /**
+     * Tries to add an order that has already been completed
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void addDuplicate(Blackhole blackhole) throws InvalidOrderException {
+        try {
+            blackhole.consume(orderList.add(completedOrder));
+        } catch (DuplicateOrderException e) {
+            blackhole.consume(e);
+        }
+    }
+
+    /**
+     * Looks up an ID that has never been added
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean missingOrder() {
+        try {
+            return orderList.getOrder(missingID) != null;
+        } catch (InvalidOrderException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates an order with a single item so it passes the OrderList validation
+     * Uses the order file constructor as addItem plays a sound for every item
+     *
+     * @return The new order
+     */
+    private static Order newOrder() throws InvalidOrderException {
+        return new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Benchmark",
+                LocalDateTime.now(), new ArrayList<>(List.of("RL1")), ItemList.getInstance(), false);
+    }
+}
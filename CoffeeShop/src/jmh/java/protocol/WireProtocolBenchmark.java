@@ -0,0 +1,108 @@
+package protocol;
+
+import item.ItemList;
+import item.SetupItemFile;
+import logs.CoffeeShopLogger;
+import order.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * JMH benchmark comparing the binary protocol with Java serialization for sending an order
+ * The number of bytes each order takes is printed when the benchmark is set up
+ *
+ * serializedEncode and serializedDecode write and read an order with an ObjectOutputStream, as the client and server did before
+ * binaryEncode and binaryDecode write and read the same order with the BinaryCodec
+ * The round trips write an order and read it back, which is what sending an order costs end to end
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WireProtocolBenchmark {
+    /** Number of items in the order */
+    @Param({"3", "20"})
+    public int items;
+
+    private ItemList menu;
+
+    private ItemCodes codes;
+
+    private Order order;
+
+    private byte[] serialized;
+
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(java.util.logging.Level.OFF);
+
+        menu = SetupItemFile.generateItemList();
+        codes = new ItemCodes(List.of(menu.getItemIDs()));
+
+        String[] itemIDs = menu.getItemIDs();
+        Random random = new Random(items);
+        ArrayList<String> details = new ArrayList<>();
+        for (int i = 0; i < items; i++) details.add(itemIDs[random.nextInt(itemIDs.length)]);
+
+        order = new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                LocalDateTime.now(), details, menu, true);
+
+        serialized = serializedEncode();
+        binary = binaryEncode();
+
+        System.out.printf("%nBytes per order with %d items: serialized %d, binary %d%n", items, serialized.length, binary.length);
+    }
+
+    @Benchmark
+    public byte[] serializedEncode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(order);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object serializedDecode() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() throws IOException {
+        return BinaryCodec.encodeOrder(order, codes);
+    }
+
+    @Benchmark
+    public Order binaryDecode() throws IOException {
+        return BinaryCodec.decodeOrder(binary, codes, menu);
+    }
+
+    @Benchmark
+    public Object serializedRoundTrip() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serializedEncode()))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public Order binaryRoundTrip() throws IOException {
+        return BinaryCodec.decodeOrder(binaryEncode(), codes, menu);
+    }
+}
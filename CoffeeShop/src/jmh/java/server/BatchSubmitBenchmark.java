@@ -0,0 +1,132 @@
+package server;
+
+import feed.ChangeFeed;
+import interfaces.Connection;
+import interfaces.OrderHandler;
+import item.ItemList;
+import item.SetupItemFile;
+import logs.CoffeeShopLogger;
+import order.Order;
+import order.OrderList;
+import org.openjdk.jmh.annotations.*;
+import protocol.Handshake;
+import protocol.OrderBatch;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * JMH benchmark comparing orders sent one at a time with orders sent in batches to the NioServer
+ *
+ * Each invocation sends 1000 orders from one client and waits until every one is in the OrderList
+ * A batch size of 1 sends each order in its own frame, as the client did before, and is added with OrderList.add
+ * Larger sizes send an OrderBatch, added with one call to OrderList.addAll and answered with an acknowledgement for each order
+ * Everything the server sends back is read on another thread so the client never stops the server writing
+ * The outbound queue holds every delta and acknowledgement for an invocation, so what is measured is never a coalesced snapshot
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchSubmitBenchmark {
+    private static final int ORDERS = 1000;
+
+    /** Number of orders in each frame */
+    @Param({"1", "10", "100"})
+    public int batchSize;
+
+    private ItemList menu;
+
+    private NioServer server;
+
+    private Connection connection;
+
+    private Thread reader;
+
+    private final List<Order> orders = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(java.util.logging.Level.OFF);
+
+        menu = SetupItemFile.generateItemList();
+        System.setProperty(OutboundQueue.CAPACITY_PROPERTY, String.valueOf(4 * ORDERS));
+
+        OrderHandler handler = new OrderHandler() {
+            @Override
+            public boolean addOrder(Order order) {
+                try {
+                    return OrderList.getInstance().add(order);
+                } catch (Exception e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public boolean[] addOrders(List<Order> orders) {
+                return OrderList.getInstance().addAll(orders);
+            }
+        };
+
+        server = new NioServer(handler, menu, 0, 2);
+        server.start();
+
+        connection = Handshake.connect(new Socket("localhost", server.getPort()));
+
+        reader = Thread.ofPlatform().daemon().start(() -> {
+            try {
+                while (true) connection.receive();
+            } catch (Exception e) {
+                // The connection has been closed
+            }
+        });
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() throws Exception {
+        OrderList.resetInstance();
+        OrderList.getInstance().setMaxQueueSize(ORDERS);
+
+        orders.clear();
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                    LocalDateTime.now(), new ArrayList<>(List.of("HD1", "PSY1", "RL1")), menu, true));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+        server.close();
+        reader.join(1000);
+        ChangeFeed.resetInstance();
+        System.clearProperty(OutboundQueue.CAPACITY_PROPERTY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public int submit() throws IOException {
+        if (batchSize == 1) {
+            for (Order order : orders) connection.send(order);
+        } else {
+            for (int i = 0; i < ORDERS; i += batchSize) {
+                connection.send(new OrderBatch(orders.subList(i, Math.min(i + batchSize, ORDERS))));
+            }
+        }
+
+        OrderList orderList = OrderList.getInstance();
+        while (orderList.getQueueSize(true) < ORDERS) LockSupport.parkNanos(10_000);
+
+        return orderList.getQueueSize(true);
+    }
+}
@@ -0,0 +1,230 @@
+package server;
+
+import interfaces.Connection;
+import item.ItemList;
+import item.SetupItemFile;
+import logs.CoffeeShopLogger;
+import message.Message;
+import message.MessageType;
+import order.DrinkList;
+import order.FoodList;
+import order.Order;
+import order.OrderList;
+import org.openjdk.jmh.annotations.*;
+import protocol.Handshake;
+import services.NotificationService;
+import utils.ThreadMode;
+import workers.Staff;
+import workers.StaffFactory;
+import workers.StaffList;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.logging.Logger;
+
+/**
+ * JMH benchmark comparing platform threads with virtual threads for the blocking server and the staff
+ *
+ * Each invocation connects every client to a blocking server, where each client has its own ClientService thread,
+ * then every client sends one order and waits until it is told the order is complete
+ * The orders are made by the staff, half waiters and half baristas, each on its own thread
+ * The clients themselves are always virtual threads so only the server and the staff change between modes
+ *
+ * The time is how long every order took once all the clients were connected
+ * The peak resident memory, heap used and number of platform threads once every client is connected are printed at the end of each fork
+ *
+ * Each client uses two sockets in the forked JVM, so the open file limit must be more than twice the number of clients
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThreadModeBenchmark {
+    @Param({"PLATFORM", "VIRTUAL"})
+    public ThreadMode mode;
+
+    @Param({"10000"})
+    public int clients;
+
+    @Param({"1000"})
+    public int staff;
+
+    private ItemList menu;
+
+    private ServerSocket serverSocket;
+
+    private ExecutorService serverThreads;
+
+    private Thread acceptThread;
+
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+    private long peakRss;
+
+    private long peakHeap;
+
+    private int peakThreads;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(java.util.logging.Level.OFF);
+
+        // Every completed order plays a sound, which fails and prints an error when there is no audio device
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+
+        System.setProperty(ThreadMode.PROPERTY, mode.name());
+        menu = SetupItemFile.generateItemList();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        OrderList.resetInstance();
+        DrinkList.resetInstance();
+        FoodList.resetInstance();
+        StaffList.resetInstance();
+
+        OrderList orderList = OrderList.getInstance();
+        orderList.setMaxQueueSize(clients);
+
+        NotificationService notificationService = new NotificationService();
+
+        for (int i = 0; i < staff; i++) {
+            StaffFactory.getStaff(i % 2 == 0 ? "waiter" : "barista", "Staff " + i, 5, notificationService);
+        }
+
+        // The fastest simulation speed
+        StaffList.getInstance().setDefaultDelay(100);
+        StaffList.getInstance().getStaffList().values().forEach(Staff::start);
+
+        // Platform threads are pooled, so the pool needs a thread for every client
+        serverThreads = mode.newExecutor(clients);
+        serverSocket = new ServerSocket(0, clients);
+
+        acceptThread = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+
+                    // The handshake is read on the client's own thread, as the blocking server does
+                    serverThreads.submit(() -> {
+                        new ClientService(socket, order -> add(orderList, order), menu).run();
+                        return null;
+                    });
+                } catch (IOException e) {
+                    // The server socket has been closed
+                }
+            }
+        }, "accept");
+        acceptThread.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        for (Staff member : StaffList.getInstance().getStaffList().values()) member.removeStaff();
+
+        serverSocket.close();
+        acceptThread.join();
+
+        for (Connection connection : connections) connection.close();
+        connections.clear();
+
+        // Each ClientService finishes once its client has disconnected
+        serverThreads.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%n%s threads, %d clients, %d staff: peak RSS %d MB, heap used %d MB, platform threads %d%n",
+                mode, clients, staff, peakRss / 1024, peakHeap / (1024 * 1024), peakThreads);
+    }
+
+    @Benchmark
+    public int orders() throws Exception {
+        CountDownLatch connected = new CountDownLatch(clients);
+        CountDownLatch go = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> completed = new ArrayList<>(clients);
+
+            for (int i = 0; i < clients; i++) {
+                completed.add(executor.submit(() -> {
+                    Order order;
+                    Connection connection;
+
+                    try {
+                        connection = Handshake.connect(new Socket("localhost", serverSocket.getLocalPort()));
+                        connections.add(connection);
+
+                        connection.receive();
+                        order = new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                                LocalDateTime.now(), new ArrayList<>(List.of("HD1", "SD1")), menu, true);
+                    } finally {
+                        connected.countDown();
+                    }
+
+                    go.await();
+                    connection.send(order);
+
+                    while (!(connection.receive() instanceof Message message && message.messageType() == MessageType.ORDER_COMPLETE)) {
+                        // Wait for the order to be completed, processing notifications are ignored
+                    }
+
+                    return null;
+                }));
+            }
+
+            connected.await();
+            sampleMemory();
+            go.countDown();
+
+            for (Future<?> future : completed) future.get();
+        }
+
+        return clients;
+    }
+
+    /**
+     * Adds an order to the order list as the simulation would
+     *
+     * @param orderList the order list
+     * @param order the order
+     * @return true if the order was added
+     */
+    private static boolean add(OrderList orderList, Order order) {
+        try {
+            return orderList.add(order);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records the memory and platform threads in use while every client is connected
+     */
+    private void sampleMemory() throws IOException {
+        Path status = Path.of("/proc/self/status");
+
+        for (String line : Files.exists(status) ? Files.readAllLines(status) : List.<String>of()) {
+            if (line.startsWith("VmRSS:")) {
+                peakRss = Math.max(peakRss, Long.parseLong(line.replaceAll("\\D", "")));
+            }
+        }
+
+        peakHeap = Math.max(peakHeap, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        peakThreads = Math.max(peakThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+}
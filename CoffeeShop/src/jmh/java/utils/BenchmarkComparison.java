@@ -0,0 +1,234 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Compares a JMH JSON result with a stored baseline and fails when a benchmark has regressed
+ *
+ * Benchmarks are matched on their name, mode and parameters
+ * Throughput is better when higher, every other mode is better when lower
+ * Run with: mvn -Pbenchmark exec:exec@compare -Djmh.baseline=benchmarks/baseline.json -Djmh.threshold=10
+ */
+public class BenchmarkComparison {
+    /** Percentage a score may get worse by before it counts as a regression */
+    public static final double DEFAULT_THRESHOLD = 10;
+
+    /**
+     * A benchmark's score from one run
+     *
+     * @param key the benchmark, mode and parameters
+     * @param mode the JMH mode, such as "thrpt" or "avgt"
+     * @param score the primary score
+     * @param unit the unit of the score
+     */
+    public record Score(String key, String mode, double score, String unit) {
+        /**
+         * Returns how much worse this score is than the baseline as a percentage, negative if it is better
+         *
+         * @param baseline the baseline score
+         * @return the change
+         */
+        public double regression(Score baseline) {
+            double change = (score - baseline.score) / baseline.score * 100;
+
+            return mode.equals("thrpt") ? -change : change;
+        }
+    }
+
+    /**
+     * Compares the results and prints one line per benchmark
+     *
+     * @param args the baseline file, the result file and optionally the threshold percentage
+     * @throws IOException if a file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <result.json> [threshold %]");
+            System.exit(2);
+        }
+
+        Map<String, Score> baseline = read(Path.of(args[0]));
+        Map<String, Score> result = read(Path.of(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+        List<String> regressions = compare(baseline, result, threshold);
+
+        System.out.println(regressions.isEmpty()
+                ? "No regressions beyond " + threshold + "%"
+                : regressions.size() + " regression(s) beyond " + threshold + "%: " + String.join(", ", regressions));
+
+        if (!regressions.isEmpty()) System.exit(1);
+    }
+
+    /**
+     * Prints how each benchmark compares with the baseline and returns those that regressed
+     *
+     * @param baseline the baseline scores
+     * @param result the new scores
+     * @param threshold percentage a score may get worse by
+     * @return the keys of the benchmarks that regressed
+     */
+    public static List<String> compare(Map<String, Score> baseline, Map<String, Score> result, double threshold) {
+        List<String> regressions = new ArrayList<>();
+
+        // The change is how much worse the score got, so an improvement is negative
+        System.out.printf("%-70s %12s %12s %-8s %8s%n", "Benchmark", "Baseline", "Result", "Unit", "Change");
+
+        for (Score score : result.values()) {
+            Score before = baseline.get(score.key());
+
+            if (before == null) {
+                System.out.printf("%-70s %12.3f %-8s new%n", score.key(), score.score(), score.unit());
+                continue;
+            }
+
+            double regression = score.regression(before);
+            boolean regressed = regression > threshold;
+            if (regressed) regressions.add(score.key());
+
+            System.out.printf("%-70s %12.3f %12.3f %-8s %+7.1f%%%s%n", score.key(), before.score(), score.score(),
+                    score.unit(), regression, regressed ? "  REGRESSION" : "");
+        }
+
+        for (String key : baseline.keySet()) {
+            if (!result.containsKey(key)) System.out.printf("%-70s missing from result%n", key);
+        }
+
+        return regressions;
+    }
+
+    /**
+     * Reads the primary score of each benchmark in a JMH JSON result
+     *
+     * @param file the result file
+     * @return the scores by key, in the order they appear
+     * @throws IOException if the file cannot be read
+     */
+    public static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+
+        for (Object entry : (List<?>) new JsonReader(Files.readString(file)).read()) {
+            Map<?, ?> run = (Map<?, ?>) entry;
+            Map<?, ?> metric = (Map<?, ?>) run.get("primaryMetric");
+
+            // JMH writes "NaN" as a string when a benchmark fails
+            if (!(metric.get("score") instanceof Double score)) continue;
+
+            String mode = (String) run.get("mode");
+            StringBuilder key = new StringBuilder((String) run.get("benchmark")).append(" ").append(mode);
+
+            if (run.get("params") instanceof Map<?, ?> params) {
+                new TreeMap<>(params).forEach((name, value) -> key.append(" ").append(name).append("=").append(value));
+            }
+
+            scores.put(key.toString(), new Score(key.toString(), mode, score, (String) metric.get("scoreUnit")));
+        }
+
+        return scores;
+    }
+
+    /**
+     * Just enough of a JSON reader for JMH results, objects become maps, arrays lists and numbers doubles
+     */
+    private static class JsonReader {
+        private final String json;
+
+        private int position;
+
+        private JsonReader(String json) {
+            this.json = json;
+        }
+
+        private Object read() {
+            skipWhitespace();
+            char next = json.charAt(position);
+
+            if (next == '{') return readObject();
+            if (next == '[') return readArray();
+            if (next == '"') return readString();
+
+            int start = position;
+            while (position < json.length() && ",}] \t\r\n".indexOf(json.charAt(position)) < 0) position++;
+            String literal = json.substring(start, position);
+
+            return switch (literal) {
+                case "true", "false" -> Boolean.parseBoolean(literal);
+                case "null" -> null;
+                default -> Double.parseDouble(literal);
+            };
+        }
+
+        private Map<String, Object> readObject() {
+            Map<String, Object> object = new LinkedHashMap<>();
+            position++;
+
+            while (true) {
+                skipWhitespace();
+                if (json.charAt(position) == '}') break;
+
+                String name = readString();
+                skipWhitespace();
+                position++;
+                object.put(name, read());
+
+                skipWhitespace();
+                if (json.charAt(position) == ',') position++;
+            }
+
+            position++;
+            return object;
+        }
+
+        private List<Object> readArray() {
+            List<Object> array = new ArrayList<>();
+            position++;
+
+            while (true) {
+                skipWhitespace();
+                if (json.charAt(position) == ']') break;
+
+                array.add(read());
+
+                skipWhitespace();
+                if (json.charAt(position) == ',') position++;
+            }
+
+            position++;
+            return array;
+        }
+
+        private String readString() {
+            StringBuilder string = new StringBuilder();
+            position++;
+
+            while (json.charAt(position) != '"') {
+                char next = json.charAt(position++);
+
+                if (next == '\\') {
+                    char escaped = json.charAt(position++);
+                    switch (escaped) {
+                        case 'n' -> string.append('\n');
+                        case 't' -> string.append('\t');
+                        case 'u' -> {
+                            string.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                            position += 4;
+                        }
+                        default -> string.append(escaped);
+                    }
+                } else {
+                    string.append(next);
+                }
+            }
+
+            position++;
+            return string.toString();
+        }
+
+        private void skipWhitespace() {
+            while (position < json.length() && Character.isWhitespace(json.charAt(position))) position++;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package utils;
+
+import item.ItemCategory;
+import item.ItemList;
+import item.SetupItemFile;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the DiscountDataStructure with the original list based version
+ *
+ * Each benchmark adds the entries a pair scan finds for a random order and then removes every discount to apply
+ * listVersion uses the original ArrayList of boxed entries, removeEntry uses the primitive heap through the same methods
+ * and next uses the allocation free methods on a data structure that is cleared and reused
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiscountDataStructureBenchmark {
+    /** Number of items in the order */
+    @Param({"10", "100", "1000"})
+    public int items;
+
+    private Discount[] discounts;
+
+    private int[] items1;
+
+    private int[] items2;
+
+    private DiscountDataStructure reused;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ItemList menu = SetupItemFile.generateItemList();
+        String[] itemIDs = menu.getItemIDs();
+        Map<Set<ItemCategory>, Discount> rules = Discount.createDiscounts();
+        Random random = new Random(items);
+
+        ItemCategory[] order = new ItemCategory[items];
+        for (int i = 0; i < items; i++) order[i] = menu.getCategory(itemIDs[random.nextInt(itemIDs.length)]);
+
+        List<int[]> pairs = new ArrayList<>();
+        List<Discount> found = new ArrayList<>();
+
+        // Every tenth item is treated as the daily special
+        for (int i = 0; i < items; i += 10) {
+            found.add(Discount.DAILY_SPECIAL);
+            pairs.add(new int[] { i, i });
+        }
+
+        for (int i = 0; i < items; i++) {
+            for (int j = i + 1; j < items; j++) {
+                Discount d = order[i] == order[j] ? null : rules.get(Set.of(order[i], order[j]));
+                if (d != null) {
+                    found.add(d);
+                    pairs.add(new int[] { i, j });
+                }
+            }
+        }
+
+        discounts = found.toArray(new Discount[0]);
+        items1 = pairs.stream().mapToInt(p -> p[0]).toArray();
+        items2 = pairs.stream().mapToInt(p -> p[1]).toArray();
+
+        reused = new DiscountDataStructure();
+    }
+
+    @Benchmark
+    public void listVersion(Blackhole blackhole) {
+        LegacyDiscountDataStructure structure = new LegacyDiscountDataStructure();
+
+        for (int i = 0; i < discounts.length; i++) structure.addEntry(discounts[i], items1[i], items2[i]);
+
+        ArrayList<Object> entry;
+        while ((entry = structure.removeEntry()) != null) blackhole.consume(entry);
+    }
+
+    @Benchmark
+    public void removeEntry(Blackhole blackhole) {
+        DiscountDataStructure structure = new DiscountDataStructure();
+
+        for (int i = 0; i < discounts.length; i++) structure.addEntry(discounts[i], items1[i], items2[i]);
+
+        ArrayList<Object> entry;
+        while ((entry = structure.removeEntry()) != null) blackhole.consume(entry);
+    }
+
+    @Benchmark
+    public void next(Blackhole blackhole) {
+        reused.clear();
+
+        for (int i = 0; i < discounts.length; i++) reused.addEntry(discounts[i], items1[i], items2[i]);
+
+        while (reused.next()) {
+            blackhole.consume(reused.getItem1());
+            blackhole.consume(reused.getItem2());
+        }
+    }
+}
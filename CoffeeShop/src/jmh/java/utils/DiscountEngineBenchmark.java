@@ -0,0 +1,83 @@
+package utils;
+
+import item.ItemList;
+import item.SetupItemFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the cost of changing an order of increasing size
+ *
+ * pairScan is the work the original Order did on every addItem and removeItem (a full scan of every pair)
+ * engineAddRemove adds an item to the DiscountEngine and removes it again
+ * engineRebuild adds every item to a new DiscountEngine at once, which is what happens when an order is read from file
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiscountEngineBenchmark {
+    /** Number of items in the order */
+    @Param({"10", "100", "1000"})
+    public int items;
+
+    private ItemList menu;
+
+    private List<String> details;
+
+    private DiscountEngine engine;
+
+    /** Items added and removed by engineAddRemove, cycled through so every category is tried */
+    private String[] extraItems;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        menu = SetupItemFile.generateItemList();
+        String[] itemIDs = menu.getItemIDs();
+        Random random = new Random(items);
+
+        details = new ArrayList<>(items);
+        engine = new DiscountEngine();
+
+        for (int i = 0; i < items; i++) {
+            String itemID = itemIDs[random.nextInt(itemIDs.length)];
+            details.add(itemID);
+            engine.add(itemID, menu.getCategory(itemID), menu.getCost(itemID));
+        }
+
+        extraItems = itemIDs;
+    }
+
+    @Benchmark
+    public double pairScan() {
+        return LegacyDiscountCalculator.discountedCost(details, menu);
+    }
+
+    @Benchmark
+    public double engineAddRemove() {
+        String itemID = extraItems[next++ % extraItems.length];
+
+        engine.add(itemID, menu.getCategory(itemID), menu.getCost(itemID));
+        double discountedCost = engine.getDiscountedCost();
+        engine.remove(engine.size() - 1);
+
+        return discountedCost;
+    }
+
+    @Benchmark
+    public double engineRebuild() {
+        DiscountEngine rebuilt = new DiscountEngine();
+
+        rebuilt.addAll(details, menu);
+
+        return rebuilt.getDiscountedCost();
+    }
+}
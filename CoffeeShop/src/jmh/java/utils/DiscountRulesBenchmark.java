@@ -0,0 +1,63 @@
+package utils;
+
+import item.ItemCategory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the discount map each order used to build with the shared DiscountRules table
+ * Run with -prof gc to see the allocation per operation
+ *
+ * createMap is the map every Order constructor built, sharedTable is what an order does now
+ * mapLookup and tableLookup look up the discount for every pair of categories
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DiscountRulesBenchmark {
+    private static final ItemCategory[] CATEGORIES = ItemCategory.values();
+
+    private Map<Set<ItemCategory>, Discount> map;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        map = Discount.createDiscounts();
+    }
+
+    @Benchmark
+    public Map<Set<ItemCategory>, Discount> createMap() {
+        return Discount.createDiscounts();
+    }
+
+    @Benchmark
+    public DiscountRules sharedTable() {
+        return DiscountRules.current();
+    }
+
+    @Benchmark
+    public void mapLookup(Blackhole blackhole) {
+        for (ItemCategory first : CATEGORIES) {
+            for (ItemCategory second : CATEGORIES) {
+                if (first != second) blackhole.consume(map.get(Set.of(first, second)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void tableLookup(Blackhole blackhole) {
+        DiscountRules rules = DiscountRules.current();
+
+        for (ItemCategory first : CATEGORIES) {
+            for (ItemCategory second : CATEGORIES) {
+                blackhole.consume(rules.getDiscount(first, second));
+            }
+        }
+    }
+}
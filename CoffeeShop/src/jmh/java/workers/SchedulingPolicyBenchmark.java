@@ -0,0 +1,120 @@
+package workers;
+
+import item.ItemList;
+import item.SetupItemFile;
+import logs.CoffeeShopLogger;
+import order.DrinkList;
+import order.FoodList;
+import order.Order;
+import order.OrderList;
+import order.SchedulingPolicyFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import services.NotificationService;
+import utils.LatencyHistogram;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * JMH simulation benchmark of order latency under each scheduling policy
+ *
+ * Each invocation queues a batch of orders of one to five items, a third of them online, placed up to fifteen minutes ago,
+ * which are made by two waiters, two chefs and two baristas
+ * The score is how long the whole batch took, the p50, p95 and p99 time from each order being added until it was complete
+ * over the measurement iterations is printed at the end of each fork
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SchedulingPolicyBenchmark {
+    /** Items the orders are made from, cycled through */
+    private static final List<String> ITEMS = List.of("HD1", "FD1", "SD1", "RL1", "PSY1");
+
+    @Param({"Channel Priority", "Weighted Fair", "Earliest Deadline", "Shortest Job"})
+    public String policy;
+
+    @Param({"60"})
+    public int orders;
+
+    private ItemList menu;
+
+    private OrderList orderList;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(java.util.logging.Level.OFF);
+
+        // Every completed order plays a sound, which fails and prints an error when there is no audio device
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+
+        menu = SetupItemFile.generateItemList();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        OrderList.resetInstance();
+        DrinkList.resetInstance();
+        FoodList.resetInstance();
+        StaffList.resetInstance();
+        RoleMetrics.resetAll();
+
+        orderList = OrderList.getInstance();
+        orderList.setMaxQueueSize(orders);
+        orderList.setSchedulingPolicy(SchedulingPolicyFactory.getPolicy(policy));
+
+        NotificationService notificationService = new NotificationService();
+
+        for (String role : List.of("waiter", "chef", "barista", "waiter", "chef", "barista")) {
+            StaffFactory.getStaff(role, role, 5, notificationService);
+        }
+
+        // The fastest simulation speed
+        StaffList.getInstance().setDefaultDelay(100);
+        StaffList.getInstance().getStaffList().values().forEach(Staff::start);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown(IterationParams params) {
+        for (Staff member : StaffList.getInstance().getStaffList().values()) member.removeStaff();
+
+        if (params.getType() == IterationType.MEASUREMENT) latency.add(orderList.getOrderLatency());
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%n%s order latency: %s%n", policy, latency);
+    }
+
+    @Benchmark
+    public int orders() throws Exception {
+        // The same batch every invocation, so each policy is given the same work
+        Random random = new Random(42);
+
+        for (int i = 0; i < orders; i++) {
+            ArrayList<String> items = new ArrayList<>();
+            for (int j = random.nextInt(5); j >= 0; j--) items.add(ITEMS.get(random.nextInt(ITEMS.size())));
+
+            orderList.add(new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                    LocalDateTime.now().minusSeconds(random.nextInt(15 * 60)), items, menu, i % 3 == 0));
+        }
+
+        while (orderList.getCompletedOrderCount() < orders) Thread.sleep(1);
+
+        return orders;
+    }
+}
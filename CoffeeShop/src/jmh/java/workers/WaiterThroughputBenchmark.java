@@ -0,0 +1,111 @@
+package workers;
+
+import item.ItemList;
+import item.SetupItemFile;
+import logs.CoffeeShopLogger;
+import order.DrinkList;
+import order.FoodList;
+import order.Order;
+import order.OrderList;
+import org.openjdk.jmh.annotations.*;
+import services.NotificationService;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * JMH benchmark of how quickly the staff complete a batch of orders with waiters holding one or several orders in flight
+ *
+ * The scenario is ThreadTest scaled up: the same three orders repeated, taken by two waiters
+ * With two chefs and two baristas making the items is the bottleneck, with more a waiter holding one order at a time is
+ * The time is how long every order took from being added until it was complete
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WaiterThroughputBenchmark {
+    /** The items of each order in ThreadTest */
+    private static final List<List<String>> ORDERS = List.of(
+            List.of("RL1", "HD4", "SD7", "PSY1"),
+            List.of("FD3", "HD5", "RL1", "SD1"),
+            List.of("RL3", "HD1", "PSY2"));
+
+    @Param({"1", "3"})
+    public int maxOrdersInFlight;
+
+    @Param({"60"})
+    public int orders;
+
+    /** How many chefs and how many baristas */
+    @Param({"2", "6"})
+    public int makers;
+
+    private ItemList menu;
+
+    private OrderList orderList;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(java.util.logging.Level.OFF);
+
+        // Every completed order plays a sound, which fails and prints an error when there is no audio device
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+
+        menu = SetupItemFile.generateItemList();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        OrderList.resetInstance();
+        DrinkList.resetInstance();
+        FoodList.resetInstance();
+        StaffList.resetInstance();
+        RoleMetrics.resetAll();
+
+        orderList = OrderList.getInstance();
+        orderList.setMaxQueueSize(orders);
+
+        NotificationService notificationService = new NotificationService();
+
+        for (int i = 0; i < 2; i++) {
+            Waiter waiter = (Waiter) StaffFactory.getStaff("waiter", "Waiter " + i, 5, notificationService);
+            waiter.setMaxOrdersInFlight(maxOrdersInFlight);
+        }
+
+        for (int i = 0; i < makers; i++) {
+            StaffFactory.getStaff("chef", "Chef " + i, 5, notificationService);
+            StaffFactory.getStaff("barista", "Barista " + i, 5, notificationService);
+        }
+
+        // The fastest simulation speed
+        StaffList.getInstance().setDefaultDelay(100);
+        StaffList.getInstance().getStaffList().values().forEach(Staff::start);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        for (Staff member : StaffList.getInstance().getStaffList().values()) member.removeStaff();
+    }
+
+    @Benchmark
+    public int orders() throws Exception {
+        for (int i = 0; i < orders; i++) {
+            orderList.add(new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                    LocalDateTime.now(), new ArrayList<>(ORDERS.get(i % ORDERS.size())), menu, true));
+        }
+
+        while (orderList.getCompletedOrderCount() < orders) Thread.sleep(1);
+
+        return orders;
+    }
+}
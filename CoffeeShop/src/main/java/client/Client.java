@@ -1,16 +1,27 @@
 package client;
 
+import interfaces.Connection;
 import item.ItemList;
+import feed.Change;
+import feed.Delta;
+import feed.FeedReplica;
+import feed.FeedSnapshot;
+import feed.ResyncRequest;
 import logs.CoffeeShopLogger;
 import order.Order;
 import message.Message;
+import message.MessageType;
+import protocol.BinaryCodec;
+import protocol.Handshake;
+import protocol.MenuSnapshot;
+import protocol.OrderBatch;
 import server.Server;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The Client Class
@@ -20,27 +31,36 @@ public class Client {
     private final Socket socket;
     private static String host = "localhost";
     private static int port = 9876;
-    private final ObjectInputStream inputStream;
-    private final ObjectOutputStream outputStream;
+    private final Connection connection;
     private static final CoffeeShopLogger logger = CoffeeShopLogger.getInstance();
     private final CustomerModel customerModel;
     private final CustomerView customerView;
 
+    /** The last menu sent by the server, kept between runs so the server only sends what has changed */
+    private final MenuCache menuCache = MenuCache.current();
+
+    /** The orders and menu as last sent by the server */
+    private final FeedReplica replica = new FeedReplica();
+
+    /** The sequence number asked for after a gap, so each gap is only asked for once */
+    private long resyncRequested;
+
+    /** Orders sent in a batch that the server has not yet answered, by order ID */
+    private final Map<UUID, CompletableFuture<Message>> pendingAcks = new ConcurrentHashMap<>();
+
     /**
      * Constructor for initialising a client
-     * Initialises the output/input streams for sending/receiving
-     * objects
+     * Agrees a protocol with the server and opens the
+     * connection for sending/receiving objects, naming the cached menu if there is one
      * @param socket the client's socket
-     * @throws IOException if creation of a stream fails
+     * @throws IOException if the handshake or creation of a stream fails
      */
     public Client(Socket socket, CustomerView view, CustomerModel customerModel) throws IOException {
         this.socket = socket;
         this.customerModel = customerModel;
         this.customerView = view;
-        this.outputStream = new ObjectOutputStream(socket.getOutputStream());
-        outputStream.flush();
-        this.inputStream = new ObjectInputStream(socket.getInputStream());
-        Server.addClient(outputStream);
+        this.connection = Handshake.connect(socket, menuCache.load());
+        Server.addClient(connection);
     }
 
     /**
@@ -54,17 +74,15 @@ public class Client {
         this.socket = socket;
         Client.host = host;
         Client.port = port;
-        this.outputStream = new ObjectOutputStream(socket.getOutputStream());
         this.customerModel = customerModel;
         this.customerView = view;
-        outputStream.flush();
-        this.inputStream = new ObjectInputStream(socket.getInputStream());
-        Server.addClient(outputStream);
+        this.connection = Handshake.connect(socket, menuCache.load());
+        Server.addClient(connection);
     }
 
     /**
      * Sends an {@link Order} object to the server
-     * The order is serialized and sent using {@link ObjectOutputStream}.
+     * The order is sent using the protocol agreed with the server
      *
      * @param order the {@link Order} object to be sent
      * @throws IOException if an I/O error occurs while sending the object
@@ -75,8 +93,48 @@ public class Client {
 
         logger.logInfo("Sending order: " + order.getOrderID());
 
-        outputStream.writeObject(order);
-        outputStream.flush();
+        connection.send(order);
+    }
+
+    /**
+     * Sends several {@link Order} objects to the server in one frame
+     * The server answers each order with an ORDER_RECEIVED or ERROR message, which completes the order's future,
+     * so more orders can be sent without waiting for the answers
+     * A server too old for batches is sent each order on its own, and the future completes when the order is picked up
+     *
+     * @param orders the orders to be sent
+     * @return a future for each order, in the same order, completed with the server's answer
+     * @throws IOException if an I/O error occurs while sending the orders
+     * @throws NullPointerException if any order is null
+     */
+    public List<CompletableFuture<Message>> sendOrders(List<Order> orders) throws IOException {
+        List<CompletableFuture<Message>> acks = new ArrayList<>(orders.size());
+
+        for (Order order : orders) {
+            if (Order.isInvalidOrder(order)) throw new NullPointerException("Order cannot be null");
+        }
+
+        // Registered before sending so an answer can not arrive first
+        for (Order order : orders) {
+            CompletableFuture<Message> ack = new CompletableFuture<>();
+            pendingAcks.put(order.getOrderID(), ack);
+            acks.add(ack);
+        }
+
+        logger.logInfo("Sending batch of " + orders.size() + " orders");
+
+        try {
+            if (connection.getVersion() >= BinaryCodec.BATCH_VERSION) {
+                connection.send(new OrderBatch(orders));
+            } else {
+                for (Order order : orders) connection.send(order);
+            }
+        } catch (IOException e) {
+            for (Order order : orders) pendingAcks.remove(order.getOrderID());
+            throw e;
+        }
+
+        return acks;
     }
 
     /**
@@ -91,38 +149,30 @@ public class Client {
     }
 
     /**
-     * Closes the client's I/O streams and attempts to close the socket
-     * This method closes both the {@link ObjectOutputStream} and
-     * {@link ObjectInputStream} to release resources. It also attempts
-     * to close the {@link Socket}, even if stream closures fail
+     * Closes the client's connection and attempts to close the socket
+     * This method closes the {@link Connection} to release resources.
+     * It also attempts to close the {@link Socket}, even if closing
+     * the connection fails
      *
      * <p><b>Note:</b> If multiple errors occur during cleanup, the
      * first encountered {@link IOException} is thrown</p>
      *
-     * @return  IOException if an I/O error occurs while closing the output or input stream
+     * @return  IOException if an I/O error occurs while closing the connection
      */
     public synchronized IOException close() {
-        // p.s I hate these multiple try catches
-        // but since these can independently fail to
-        // close it is needed in case one fails to close
-        // so we can still try close the others
+        // The socket is closed separately so it is
+        // still closed if the connection fails to close
         IOException exception = null;
 
         // Remove the connection from the list
-        Server.removeClient(outputStream);
+        Server.removeClient(connection);
 
         try {
-            outputStream.close();
+            connection.close();
         } catch (IOException e) {
             exception = e;
         }
 
-        try {
-            inputStream.close();
-        } catch (IOException e) {
-            if (exception == null) exception = e;
-        }
-
         try {
             socket.close();
         } catch (IOException e) {
@@ -141,7 +191,7 @@ public class Client {
         Thread listenerThread = new Thread(() -> {
             try {
                 while (true) {
-                    Object object = inputStream.readObject();
+                    Object object = connection.receive();
 
                     if (object == null) {
                         logger.logWarning("Received object is null");
@@ -164,7 +214,8 @@ public class Client {
     /**
      * Processes an object received from the server
      * <p>
-     * This method supports the following types: {@link ItemList} and {@link Message}.
+     * This method supports the following types: {@link ItemList}, {@link MenuSnapshot}, {@link FeedSnapshot},
+     * {@link Delta} and {@link Message}.
      * </p>
      *
      * @param object the received object to process
@@ -176,13 +227,77 @@ public class Client {
             customerModel.updateItemList(itemList);
         }
 
+        if (object instanceof MenuSnapshot menu) {
+            replica.resetMenu(menu.items());
+            menuCache.save(menu);
+            customerModel.updateItemList(menu.toMap());
+        }
+
+        if (object instanceof FeedSnapshot snapshot) {
+            // A snapshot without a menu means the menu already sent is still current
+            replica.reset(snapshot);
+            if (snapshot.menu() != null) cacheMenu();
+            customerModel.updateItemList(replica.getMenu());
+        }
+
+        if (object instanceof Delta delta) {
+            processDelta(delta);
+        }
+
         if (object instanceof Message) {
             Message message = receiveMessage(object);
-            customerView.showPopup(message.toString());
+            CompletableFuture<Message> ack = isAck(message) ? pendingAcks.remove(message.orderID()) : null;
+
+            // An answer to a batch goes to whoever sent it rather than a popup for every order
+            if (ack != null) ack.complete(message);
+            else customerView.showPopup(message.toString());
         }
 
-        if (!(object instanceof Message || object instanceof ItemList)) {
+        if (!(object instanceof Message || object instanceof ItemList || object instanceof MenuSnapshot
+                || object instanceof FeedSnapshot || object instanceof Delta)) {
             logger.logWarning("Unknown object type: " + object.getClass().getName());
         }
     }
+
+    /**
+     * Checks if a message answers an order sent in a batch
+     *
+     * @param message the message
+     * @return true if the message says the order was received or failed
+     */
+    private static boolean isAck(Message message) {
+        return message.messageType() == MessageType.ORDER_RECEIVED || message.messageType() == MessageType.ERROR;
+    }
+
+    /**
+     * Applies a delta to the replica, asking the server for the missing deltas if some have been missed
+     *
+     * @param delta the delta
+     * @throws IOException if the resync request cannot be sent
+     */
+    private void processDelta(Delta delta) throws IOException {
+        if (!replica.apply(delta)) {
+            long from = replica.getSequence() + 1;
+
+            if (resyncRequested != from) {
+                resyncRequested = from;
+                connection.send(new ResyncRequest(from));
+            }
+
+            return;
+        }
+
+        if (delta.change() instanceof Change.PriceChanged || delta.change() instanceof Change.ItemAdded
+                || delta.change() instanceof Change.ItemRemoved || delta.change() instanceof Change.MenuReplaced) {
+            cacheMenu();
+            customerModel.updateItemList(replica.getMenu());
+        }
+    }
+
+    /**
+     * Saves the replica's menu as the cached menu
+     */
+    private void cacheMenu() {
+        menuCache.save(new MenuSnapshot(List.copyOf(replica.getMenu().values())));
+    }
 }
@@ -12,6 +12,7 @@ import utils.Discount;
 
 import javax.swing.*;
 import java.util.List;
+import java.util.Map;
 
 /**
  * CustomerModel represents the model layer for managing customer orders
@@ -158,6 +159,15 @@ public class CustomerModel {
         itemList.updateItems(updatedItemList.getMenu());
     }
 
+    /**
+     * Updates the item list with the items of a menu received from the server.
+     *
+     * @param updatedItems the new items keyed by item ID
+     */
+    public void updateItemList(Map<String, Item> updatedItems) {
+        itemList.updateItems(updatedItems);
+    }
+
     /**
      * Retrieves the current order.
      *
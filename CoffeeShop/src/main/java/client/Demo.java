@@ -5,6 +5,7 @@ import item.Item;
 import item.Item;
 import item.ItemFileReader;
 import item.ItemList;
+import item.MenuReloader;
 import logs.CoffeeShopLogger;
 import order.OrderFileReadWrite;
 import services.NotificationService;
@@ -30,6 +31,7 @@ import java.util.Random;
 public class Demo {
     private static OrderFileReadWrite orderReader;
     private static ItemFileReader itemReader;
+    private static MenuReloader menuReloader;
     private static CustomerView view;
     private static SimUIView simView;
     private static SimUIModel simModel;
@@ -124,6 +126,8 @@ public class Demo {
 
         Waiter.addBackAllCurrentOrders();
 
+        if (menuReloader != null) menuReloader.close();
+
         try {
             orderReader.writeToFile();
         } catch (Exception e) {
@@ -139,6 +143,7 @@ public class Demo {
      * <p>
      * This method uses {@code ItemFileReader} to read the menu from {@code menu.txt}
      * and {@code OrderFileReadWrite} to load existing orders from {@code orders.txt}
+     * The menu is then reloaded by a {@code MenuReloader} whenever {@code menu.txt} changes
      * </p>
      *
      * <p>
@@ -153,6 +158,13 @@ public class Demo {
             throw new RuntimeException(e);
         }
 
+        menuReloader = new MenuReloader(itemReader.getFilePath().toPath(), ItemList.getInstance());
+        try {
+            menuReloader.start();
+        } catch (IOException e) {
+            coffeeShopLogger.logWarning("Unable to watch menu.txt, the menu will not be reloaded: " + e.getMessage());
+        }
+
         orderReader = new OrderFileReadWrite("orders.txt");
         try {
             orderReader.readFile();
@@ -0,0 +1,107 @@
+package client;
+
+import logs.CoffeeShopLogger;
+import protocol.BinaryCodec;
+import protocol.MenuSnapshot;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps the last menu a client was sent in a file, so the next time it connects it can name that menu
+ * in the handshake and the server only has to send what has changed
+ *
+ * The file holds the menu as BinaryCodec writes it, and is replaced in one step so a client that stops
+ * part way through saving never leaves half a menu behind
+ * A missing or unreadable file is the same as an empty cache, the server then sends the whole menu
+ */
+public class MenuCache {
+    /** System property that sets the cache file */
+    public static final String PROPERTY = "coffeeshop.menu.cache";
+
+    /** Written at the start of the file, "CSMC" */
+    private static final int MAGIC = 0x43534D43;
+
+    private static final CoffeeShopLogger logger = CoffeeShopLogger.getInstance();
+
+    private final Path file;
+
+    /** Hash of the menu last loaded or saved, so an unchanged menu is not written again */
+    private long savedHash = MenuSnapshot.NO_HASH;
+
+    /**
+     * Constructor
+     *
+     * @param file the cache file
+     */
+    public MenuCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the cache set by the system property, or a file in the user's home folder
+     *
+     * @return the cache
+     */
+    public static MenuCache current() {
+        String file = System.getProperty(PROPERTY);
+
+        return new MenuCache(file != null ? Path.of(file) : Path.of(System.getProperty("user.home"), ".coffeeshop", "menu.cache"));
+    }
+
+    /**
+     * Reads the cached menu
+     *
+     * @return the menu, or null if there is none or it can not be read
+     */
+    public synchronized MenuSnapshot load() {
+        if (!Files.exists(file)) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new StreamCorruptedException("Not a menu cache");
+
+            MenuSnapshot menu = BinaryCodec.readMenu(in);
+            savedHash = menu.hash();
+
+            return menu;
+        } catch (IOException e) {
+            logger.logWarning("Ignoring menu cache " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Saves a menu in place of the cached one
+     * Failing to save is only logged, as the client still has the menu and will be sent it again next time
+     *
+     * @param menu the menu
+     */
+    public synchronized void save(MenuSnapshot menu) {
+        long hash = menu.hash();
+        if (hash == savedHash) return;
+
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+
+            Path saving = file.resolveSibling(file.getFileName() + ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(saving)))) {
+                out.writeInt(MAGIC);
+                BinaryCodec.writeMenu(out, menu.items());
+            }
+
+            try {
+                Files.move(saving, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(saving, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            savedHash = hash;
+        } catch (IOException e) {
+            logger.logWarning("Could not save menu cache " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -5,15 +5,19 @@ import exceptions.InvalidOrderException;
 import exceptions.StaffNullNameException;
 import interfaces.INotificationService;
 import interfaces.Observer;
+import interfaces.OrderHandler;
+import interfaces.SchedulingPolicy;
 import interfaces.Subject;
 import item.ItemList;
 import logs.CoffeeShopLogger;
 import order.Order;
 import order.OrderList;
+import order.SchedulingPolicyFactory;
 import server.Server;
 import workers.*;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
@@ -24,7 +28,7 @@ import java.util.concurrent.Executors;
  * NotificationService is injected using Dependency Injection
  * @author Caelan Mackenzie
  */
-public class SimUIModel extends Subject implements Observer {
+public class SimUIModel extends Subject implements Observer, OrderHandler {
     private final INotificationService notificationService;
     private final OrderList orderList;
     private final ItemList menu;
@@ -131,6 +135,43 @@ public class SimUIModel extends Subject implements Observer {
         notifyObservers();
     }
 
+    /**
+     * Method to return the names of the policies the waiters can use to pick the next order
+     *
+     * @return the policy names
+     */
+    public List<String> getSchedulingPolicies() {
+        return SchedulingPolicyFactory.POLICIES;
+    }
+
+    /**
+     * Method to return the name of the policy the waiters are using to pick the next order
+     *
+     * @return the policy name
+     */
+    public String getSchedulingPolicy() {
+        return orderList.getSchedulingPolicy().getName();
+    }
+
+    /**
+     * Changes the policy the waiters use to pick the next order, while the simulation is running
+     *
+     * @param name the name of the policy
+     * @return true if the policy was changed, false if there is no policy with that name
+     */
+    public boolean setSchedulingPolicy(String name) {
+        SchedulingPolicy policy = SchedulingPolicyFactory.getPolicy(name);
+
+        if (policy == null) {
+            logger.logWarning("Unknown scheduling policy: " + name);
+            return false;
+        }
+
+        orderList.setSchedulingPolicy(policy);
+        notifyObservers();
+        return true;
+    }
+
     /**
      * Adds the selected popup controller to the list of current staff details popups
      * @param popup the Controller of the popup UI that is to be added
@@ -218,6 +259,7 @@ public class SimUIModel extends Subject implements Observer {
      * @param order the order to add
      * @return true if added successfully, false otherwise
      */
+    @Override
     public boolean addOrder(Order order) {
         try {
             return orderList.add(order);
@@ -228,6 +270,17 @@ public class SimUIModel extends Subject implements Observer {
         return false;
     }
 
+    /**
+     * Adds a batch of orders received from a client to the order list in one step
+     *
+     * @param orders the orders
+     * @return whether each order was added, in the same order as the batch
+     */
+    @Override
+    public boolean[] addOrders(List<Order> orders) {
+        return orderList.addAll(orders);
+    }
+
     /**
      * Starts the simulation server on a separate thread
      */
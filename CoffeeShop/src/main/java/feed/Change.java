@@ -0,0 +1,65 @@
+package feed;
+
+import item.Item;
+import order.OrderState;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A single change to the order queue or the menu
+ * Applying a change more than once has the same effect as applying it once
+ */
+public sealed interface Change extends Serializable {
+    /**
+     * An order was added to the queue
+     *
+     * @param order the order
+     */
+    record OrderAdded(OrderSummary order) implements Change {}
+
+    /**
+     * An order was taken by a waiter or put back in the queue
+     *
+     * @param orderID the ID of the order
+     * @param state the new state of the order
+     */
+    record OrderMoved(UUID orderID, OrderState state) implements Change {}
+
+    /**
+     * An order was completed and left the queue
+     *
+     * @param orderID the ID of the order
+     */
+    record OrderCompleted(UUID orderID) implements Change {}
+
+    /**
+     * The price of an item changed
+     *
+     * @param itemID the ID of the item
+     * @param cost the new price
+     */
+    record PriceChanged(String itemID, double cost) implements Change {}
+
+    /**
+     * An item was added to the menu
+     *
+     * @param item the item
+     */
+    record ItemAdded(Item item) implements Change {}
+
+    /**
+     * An item was taken off the menu
+     *
+     * @param itemID the ID of the item
+     */
+    record ItemRemoved(String itemID) implements Change {}
+
+    /**
+     * The whole menu was replaced
+     *
+     * @param items the items on the new menu, in menu order
+     */
+    record MenuReplaced(List<Item> items) implements Change {}
+}
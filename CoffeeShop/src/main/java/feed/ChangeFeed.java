@@ -0,0 +1,244 @@
+package feed;
+
+import item.Item;
+import logs.CoffeeShopLogger;
+import utils.ThreadMode;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Singleton class giving every change to the order queue and the menu a sequence number
+ *
+ * The OrderList and ItemList publish a change each time they are changed, the feed numbers it,
+ * keeps it in a fixed size history and passes it to every subscriber in sequence order on its own thread,
+ * so publishing never waits for a client
+ *
+ * The feed also keeps the orders that are waiting or being made, so a snapshot for a new client
+ * only holds the live orders and never the order history
+ * A client that has missed deltas asks for them by sequence number, if they have left the history it is sent a new snapshot
+ */
+public class ChangeFeed {
+    /** Number of deltas kept for clients that fall behind */
+    public static final int DEFAULT_HISTORY = 4096;
+
+    private static final CoffeeShopLogger logger = CoffeeShopLogger.getInstance();
+
+    private static ChangeFeed instance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** The most recent deltas, the delta with sequence number n is at n % history.length */
+    private final Delta[] history;
+
+    /** The orders waiting or being made */
+    private final FeedReplica live = new FeedReplica();
+
+    private final List<Consumer<Delta>> subscribers = new CopyOnWriteArrayList<>();
+
+    /** Deltas waiting to be given to the subscribers, and new subscribers waiting to be added, in order */
+    private final BlockingQueue<Runnable> outbound = new LinkedBlockingQueue<>();
+
+    private long sequence;
+
+    private Thread dispatcher;
+
+    /**
+     * Constructor for a feed with the default history
+     */
+    private ChangeFeed() {
+        this(DEFAULT_HISTORY);
+    }
+
+    /**
+     * Constructor for a feed
+     *
+     * @param historySize the number of deltas kept for clients that fall behind
+     * @throws IllegalArgumentException if the history size is not positive
+     */
+    ChangeFeed(int historySize) {
+        if (historySize < 1) throw new IllegalArgumentException("History size must be positive");
+        history = new Delta[historySize];
+    }
+
+    /**
+     * Numbers a change, adds it to the history and queues it for the subscribers
+     *
+     * @param change the change
+     * @return the delta
+     */
+    public Delta publish(Change change) {
+        lock.lock();
+        try {
+            Delta delta = new Delta(++sequence, change);
+            history[(int) (delta.sequence() % history.length)] = delta;
+            live.apply(delta);
+
+            // Queued under the lock so subscribers see deltas in sequence order
+            if (!subscribers.isEmpty()) outbound.add(() -> deliver(delta));
+
+            return delta;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the deltas from a sequence number up to the latest
+     *
+     * @param fromSequence the sequence number of the first delta wanted
+     * @return the deltas, empty if the first one wanted is no longer kept or has not been published
+     */
+    public Optional<List<Delta>> since(long fromSequence) {
+        lock.lock();
+        try {
+            if (fromSequence < 1 || fromSequence > sequence + 1 || fromSequence <= sequence - history.length) {
+                return Optional.empty();
+            }
+
+            List<Delta> deltas = new ArrayList<>((int) (sequence - fromSequence + 1));
+            for (long s = fromSequence; s <= sequence; s++) deltas.add(history[(int) (s % history.length)]);
+
+            return Optional.of(deltas);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the live orders and the menu at the latest sequence number
+     * The menu is read as it is now, so it may already include a change published after the snapshot,
+     * which does no harm as changes can be applied twice
+     *
+     * @param menu the items on the menu, null to leave the menu out for a client that already has it
+     * @return the snapshot
+     */
+    public FeedSnapshot snapshot(Collection<Item> menu) {
+        lock.lock();
+        try {
+            return new FeedSnapshot(sequence, List.copyOf(live.getOrders()), menu == null ? null : List.copyOf(menu));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the sequence number of the latest delta
+     *
+     * @return the sequence number, 0 if nothing has been published
+     */
+    public long getSequence() {
+        lock.lock();
+        try {
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registers a subscriber to be given every delta published after it has been added
+     * The subscriber is added on the feed's thread and then onSubscribed is run there, so a snapshot taken
+     * in onSubscribed reaches the subscriber before any delta that is not in it
+     * Subscribers are called one at a time on the feed's thread, so they should not block for long
+     *
+     * @param subscriber the subscriber
+     * @param onSubscribed run once the subscriber has been added, before it is given any delta
+     */
+    public void subscribe(Consumer<Delta> subscriber, Runnable onSubscribed) {
+        lock.lock();
+        try {
+            outbound.add(() -> {
+                subscribers.add(subscriber);
+                onSubscribed.run();
+            });
+
+            if (dispatcher == null) {
+                dispatcher = ThreadMode.current().builder("change-feed").unstarted(this::dispatch);
+                dispatcher.setDaemon(true);
+                dispatcher.start();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a subscriber
+     *
+     * @param subscriber the subscriber
+     */
+    public void unsubscribe(Consumer<Delta> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Runs each queued delivery and subscription in order until the feed's thread is interrupted
+     */
+    private void dispatch() {
+        try {
+            while (true) {
+                try {
+                    outbound.take().run();
+                } catch (RuntimeException e) {
+                    logger.logWarning("Change feed subscriber failed: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gives a delta to every subscriber
+     *
+     * @param delta the delta
+     */
+    private void deliver(Delta delta) {
+        for (Consumer<Delta> subscriber : subscribers) {
+            try {
+                subscriber.accept(delta);
+            } catch (RuntimeException e) {
+                // One failing client must not stop the others getting the delta
+                logger.logWarning("Change feed subscriber failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops the feed's thread, deltas not yet given to subscribers are dropped
+     */
+    void close() {
+        lock.lock();
+        try {
+            if (dispatcher != null) dispatcher.interrupt();
+            subscribers.clear();
+            outbound.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method to return singleton instance of class
+     *
+     * @return the class instance
+     */
+    public static synchronized ChangeFeed getInstance() {
+        if (instance == null) instance = new ChangeFeed();
+        return instance;
+    }
+
+    /**
+     * Reset the ChangeFeed singleton instance
+     * Used by tests
+     */
+    public static synchronized void resetInstance() {
+        if (instance != null) instance.close();
+        instance = new ChangeFeed();
+    }
+}
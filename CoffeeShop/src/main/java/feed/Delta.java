@@ -0,0 +1,12 @@
+package feed;
+
+import java.io.Serializable;
+
+/**
+ * A change with its place in the change feed
+ *
+ * @param sequence the sequence number, one more than the delta before it
+ * @param change the change
+ */
+public record Delta(long sequence, Change change) implements Serializable {
+}
@@ -0,0 +1,114 @@
+package feed;
+
+import item.Item;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The orders in the queue and the menu built up from a snapshot and the deltas after it
+ *
+ * Deltas must be applied in sequence, a delta after a gap is not applied so the caller can ask for the missed deltas
+ * Deltas already included in the replica are ignored, so one may safely arrive twice
+ * Not thread safe, each replica is updated by one thread
+ */
+public class FeedReplica {
+    private final LinkedHashMap<UUID, OrderSummary> orders = new LinkedHashMap<>();
+
+    private final LinkedHashMap<String, Item> menu = new LinkedHashMap<>();
+
+    /** Sequence number of the last delta applied */
+    private long sequence;
+
+    /**
+     * Replaces everything in the replica with a snapshot
+     * A snapshot without a menu keeps the menu the replica already has
+     *
+     * @param snapshot the snapshot
+     */
+    public void reset(FeedSnapshot snapshot) {
+        orders.clear();
+        for (OrderSummary order : snapshot.orders()) orders.put(order.orderID(), order);
+
+        if (snapshot.menu() != null) resetMenu(snapshot.menu());
+
+        sequence = snapshot.sequence();
+    }
+
+    /**
+     * Replaces the menu, when it is sent on its own rather than in a snapshot
+     *
+     * @param items the items in menu order
+     */
+    public void resetMenu(Collection<Item> items) {
+        menu.clear();
+        for (Item item : items) menu.put(item.getItemID(), item);
+    }
+
+    /**
+     * Applies the next delta
+     *
+     * @param delta the delta
+     * @return false if deltas before this one have been missed and it was not applied, true otherwise
+     */
+    public boolean apply(Delta delta) {
+        if (delta.sequence() <= sequence) return true;
+        if (delta.sequence() != sequence + 1) return false;
+
+        apply(delta.change());
+        sequence = delta.sequence();
+
+        return true;
+    }
+
+    /**
+     * Applies a change without checking its sequence number
+     *
+     * @param change the change
+     */
+    void apply(Change change) {
+        switch (change) {
+            case Change.OrderAdded added -> orders.put(added.order().orderID(), added.order());
+            case Change.OrderMoved moved -> orders.computeIfPresent(moved.orderID(), (id, order) -> order.withState(moved.state()));
+            case Change.OrderCompleted completed -> orders.remove(completed.orderID());
+            case Change.PriceChanged price -> menu.computeIfPresent(price.itemID(), (id, item) -> item.withCost(price.cost()));
+            case Change.ItemAdded added -> menu.putIfAbsent(added.item().getItemID(), added.item());
+            case Change.ItemRemoved removed -> menu.remove(removed.itemID());
+            case Change.MenuReplaced replaced -> {
+                menu.clear();
+                for (Item item : replaced.items()) menu.put(item.getItemID(), item);
+            }
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last delta applied
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the orders waiting or being made, in the order they were added
+     *
+     * @return a copy of the orders
+     */
+    public List<OrderSummary> getOrders() {
+        return new ArrayList<>(orders.values());
+    }
+
+    /**
+     * Returns the menu keyed by item ID, in menu order
+     *
+     * @return a copy of the menu
+     */
+    public Map<String, Item> getMenu() {
+        return new LinkedHashMap<>(menu);
+    }
+}
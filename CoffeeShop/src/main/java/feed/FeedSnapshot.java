@@ -0,0 +1,17 @@
+package feed;
+
+import item.Item;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The orders in the queue and the menu as they were at a point in the change feed
+ * Completed orders are not included, so the size of a snapshot does not grow with the order history
+ *
+ * @param sequence the sequence number of the last delta included
+ * @param orders the orders waiting or being made, in the order they were added
+ * @param menu the items on the menu, in menu order, or null if the client already has the menu
+ */
+public record FeedSnapshot(long sequence, List<OrderSummary> orders, List<Item> menu) implements Serializable {
+}
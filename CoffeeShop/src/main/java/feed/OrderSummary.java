@@ -0,0 +1,45 @@
+package feed;
+
+import order.Order;
+import order.OrderState;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The parts of an order a client needs to show it in the queue
+ * Sent in place of the order so the customer, the menu and the discounts are not sent with it
+ *
+ * @param orderID the ID of the order
+ * @param customerName the name of the customer, may be null
+ * @param timestamp when the order was made
+ * @param details the item IDs in the order
+ * @param online whether the order was made online
+ * @param state whether the order is waiting or being made
+ */
+public record OrderSummary(UUID orderID, String customerName, LocalDateTime timestamp, List<String> details,
+                           boolean online, OrderState state) implements Serializable {
+    /**
+     * Creates a summary of an order
+     *
+     * @param order the order
+     * @param state the state of the order
+     * @return the summary
+     */
+    public static OrderSummary of(Order order, OrderState state) {
+        return new OrderSummary(order.getOrderID(), order.getCustomerName(), order.getTimestamp(),
+                List.copyOf(order.getDetails()), order.getOnlineStatus(), state);
+    }
+
+    /**
+     * Returns a copy of this summary in a different state
+     *
+     * @param state the new state
+     * @return the summary
+     */
+    public OrderSummary withState(OrderState state) {
+        return new OrderSummary(orderID, customerName, timestamp, details, online, state);
+    }
+}
@@ -0,0 +1,12 @@
+package feed;
+
+import java.io.Serializable;
+
+/**
+ * Sent by a client that has missed deltas to ask for them again
+ * The server answers with the missed deltas or, if they are no longer kept, a new snapshot
+ *
+ * @param fromSequence the sequence number of the first delta missed
+ */
+public record ResyncRequest(long fromSequence) implements Serializable {
+}
@@ -57,6 +57,15 @@ public abstract class AbstractFileManager<T, R> implements FileManager<T, R> {
         this.menu = menu;
     }
 
+    /**
+     * Returns the file operated on
+     *
+     * @return the file, or null if it was not found
+     */
+    public File getFilePath() {
+        return filePath;
+    }
+
     /**
      * Reads from a given file
      * @throws FileNotFoundException if the file does not exist
@@ -0,0 +1,19 @@
+package interfaces;
+
+import java.io.IOException;
+
+/**
+ * Connection Interface
+ * A connection between a client and the server that objects can be sent over and waited for
+ * How the objects are written is agreed when the connection is opened
+ */
+public interface Connection extends OutboundConnection {
+    /**
+     * Waits for the next object sent from the other end of the connection
+     *
+     * @return the object received
+     * @throws IOException if the object can not be read
+     * @throws ClassNotFoundException if the class of a serialized object can not be found
+     */
+    Object receive() throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,34 @@
+package interfaces;
+
+import order.Order;
+
+import java.util.List;
+
+/**
+ * Takes the orders received from clients
+ */
+@FunctionalInterface
+public interface OrderHandler {
+    /**
+     * Adds an order
+     *
+     * @param order the order
+     * @return true if the order was added
+     */
+    boolean addOrder(Order order);
+
+    /**
+     * Adds a batch of orders
+     * By default each order is added in turn, handlers that can add a batch in one step should do so
+     *
+     * @param orders the orders
+     * @return whether each order was added, in the same order as the batch
+     */
+    default boolean[] addOrders(List<Order> orders) {
+        boolean[] added = new boolean[orders.size()];
+
+        for (int i = 0; i < added.length; i++) added[i] = addOrder(orders.get(i));
+
+        return added;
+    }
+}
@@ -0,0 +1,36 @@
+package interfaces;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Outbound Connection Interface
+ * A connection between a client and the server that objects can be sent over
+ * What arrives from the other end is either received with {@link Connection#receive()}
+ * or, for a connection read by the non-blocking server, handed over as it arrives
+ */
+public interface OutboundConnection extends Closeable {
+    /**
+     * Sends an object over the connection
+     *
+     * @param object the object to send
+     * @throws IOException if the object can not be written
+     */
+    void send(Object object) throws IOException;
+
+    /**
+     * Returns the protocol version agreed when the connection was opened
+     *
+     * @return the version, 0 if objects are sent using Java serialization
+     */
+    int getVersion();
+
+    /**
+     * Returns the hash of the menu the client said it has cached when the connection was opened
+     *
+     * @return the hash, 0 if the client has no menu cached or its version can not say
+     */
+    default long getCachedMenuHash() {
+        return 0;
+    }
+}
@@ -0,0 +1,39 @@
+package interfaces;
+
+import order.Order;
+import order.OrderQueue;
+
+import java.io.Serializable;
+
+/**
+ * Decides which queued order a waiter takes next
+ *
+ * Many waiters may ask at once, so a policy that keeps state must guard it itself
+ * A policy is part of the OrderList, so it is serializable with it
+ */
+public interface SchedulingPolicy extends Serializable {
+    /**
+     * Returns the name of the policy as shown in the simulation
+     *
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Picks the next order to take, without taking it
+     * Another waiter may take the order first, in which case the policy is asked again
+     *
+     * @param queue the queued orders of each channel, oldest first
+     * @param priority the waiter's priority between in person and online orders
+     * @return an order in the queue, or null if the queue is empty
+     */
+    Order select(OrderQueue queue, double priority);
+
+    /**
+     * Called once an order picked by the policy has been taken
+     *
+     * @param order the order taken
+     */
+    default void taken(Order order) {
+    }
+}
@@ -1,16 +1,18 @@
 package interfaces;
 
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Subject superclass used to keep track of Observers
  *
+ * Observers are held in a CopyOnWriteArrayList so notifying them does not need to lock the subject
+ *
  * @author Fraser Holman
  */
 public abstract class Subject {
 
-    private List<Observer> registeredObservers = new LinkedList<>();
+    private final List<Observer> registeredObservers = new CopyOnWriteArrayList<>();
 
     /**
      * Method used to register observers
@@ -33,7 +35,7 @@ public abstract class Subject {
     /**
      * Method used to notify observers
      */
-    public synchronized void notifyObservers() {
+    public void notifyObservers() {
         for(Observer obs : registeredObservers) {
             obs.update();
         }
@@ -46,6 +46,33 @@ public class Item implements Serializable {
         this.description = description;
     }
 
+    /**
+     * Constructor copying an item with a new cost
+     *
+     * @param item The item to copy.
+     * @param cost The new cost of the item.
+     */
+    private Item(Item item, double cost) {
+        this.itemID = item.itemID;
+        this.category = item.category;
+        this.cost = cost;
+        this.description = item.description;
+    }
+
+    /**
+     * Returns a copy of the item with a new cost, leaving this item unchanged.
+     * Used by the menu, as items on a published menu version must not change.
+     *
+     * @param cost The new cost of the item.
+     * @return The new item.
+     * @throws IllegalArgumentException if the cost is negative.
+     */
+    public Item withCost(double cost) {
+        if (cost < 0) throw new IllegalArgumentException("Item cost cannot be negative.");
+
+        return new Item(this, cost);
+    }
+
     /**
      * Sets the cost of the item.
      *
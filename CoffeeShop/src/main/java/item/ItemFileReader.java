@@ -38,19 +38,40 @@ public class ItemFileReader extends AbstractFileManager<ItemList, Object> {
             for (String line : fileContents.toString().split("\n")) {
                 // Skip empty lines
                 if (line.trim().isEmpty()) continue;
-                String[] lineData = line.split(",");
-                Item newItem = new Item(lineData[0],
-                        ItemCategory.valueOf(lineData[1]),
-                        Double.parseDouble(lineData[2]),
-                        lineData[3]);
 
-                itemList.add(newItem);
+                itemList.add(parseItem(line));
             }
         } catch (InvalidItemIDException e) {
             System.err.println("Unable to add item, skipping " + e.getMessage());
         }
     }
 
+    /**
+     * Parses one line of a menu file, in the form ID,CATEGORY,COST,DESCRIPTION
+     *
+     * @param line the line
+     * @return the item
+     * @throws InvalidItemIDException if the line is not a valid item
+     */
+    public static Item parseItem(String line) throws InvalidItemIDException {
+        String[] lineData = line.trim().split(",");
+
+        if (lineData.length < 4) throw new InvalidItemIDException("Expected ID,CATEGORY,COST,DESCRIPTION but got: " + line);
+
+        ItemCategory category;
+        double cost;
+        try {
+            category = ItemCategory.valueOf(lineData[1]);
+            cost = Double.parseDouble(lineData[2]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidItemIDException("Invalid category or cost: " + line);
+        }
+
+        if (!Double.isFinite(cost)) throw new InvalidItemIDException("Invalid cost: " + line);
+
+        return new Item(lineData[0], category, cost, lineData[3]);
+    }
+
     /**
      * Closes this resource, relinquishing any underlying resources.
      * This method is invoked automatically on objects managed by the
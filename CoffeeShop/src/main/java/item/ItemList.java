@@ -1,32 +1,39 @@
 package item;
 
 import exceptions.InvalidItemIDException;
+import feed.Change;
+import feed.ChangeFeed;
 import interfaces.EntityList;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
  * Singleton class
  * Class represents a list of all available items that can be ordered
- * Contains a hashmap of all the items
+ * The items are held in an immutable MenuVersion which is replaced as a whole on every change,
+ * so readers never take a lock or copy the menu and always see a consistent menu
+ * Changes are made one at a time under a lock, and every change to the menu is published to the ChangeFeed
  *
  * @author Fraser Holman
  */
 
 public class ItemList implements EntityList<Item, String>, Serializable {
-    /** Hashmap data structure to hold item information */
-    private Map<String, Item> items;
+    /** The current version of the menu */
+    private volatile MenuVersion current = MenuVersion.EMPTY;
+
+    /** Held while a new version of the menu is made and published */
+    private final ReentrantLock writeLock = new ReentrantLock();
 
     /** ItemList instance to be used by other classes */
     private static ItemList instance;
 
     /**
-     * Initialises the hashmap to contain the items
+     * Initialises an empty menu
      */
     private ItemList() {
-        items = new LinkedHashMap<>();
     }
 
     /**
@@ -40,7 +47,18 @@ public class ItemList implements EntityList<Item, String>, Serializable {
             return false;
         }
 
-        return items.putIfAbsent(item.getItemID(), item) == null;
+        writeLock.lock();
+        try {
+            if (current.itemExists(item.getItemID())) return false;
+
+            LinkedHashMap<String, Item> items = new LinkedHashMap<>(current.items());
+            items.put(item.getItemID(), item);
+
+            publish(items, new Change.ItemAdded(item));
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
@@ -50,16 +68,47 @@ public class ItemList implements EntityList<Item, String>, Serializable {
      */
     @Override
     public boolean remove(String ID) {
-        return items.remove(ID) != null;
+        writeLock.lock();
+        try {
+            if (!current.itemExists(ID)) return false;
+
+            LinkedHashMap<String, Item> items = new LinkedHashMap<>(current.items());
+            items.remove(ID);
+
+            publish(items, new Change.ItemRemoved(ID));
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
      * Get method to return the items hashmap
+     * Readers that do not need to change the map should use getSnapshot, which does not copy
      *
-     * @return items hashmap
+     * @return a copy of the items hashmap
      */
     public LinkedHashMap<String, Item> getMenu() {
-        return new LinkedHashMap<>(items); // Creates a copy
+        return new LinkedHashMap<>(current.items()); // Creates a copy
+    }
+
+    /**
+     * Returns the current version of the menu
+     * Used where several lookups must all see the same menu, such as when an order is priced
+     *
+     * @return the menu version
+     */
+    public MenuVersion getSnapshot() {
+        return current;
+    }
+
+    /**
+     * Returns the number of the current menu version
+     *
+     * @return the version number
+     */
+    public long getVersion() {
+        return current.version();
     }
 
     /**
@@ -69,7 +118,7 @@ public class ItemList implements EntityList<Item, String>, Serializable {
      * @return an ItemCategory enum containing category information
      */
     public ItemCategory getCategory(String itemID) {
-        return items.get(itemID).getCategory();
+        return current.getCategory(itemID);
     }
 
     /**
@@ -79,7 +128,7 @@ public class ItemList implements EntityList<Item, String>, Serializable {
      * @return a double which holds cost information
      */
     public double getCost(String itemID) {
-        return items.get(itemID).getCost();
+        return current.getCost(itemID);
     }
 
     /**
@@ -89,17 +138,34 @@ public class ItemList implements EntityList<Item, String>, Serializable {
      * @return a String which holds a description of the item
      */
     public String getDescription(String itemID) throws InvalidItemIDException {
-        return items.get(itemID).getDescription();
+        Item item = current.get(itemID);
+        if (item == null) throw new InvalidItemIDException("Invalid Item ID: " + itemID);
+
+        return item.getDescription();
     }
 
     /**
      * Set method to set the cost of an item
+     * The item is replaced with a copy so earlier menu versions keep the old cost
      *
      * @param itemID The item ID used to find the correct item
      * @param cost The cost to set the item to
+     * @throws InvalidItemIDException if the item is not on the menu or the cost is negative
      */
     public void setCost(String itemID, double cost) throws InvalidItemIDException {
-        items.get(itemID).setCost(cost);
+        writeLock.lock();
+        try {
+            Item item = current.get(itemID);
+            if (item == null) throw new InvalidItemIDException("Invalid Item ID: " + itemID);
+            if (cost < 0) throw new InvalidItemIDException("Item cost cannot be negative.");
+
+            LinkedHashMap<String, Item> items = new LinkedHashMap<>(current.items());
+            items.put(itemID, item.withCost(cost));
+
+            publish(items, new Change.PriceChanged(itemID, cost));
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     /**
@@ -108,7 +174,7 @@ public class ItemList implements EntityList<Item, String>, Serializable {
      * @param itemID The itemID to check if the item exists
      */
     public Boolean itemExists(String itemID) {
-        return items.containsKey(itemID);
+        return current.itemExists(itemID);
     }
 
     /**
@@ -117,7 +183,7 @@ public class ItemList implements EntityList<Item, String>, Serializable {
      * @return String array containing all ItemIDs
      */
     public String[] getItemIDs() {
-        return items.keySet().toArray(new String[0]);
+        return current.items().keySet().toArray(new String[0]);
     }
 
     /**
@@ -127,6 +193,7 @@ public class ItemList implements EntityList<Item, String>, Serializable {
      * @return String array containing menu details
      */
     public String[] getMenuDetails() {
+        Map<String, Item> items = current.items();
         String[] menuDetailsString = new String[items.size()];
 
         int count = 0;
@@ -152,7 +219,7 @@ public class ItemList implements EntityList<Item, String>, Serializable {
      * @return the number of items in the ItemList
      */
     public int getItemCount() {
-        return items.size();
+        return current.items().size();
     }
 
     /**
@@ -178,6 +245,26 @@ public class ItemList implements EntityList<Item, String>, Serializable {
      * @param newItems The new map of items to update the ItemList with.
      */
     public void updateItems(Map<String, Item> newItems) {
-        this.items = new LinkedHashMap<>(newItems);
+        writeLock.lock();
+        try {
+            LinkedHashMap<String, Item> items = new LinkedHashMap<>(newItems);
+
+            publish(items, new Change.MenuReplaced(List.copyOf(items.values())));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Makes the items the next version of the menu and publishes the change
+     * Items that have never been on the menu are given the next free codes
+     * Must be called with the write lock held, so versions and changes are published in the same order
+     *
+     * @param items the items of the new version, which must not be changed afterwards
+     * @param change the change to publish to the ChangeFeed
+     */
+    private void publish(LinkedHashMap<String, Item> items, Change change) {
+        current = current.next(items);
+        ChangeFeed.getInstance().publish(change);
     }
 }
\ No newline at end of file
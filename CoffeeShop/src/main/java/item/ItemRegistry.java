@@ -0,0 +1,88 @@
+package item;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gives every item ID a dense int code, shared by every menu version and every order
+ *
+ * A code is given the first time an item ID is seen and never changes or is reused while the program runs,
+ * so an order can hold its items as codes and still find their IDs after the menu has changed
+ * Codes are only meaningful inside one program, anything sent or saved uses the item IDs
+ */
+public final class ItemRegistry {
+    private static final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+    private static final ReentrantLock lock = new ReentrantLock();
+
+    /** Item IDs by code, replaced with a longer copy when a code is given out */
+    private static volatile String[] itemIDs = new String[0];
+
+    private ItemRegistry() {
+    }
+
+    /**
+     * Returns the code of an item ID, giving it the next code if it has none
+     *
+     * @param itemID the item ID
+     * @return the code
+     */
+    public static int register(String itemID) {
+        Integer code = codes.get(itemID);
+        if (code != null) return code;
+
+        lock.lock();
+        try {
+            code = codes.get(itemID);
+            if (code != null) return code;
+
+            String[] next = Arrays.copyOf(itemIDs, itemIDs.length + 1);
+            next[itemIDs.length] = itemID;
+
+            // The ID is readable by code before the code is handed out
+            itemIDs = next;
+            codes.put(itemID, next.length - 1);
+
+            return next.length - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the code of an item ID without giving it one
+     *
+     * @param itemID the item ID
+     * @return the code, or -1 if the item ID is null or has never been seen
+     */
+    public static int code(String itemID) {
+        if (itemID == null) return -1;
+
+        Integer code = codes.get(itemID);
+
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the item ID with a code
+     *
+     * @param code the code
+     * @return the item ID, or null if no item ID has the code
+     */
+    public static String itemID(int code) {
+        String[] ids = itemIDs;
+
+        return code >= 0 && code < ids.length ? ids[code] : null;
+    }
+
+    /**
+     * Returns the number of codes given out, which is one more than the highest code
+     *
+     * @return the number of codes
+     */
+    public static int size() {
+        return itemIDs.length;
+    }
+}
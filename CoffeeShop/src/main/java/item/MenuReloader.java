@@ -0,0 +1,234 @@
+package item;
+
+import exceptions.InvalidItemIDException;
+import logs.CoffeeShopLogger;
+import utils.ThreadMode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the menu whenever its file changes, without restarting the shop
+ *
+ * A WatchService on the file's folder wakes a background thread when the file is written,
+ * which waits for the writes to settle, reads and checks the whole file, and only then replaces the menu
+ * The new menu is published as one new ItemList version, so it is pushed to every connected client as a single
+ * MenuReplaced change, and orders keep the prices their items were added at
+ * A file with any invalid line is rejected as a whole and the current menu is kept
+ *
+ * Taking an order never waits on a reload, as orders read the menu from its published version without a lock
+ */
+public class MenuReloader implements AutoCloseable {
+    /** Default time the file must go without changing before it is read */
+    public static final long DEFAULT_SETTLE_MILLIS = 200;
+
+    private static final CoffeeShopLogger logger = CoffeeShopLogger.getInstance();
+
+    private final Path file;
+
+    private final ItemList itemList;
+
+    private final long settleMillis;
+
+    private WatchService watchService;
+
+    private Thread watcher;
+
+    /**
+     * Constructor
+     *
+     * @param file the menu file
+     * @param itemList the menu to publish the new items to
+     */
+    public MenuReloader(Path file, ItemList itemList) {
+        this(file, itemList, DEFAULT_SETTLE_MILLIS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param file the menu file
+     * @param itemList the menu to publish the new items to
+     * @param settleMillis how long the file must go without changing before it is read
+     */
+    public MenuReloader(Path file, ItemList itemList, long settleMillis) {
+        if (settleMillis < 0) throw new IllegalArgumentException("Settle time cannot be negative");
+
+        this.file = file.toAbsolutePath();
+        this.itemList = Objects.requireNonNull(itemList);
+        this.settleMillis = settleMillis;
+    }
+
+    /**
+     * Starts watching the file on a background thread
+     *
+     * @throws IOException if the file's folder cannot be watched
+     * @throws IllegalStateException if the reloader has already been started
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null) throw new IllegalStateException("Menu reloader already started");
+
+        watchService = file.getFileSystem().newWatchService();
+
+        // Editors often save by writing a new file and renaming it over the old one, which is a create
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        watcher = ThreadMode.current().builder("menu-reloader").unstarted(this::watch);
+        watcher.setDaemon(true);
+        watcher.start();
+
+        logger.logInfo("Watching " + file + " for menu changes");
+    }
+
+    /**
+     * Reads the file and replaces the menu if the file is valid and differs from the current menu
+     *
+     * @return true if a new menu was published
+     */
+    public boolean reload() {
+        LinkedHashMap<String, Item> items;
+        try {
+            items = read(file);
+        } catch (IOException | InvalidItemIDException e) {
+            logger.logWarning("Menu file not reloaded, keeping the current menu: " + e.getMessage());
+            return false;
+        }
+
+        // Saving a file often fires several events, only a real change is sent to the clients
+        if (sameItems(items, itemList.getSnapshot().items())) return false;
+
+        itemList.updateItems(items);
+        logger.logInfo("Menu reloaded from " + file.getFileName() + ", " + items.size() + " items, version " + itemList.getVersion());
+
+        return true;
+    }
+
+    /**
+     * Reads and checks every line of a menu file
+     *
+     * @param file the menu file
+     * @return the items in file order
+     * @throws IOException if the file cannot be read
+     * @throws InvalidItemIDException if a line is not a valid item, an item ID is repeated or there are no items
+     */
+    public static LinkedHashMap<String, Item> read(Path file) throws IOException, InvalidItemIDException {
+        LinkedHashMap<String, Item> items = new LinkedHashMap<>();
+        long lineNumber = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+
+                // Skip empty lines
+                if (line.isBlank()) continue;
+
+                Item item;
+                try {
+                    item = ItemFileReader.parseItem(line);
+                } catch (InvalidItemIDException e) {
+                    throw new InvalidItemIDException("Line " + lineNumber + ": " + e.getMessage());
+                }
+
+                if (items.putIfAbsent(item.getItemID(), item) != null) {
+                    throw new InvalidItemIDException("Line " + lineNumber + ": Duplicate Item ID " + item.getItemID());
+                }
+            }
+        }
+
+        if (items.isEmpty()) throw new InvalidItemIDException("Menu file has no items");
+
+        return items;
+    }
+
+    /**
+     * Stops watching the file
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService == null) return;
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.logWarning("Unable to close menu watcher: " + e.getMessage());
+        }
+
+        watcher.interrupt();
+    }
+
+    /**
+     * Waits for the file to change and reloads it, until the reloader is closed
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+
+                if (changed(key)) {
+                    // Waits until the file has been quiet for the settle time, so a half written file is not read
+                    while (true) {
+                        WatchKey next = watchService.poll(settleMillis, TimeUnit.MILLISECONDS);
+                        if (next == null) break;
+                        changed(next);
+                    }
+
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Checks if any of a key's events are for the menu file, and readies the key for more events
+     *
+     * @param key the key
+     * @return true if the menu file may have changed
+     */
+    private boolean changed(WatchKey key) {
+        boolean changed = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            // An overflow means events were lost, so the file may have changed
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) changed = true;
+        }
+
+        key.reset();
+
+        return changed;
+    }
+
+    /**
+     * Checks if two menus have the same items in the same order
+     *
+     * @param items the first menu
+     * @param other the second menu
+     * @return true if every item has the same ID, category, cost and description
+     */
+    private static boolean sameItems(Map<String, Item> items, Map<String, Item> other) {
+        if (items.size() != other.size()) return false;
+
+        Iterator<Item> others = other.values().iterator();
+
+        for (Item item : items.values()) {
+            Item o = others.next();
+
+            if (!item.getItemID().equals(o.getItemID()) || item.getCategory() != o.getCategory()
+                    || item.getCost() != o.getCost() || !item.getDescription().equals(o.getDescription())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
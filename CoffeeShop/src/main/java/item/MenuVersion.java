@@ -0,0 +1,229 @@
+package item;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * One version of the menu, which never changes once published
+ *
+ * The ItemList publishes a new version each time the menu changes, so a reader that holds a version
+ * sees the same items and prices for every lookup without taking a lock or copying the menu
+ *
+ * Every item ID has a dense int code from the ItemRegistry, which it keeps in every later version,
+ * even if it is removed and added again
+ * Prices in pence and category ordinals are held in arrays indexed by code, so once an item ID has been
+ * resolved to its code, pricing and routing it is an array lookup
+ */
+public final class MenuVersion implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Pence in a pound, the scale of the fixed-point prices */
+    public static final int PENCE = 100;
+
+    /** An empty menu */
+    public static final MenuVersion EMPTY = new MenuVersion(0, new LinkedHashMap<>());
+
+    private static final ItemCategory[] CATEGORIES = ItemCategory.values();
+
+    private final long version;
+
+    /** The items in menu order, an unmodifiable view of a LinkedHashMap so it is serializable */
+    @SuppressWarnings("serial")
+    private final Map<String, Item> items;
+
+    /** Prices in pence by code */
+    private final long[] prices;
+
+    /** Category ordinals by code, -1 for items not on this version */
+    private final byte[] categories;
+
+    /**
+     * Constructor building the price and category arrays
+     *
+     * @param version the version number
+     * @param items the items in menu order, which must not be changed afterwards
+     */
+    private MenuVersion(long version, LinkedHashMap<String, Item> items) {
+        this.version = version;
+        this.items = Collections.unmodifiableMap(items);
+
+        // Registered first so every item's code is inside the arrays
+        for (String itemID : items.keySet()) ItemRegistry.register(itemID);
+
+        prices = new long[ItemRegistry.size()];
+        categories = new byte[ItemRegistry.size()];
+        Arrays.fill(categories, (byte) -1);
+
+        for (Item item : items.values()) {
+            int code = ItemRegistry.code(item.getItemID());
+
+            prices[code] = Math.round(item.getCost() * PENCE);
+            categories[code] = (byte) item.getCategory().ordinal();
+        }
+    }
+
+    /**
+     * Makes the next version of the menu, registering any items that have never been seen
+     *
+     * @param items the items of the new version in menu order, which must not be changed afterwards
+     * @return the new version
+     */
+    MenuVersion next(LinkedHashMap<String, Item> items) {
+        return new MenuVersion(version + 1, items);
+    }
+
+    /**
+     * Returns the version number
+     *
+     * @return the version, starting at 0 for an empty menu and going up by one on every change
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns the items keyed by item ID
+     *
+     * @return the items in menu order, which cannot be changed
+     */
+    public Map<String, Item> items() {
+        return items;
+    }
+
+    /**
+     * Returns the item with an ID
+     *
+     * @param itemID the item ID
+     * @return the item, or null if it is not on this version of the menu
+     */
+    public Item get(String itemID) {
+        return items.get(itemID);
+    }
+
+    /**
+     * Checks if an item is on this version of the menu
+     *
+     * @param itemID the item ID
+     * @return true if it is
+     */
+    public boolean itemExists(String itemID) {
+        return items.containsKey(itemID);
+    }
+
+    /**
+     * Returns the category of an item
+     *
+     * @param itemID the item ID
+     * @return the category
+     */
+    public ItemCategory getCategory(String itemID) {
+        return items.get(itemID).getCategory();
+    }
+
+    /**
+     * Returns the cost of an item
+     *
+     * @param itemID the item ID
+     * @return the cost
+     */
+    public double getCost(String itemID) {
+        return items.get(itemID).getCost();
+    }
+
+    /**
+     * Returns the code of an item, resolving it once so later lookups are array lookups
+     *
+     * @param itemID the item ID
+     * @return the code, or -1 if the item is not on this version of the menu
+     */
+    public int code(String itemID) {
+        int code = ItemRegistry.code(itemID);
+
+        return isOnMenu(code) ? code : -1;
+    }
+
+    /**
+     * Returns the codes of several items
+     *
+     * @param itemIDs the item IDs
+     * @return the codes in the same order, -1 for items not on this version of the menu
+     */
+    public int[] resolve(Collection<String> itemIDs) {
+        int[] resolved = new int[itemIDs.size()];
+        int i = 0;
+
+        for (String itemID : itemIDs) resolved[i++] = code(itemID);
+
+        return resolved;
+    }
+
+    /**
+     * Returns the item ID with a code
+     * Codes are never reused, so this is known even if the item has since been removed
+     *
+     * @param code the code
+     * @return the item ID, or null if no item has had the code
+     */
+    public String itemID(int code) {
+        return ItemRegistry.itemID(code);
+    }
+
+    /**
+     * Returns the number of codes this version has prices for, which is one more than the highest code on it
+     *
+     * @return the number of codes
+     */
+    public int codeCount() {
+        return categories.length;
+    }
+
+    /**
+     * Checks if the item with a code is on this version of the menu
+     *
+     * @param code the code
+     * @return true if it is
+     */
+    public boolean isOnMenu(int code) {
+        return code >= 0 && code < categories.length && categories[code] >= 0;
+    }
+
+    /**
+     * Returns the category ordinal of the item with a code
+     *
+     * @param code the code of an item on this version of the menu
+     * @return the ordinal of its ItemCategory
+     */
+    public int getCategoryOrdinal(int code) {
+        return categories[code];
+    }
+
+    /**
+     * Returns the category of the item with a code
+     *
+     * @param code the code
+     * @return the category, or null if the item is not on this version of the menu
+     */
+    public ItemCategory getCategory(int code) {
+        return isOnMenu(code) ? CATEGORIES[categories[code]] : null;
+    }
+
+    /**
+     * Returns the price of the item with a code in pence
+     *
+     * @param code the code of an item on this version of the menu
+     * @return the price in pence
+     */
+    public long getPence(int code) {
+        return prices[code];
+    }
+
+    /**
+     * Returns the cost of the item with a code, worked out from its price in pence
+     *
+     * @param code the code of an item on this version of the menu
+     * @return the cost in pounds
+     */
+    public double getCost(int code) {
+        return (double) prices[code] / PENCE;
+    }
+}
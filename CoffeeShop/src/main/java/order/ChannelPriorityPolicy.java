@@ -0,0 +1,29 @@
+package order;
+
+import interfaces.SchedulingPolicy;
+
+/**
+ * Scheduling policy the waiters have always used
+ *
+ * The in person queue is chosen when its size multiplied by the waiter's priority is greater than the size of the online queue,
+ * if the chosen queue is empty the other queue is used, and each queue is taken oldest first
+ */
+public class ChannelPriorityPolicy implements SchedulingPolicy {
+    private static final long serialVersionUID = 1L;
+
+    public static final String NAME = "Channel Priority";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Order select(OrderQueue queue, double priority) {
+        boolean online = !(queue.size(false) * priority > queue.size(true));
+
+        Order order = queue.peek(online);
+
+        return order != null ? order : queue.peek(!online);
+    }
+}
@@ -0,0 +1,306 @@
+package order;
+
+import logs.CoffeeShopLogger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Holds the orders that have been completed during the day
+ *
+ * Only the most recent orders are kept in memory (the window), once the window is full the oldest order is
+ * appended to an on disk segment log and the Order object is released
+ * Each line of the log uses the same format as the orders file, a new segment is started every segmentSize orders
+ *
+ * Running totals for the item counts, total cost, discounted cost and number of orders are updated as each
+ * order is added, so the end of day summary never has to walk the completed orders
+ */
+public class CompletedOrderStore implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Default number of completed orders kept in memory */
+    public static final int DEFAULT_WINDOW_SIZE = 500;
+
+    /** Default number of orders written to each segment file */
+    public static final int DEFAULT_SEGMENT_SIZE = 10000;
+
+    /** The most recently completed orders, oldest first */
+    private final ArrayDeque<Order> window;
+
+    /** Maximum number of orders held in the window */
+    private int windowSize;
+
+    /** Maximum number of orders written to a single segment */
+    private final int segmentSize;
+
+    /** Directory the segments are written to, a temporary directory is created on first use if this is null */
+    private File directory;
+
+    /** Whether the segments are in a temporary directory and should be deleted on exit */
+    private boolean temporary;
+
+    /** Segment files in the order they were written */
+    private final ArrayList<File> segments;
+
+    /** Number of orders written to the last segment */
+    private int ordersInSegment;
+
+    /** IDs of the orders written to the segments, so they are still known once the Order objects are released */
+    private final UuidSet spilledIDs;
+
+    /** Writer for the last segment, opened when the first order is written to it */
+    private transient BufferedWriter writer;
+
+    /** Number of times each item has been ordered */
+    private final HashMap<String, Integer> itemCounts;
+
+    private double totalCost;
+
+    private double discountedCost;
+
+    private int numOrders;
+
+    /**
+     * Constructor to set up an empty store using the default window size and a temporary segment directory
+     */
+    public CompletedOrderStore() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_SEGMENT_SIZE, null);
+    }
+
+    /**
+     * Constructor to set up an empty store
+     *
+     * @param windowSize The number of completed orders kept in memory
+     * @param segmentSize The number of orders written to each segment file
+     * @param directory The directory segments are written to, or null to use a temporary directory
+     */
+    public CompletedOrderStore(int windowSize, int segmentSize, File directory) {
+        if (windowSize < 0 || segmentSize <= 0) {
+            throw new IllegalArgumentException("Window size cannot be negative and segment size must be positive");
+        }
+
+        this.window = new ArrayDeque<>();
+        this.windowSize = windowSize;
+        this.segmentSize = segmentSize;
+        this.directory = directory;
+        this.segments = new ArrayList<>();
+        this.itemCounts = new HashMap<>();
+        this.spilledIDs = new UuidSet();
+    }
+
+    /**
+     * Adds a completed order, updating the running totals
+     * If the window is full the oldest order is written to the segment log
+     *
+     * @param order The completed order
+     * @return The order that was moved out of memory, or null if no order was moved
+     */
+    public synchronized Order add(Order order) {
+        totalCost += order.getTotalCost();
+        discountedCost += order.getDiscountedCost();
+        numOrders++;
+
+        for (String itemID : order.getDetails()) {
+            itemCounts.merge(itemID, 1, Integer::sum);
+        }
+
+        window.addLast(order);
+
+        return window.size() > windowSize ? spill() : null;
+    }
+
+    /**
+     * Changes the number of completed orders kept in memory
+     * Orders over the new size are written to the segment log straight away
+     *
+     * @param windowSize The number of completed orders kept in memory
+     * @return The orders that were moved out of memory
+     */
+    public synchronized List<Order> setWindowSize(int windowSize) {
+        if (windowSize < 0) throw new IllegalArgumentException("Window size cannot be negative");
+
+        this.windowSize = windowSize;
+
+        List<Order> spilled = new ArrayList<>();
+
+        while (window.size() > windowSize) {
+            Order order = spill();
+            if (order == null) break;
+            spilled.add(order);
+        }
+
+        return spilled;
+    }
+
+    /**
+     * Checks if a completed order has been written to the segment log
+     * Does not wait for an order being written, so it can be called on every new order
+     *
+     * @param orderID The ID of the order
+     * @return True if the order has been moved out of memory, False otherwise
+     */
+    public boolean isSpilled(UUID orderID) {
+        return spilledIDs.contains(orderID);
+    }
+
+    /**
+     * Method to return the number of completed orders, including those written to disk
+     *
+     * @return The number of completed orders
+     */
+    public synchronized int size() {
+        return numOrders;
+    }
+
+    /**
+     * Method to return the completed orders still held in memory
+     *
+     * @return A copy of the window, oldest first
+     */
+    public synchronized List<Order> recent() {
+        return new ArrayList<>(window);
+    }
+
+    /**
+     * Streams every completed order in the orders file format, oldest first
+     * Orders on disk are read lazily so the full history is never held in memory
+     * The stream should be closed once used so the segment files are closed
+     *
+     * @return A stream of order lines
+     */
+    public Stream<String> lines() {
+        List<File> files;
+        int lastSegmentOrders;
+        List<Order> inMemory;
+
+        synchronized (this) {
+            files = List.copyOf(segments);
+            lastSegmentOrders = ordersInSegment;
+            inMemory = new ArrayList<>(window);
+        }
+
+        Stream<String> onDisk = Stream.iterate(0, i -> i < files.size(), i -> i + 1)
+                .flatMap(i -> readSegment(files.get(i), i == files.size() - 1 ? lastSegmentOrders : segmentSize));
+
+        return Stream.concat(onDisk, inMemory.stream().map(CompletedOrderStore::format));
+    }
+
+    /**
+     * Method to return a summary of the purchased items and quantity
+     *
+     * @return Map of item ID to quantity, along with the total-cost, discount-cost and num-orders
+     */
+    public synchronized HashMap<String, Double> summary() {
+        HashMap<String, Double> summary = new HashMap<>();
+
+        itemCounts.forEach((itemID, count) -> summary.put(itemID, (double) count));
+
+        summary.put("total-cost", totalCost);
+        summary.put("discount-cost", discountedCost);
+        summary.put("num-orders", (double) numOrders);
+
+        return summary;
+    }
+
+    /**
+     * Closes the current segment
+     */
+    public synchronized void close() {
+        if (writer == null) return;
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            CoffeeShopLogger.getInstance().logSevere("Error closing completed order segment", e);
+        }
+
+        writer = null;
+    }
+
+    /**
+     * Formats an order in the orders file format
+     *
+     * @param o The order to format
+     * @return The order as a single line
+     */
+    static String format(Order o) {
+        return String.format("%s,%s,%s,%s,%s,%b",
+                o.getOrderID().toString(),
+                o.getCustomerID(),
+                o.getCustomerName(),
+                o.getTimestamp().toString(),
+                String.join(";", o.getDetails()),
+                o.getOnlineStatus()
+        );
+    }
+
+    /**
+     * Writes the oldest order in the window to the segment log
+     * If the order cannot be written it is kept in memory so it is not lost
+     *
+     * @return The order that was written, or null if it could not be written
+     */
+    private Order spill() {
+        Order oldest = window.peekFirst();
+
+        try {
+            if (writer == null || ordersInSegment == segmentSize) nextSegment();
+
+            writer.write(format(oldest));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            CoffeeShopLogger.getInstance().logSevere("Error writing completed order to segment log", e);
+            return null;
+        }
+
+        ordersInSegment++;
+        spilledIDs.add(oldest.getOrderID());
+
+        return window.pollFirst();
+    }
+
+    /**
+     * Opens a writer for the segment orders are being written to, starting a new segment if the last one is full
+     */
+    private void nextSegment() throws IOException {
+        if (directory == null) {
+            directory = Files.createTempDirectory("coffee-shop-completed").toFile();
+            directory.deleteOnExit();
+            temporary = true;
+        }
+
+        if (segments.isEmpty() || ordersInSegment == segmentSize) {
+            close();
+
+            File segment = new File(directory, String.format("completed-%05d.log", segments.size()));
+            if (temporary) segment.deleteOnExit();
+
+            segments.add(segment);
+            ordersInSegment = 0;
+        }
+
+        // Append so a store that has been deserialised carries on from where it stopped
+        writer = Files.newBufferedWriter(segments.getLast().toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Lazily reads the orders written to a segment
+     *
+     * @param segment The segment file
+     * @param orders The number of orders that were written to the segment when the stream was requested
+     * @return A stream of order lines
+     */
+    private static Stream<String> readSegment(File segment, int orders) {
+        try {
+            return Files.lines(segment.toPath(), StandardCharsets.UTF_8).limit(orders);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
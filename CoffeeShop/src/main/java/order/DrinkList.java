@@ -1,67 +1,177 @@
 package order;
 
-import interfaces.Subject;
+import item.ItemCategory;
+import item.ItemList;
+import item.MenuVersion;
+import workers.Dispatcher;
 import workers.Waiter;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Singleton class and uses Observer Design Pattern (this class is the subject)
+ * Singleton class
  * Class represents a list of drinks to be processed
  * Contains a queue of different item IDs and the waiter the item has come from
+ * Each item is handed by a {@link Dispatcher} to exactly one barista rather than waking every barista to look for it
+ *
+ * The list is bounded, a waiter adding an item to a full list waits until a barista takes one
+ * Items are queued by category, so a barista can be registered for only some categories,
+ * such as a barista who only makes hot drinks
  *
  * @author Fraser Holman
  */
-public class DrinkList extends Subject {
+public class DrinkList {
+    /** The most items that can be waiting */
+    public static final int DEFAULT_CAPACITY = 1000;
+
     private static DrinkList instance;
 
-    private final Queue<Map.Entry<Waiter, DrinkItem>> drinkList;
+    private final Dispatcher<Map.Entry<Waiter, DrinkItem>> dispatcher;
 
     /**
      * Constructor to set up the drink list class
+     *
+     * @param capacity the most items that can be waiting
      */
-    private DrinkList() {
-        drinkList = new ArrayDeque<>();
+    private DrinkList(int capacity) {
+        dispatcher = new Dispatcher<>("Barista", capacity, entry -> categoryOf(entry.getValue().drinkItem()));
     }
 
     /**
-     * Method to add items to DrinkList
+     * Method to add items to DrinkList, waiting while the list is full
      *
-     * @param food A map entry of ItemID and the waiter it came from
-     * @return a boolean if adding was a success
+     * @param drink A map entry of ItemID and the waiter it came from
+     * @return a boolean if adding was a success, false if interrupted while waiting
      */
-    public boolean add(Map.Entry<Waiter, DrinkItem> food) {
-        notifyObservers();
-        return drinkList.offer(food);
+    public boolean add(Map.Entry<Waiter, DrinkItem> drink) {
+        try {
+            dispatcher.submit(drink);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
     /**
-     * Method to return an entry from the DrinkList
+     * Method to add items to DrinkList, waiting up to a timeout while the list is full
      *
-     * @return A map entry of the next drink item to be processed
+     * @param drink A map entry of ItemID and the waiter it came from
+     * @param timeout How long to wait
+     * @param unit The unit of the timeout
+     * @return True if the item was added, False if the list was still full when the timeout expired
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean offer(Map.Entry<Waiter, DrinkItem> drink, long timeout, TimeUnit unit) throws InterruptedException {
+        return dispatcher.offer(drink, timeout, unit);
+    }
+
+    /**
+     * Method to return an entry from the DrinkList without waiting
+     *
+     * @return A map entry of the next drink item to be processed, or null if there is none
      */
     public Map.Entry<Waiter, DrinkItem> remove() {
-        return drinkList.poll();
+        return dispatcher.poll();
+    }
+
+    /**
+     * Method to return an entry from the DrinkList, waiting up to a timeout for one
+     *
+     * @param timeout How long to wait
+     * @param unit The unit of the timeout
+     * @return A map entry of the next drink item to be processed, or null if the timeout expired
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Map.Entry<Waiter, DrinkItem> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return dispatcher.poll(timeout, unit);
+    }
+
+    /**
+     * Registers a barista so items can be handed to it
+     *
+     * @return the barista's queue of items
+     */
+    public Dispatcher<Map.Entry<Waiter, DrinkItem>>.Worker register() {
+        return dispatcher.register();
+    }
+
+    /**
+     * Registers a barista that only makes items in some categories
+     *
+     * @param categories The categories the barista makes, every category if empty
+     * @return the barista's queue of items
+     */
+    public Dispatcher<Map.Entry<Waiter, DrinkItem>>.Worker register(Set<ItemCategory> categories) {
+        return dispatcher.register(categories);
+    }
+
+    /**
+     * Method to return the number of items waiting
+     *
+     * @return The number of items
+     */
+    public int size() {
+        return dispatcher.size();
+    }
+
+    /**
+     * Method to return the number of items waiting in one category
+     *
+     * @param category The category
+     * @return The number of items
+     */
+    public int size(ItemCategory category) {
+        return dispatcher.size(category);
+    }
+
+    /**
+     * Method to return the dispatcher handing items to each barista
+     *
+     * @return the dispatcher
+     */
+    public Dispatcher<Map.Entry<Waiter, DrinkItem>> getDispatcher() {
+        return dispatcher;
     }
 
     /**
      * Method to return singleton instance of class
+     * Synchronized so a barista registering and a waiter handing out items on other threads always get the same list
      *
      * @return the class instance
      */
-    public static DrinkList getInstance() {
-        if (instance == null) {
-            instance = new DrinkList();
-        }
-
+    public static synchronized DrinkList getInstance() {
+        if (instance == null) instance = new DrinkList(DEFAULT_CAPACITY);
         return instance;
     }
 
     /**
-     * Reset the OrderList singleton instance
+     * Reset the DrinkList singleton instance
+     * Used by tests
+     */
+    public static synchronized void resetInstance() {
+        resetInstance(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Reset the DrinkList singleton instance with a different capacity
      * Used by tests
+     *
+     * @param capacity the most items that can be waiting
+     */
+    public static synchronized void resetInstance(int capacity) {
+        instance = new DrinkList(capacity);
+    }
+
+    /**
+     * Returns the category of an item
+     *
+     * @param itemID The item ID
+     * @return The category, or null if the item is no longer on the menu
      */
-    public static void resetInstance() {
-        instance = new DrinkList();
+    private static ItemCategory categoryOf(String itemID) {
+        MenuVersion menu = ItemList.getInstance().getSnapshot();
+        return menu.getCategory(menu.code(itemID));
     }
 }
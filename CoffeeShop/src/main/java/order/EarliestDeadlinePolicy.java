@@ -0,0 +1,81 @@
+package order;
+
+import interfaces.SchedulingPolicy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Scheduling policy taking the order due soonest, where an order is due its channel's service level after it was placed
+ *
+ * In person customers are waiting at the counter so by default they are given a shorter service level than online customers
+ */
+public class EarliestDeadlinePolicy implements SchedulingPolicy {
+    private static final long serialVersionUID = 1L;
+
+    public static final String NAME = "Earliest Deadline";
+
+    public static final Duration DEFAULT_IN_PERSON_SLA = Duration.ofMinutes(3);
+
+    public static final Duration DEFAULT_ONLINE_SLA = Duration.ofMinutes(10);
+
+    private final Duration inPersonSla;
+
+    private final Duration onlineSla;
+
+    /**
+     * Constructor using the default service levels
+     */
+    public EarliestDeadlinePolicy() {
+        this(DEFAULT_IN_PERSON_SLA, DEFAULT_ONLINE_SLA);
+    }
+
+    /**
+     * Constructor for an earliest deadline policy
+     *
+     * @param inPersonSla how long after being placed an in person order is due
+     * @param onlineSla how long after being placed an online order is due
+     */
+    public EarliestDeadlinePolicy(Duration inPersonSla, Duration onlineSla) {
+        this.inPersonSla = inPersonSla;
+        this.onlineSla = onlineSla;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Every queued order is looked at, as orders read from a file are not queued in the order they were placed
+     * An in person order is taken before an online order due at the same time
+     */
+    @Override
+    public Order select(OrderQueue queue, double priority) {
+        Order earliest = null;
+        LocalDateTime earliestDeadline = null;
+
+        for (boolean online : new boolean[] { false, true }) {
+            for (Order order : queue.orders(online)) {
+                LocalDateTime deadline = getDeadline(order);
+
+                if (earliestDeadline == null || deadline.isBefore(earliestDeadline)) {
+                    earliest = order;
+                    earliestDeadline = deadline;
+                }
+            }
+        }
+
+        return earliest;
+    }
+
+    /**
+     * Returns when an order is due
+     *
+     * @param order the order
+     * @return when the order was placed plus its channel's service level
+     */
+    public LocalDateTime getDeadline(Order order) {
+        return order.getTimestamp().plus(order.getOnlineStatus() ? onlineSla : inPersonSla);
+    }
+}
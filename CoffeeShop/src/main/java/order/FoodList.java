@@ -1,64 +1,177 @@
 package order;
 
-import interfaces.Subject;
+import item.ItemCategory;
+import item.ItemList;
+import item.MenuVersion;
+import workers.Dispatcher;
 import workers.Waiter;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Singleton class and uses Observer Design Pattern (this class is the subject)
+ * Singleton class
  * Class represents a list of food items to be processed
  * Contains a queue of different item IDs and the waiter the item has come from
+ * Each item is handed by a {@link Dispatcher} to exactly one chef rather than waking every chef to look for it
+ *
+ * The list is bounded, a waiter adding an item to a full list waits until a chef takes one
+ * Items are queued by category, so a chef can be registered for only some categories,
+ * such as a chef who only makes rolls
  *
  * @author Fraser Holman
  */
-public class FoodList extends Subject {
+public class FoodList {
+    /** The most items that can be waiting */
+    public static final int DEFAULT_CAPACITY = 1000;
+
     private static FoodList instance;
 
-    private final Queue<Map.Entry<Waiter, FoodItem>> foodList;
+    private final Dispatcher<Map.Entry<Waiter, FoodItem>> dispatcher;
 
     /**
      * Constructor to set up the food list class
+     *
+     * @param capacity the most items that can be waiting
      */
-    private FoodList() {
-        foodList = new ArrayDeque<>();
+    private FoodList(int capacity) {
+        dispatcher = new Dispatcher<>("Chef", capacity, entry -> categoryOf(entry.getValue().foodItem()));
     }
 
     /**
-     * Method to add items to FoodList
+     * Method to add items to FoodList, waiting while the list is full
      *
      * @param food A map entry of ItemID and the waiter it came from
-     * @return a boolean if adding was a success
+     * @return a boolean if adding was a success, false if interrupted while waiting
      */
     public boolean add(Map.Entry<Waiter, FoodItem> food) {
-        notifyObservers();
-        return foodList.offer(food);
+        try {
+            dispatcher.submit(food);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
     /**
-     * Method to return an entry from the FoodList
+     * Method to add items to FoodList, waiting up to a timeout while the list is full
      *
-     * @return A map entry of the next food item to be processed
+     * @param food A map entry of ItemID and the waiter it came from
+     * @param timeout How long to wait
+     * @param unit The unit of the timeout
+     * @return True if the item was added, False if the list was still full when the timeout expired
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean offer(Map.Entry<Waiter, FoodItem> food, long timeout, TimeUnit unit) throws InterruptedException {
+        return dispatcher.offer(food, timeout, unit);
+    }
+
+    /**
+     * Method to return an entry from the FoodList without waiting
+     *
+     * @return A map entry of the next food item to be processed, or null if there is none
      */
     public Map.Entry<Waiter, FoodItem> remove() {
-        return foodList.poll();
+        return dispatcher.poll();
+    }
+
+    /**
+     * Method to return an entry from the FoodList, waiting up to a timeout for one
+     *
+     * @param timeout How long to wait
+     * @param unit The unit of the timeout
+     * @return A map entry of the next food item to be processed, or null if the timeout expired
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Map.Entry<Waiter, FoodItem> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return dispatcher.poll(timeout, unit);
+    }
+
+    /**
+     * Registers a chef so items can be handed to it
+     *
+     * @return the chef's queue of items
+     */
+    public Dispatcher<Map.Entry<Waiter, FoodItem>>.Worker register() {
+        return dispatcher.register();
+    }
+
+    /**
+     * Registers a chef that only makes items in some categories
+     *
+     * @param categories The categories the chef makes, every category if empty
+     * @return the chef's queue of items
+     */
+    public Dispatcher<Map.Entry<Waiter, FoodItem>>.Worker register(Set<ItemCategory> categories) {
+        return dispatcher.register(categories);
+    }
+
+    /**
+     * Method to return the number of items waiting
+     *
+     * @return The number of items
+     */
+    public int size() {
+        return dispatcher.size();
+    }
+
+    /**
+     * Method to return the number of items waiting in one category
+     *
+     * @param category The category
+     * @return The number of items
+     */
+    public int size(ItemCategory category) {
+        return dispatcher.size(category);
+    }
+
+    /**
+     * Method to return the dispatcher handing items to each chef
+     *
+     * @return the dispatcher
+     */
+    public Dispatcher<Map.Entry<Waiter, FoodItem>> getDispatcher() {
+        return dispatcher;
     }
 
     /**
      * Method to return singleton instance of class
+     * Synchronized so a chef registering and a waiter handing out items on other threads always get the same list
      *
      * @return the class instance
      */
-    public static FoodList getInstance() {
-        if (instance == null) instance = new FoodList();
+    public static synchronized FoodList getInstance() {
+        if (instance == null) instance = new FoodList(DEFAULT_CAPACITY);
         return instance;
     }
 
     /**
-     * Reset the OrderList singleton instance
+     * Reset the FoodList singleton instance
+     * Used by tests
+     */
+    public static synchronized void resetInstance() {
+        resetInstance(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Reset the FoodList singleton instance with a different capacity
      * Used by tests
+     *
+     * @param capacity the most items that can be waiting
+     */
+    public static synchronized void resetInstance(int capacity) {
+        instance = new FoodList(capacity);
+    }
+
+    /**
+     * Returns the category of an item
+     *
+     * @param itemID The item ID
+     * @return The category, or null if the item is no longer on the menu
      */
-    public static void resetInstance() {
-        instance = new FoodList();
+    private static ItemCategory categoryOf(String itemID) {
+        MenuVersion menu = ItemList.getInstance().getSnapshot();
+        return menu.getCategory(menu.code(itemID));
     }
 }
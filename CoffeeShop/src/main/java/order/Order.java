@@ -2,17 +2,17 @@ package order;
 import customer.Customer;
 import exceptions.InvalidItemIDException;
 import exceptions.InvalidOrderException;
-import item.Item;
-import item.ItemCategory;
 import item.ItemFileReader;
 import item.ItemList;
+import item.ItemRegistry;
+import item.MenuVersion;
 import server.ClientService;
-import utils.Discount;
-import utils.DiscountDataStructure;
+import utils.DiscountEngine;
 import utils.SoundPlayer;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
 
 /**
@@ -20,6 +20,10 @@ import java.util.*;
  * Contains details about the items in the order, the customer, the timestamp, and the total cost.
  * The order may also have an associated discount.
  *
+ * Many orders are held at once, so an order is kept compact: its items are item codes held by its
+ * DiscountEngine alongside their prices in pence, its timestamp is epoch milliseconds, and its Customer
+ * is only made when it is asked for. The getters build views of these when they are called.
+ *
  * @author Mohd Faiz
  */
 
@@ -30,40 +34,34 @@ public class Order implements Serializable {
     /** Unique identifier for the customer who placed the order */
     private final UUID customerID;
 
-    /** Timestamp representing when the order was placed */
-    private final LocalDateTime timestamp;
-
-    /** List of item IDs associated with the order */
-    private final ArrayList<String> orderDetails;
+    /** When the order was placed, in milliseconds since the epoch taking the local date time as UTC */
+    private final long timestamp;
 
-    /** Menu containing available items and their associated costs */
-    private ItemList menu;
+    /** Holds the items in the order and works out the total cost and discounted cost as they are added and removed */
+    private final DiscountEngine discounts;
 
-    /** The total cost of the order before any discount is applied */
-    private double totalCost;
-
-    /** The total discounted cost of the order */
-    private double discountedCost;
+    /** The version of the menu the order was last priced against */
+    private long menuVersion;
 
     private boolean onlineStatus;
-    private ClientService clientService;
-    private final Customer customer;
+    private transient ClientService clientService;
+
+    /** The customer, made the first time it is asked for */
+    private Customer customer;
 
-    private Map<Set<ItemCategory>, Discount> discountsMap = new HashMap<>();
+    /** The customer's name until the customer is made */
+    private String customerName;
 
     /** Constructor for creating an Order with only the menu */
     public Order() throws InvalidOrderException {
         // Initialize fields
         this.customerID = UUID.randomUUID();
         this.orderID = UUID.randomUUID();
-        this.customer = new Customer();
-        this.timestamp = LocalDateTime.now();
-        this.orderDetails = new ArrayList<>();
-        this.menu = ItemList.getInstance();
+        this.timestamp = toEpochMilli(LocalDateTime.now());
         this.onlineStatus = false;
         this.clientService = null;
 
-        if (menu.getItemCount() == 0) {
+        if (ItemList.getInstance().getItemCount() == 0) {
             ItemList.resetInstance();
 
             try (ItemFileReader itemReader = new ItemFileReader("menu.txt")) {
@@ -72,17 +70,13 @@ public class Order implements Serializable {
                 throw new RuntimeException(e);
             }
 
-            this.menu = ItemList.getInstance();
-
-            if (menu.getItemCount() == 0) {
+            if (ItemList.getInstance().getItemCount() == 0) {
                 throw new InvalidOrderException("Menu cannot be null.");
             }
         }
 
-        discountsMap = Discount.createDiscounts();
-
-        calculateTotalCost();
-        calculateDiscountedCost();
+        this.discounts = new DiscountEngine();
+        this.menuVersion = ItemList.getInstance().getVersion();
     }
 
     /**
@@ -103,26 +97,23 @@ public class Order implements Serializable {
 
         this.orderID = UUID.fromString(orderID);
         this.customerID = UUID.fromString(customerID);
-        this.customer = new Customer();
-        this.timestamp = timestamp;
-        this.orderDetails = orderDetails;
+        this.customerName = customerName;
+        this.timestamp = toEpochMilli(timestamp);
         this.onlineStatus = onlineStatus;
         this.clientService = null;
 
         if (menu == null) {
             throw new InvalidOrderException("Menu cannot be null.");
         }
-        if (menu.getMenu().isEmpty()) {
+        if (menu.getItemCount() == 0) {
             throw new InvalidOrderException("Menu cannot be null.");
         }
-        this.menu = menu;
-
-        this.customer.setName(customerName);
 
-        discountsMap = Discount.createDiscounts();
+        MenuVersion snapshot = menu.getSnapshot();
 
-        calculateTotalCost();
-        calculateDiscountedCost();
+        this.discounts = new DiscountEngine();
+        this.discounts.addAll(orderDetails, snapshot);
+        this.menuVersion = snapshot.version();
     }
 
     /**
@@ -133,15 +124,17 @@ public class Order implements Serializable {
      * @throws InvalidItemIDException if the item ID is invalid
      */
     public void addItem(String itemID) throws InvalidItemIDException{
-        if (!menu.itemExists(itemID)) {
+        // The existence check and the price come from the same menu version
+        MenuVersion snapshot = ItemList.getInstance().getSnapshot();
+        int code = snapshot.code(itemID);
+
+        if (code < 0) {
             throw new InvalidItemIDException("Invalid Item ID: " + itemID);
         }
 
-        if (orderDetails.add(itemID)) {
-            SoundPlayer.playSound(SoundPlayer.SoundType.NEW_ITEM_ADD);
-            calculateTotalCost();  // Recalculate the total cost after adding an item
-            calculateDiscountedCost();
-        }
+        SoundPlayer.playSound(SoundPlayer.SoundType.NEW_ITEM_ADD);
+        discounts.add(code, snapshot);
+        menuVersion = snapshot.version();
     }
 
     /**
@@ -151,12 +144,14 @@ public class Order implements Serializable {
      * @param itemID The ID of the item to remove from the order
      */
     public boolean removeItem(String itemID) {
-        if (orderDetails.remove(itemID)) {
-            calculateTotalCost();
-            calculateDiscountedCost();
-            return true;
-        }
-        return false;
+        int code = ItemRegistry.code(itemID);
+        int index = code < 0 ? -1 : discounts.indexOf(code);
+
+        if (index == -1) return false;
+
+        discounts.remove(index);
+
+        return true;
     }
 
     /**
@@ -165,100 +160,13 @@ public class Order implements Serializable {
      *
      */
     public boolean removeLastItem() {
-        if (orderDetails.isEmpty()) return false;
+        if (discounts.size() == 0) return false;
 
-        orderDetails.removeLast();
-
-        calculateTotalCost();
-        calculateDiscountedCost();
+        discounts.remove(discounts.size() - 1);
 
         return true;
     }
 
-    /**
-     * Calculates the total cost of the order based on the items in the order.
-     * The cost of each item is fetched from the menu.
-     */
-    private void calculateTotalCost() {
-        totalCost = 0.0;      //assuming default cost here
-        for (String itemID : orderDetails) {
-            // Assuming each item has a fixed cost, and the cost is added up (we can modify according to need)
-            totalCost += menu.getCost(itemID); // Can change this method according to need
-        }
-    }
-
-    /**
-     * Calculates the discounted cost
-     */
-    private void calculateDiscountedCost() {
-        discountedCost = totalCost;
-
-        ArrayList<String> myOrderDetails = new ArrayList<>(orderDetails);
-
-        DiscountDataStructure structure = new DiscountDataStructure();
-
-        // First checking discounts for daily special items
-        Item dailySpecial = Discount.getDailySpecialItem();
-        if (dailySpecial != null) {
-            for (int i = 0; i < myOrderDetails.size(); i++) {
-                if (myOrderDetails.get(i).equals(dailySpecial.getItemID())) {
-                    structure.addEntry(Discount.DAILY_SPECIAL, i, i);
-                }
-            }
-        }
-
-        // After checking for Daily Specials, checking for other discounts
-
-        /** Nested for loop to compare each item to another to check for available discounts */
-        for (int i = 0; i < myOrderDetails.size(); i++) {
-            for (int j = i + 1; j < myOrderDetails.size(); j++) {
-                if (menu.getCategory(myOrderDetails.get(i)) != menu.getCategory(myOrderDetails.get(j))) {
-                    /** If a discount is found this will then be added to the custom DiscountDataStructure */
-                    Discount d = discountsMap.get(Set.of(menu.getCategory(myOrderDetails.get(i)), menu.getCategory(myOrderDetails.get(j))));
-                    if (d != null) {
-                        structure.addEntry(d, i, j);
-                    }
-                }
-            }
-        }
-
-        /** Removes and looks at the first entry in the discount data structure (ie the first discount to apply) */
-        ArrayList<Object> s = structure.removeEntry();
-
-        while (s != null) {
-            Discount discount = (Discount) s.get(0);
-
-            int index1 = (Integer) s.get(1);
-            int index2 = (Integer) s.get(2);
-
-            if (discount == Discount.DAILY_SPECIAL) {
-                if (index1 < myOrderDetails.size()) {
-                    discountedCost -= (menu.getCost(myOrderDetails.get(index1)) - ((Discount) s.get(0)).calculateDiscount(menu.getCost(myOrderDetails.get(index1))));
-                    myOrderDetails.remove(index1);
-                }
-            }
-            else {
-                // Process the higher index first to avoid index shifting issues
-                int higherIndex = Math.max(index1, index2);
-                int lowerIndex = Math.min(index1, index2);
-
-                if (higherIndex < myOrderDetails.size() && lowerIndex < myOrderDetails.size()) {
-                    // Apply discount to both items
-                    discountedCost -= (menu.getCost(myOrderDetails.get(higherIndex)) -
-                            discount.calculateDiscount(menu.getCost(myOrderDetails.get(higherIndex))));
-                    discountedCost -= (menu.getCost(myOrderDetails.get(lowerIndex)) -
-                            discount.calculateDiscount(menu.getCost(myOrderDetails.get(lowerIndex))));
-
-                    // Remove items starting from higher index first
-                    myOrderDetails.remove(higherIndex);
-                    myOrderDetails.remove(lowerIndex);
-                }
-            }
-            /** This is then repeated for anymore available discounts */
-            s = structure.removeEntry();
-        }
-    }
-
     /**
      * Returns the unique order ID.
      *
@@ -280,19 +188,40 @@ public class Order implements Serializable {
     /**
      * Returns the timestamp when the order was placed.
      *
-     * @return The timestamp as a LocalDateTime object
+     * @return The timestamp as a LocalDateTime object, to the millisecond
      */
     public LocalDateTime getTimestamp() {
-        return timestamp;
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(timestamp, 1000), Math.floorMod(timestamp, 1000) * 1_000_000, ZoneOffset.UTC);
     }
 
     /**
      * Returns the order details.
+     * The list is a view of the items in the order, so it follows items being added and removed.
+     *
+     * @return the item IDs in the order they were added, which cannot be changed through the list
+     */
+    public List<String> getDetails() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return ItemRegistry.itemID(discounts.getCode(index));
+            }
+
+            @Override
+            public int size() {
+                return discounts.size();
+            }
+        };
+    }
+
+    /**
+     * Returns the version of the menu the order was last priced against.
+     * Items added before a price change keep the price they were added at.
      *
-     * @return the order details
+     * @return The menu version
      */
-    public ArrayList<String> getDetails() {
-        return orderDetails;
+    public long getMenuVersion() {
+        return menuVersion;
     }
 
     /**
@@ -301,7 +230,7 @@ public class Order implements Serializable {
      * @return The total cost of the order
      */
     public double getTotalCost() {
-        return totalCost;
+        return discounts.getTotalCost();
     }
 
     /**
@@ -310,7 +239,7 @@ public class Order implements Serializable {
      * @return The discounted cost of the order
      */
     public double getDiscountedCost() {
-        return discountedCost;   //can modify later according to need
+        return discounts.getDiscountedCost();
     }
 
     /**
@@ -364,8 +293,8 @@ public class Order implements Serializable {
      * Get the customer's name
      * @return the name of the customer as a string
      */
-    public String getCustomerName() {
-        return customer.getName();
+    public synchronized String getCustomerName() {
+        return customer == null ? customerName : customer.getName();
     }
 
     /**
@@ -373,7 +302,23 @@ public class Order implements Serializable {
      *
      * @return Customer object
      */
-    public Customer getCustomer() {
+    public synchronized Customer getCustomer() {
+        if (customer == null) {
+            customer = new Customer();
+            customer.setName(customerName);
+            customerName = null;
+        }
+
         return customer;
     }
+
+    /**
+     * Converts a timestamp to milliseconds since the epoch, taking it as UTC
+     *
+     * @param timestamp the timestamp
+     * @return the milliseconds since the epoch
+     */
+    private static long toEpochMilli(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
 }
\ No newline at end of file
@@ -6,14 +6,23 @@ import interfaces.AbstractFileManager;
 import item.ItemList;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Reads and Writes Order data using Java Stream
  * @author Cameron Hunt
  */
 public class OrderFileReadWrite extends AbstractFileManager<OrderList, OrderList> {
+    /** Number of fields in a line, any after these are ignored */
+    private static final int FIELDS = 6;
+
     /**
      * Constructor
      * @param fileName the file to operate on
@@ -22,6 +31,16 @@ public class OrderFileReadWrite extends AbstractFileManager<OrderList, OrderList
         super(fileName);
     }
 
+    /**
+     * Constructor for a file outside the files directory, such as an order history archive
+     * @param path the file to operate on
+     */
+    public OrderFileReadWrite(Path path) {
+        super(path.getFileName().toString());
+
+        filePath = path.toFile();
+    }
+
     /**
      * Write to a given file
      */
@@ -47,40 +66,187 @@ public class OrderFileReadWrite extends AbstractFileManager<OrderList, OrderList
         }
     }
 
+    /**
+     * Reads the orders file a line at a time and adds each order to the OrderList
+     * Lines that are not valid orders are reported and skipped, the rest of the file is still loaded
+     *
+     * @throws FileNotFoundException if the file does not exist
+     */
+    @Override
+    public void readFile() throws FileNotFoundException {
+        menu = ItemList.getInstance();
+
+        forEachOrder(addToOrderList());
+    }
+
     /**
      * Convert StringBuilder file content to a queue of Orders
      * @param fileContents the contents of the read from file
      */
     @Override
     protected void ingestFileContents(StringBuilder fileContents) {
-        OrderList orderList = OrderList.getInstance();
         menu = ItemList.getInstance();
 
-        try {
-            // We only really care about the InvalidOrderException
-            for (String line : fileContents.toString().split("\n")) {
-                // Skip empty lines
-                if (line.trim().isEmpty()) continue;
+        try (BufferedReader reader = new BufferedReader(new StringReader(fileContents.toString()))) {
+            forEachOrder(reader, addToOrderList());
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads every order in the file without adding them to the OrderList
+     * Used to replay the orders in a headless simulation, lines that are not valid orders are skipped
+     *
+     * @return the orders in the order they appear in the file
+     * @throws FileNotFoundException if the file does not exist
+     */
+    public List<Order> readOrders() throws FileNotFoundException {
+        List<Order> orders = new ArrayList<>();
+
+        forEachOrder(orders::add);
+
+        return orders;
+    }
+
+    /**
+     * Reads the file a line at a time, passing each order to the action as soon as it is parsed
+     * Only one line is held at a time, so a large order history can be loaded in bounded memory
+     * as long as the action does not keep every order
+     *
+     * @param action what to do with each order
+     * @return how many orders were read and how many lines were skipped
+     * @throws FileNotFoundException if the file does not exist
+     */
+    public LoadResult forEachOrder(Consumer<Order> action) throws FileNotFoundException {
+        if (filePath == null) throw new FileNotFoundException("File Path is null");
+
+        try (BufferedReader reader = Files.newBufferedReader(filePath.toPath(), StandardCharsets.UTF_8)) {
+            return forEachOrder(reader, action);
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            throw new FileNotFoundException(e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return new LoadResult(0, 0);
+        }
+    }
+
+    /**
+     * Parses each line from the reader, reporting and skipping lines that are not valid orders
+     *
+     * @param reader the lines to parse
+     * @param action what to do with each order
+     * @return how many orders were read and how many lines were skipped
+     * @throws IOException if the lines cannot be read
+     */
+    private LoadResult forEachOrder(BufferedReader reader, Consumer<Order> action) throws IOException {
+        long lineNumber = 0;
+        long loaded = 0;
+        long skipped = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
 
-                String[] lineData = line.split(",");
-                String[] itemIds = lineData[4].split(";");
+            // Skip empty lines
+            if (line.isBlank()) continue;
 
-                UUID.fromString(lineData[0]);
-                UUID.fromString(lineData[1]);
+            Order order;
+            try {
+                order = parseOrder(line, menu);
+            } catch (InvalidOrderException | IllegalArgumentException | DateTimeParseException e) {
+                System.err.println("Skipping line " + lineNumber + " of " + fileName + " : " + e.getMessage());
+                skipped++;
+                continue;
+            }
 
-                Order order = new Order(lineData[0],
-                        lineData[1],
-                        lineData[2],
-                        LocalDateTime.parse(lineData[3]),
-                        new ArrayList<>(List.of(itemIds)),
-                        menu,
-                        Boolean.parseBoolean(lineData[5]));
+            action.accept(order);
+            loaded++;
+        }
 
+        return new LoadResult(loaded, skipped);
+    }
+
+    /**
+     * Adds each order to the OrderList, skipping orders that are already in it or are not valid
+     *
+     * @return the action
+     */
+    private static Consumer<Order> addToOrderList() {
+        OrderList orderList = OrderList.getInstance();
+
+        return order -> {
+            try {
                 orderList.addSimulation(order);
+            } catch (DuplicateOrderException | InvalidOrderException e) {
+                System.err.println("Skipping : " + e.getMessage());
             }
-        } catch (InvalidOrderException | IllegalArgumentException | DuplicateOrderException e) {
-            System.err.println("Skipping : " + e.getMessage());
+        };
+    }
+
+    /**
+     * Converts one line of an orders file into an Order
+     * A line holds the order ID, customer ID, customer name, timestamp, items separated by ; and whether it is online
+     * The fields are found with indexOf rather than split, so no arrays or patterns are made per line
+     *
+     * @param line the line
+     * @param menu the menu the items must be on
+     * @return the order
+     * @throws InvalidOrderException if the order is not valid or a field is missing
+     * @throws IllegalArgumentException if an ID is not a UUID
+     * @throws DateTimeParseException if the timestamp is not valid
+     */
+    public static Order parseOrder(String line, ItemList menu) throws InvalidOrderException {
+        String[] fields = new String[FIELDS];
+        int start = 0;
+
+        for (int i = 0; i < FIELDS; i++) {
+            if (start > line.length()) throw new InvalidOrderException("Order has " + i + " fields, expected " + FIELDS);
+
+            int end = line.indexOf(',', start);
+            if (end < 0) end = line.length();
+
+            fields[i] = line.substring(start, end);
+            start = end + 1;
         }
+
+        return new Order(fields[0],
+                fields[1],
+                fields[2],
+                LocalDateTime.parse(fields[3].trim()),
+                parseItems(fields[4]),
+                menu,
+                Boolean.parseBoolean(fields[5].trim()));
+    }
+
+    /**
+     * Splits the items of an order, which are separated by ;
+     *
+     * @param items the items field
+     * @return the item IDs
+     */
+    private static ArrayList<String> parseItems(String items) {
+        ArrayList<String> itemIDs = new ArrayList<>();
+        int start = 0;
+
+        while (start < items.length()) {
+            int end = items.indexOf(';', start);
+            if (end < 0) end = items.length();
+
+            if (end > start) itemIDs.add(items.substring(start, end));
+            start = end + 1;
+        }
+
+        return itemIDs;
+    }
+
+    /**
+     * How much of an orders file was loaded
+     *
+     * @param loaded the number of orders read
+     * @param skipped the number of lines that were not valid orders
+     */
+    public record LoadResult(long loaded, long skipped) {
     }
 
     /**
@@ -0,0 +1,256 @@
+package order;
+
+import exceptions.DuplicateOrderException;
+import exceptions.InvalidOrderException;
+import item.ItemList;
+import logs.CoffeeShopLogger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Imports a large orders file into the OrderList using several threads
+ *
+ * The file is split into chunks on line boundaries, and each chunk is read, parsed and priced on a fork-join pool
+ * The orders are then added to the OrderList one chunk at a time in file order, so the result is the same as
+ * reading the file with OrderFileReadWrite
+ * Only a few chunks are in flight at once, so the memory used for reading and parsing is bounded by the chunk size
+ * rather than the file size
+ * The OrderList still holds every order imported, and the ID of each is kept until the import finishes so an order
+ * repeated in the file is skipped, which takes 21 to 43 bytes per order in a {@link UuidSet}
+ */
+public class OrderImporter {
+    /** Default number of bytes in a chunk */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private static final CoffeeShopLogger logger = CoffeeShopLogger.getInstance();
+
+    private final Path file;
+
+    private final ItemList menu;
+
+    private final int parallelism;
+
+    private final int chunkSize;
+
+    /**
+     * Constructor
+     *
+     * @param file the orders file
+     * @param menu the menu the items must be on
+     * @param parallelism the number of threads parsing chunks
+     */
+    public OrderImporter(Path file, ItemList menu, int parallelism) {
+        this(file, menu, parallelism, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param file the orders file
+     * @param menu the menu the items must be on
+     * @param parallelism the number of threads parsing chunks
+     * @param chunkSize roughly how many bytes each thread parses at once, a chunk is extended to the end of its last line
+     */
+    public OrderImporter(Path file, ItemList menu, int parallelism, int chunkSize) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be at least 1");
+
+        this.file = file;
+        this.menu = menu;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports every order in the file into the OrderList in file order
+     * Lines that are not valid orders, and orders already imported or in the OrderList, are reported and skipped
+     *
+     * @param orderList the list to add the orders to
+     * @return how many orders were imported and skipped
+     * @throws IOException if the file cannot be read
+     */
+    public ImportResult importOrders(OrderList orderList) throws IOException {
+        long loaded = 0;
+        long skipped = 0;
+        long duplicates = 0;
+        long lineNumber = 0;
+        UuidSet imported = new UuidSet();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> chunks = split(channel);
+            Deque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                int next = 0;
+
+                while (next < chunks.size() || !inFlight.isEmpty()) {
+                    // Keep a couple of chunks per thread queued so no thread waits on the commit
+                    while (next < chunks.size() && inFlight.size() < parallelism * 2) {
+                        long[] range = chunks.get(next++);
+                        inFlight.add(pool.submit(() -> parse(channel, range[0], range[1])));
+                    }
+
+                    Chunk chunk = inFlight.removeFirst().join();
+
+                    for (LineError error : chunk.errors()) {
+                        logger.logWarning("Skipping line " + (lineNumber + error.line()) + " of " + file.getFileName() + " : " + error.message());
+                    }
+
+                    for (Order order : chunk.orders()) {
+                        try {
+                            if (!imported.add(order.getOrderID())) throw new DuplicateOrderException("Duplicate Order");
+
+                            orderList.addSimulation(order);
+                            loaded++;
+                        } catch (DuplicateOrderException e) {
+                            logger.logWarning("Skipping : " + e.getMessage() + " " + order.getOrderID());
+                            duplicates++;
+                        } catch (InvalidOrderException e) {
+                            logger.logWarning("Skipping : " + e.getMessage() + " " + order.getOrderID());
+                            skipped++;
+                        }
+                    }
+
+                    skipped += chunk.errors().size();
+                    lineNumber += chunk.lines();
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        return new ImportResult(loaded, skipped, duplicates);
+    }
+
+    /**
+     * Splits the file into chunks that start and end on line boundaries
+     *
+     * @param channel the file
+     * @return the start and end offset of each chunk
+     * @throws IOException if the file cannot be read
+     */
+    private List<long[]> split(FileChannel channel) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        long size = channel.size();
+        long start = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+        while (start < size) {
+            long end = Math.min(start + chunkSize, size);
+
+            // Move the end past the next new line so no line is split between chunks
+            while (end < size) {
+                buffer.clear();
+                int read = channel.read(buffer, end);
+                if (read <= 0) break;
+
+                int newLine = -1;
+                for (int i = 0; i < read && newLine < 0; i++) {
+                    if (buffer.get(i) == '\n') newLine = i;
+                }
+
+                if (newLine >= 0) {
+                    end += newLine + 1;
+                    break;
+                }
+                end += read;
+            }
+
+            chunks.add(new long[] { start, Math.min(end, size) });
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Reads and parses the orders in one chunk
+     *
+     * @param channel the file
+     * @param start the offset of the first byte
+     * @param end the offset after the last byte
+     * @return the orders and the lines that were not valid orders
+     */
+    private Chunk parse(FileChannel channel, long start, long end) {
+        byte[] bytes = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) break;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<Order> orders = new ArrayList<>();
+        List<LineError> errors = new ArrayList<>();
+        int lines = 0;
+        int lineStart = 0;
+
+        while (lineStart < bytes.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < bytes.length && bytes[lineEnd] != '\n') lineEnd++;
+
+            int length = lineEnd - lineStart;
+            if (length > 0 && bytes[lineEnd - 1] == '\r') length--;
+
+            String line = new String(bytes, lineStart, length, StandardCharsets.UTF_8);
+            lines++;
+            lineStart = lineEnd + 1;
+
+            // Skip empty lines
+            if (line.isBlank()) continue;
+
+            try {
+                orders.add(OrderFileReadWrite.parseOrder(line, menu));
+            } catch (InvalidOrderException | IllegalArgumentException | DateTimeParseException e) {
+                errors.add(new LineError(lines, e.getMessage()));
+            }
+        }
+
+        return new Chunk(orders, errors, lines);
+    }
+
+    /**
+     * The parsed orders of one chunk
+     *
+     * @param orders the orders in file order
+     * @param errors the lines that were not valid orders
+     * @param lines the number of lines in the chunk
+     */
+    private record Chunk(List<Order> orders, List<LineError> errors, int lines) {
+    }
+
+    /**
+     * A line that was not a valid order
+     *
+     * @param line the line number within its chunk, starting at 1
+     * @param message why it is not valid
+     */
+    private record LineError(int line, String message) {
+    }
+
+    /**
+     * How much of a file was imported
+     *
+     * @param loaded the number of orders added to the OrderList
+     * @param skipped the number of lines that were not valid orders, or orders with no items
+     * @param duplicates the number of orders skipped as they were already imported or in the OrderList
+     */
+    public record ImportResult(long loaded, long skipped, long duplicates) {
+    }
+}
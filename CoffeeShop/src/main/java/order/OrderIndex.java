@@ -0,0 +1,180 @@
+package order;
+
+import java.io.Serializable;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Concurrent index of every order the OrderList knows about, keyed by order ID
+ *
+ * Each entry records the state of the order (pending, in progress or complete)
+ * Duplicate detection, lookup by ID and removal by ID are all constant time lookups in this index
+ * State changes are made with compare and set so only one thread can claim, remove or complete an order
+ *
+ * Once a completed order has been moved out of memory its entry is removed,
+ * the CompletedOrderStore keeps the ID so the order is still detected as a duplicate
+ */
+public class OrderIndex implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Map of order ID to the indexed entry */
+    private final ConcurrentHashMap<UUID, Entry> entries;
+
+    /**
+     * Constructor to set up an empty index
+     */
+    public OrderIndex() {
+        entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a new pending entry for an order
+     *
+     * @param order The order to be indexed
+     * @return The new entry, or null if an order with the same ID is already indexed
+     */
+    public Entry register(Order order) {
+        Entry entry = new Entry(order);
+
+        return entries.putIfAbsent(order.getOrderID(), entry) == null ? entry : null;
+    }
+
+    /**
+     * Removes an entry, only if it is still the entry held for its order ID
+     *
+     * @param entry The entry to be removed
+     */
+    public void unregister(Entry entry) {
+        entries.remove(entry.getOrderID(), entry);
+    }
+
+    /**
+     * Method to return the entry for an order ID
+     *
+     * @param orderID The ID of the order
+     * @return The entry, or null if the order has never been added
+     */
+    public Entry get(UUID orderID) {
+        return entries.get(orderID);
+    }
+
+    /**
+     * Checks if an order ID has already been indexed
+     *
+     * @param orderID The ID of the order
+     * @return True if the ID is indexed, False otherwise
+     */
+    public boolean contains(UUID orderID) {
+        return entries.containsKey(orderID);
+    }
+
+    /**
+     * Method to return the number of indexed orders
+     *
+     * @return The number of entries in the index
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * An order and its current state
+     */
+    public static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final UUID orderID;
+
+        private final Order order;
+
+        private final AtomicReference<OrderState> state;
+
+        /** When the entry was first put in the queue, from {@link System#nanoTime()} */
+        private final long addedAt = System.nanoTime();
+
+        /** When the entry was last put in the queue, from {@link System#nanoTime()} */
+        private volatile long queuedAt = addedAt;
+
+        /**
+         * Constructor to set up a pending entry
+         *
+         * @param order The order held by the entry
+         */
+        private Entry(Order order) {
+            this.orderID = order.getOrderID();
+            this.order = order;
+            this.state = new AtomicReference<>(OrderState.PENDING);
+        }
+
+        /**
+         * Method to return the ID of the indexed order
+         *
+         * @return The order ID
+         */
+        public UUID getOrderID() {
+            return orderID;
+        }
+
+        /**
+         * Method to return the indexed order
+         *
+         * @return The order
+         */
+        public Order getOrder() {
+            return order;
+        }
+
+        /**
+         * Method to return the state of the order
+         *
+         * @return The current state
+         */
+        public OrderState getState() {
+            return state.get();
+        }
+
+        /**
+         * Method to return when the entry was first put in the queue
+         *
+         * @return The time from {@link System#nanoTime()}
+         */
+        public long getAddedAt() {
+            return addedAt;
+        }
+
+        /**
+         * Method to return when the entry was last put in the queue
+         *
+         * @return The time from {@link System#nanoTime()}
+         */
+        public long getQueuedAt() {
+            return queuedAt;
+        }
+
+        /**
+         * Records the entry being put back in the queue
+         */
+        public void markQueued() {
+            queuedAt = System.nanoTime();
+        }
+
+        /**
+         * Moves the entry from one state to another
+         *
+         * @param expected The state the entry must currently be in
+         * @param next The new state
+         * @return True if the entry was in the expected state and has been moved, False otherwise
+         */
+        public boolean transition(OrderState expected, OrderState next) {
+            return state.compareAndSet(expected, next);
+        }
+
+        /**
+         * Moves the entry to the complete state from whichever state it is in
+         */
+        public void complete() {
+            state.set(OrderState.COMPLETE);
+        }
+    }
+}
@@ -4,20 +4,23 @@ import client.SimUIController;
 import client.SimUIModel;
 import exceptions.DuplicateOrderException;
 import exceptions.InvalidOrderException;
+import feed.Change;
+import feed.ChangeFeed;
+import feed.OrderSummary;
 import interfaces.EntityList;
+import interfaces.SchedulingPolicy;
 import interfaces.Subject;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import logs.CoffeeShopLogger;
+import utils.LatencyHistogram;
 import utils.SoundPlayer;
 
-import static java.lang.Thread.sleep;
-
-
 /**
  * Singleton class and uses Observer Design Pattern (this class is the subject)
  *
@@ -25,15 +28,31 @@ import static java.lang.Thread.sleep;
  *
  * Contains a queue of different orders created by customers
  *
+ * The queued orders are held in an OrderQueue with one lock free shard per channel (in person and online)
+ * so adding and taking orders does not contend on a single monitor
+ *
+ * Every order added is also held in an OrderIndex keyed by order ID which tracks whether it is pending, in progress or complete
+ * This makes duplicate detection, lookup by ID and removal by ID constant time
+ *
+ * Completed orders are held in a CompletedOrderStore which only keeps the most recent orders in memory
+ * and maintains the running totals used by the end of day report
+ *
+ * Every change to the queue is published to the ChangeFeed so clients are sent the change rather than the whole list
+ *
+ * Which order a waiter takes next is decided by a SchedulingPolicy that can be changed while the simulation runs
+ *
  * @author Fraser Holman
  */
 
 public class OrderList extends Subject implements EntityList<Order, UUID>, Serializable, Runnable {
-    /** A queue to hold completed Order objects
-     * This will be implemented in Stage 2 */
-    private ArrayList<Order> completeOrders;
+    /** Store holding completed orders */
+    private final CompletedOrderStore completeOrders;
+
+    /** Sharded queue holding the in person and online orders */
+    private final OrderQueue allOrders;
 
-    private ArrayList<Queue<Order>> allOrders;
+    /** Index of every order added to the OrderList by order ID */
+    private final OrderIndex index;
 
     private ArrayList<Order> simulationOrders;
 
@@ -46,16 +65,21 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
     /** Logger instance */
     private final CoffeeShopLogger logger;
 
+    /** Policy deciding which order a waiter takes next */
+    private volatile SchedulingPolicy schedulingPolicy = new ChannelPriorityPolicy();
+
+    /** Time from each order being added until it was complete */
+    private final LatencyHistogram orderLatency = new LatencyHistogram();
+
     /**
      * Initialises the queue to contain all the orders
      */
     private OrderList() {
-        allOrders = new ArrayList<>();
+        allOrders = new OrderQueue();
+        index = new OrderIndex();
         simulationOrders = new ArrayList<>();
-        allOrders.add(new ArrayDeque<Order>());
-        allOrders.add(new ArrayDeque<Order>());
         logger = CoffeeShopLogger.getInstance();
-        completeOrders = new ArrayList<>();
+        completeOrders = new CompletedOrderStore();
     }
 
     /**
@@ -71,6 +95,56 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
         this.maxQueueSize = maxQueueSize;
     }
 
+    /**
+     * Method to set the policy deciding which order a waiter takes next
+     * Waiters already waiting for an order use the new policy for the next order they take
+     *
+     * @param schedulingPolicy The policy
+     */
+    public void setSchedulingPolicy(SchedulingPolicy schedulingPolicy) {
+        this.schedulingPolicy = Objects.requireNonNull(schedulingPolicy);
+        logger.logInfo("Scheduling policy set to " + schedulingPolicy.getName());
+    }
+
+    /**
+     * Method to return the policy deciding which order a waiter takes next
+     *
+     * @return The policy
+     */
+    public SchedulingPolicy getSchedulingPolicy() {
+        return schedulingPolicy;
+    }
+
+    /**
+     * Method to return the time from each order being added until it was complete
+     *
+     * @return The histogram of order latencies
+     */
+    public LatencyHistogram getOrderLatency() {
+        return orderLatency;
+    }
+
+    /**
+     * Method to return the number of orders in the index
+     *
+     * Only used in tests to check completed orders are removed from the index once they are moved out of memory
+     *
+     * @return The number of indexed orders
+     */
+    int getIndexSize() {
+        return index.size();
+    }
+
+    /**
+     * Method to set how many completed orders are kept in memory
+     * Older completed orders are written to the completed order segment log
+     *
+     * @param windowSize The number of completed orders kept in memory
+     */
+    public void setCompletedWindowSize(int windowSize) {
+        completeOrders.setWindowSize(windowSize).forEach(this::release);
+    }
+
     /**
      * Adds an order to the queue of orders
      * Eg will be used when a new Order has been placed
@@ -81,12 +155,7 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
      * @throws DuplicateOrderException if the order already exists
      */
     @Override
-    public synchronized boolean add(Order order) throws InvalidOrderException, DuplicateOrderException {
-        if (allOrders.getFirst().size() + allOrders.getLast().size() >= maxQueueSize) {
-            logger.logWarning("Order queue is full. Cannot add new order.");
-            return false;
-        }
-
+    public boolean add(Order order) throws InvalidOrderException, DuplicateOrderException {
         if (Order.isInvalidOrder(order)) {
             logger.logSevere("Invalid order: Order or Order ID cannot be null");
             throw new InvalidOrderException("Order or Order ID cannot be null");
@@ -97,18 +166,75 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
             throw new InvalidOrderException("Order must contain at least one item");
         }
 
-        if (allOrders.stream().anyMatch(queue -> queue.contains(order)) || completeOrders.contains(order)) {
+        OrderIndex.Entry entry = register(order);
+
+        if (entry == null) {
             logger.logWarning("Duplicate order detected: " + order.getOrderID());
             throw new DuplicateOrderException("Duplicate Order");
         }
 
-        logger.logInfo("Order added to queue: " + order.getOrderID());
+        if (!allOrders.offer(entry, maxQueueSize)) {
+            index.unregister(entry);
+            logger.logWarning("Order queue is full. Cannot add new order.");
+            return false;
+        }
 
-        boolean success = order.getOnlineStatus() ? allOrders.getLast().offer(order) : allOrders.getFirst().offer(order);
+        logger.logInfo("Order added to queue: " + order.getOrderID());
 
+        ChangeFeed.getInstance().publish(new Change.OrderAdded(OrderSummary.of(order, OrderState.PENDING)));
         notifyObservers();
 
-        return success;
+        return true;
+    }
+
+    /**
+     * Adds a batch of orders to the queue in one step
+     * Every order is checked first, then room is made for all the valid ones at once and the observers are told once,
+     * orders that do not fit in the queue are not added
+     *
+     * @param orders The orders to be added, in the order they should be queued
+     * @return Whether each order was added, in the same order as the batch
+     */
+    public boolean[] addAll(List<Order> orders) {
+        boolean[] added = new boolean[orders.size()];
+        List<OrderIndex.Entry> entries = new ArrayList<>(orders.size());
+        int[] positions = new int[orders.size()];
+
+        for (int i = 0; i < added.length; i++) {
+            Order order = orders.get(i);
+
+            if (Order.isInvalidOrder(order) || Order.isOrderDetailsNullOrEmpty(order)) {
+                logger.logWarning("Invalid order in batch at position " + i);
+                continue;
+            }
+
+            OrderIndex.Entry entry = register(order);
+
+            if (entry == null) {
+                logger.logWarning("Duplicate order detected: " + order.getOrderID());
+                continue;
+            }
+
+            positions[entries.size()] = i;
+            entries.add(entry);
+        }
+
+        int count = allOrders.offerAll(entries, maxQueueSize);
+
+        for (int i = count; i < entries.size(); i++) index.unregister(entries.get(i));
+        if (count < entries.size()) logger.logWarning("Order queue is full. " + (entries.size() - count) + " orders in batch not added.");
+
+        for (int i = 0; i < count; i++) {
+            Order order = entries.get(i).getOrder();
+            added[positions[i]] = true;
+            ChangeFeed.getInstance().publish(new Change.OrderAdded(OrderSummary.of(order, OrderState.PENDING)));
+        }
+
+        logger.logInfo(count + " of " + orders.size() + " orders in batch added to queue");
+
+        if (count > 0) notifyObservers();
+
+        return added;
     }
 
     /**
@@ -128,7 +254,7 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
             throw new InvalidOrderException("Order details cannot be empty");
         }
 
-        if (allOrders.stream().anyMatch(queue -> queue.contains(order)) || completeOrders.contains(order)) {
+        if (index.contains(order.getOrderID()) || completeOrders.isSpilled(order.getOrderID())) {
             throw new DuplicateOrderException("Duplicate Order");
         }
 
@@ -142,14 +268,19 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
      * @param ID The ID used to find the order to be removed
      */
     @Override
-    public synchronized boolean remove(UUID ID) throws InvalidOrderException {
-        completeOrders.add(this.getOrder(ID));
-        
+    public boolean remove(UUID ID) throws InvalidOrderException {
+        Order order = this.getOrder(ID);
+
+        if (!allOrders.remove(index.get(ID))) return false;
+
+        release(completeOrders.add(order));
+
         logger.logInfo("Order processed and moved to completed orders: " + ID);
 
-        if (allOrders.getFirst().removeIf(order -> order.getOrderID().equals(ID))) return true;
+        ChangeFeed.getInstance().publish(new Change.OrderCompleted(ID));
+        notifyObservers();
 
-        return allOrders.getLast().removeIf(order -> order.getOrderID().equals(ID));
+        return true;
     }
 
     /**
@@ -159,11 +290,11 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
      *
      * @return Order object to be processed by staff
      */
-    public synchronized Order remove() {
-        Order o = allOrders.getFirst().poll();
+    public Order remove() {
+        Order o = allOrders.poll(false);
         if (o != null) {
+            publishTaken(o);
             notifyObservers();
-            notifyAll();
         }
         return o;
     }
@@ -175,36 +306,137 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
      *
      * @return Order object to be processed by staff
      */
-    public synchronized Order removeOnline() {
-        Order o = allOrders.getLast().poll();
+    public Order removeOnline() {
+        Order o = allOrders.poll(true);
 
         if (o == null) {
             return null;
         }
 
+        publishTaken(o);
         notifyObservers();
-        notifyAll();
 
         return o;
     }
 
+    /**
+     * Method to remove and return the next order for a waiter, blocking until one arrives or the timeout expires
+     *
+     * The order is picked by the scheduling policy, by default the in person queue is chosen when its size multiplied
+     * by the priority is greater than the size of the online queue, if the chosen queue is empty the other queue is used
+     *
+     * @param priority The waiter's priority between in person and online orders
+     * @param timeout How long to wait for an order
+     * @param unit The unit of the timeout
+     * @return Order object to be processed by staff, or null if the timeout expired
+     * @throws InterruptedException if the waiter is interrupted while waiting
+     */
+    public Order take(double priority, long timeout, TimeUnit unit) throws InterruptedException {
+        Order o = allOrders.take(schedulingPolicy, priority, timeout, unit);
+
+        if (o != null) {
+            publishTaken(o);
+            notifyObservers();
+        }
+
+        return o;
+    }
+
+    /**
+     * Method to return when an order was last put in the queue, used to measure how long it waited for a waiter
+     *
+     * @param order The order
+     * @return The time from {@link System#nanoTime()}, or the current time if the order is not known
+     */
+    public long getQueuedAt(Order order) {
+        OrderIndex.Entry entry = index.get(order.getOrderID());
+        return entry == null ? System.nanoTime() : entry.getQueuedAt();
+    }
+
     /**
      * Completes an order from the queue of orders and plays a sound
      */
-    public synchronized void completeOrder(Order order) {
-        completeOrders.add(order);
+    public void completeOrder(Order order) {
+        OrderIndex.Entry entry = index.get(order.getOrderID());
+        if (entry != null) {
+            entry.complete();
+            orderLatency.record(System.nanoTime() - entry.getAddedAt());
+        }
+
+        release(completeOrders.add(order));
+        ChangeFeed.getInstance().publish(new Change.OrderCompleted(order.getOrderID()));
         notifyObservers();
         logger.logInfo("Order completed: " + order.getOrderID());
         SoundPlayer.playSound(SoundPlayer.SoundType.ORDER_COMPLETE);
     }
 
+    /**
+     * Publishes that an order has been taken from the queue by a waiter
+     *
+     * @param order The order taken
+     */
+    private void publishTaken(Order order) {
+        ChangeFeed.getInstance().publish(new Change.OrderMoved(order.getOrderID(), OrderState.IN_PROGRESS));
+    }
+
+    /**
+     * Indexes a new order, unless it is already indexed or has been completed and moved out of memory
+     * The store is checked after the order is indexed, as a completed order is only removed from the index
+     * once the store has its ID, so an order completing at the same time is always caught by one check or the other
+     *
+     * @param order The order to be indexed
+     * @return The new entry, or null if the order is a duplicate
+     */
+    private OrderIndex.Entry register(Order order) {
+        OrderIndex.Entry entry = index.register(order);
+
+        if (entry != null && completeOrders.isSpilled(order.getOrderID())) {
+            index.unregister(entry);
+            return null;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Removes a completed order that has been moved out of memory from the index
+     * The store keeps its ID, so the order is still detected as a duplicate
+     *
+     * @param order The order moved out of memory, or null if no order was moved
+     */
+    private void release(Order order) {
+        if (order == null) return;
+
+        OrderIndex.Entry entry = index.get(order.getOrderID());
+        if (entry != null && entry.getState() == OrderState.COMPLETE) index.unregister(entry);
+    }
+
+    /**
+     * Puts an order that a waiter had taken back at the front of its queue
+     * Used when a waiter is removed part way through an order
+     *
+     * @param order The order to be put back
+     * @return True if the order was put back, False if the order was not in progress
+     */
+    public boolean requeue(Order order) {
+        OrderIndex.Entry entry = index.get(order.getOrderID());
+
+        if (entry == null || !entry.transition(OrderState.IN_PROGRESS, OrderState.PENDING)) return false;
+
+        entry.markQueued();
+        allOrders.requeue(entry);
+        logger.logInfo("Order returned to queue: " + order.getOrderID());
+        ChangeFeed.getInstance().publish(new Change.OrderMoved(order.getOrderID(), OrderState.PENDING));
+        notifyObservers();
+
+        return true;
+    }
+
     /**
      * Removes an order from the queue of orders for processing
      */
     public Order getOrder(boolean online) {
-        if (online) return allOrders.getLast().peek();
-
-        return allOrders.getFirst().peek();
+        return allOrders.peek(online);
     }
 
     /**
@@ -213,10 +445,8 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
      * @param online Checks whether the caller wants the size of the online or in person order queue
      * @return an integer representing the size of the queue
      */
-    public synchronized int getQueueSize(boolean online) {
-        if (online) return allOrders.getLast().size();
-
-        return allOrders.getFirst().size();
+    public int getQueueSize(boolean online) {
+        return allOrders.size(online);
     }
 
     /**
@@ -225,16 +455,14 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
      * @param orderID The UUID of the order to be retrieved
      * @return An Order Object
      */
-    public synchronized Order getOrder(UUID orderID) throws InvalidOrderException {
-        /**
-         * Combines the two queues from the array list into one stream
-         * Saves having to use nested for loops
-         */
-        for (Order o : allOrders.stream().flatMap(Collection::stream).toList()) {
-            if (o.getOrderID().equals(orderID)) {
-                return o;
-            }
+    public Order getOrder(UUID orderID) throws InvalidOrderException {
+        OrderIndex.Entry entry = orderID == null ? null : index.get(orderID);
+
+        // Only orders still waiting in the queue can be retrieved
+        if (entry != null && entry.getState() == OrderState.PENDING) {
+            return entry.getOrder();
         }
+
         logger.logWarning("Invalid order ID: " + orderID);
         throw new InvalidOrderException(orderID + " is not a valid order ID");
     }
@@ -245,7 +473,7 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
      * @return The queue of orders
      */
     public Queue<Order> getOrderList() {
-        return new ArrayDeque<>(allOrders.stream().flatMap(Collection::stream).collect(Collectors.toCollection(ArrayDeque::new)));
+        return allOrders.stream().collect(Collectors.toCollection(ArrayDeque::new));
     }
 
     /**
@@ -256,38 +484,40 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
      * (Order ID,Customer ID,Timestamp,Order Details Array [Item ID],Total Cost,Discounted Cost) e.g.
      */
     public String[] getOrdersToString(boolean completed) {
-        Collection<Order> c = completeOrders;
+        if (completed) {
+            try (Stream<String> lines = completeOrders.lines()) {
+                return lines.toArray(String[]::new);
+            }
+        }
 
-        if (!completed) {
-            c = Stream.of(
-                            simulationOrders.stream(),
-                            completeOrders.stream(),
-                            allOrders.stream().flatMap(Collection::stream)
+        try (Stream<String> lines = completeOrders.lines()) {
+            return Stream.of(
+                            simulationOrders.stream().map(CompletedOrderStore::format),
+                            lines,
+                            allOrders.stream().map(CompletedOrderStore::format)
                     )
                     .flatMap(s -> s)
-                    .toList();
+                    .toArray(String[]::new);
         }
+    }
 
-        String[] orderString = new String[c.size()];
-
-        int count = 0;
-
-        for (Order o : c) {
-            String s = String.format("%s,%s,%s,%s,%s,%b",
-                o.getOrderID().toString(),
-                o.getCustomerID(),
-                o.getCustomerName(),
-                o.getTimestamp().toString(),
-                String.join(";", o.getDetails()),
-                o.getOnlineStatus()
-            );
-
-            orderString[count] = s;
-
-            count++;
-        }
+    /**
+     * Streams the completed orders in the orders file format, oldest first
+     * Used to write the end of day report without loading every completed order
+     *
+     * @return a stream of completed orders, which should be closed once used
+     */
+    public Stream<String> getCompletedOrderLines() {
+        return completeOrders.lines();
+    }
 
-        return orderString;
+    /**
+     * Method to return the number of orders completed
+     *
+     * @return the number of completed orders, including those no longer held in memory
+     */
+    public int getCompletedOrderCount() {
+        return completeOrders.size();
     }
 
     /**
@@ -300,13 +530,13 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
         Collection<Order> c;
 
         if (state == 0) {
-            c = allOrders.getFirst();
+            c = allOrders.shard(false);
         }
         else if (state == 1) {
-            c = allOrders.getLast();
+            c = allOrders.shard(true);
         }
         else {
-            c = completeOrders;
+            c = completeOrders.recent();
         }
 
         StringBuilder orderString = new StringBuilder();
@@ -322,7 +552,7 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
         }
 
         // Remove the last newline if needed
-        if (!c.isEmpty()) {
+        if (!orderString.isEmpty()) {
             orderString.setLength(orderString.length() - 1);
         }
 
@@ -331,33 +561,12 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
 
     /**
      * Method to return a summary of the purchased items and quantity
+     * Uses the running totals kept as orders are completed rather than walking the completed orders
      *
      * @return Hashmap containing what items have been purchased
      */
     public HashMap<String, Double> completedOrderItemCount() {
-        HashMap<String, Double> itemCount = new HashMap<>();
-
-        double totalCost = 0;
-        double discountCost = 0;
-        double numOrders = 0;
-
-        for (Order o : completeOrders) {
-            ArrayList<String> string = o.getDetails();
-
-            totalCost += o.getTotalCost();
-            discountCost += o.getDiscountedCost();
-            numOrders++;
-
-            for (String s : string) {
-                itemCount.put(s, itemCount.getOrDefault(s, 0.0) + 1.0);
-            }
-        }
-
-        itemCount.put("total-cost", totalCost);
-        itemCount.put("discount-cost", discountCost);
-        itemCount.put("num-orders", numOrders);
-
-        return itemCount;
+        return completeOrders.summary();
     }
 
     /**
@@ -367,12 +576,16 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
      * @return String[] returns a string array of IDs that can be printed directly
      */
     public String[] orderIDsToString(boolean completed) {
-        Collection<Order> c = completeOrders;
-
-        if (!completed) {
-            c = allOrders.stream().flatMap(Collection::stream).toList();
+        if (completed) {
+            // The first two fields of a completed order line are the order ID and customer ID
+            try (Stream<String> lines = completeOrders.lines()) {
+                return lines.map(line -> line.substring(0, line.indexOf(',', line.indexOf(',') + 1)))
+                        .toArray(String[]::new);
+            }
         }
 
+        Collection<Order> c = allOrders.stream().toList();
+
         String[] orderIDsArr = new String[c.size()];
 
         int count = 0;
@@ -413,13 +626,14 @@ public class OrderList extends Subject implements EntityList<Order, UUID>, Seria
     public void run() {
         while (!simulationOrders.isEmpty()) {
             try {
-                if (!this.add(simulationOrders.removeFirst())) {
-                    synchronized (this) {
-                        wait();
-                    }
+                Order next = simulationOrders.removeFirst();
+
+                // If the queue is full the order is put back and tried again after the next delay
+                if (!this.add(next)) {
+                    simulationOrders.addFirst(next);
                 }
             }
-            catch (InvalidOrderException | DuplicateOrderException | InterruptedException e) {
+            catch (InvalidOrderException | DuplicateOrderException e) {
                 System.err.println("Error in client: " + e.getClass() + " " + e.getCause() + " " + e.getMessage());
             }
 
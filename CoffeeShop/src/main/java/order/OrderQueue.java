@@ -0,0 +1,371 @@
+package order;
+
+import interfaces.SchedulingPolicy;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Lock free queue engine used by OrderList
+ *
+ * Holds one shard per order channel (in person and online), each shard is a ConcurrentLinkedDeque of OrderIndex entries
+ * The number of queued orders is tracked with atomic counters so the max queue size can be enforced without a lock
+ *
+ * A Semaphore counts the orders that are available to be taken so waiters can block with a timeout
+ * rather than waiting on the OrderList monitor and being woken with notifyAll()
+ *
+ * An order is claimed by moving its entry from PENDING to IN_PROGRESS, so removing an order by ID only has to
+ * move its entry out of PENDING (a constant time operation), the dead entry is skipped and dropped by the next poll
+ *
+ * Permits can briefly drift from the real number of orders when an order is removed by ID or polled directly,
+ * take() tolerates this by always checking the shards before blocking and by dropping stale permits
+ *
+ * Which order a waiter takes is decided by a SchedulingPolicy, the order it picks is claimed and unlinked from its shard
+ */
+public class OrderQueue implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Index of the in person shard */
+    private static final int IN_PERSON = 0;
+
+    /** Index of the online shard */
+    private static final int ONLINE = 1;
+
+    /** Policy used when a waiter does not give one */
+    private static final SchedulingPolicy DEFAULT_POLICY = new ChannelPriorityPolicy();
+
+    /** One deque per channel, the list from List.of is serializable */
+    @SuppressWarnings("serial")
+    private final List<ConcurrentLinkedDeque<OrderIndex.Entry>> shards;
+
+    /** Number of pending orders held in each shard */
+    private final AtomicInteger[] shardSizes;
+
+    /** Number of pending orders held across both shards, used for the max queue size check */
+    private final AtomicInteger size;
+
+    /** Counts the orders that are available to blocking consumers */
+    private final Semaphore available;
+
+    /**
+     * Constructor to set up an empty queue with an in person and an online shard
+     */
+    public OrderQueue() {
+        shards = List.of(new ConcurrentLinkedDeque<>(), new ConcurrentLinkedDeque<>());
+        shardSizes = new AtomicInteger[] { new AtomicInteger(), new AtomicInteger() };
+        size = new AtomicInteger();
+        available = new Semaphore(0);
+    }
+
+    /**
+     * Adds a pending entry to the end of the shard for its channel
+     *
+     * @param entry The entry to be added
+     * @param maxSize The maximum number of orders allowed across both shards
+     * @return True if the entry was added, False if the queue is full
+     */
+    public boolean offer(OrderIndex.Entry entry, int maxSize) {
+        int current;
+
+        do {
+            current = size.get();
+            if (current >= maxSize) return false;
+        } while (!size.compareAndSet(current, current + 1));
+
+        int shard = shardOf(entry.getOrder().getOnlineStatus());
+
+        shards.get(shard).offerLast(entry);
+        shardSizes[shard].incrementAndGet();
+        available.release();
+
+        return true;
+    }
+
+    /**
+     * Adds as many pending entries as there is room for to the ends of their shards, in order
+     * Room for the whole batch is reserved with one update of the size and the waiters are woken once
+     *
+     * @param entries The entries to be added
+     * @param maxSize The maximum number of orders allowed across both shards
+     * @return The number of entries added, the first ones in the list
+     */
+    public int offerAll(List<OrderIndex.Entry> entries, int maxSize) {
+        int current;
+        int count;
+
+        do {
+            current = size.get();
+            count = Math.min(entries.size(), maxSize - current);
+            if (count <= 0) return 0;
+        } while (!size.compareAndSet(current, current + count));
+
+        for (int i = 0; i < count; i++) {
+            OrderIndex.Entry entry = entries.get(i);
+            int shard = shardOf(entry.getOrder().getOnlineStatus());
+
+            shards.get(shard).offerLast(entry);
+            shardSizes[shard].incrementAndGet();
+        }
+
+        available.release(count);
+
+        return count;
+    }
+
+    /**
+     * Puts a pending entry back at the front of its shard, ignoring the max queue size
+     * Used when a waiter hands back an order it had already taken
+     *
+     * @param entry The entry to be put back
+     */
+    public void requeue(OrderIndex.Entry entry) {
+        int shard = shardOf(entry.getOrder().getOnlineStatus());
+
+        size.incrementAndGet();
+        shards.get(shard).offerFirst(entry);
+        shardSizes[shard].incrementAndGet();
+        available.release();
+    }
+
+    /**
+     * Removes and returns the first order from a single shard without blocking
+     *
+     * @param online Whether to poll the online shard or the in person shard
+     * @return The first order in the shard, or null if the shard is empty
+     */
+    public Order poll(boolean online) {
+        Order order = pollShard(shardOf(online));
+
+        // Keeps the permits in step with the orders, if a blocking consumer already holds the permit
+        // it will find the shards empty and drop it
+        if (order != null) available.tryAcquire();
+
+        return order;
+    }
+
+    /**
+     * Removes and returns the next order, blocking until one is available or the timeout expires
+     *
+     * The shard is chosen using the same rule the waiters have always used:
+     * the in person shard is taken when its size multiplied by the priority is greater than the online shard size
+     *
+     * @param priority The waiter priority between in person and online orders
+     * @param timeout How long to wait for an order
+     * @param unit The unit of the timeout
+     * @return The next order, or null if no order became available before the timeout
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public Order take(double priority, long timeout, TimeUnit unit) throws InterruptedException {
+        return take(DEFAULT_POLICY, priority, timeout, unit);
+    }
+
+    /**
+     * Removes and returns the order picked by a scheduling policy, blocking until one is available or the timeout expires
+     *
+     * @param policy The policy picking the order
+     * @param priority The waiter priority between in person and online orders
+     * @param timeout How long to wait for an order
+     * @param unit The unit of the timeout
+     * @return The next order, or null if no order became available before the timeout
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public Order take(SchedulingPolicy policy, double priority, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + remaining;
+
+        while (true) {
+            Order order = pollNext(policy, priority);
+
+            if (order != null) {
+                available.tryAcquire();
+                return order;
+            }
+
+            if (remaining <= 0 || !available.tryAcquire(remaining, TimeUnit.NANOSECONDS)) return null;
+
+            order = pollNext(policy, priority);
+
+            // The permit has already been consumed so it is simply returned
+            if (order != null) return order;
+
+            // Otherwise the permit was stale (the order was removed by ID) so it is dropped and we wait again
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Removes a pending entry from the queue by moving it to the complete state
+     * The entry itself is left in its shard and discarded by the next poll
+     *
+     * @param entry The entry to be removed
+     * @return True if the entry was pending and has been removed, False otherwise
+     */
+    public boolean remove(OrderIndex.Entry entry) {
+        if (!entry.transition(OrderState.PENDING, OrderState.COMPLETE)) return false;
+
+        shardSizes[shardOf(entry.getOrder().getOnlineStatus())].decrementAndGet();
+        size.decrementAndGet();
+        available.tryAcquire();
+
+        return true;
+    }
+
+    /**
+     * Returns the first pending order in a shard without removing it
+     *
+     * @param online Whether to look at the online shard or the in person shard
+     * @return The first order in the shard, or null if it is empty
+     */
+    public Order peek(boolean online) {
+        for (OrderIndex.Entry entry : shards.get(shardOf(online))) {
+            if (entry.getState() == OrderState.PENDING) return entry.getOrder();
+        }
+
+        return null;
+    }
+
+    /**
+     * Method to return the number of orders held in a shard
+     *
+     * @param online Whether to return the size of the online or in person shard
+     * @return The number of orders in the shard
+     */
+    public int size(boolean online) {
+        return shardSizes[shardOf(online)].get();
+    }
+
+    /**
+     * Method to return the number of orders held across both shards
+     *
+     * @return The total number of orders
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns a snapshot of the pending orders in a single shard
+     *
+     * @param online Whether to return the online or in person shard
+     * @return The orders currently in the shard
+     */
+    public List<Order> shard(boolean online) {
+        return pending(shards.get(shardOf(online)).stream()).collect(Collectors.toList());
+    }
+
+    /**
+     * Streams the pending in person orders followed by the pending online orders
+     *
+     * @return A stream of every queued order
+     */
+    public Stream<Order> stream() {
+        return pending(shards.stream().flatMap(Collection::stream));
+    }
+
+    /**
+     * Iterates the pending orders in a single shard, oldest first, without copying them
+     * Orders added or taken while iterating may or may not be seen
+     *
+     * @param online Whether to iterate the online or in person shard
+     * @return The orders currently in the shard
+     */
+    public Iterable<Order> orders(boolean online) {
+        return () -> pending(shards.get(shardOf(online)).stream()).iterator();
+    }
+
+    /**
+     * Filters a stream of entries down to the pending orders
+     *
+     * @param entries The entries to filter
+     * @return The orders that are still pending
+     */
+    private static Stream<Order> pending(Stream<OrderIndex.Entry> entries) {
+        return entries.filter(entry -> entry.getState() == OrderState.PENDING)
+                .map(OrderIndex.Entry::getOrder)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Takes the order picked by a scheduling policy, asking again if another consumer takes it first
+     *
+     * @param policy The policy picking the order
+     * @param priority The waiter priority between in person and online orders
+     * @return An order, or null if both shards are empty
+     */
+    private Order pollNext(SchedulingPolicy policy, double priority) {
+        Order order;
+
+        while ((order = policy.select(this, priority)) != null) {
+            if (claim(order)) {
+                policy.taken(order);
+                return order;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Claims a pending order and unlinks its entry from its shard, dropping entries removed by ID that are passed on the way
+     *
+     * @param order The order to claim
+     * @return True if the order was claimed, False if it is no longer pending
+     */
+    private boolean claim(Order order) {
+        int shard = shardOf(order.getOnlineStatus());
+        Iterator<OrderIndex.Entry> entries = shards.get(shard).iterator();
+
+        while (entries.hasNext()) {
+            OrderIndex.Entry entry = entries.next();
+
+            if (entry.getState() == OrderState.COMPLETE) {
+                entries.remove();
+            } else if (entry.getOrder() == order) {
+                if (!entry.transition(OrderState.PENDING, OrderState.IN_PROGRESS)) return false;
+
+                entries.remove();
+                shardSizes[shard].decrementAndGet();
+                size.decrementAndGet();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Polls a shard for the first entry that can be claimed, discarding entries that were removed by ID
+     *
+     * @param shard The shard index
+     * @return The claimed order, or null if the shard has no pending orders
+     */
+    private Order pollShard(int shard) {
+        OrderIndex.Entry entry;
+
+        while ((entry = shards.get(shard).pollFirst()) != null) {
+            if (entry.transition(OrderState.PENDING, OrderState.IN_PROGRESS)) {
+                shardSizes[shard].decrementAndGet();
+                size.decrementAndGet();
+                return entry.getOrder();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Converts a channel into a shard index
+     *
+     * @param online Whether the channel is online
+     * @return The shard index
+     */
+    private static int shardOf(boolean online) {
+        return online ? ONLINE : IN_PERSON;
+    }
+}
@@ -0,0 +1,15 @@
+package order;
+
+/**
+ * Enum for the states an order moves through once it has been added to the OrderList
+ */
+public enum OrderState {
+    /** Waiting in the queue for a waiter */
+    PENDING,
+
+    /** Taken by a waiter and being prepared */
+    IN_PROGRESS,
+
+    /** Finished, or removed from the queue by ID */
+    COMPLETE
+}
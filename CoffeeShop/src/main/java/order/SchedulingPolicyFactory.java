@@ -0,0 +1,31 @@
+package order;
+
+import interfaces.SchedulingPolicy;
+
+import java.util.List;
+
+/**
+ * Factory Design Pattern
+ * Class used to create the scheduling policies the waiters can use
+ */
+public class SchedulingPolicyFactory {
+    /** Names of every policy, the first is the default */
+    public static final List<String> POLICIES = List.of(ChannelPriorityPolicy.NAME, WeightedFairPolicy.NAME,
+            EarliestDeadlinePolicy.NAME, ShortestJobPolicy.NAME);
+
+    /**
+     * Creates a policy with its default settings
+     *
+     * @param name The name of the policy, ignoring case
+     * @return Returns either a new policy or a null object
+     */
+    public static SchedulingPolicy getPolicy(String name) {
+        return switch (name.toLowerCase()) {
+            case "channel priority" -> new ChannelPriorityPolicy();
+            case "weighted fair" -> new WeightedFairPolicy();
+            case "earliest deadline" -> new EarliestDeadlinePolicy();
+            case "shortest job" -> new ShortestJobPolicy();
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package order;
+
+import interfaces.SchedulingPolicy;
+import item.ItemCategory;
+import item.ItemList;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Scheduling policy taking the order that will be quickest to prepare
+ *
+ * An order's preparation time is estimated as the sum of the preparation time of its items' categories,
+ * by default every item takes one unit, as each item takes a chef or barista one delay to make
+ * The oldest order is taken out of orders estimated to take as long, but a large order can wait while smaller ones keep arriving
+ */
+public class ShortestJobPolicy implements SchedulingPolicy {
+    private static final long serialVersionUID = 1L;
+
+    public static final String NAME = "Shortest Job";
+
+    /**
+     * Estimated preparation time of an item in each category, a category not in the map takes one unit
+     * Always an EnumMap or Map.of, which are both serializable
+     */
+    @SuppressWarnings("serial")
+    private final Map<ItemCategory, Double> prepTimes;
+
+    /**
+     * Constructor estimating every item takes as long as any other
+     */
+    public ShortestJobPolicy() {
+        this(Map.of());
+    }
+
+    /**
+     * Constructor for a shortest job policy
+     *
+     * @param prepTimes estimated preparation time of an item in each category
+     */
+    public ShortestJobPolicy(Map<ItemCategory, Double> prepTimes) {
+        this.prepTimes = prepTimes.isEmpty() ? Map.of() : new EnumMap<>(prepTimes);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Order select(OrderQueue queue, double priority) {
+        Order shortest = null;
+        double shortestTime = Double.MAX_VALUE;
+
+        for (boolean online : new boolean[] { false, true }) {
+            for (Order order : queue.orders(online)) {
+                double time = estimatePrepTime(order);
+
+                if (time < shortestTime || time == shortestTime && order.getTimestamp().isBefore(shortest.getTimestamp())) {
+                    shortest = order;
+                    shortestTime = time;
+                }
+            }
+        }
+
+        return shortest;
+    }
+
+    /**
+     * Returns the estimated preparation time of an order
+     *
+     * @param order the order
+     * @return the sum of the estimated preparation time of its items
+     */
+    public double estimatePrepTime(Order order) {
+        ItemList menu = ItemList.getInstance();
+        double time = 0;
+
+        for (String itemID : order.getDetails()) {
+            ItemCategory category = menu.itemExists(itemID) ? menu.getCategory(itemID) : null;
+            time += category == null ? 1 : prepTimes.getOrDefault(category, 1.0);
+        }
+
+        return time;
+    }
+}
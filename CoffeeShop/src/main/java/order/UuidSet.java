@@ -0,0 +1,127 @@
+package order;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Set of order IDs held as pairs of longs in one open addressed table
+ *
+ * Used to remember the IDs of completed orders after the orders themselves have been written to disk,
+ * each ID takes 21 to 43 bytes of table, where a UUID object and a concurrent map entry take over 70
+ * Safe to use from several threads, every method locks the set for the few array reads it needs
+ */
+final class UuidSet implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Most and least significant bits of each ID, side by side, all zero for an empty slot */
+    private long[] table;
+
+    /** Number of IDs in the table */
+    private int size;
+
+    /** Whether the all zero ID has been added, as it can not be told apart from an empty slot */
+    private boolean containsZero;
+
+    /**
+     * Constructor to set up an empty set
+     */
+    UuidSet() {
+        table = new long[INITIAL_CAPACITY * 2];
+    }
+
+    /**
+     * Adds an ID to the set
+     *
+     * @param id The ID to be added
+     * @return True if the ID was added, False if it was already in the set
+     */
+    synchronized boolean add(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+
+        if (msb == 0 && lsb == 0) {
+            if (containsZero) return false;
+            return containsZero = true;
+        }
+
+        // Kept at most three quarters full so probes stay short
+        if ((size + 1L) * 8 > table.length * 3L) grow();
+
+        int slot = find(table, msb, lsb);
+        if (table[slot] != 0 || table[slot + 1] != 0) return false;
+
+        table[slot] = msb;
+        table[slot + 1] = lsb;
+        size++;
+
+        return true;
+    }
+
+    /**
+     * Checks if an ID is in the set
+     *
+     * @param id The ID to be checked
+     * @return True if the ID has been added, False otherwise
+     */
+    synchronized boolean contains(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+
+        if (msb == 0 && lsb == 0) return containsZero;
+
+        int slot = find(table, msb, lsb);
+
+        return table[slot] != 0 || table[slot + 1] != 0;
+    }
+
+    /**
+     * Method to return the number of IDs in the set
+     *
+     * @return The number of IDs
+     */
+    synchronized int size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    /**
+     * Finds the slot holding an ID, or the empty slot it would go in
+     *
+     * @param table The table to search
+     * @param msb The most significant bits of the ID
+     * @param lsb The least significant bits of the ID
+     * @return The index of the slot's first long
+     */
+    private static int find(long[] table, long msb, long lsb) {
+        int mask = table.length / 2 - 1;
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash >>> 32) & mask;
+
+        while (true) {
+            int i = slot * 2;
+            long m = table[i];
+            long l = table[i + 1];
+
+            if ((m == 0 && l == 0) || (m == msb && l == lsb)) return i;
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Doubles the table, moving every ID across
+     */
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != 0 || old[i + 1] != 0) {
+                int slot = find(table, old[i], old[i + 1]);
+                table[slot] = old[i];
+                table[slot + 1] = old[i + 1];
+            }
+        }
+    }
+}
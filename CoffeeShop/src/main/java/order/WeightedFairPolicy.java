@@ -0,0 +1,124 @@
+package order;
+
+import interfaces.SchedulingPolicy;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Scheduling policy sharing the waiters between the in person and online queues by weight (self clocked fair queuing)
+ *
+ * The cost of an order is its number of items, each queue is given work in proportion to its weight while it has orders,
+ * and a queue that was empty is not owed the work it missed
+ * Each queue is taken oldest first
+ */
+public class WeightedFairPolicy implements SchedulingPolicy {
+    private static final long serialVersionUID = 1L;
+
+    public static final String NAME = "Weighted Fair";
+
+    private final double inPersonWeight;
+
+    private final double onlineWeight;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Finish tag of the last order taken from each queue, in person then online */
+    private final double[] finished = new double[2];
+
+    /** Whether each queue had orders when last looked at */
+    private final boolean[] backlogged = new boolean[2];
+
+    /** Finish tag of the last order taken from either queue */
+    private double virtualTime;
+
+    /**
+     * Constructor giving both queues an equal share
+     */
+    public WeightedFairPolicy() {
+        this(1, 1);
+    }
+
+    /**
+     * Constructor for a weighted fair policy
+     *
+     * @param inPersonWeight share of the work given to in person orders
+     * @param onlineWeight share of the work given to online orders
+     * @throws IllegalArgumentException if either weight is not positive
+     */
+    public WeightedFairPolicy(double inPersonWeight, double onlineWeight) {
+        if (inPersonWeight <= 0 || onlineWeight <= 0) throw new IllegalArgumentException("Weights must be positive");
+
+        this.inPersonWeight = inPersonWeight;
+        this.onlineWeight = onlineWeight;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Order select(OrderQueue queue, double priority) {
+        Order inPerson = queue.peek(false);
+        Order online = queue.peek(true);
+
+        lock.lock();
+        try {
+            track(0, inPerson);
+            track(1, online);
+
+            if (inPerson == null || online == null) return inPerson != null ? inPerson : online;
+
+            return finishTag(online) < finishTag(inPerson) ? online : inPerson;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void taken(Order order) {
+        lock.lock();
+        try {
+            virtualTime = finishTag(order);
+            finished[channel(order)] = virtualTime;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records whether a queue has orders, a queue that was empty starts again from the current virtual time
+     * Must be called holding the lock
+     *
+     * @param channel the index of the queue
+     * @param head the first order in the queue, null if it is empty
+     */
+    private void track(int channel, Order head) {
+        if (head != null && !backlogged[channel]) finished[channel] = Math.max(finished[channel], virtualTime);
+
+        backlogged[channel] = head != null;
+    }
+
+    /**
+     * Returns the finish tag an order would have if it were taken next
+     * Must be called holding the lock
+     *
+     * @param order the order
+     * @return the finish tag
+     */
+    private double finishTag(Order order) {
+        double weight = order.getOnlineStatus() ? onlineWeight : inPersonWeight;
+
+        return finished[channel(order)] + Math.max(1, order.getDetails().size()) / weight;
+    }
+
+    /**
+     * Returns the index of an order's queue
+     *
+     * @param order the order
+     * @return 0 for in person, 1 for online
+     */
+    private static int channel(Order order) {
+        return order.getOnlineStatus() ? 1 : 0;
+    }
+}
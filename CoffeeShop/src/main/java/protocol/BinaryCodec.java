@@ -0,0 +1,546 @@
+package protocol;
+
+import exceptions.InvalidItemIDException;
+import exceptions.InvalidOrderException;
+import feed.Change;
+import feed.Delta;
+import feed.OrderSummary;
+import item.Item;
+import item.ItemCategory;
+import item.ItemList;
+import message.Message;
+import message.MessageType;
+import order.Order;
+import order.OrderState;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes orders, messages and menus in a compact binary form
+ *
+ * UUIDs are written as two longs, timestamps as seconds and nanoseconds, and the items in an order
+ * as variable length item codes from the menu snapshot last sent over the connection
+ * Only the fields needed to rebuild an object are written, so an order does not carry the menu,
+ * the customer object or the discount calculation with it
+ * Deltas name items by item ID rather than code, as a delta may change the menu the codes come from
+ */
+public final class BinaryCodec {
+    /** The newest version of the format */
+    public static final int VERSION = 4;
+
+    /** The first version that has deltas, clients on older versions are not sent the change feed */
+    public static final int FEED_VERSION = 2;
+
+    /** The first version that has order batches, clients on older versions send each order on its own */
+    public static final int BATCH_VERSION = 3;
+
+    /**
+     * The first version where a client names the menu it has cached in the handshake,
+     * and is sent only the changes from it, or nothing if it is still the server's menu
+     */
+    public static final int CACHE_VERSION = 4;
+
+    private static final ItemCategory[] CATEGORIES = ItemCategory.values();
+
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+
+    private static final OrderState[] ORDER_STATES = OrderState.values();
+
+    /** Tags written before each kind of change in a delta */
+    private static final int ORDER_ADDED = 0;
+    private static final int ORDER_MOVED = 1;
+    private static final int ORDER_COMPLETED = 2;
+    private static final int PRICE_CHANGED = 3;
+    private static final int ITEM_ADDED = 4;
+    private static final int ITEM_REMOVED = 5;
+    private static final int MENU_REPLACED = 6;
+
+    private BinaryCodec() {}
+
+    /**
+     * Writes an order
+     *
+     * @param out where to write the order
+     * @param order the order to write
+     * @param codes the item codes of the menu the order was made from
+     * @throws IOException if an item is not on the menu or the order can not be written
+     */
+    public static void writeOrder(DataOutput out, Order order, ItemCodes codes) throws IOException {
+        writeUUID(out, order.getOrderID());
+        writeUUID(out, order.getCustomerID());
+        writeNullableString(out, order.getCustomerName());
+        out.writeLong(order.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(order.getTimestamp().getNano());
+        out.writeBoolean(order.getOnlineStatus());
+        out.writeInt(codes.getFingerprint());
+
+        List<String> details = order.getDetails();
+        writeVarInt(out, details.size());
+
+        for (String itemID : details) {
+            int code = codes.code(itemID);
+            if (code == -1) throw new IOException("Item not on the menu: " + itemID);
+            writeVarInt(out, code);
+        }
+    }
+
+    /**
+     * Reads an order
+     *
+     * @param in where to read the order from
+     * @param codes the item codes of the menu the order was made from
+     * @param menu the menu used to work out the cost of the order
+     * @return the order
+     * @throws IOException if the order was made from a different menu or can not be read
+     */
+    public static Order readOrder(DataInput in, ItemCodes codes, ItemList menu) throws IOException {
+        UUID orderID = readUUID(in);
+        UUID customerID = readUUID(in);
+        String customerName = readNullableString(in);
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        boolean online = in.readBoolean();
+
+        if (in.readInt() != codes.getFingerprint()) throw new InvalidObjectException("Order was made from a different menu");
+
+        int count = readVarInt(in);
+        ArrayList<String> details = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            String itemID = codes.itemID(readVarInt(in));
+            if (itemID == null) throw new InvalidObjectException("Unknown item code in order " + orderID);
+            details.add(itemID);
+        }
+
+        try {
+            return new Order(orderID.toString(), customerID.toString(), customerName, timestamp, details, menu, online);
+        } catch (InvalidOrderException e) {
+            throw new InvalidObjectException(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a batch of orders
+     *
+     * @param out where to write the batch
+     * @param batch the batch to write
+     * @param codes the item codes of the menu the orders were made from
+     * @throws IOException if an item is not on the menu or the batch can not be written
+     */
+    public static void writeOrderBatch(DataOutput out, OrderBatch batch, ItemCodes codes) throws IOException {
+        writeVarInt(out, batch.orders().size());
+        for (Order order : batch.orders()) writeOrder(out, order, codes);
+    }
+
+    /**
+     * Reads a batch of orders
+     *
+     * @param in where to read the batch from
+     * @param codes the item codes of the menu the orders were made from
+     * @param menu the menu used to work out the cost of each order
+     * @return the batch
+     * @throws IOException if an order was made from a different menu or the batch can not be read
+     */
+    public static OrderBatch readOrderBatch(DataInput in, ItemCodes codes, ItemList menu) throws IOException {
+        int count = readVarInt(in);
+        if (count == 0) throw new InvalidObjectException("Empty order batch");
+
+        List<Order> orders = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) orders.add(readOrder(in, codes, menu));
+
+        return new OrderBatch(orders);
+    }
+
+    /**
+     * Writes a message
+     *
+     * @param out where to write the message
+     * @param message the message to write
+     * @throws IOException if the message can not be written
+     */
+    public static void writeMessage(DataOutput out, Message message) throws IOException {
+        writeUUID(out, message.messageID());
+        writeUUID(out, message.customerID());
+        writeUUID(out, message.orderID());
+        out.writeUTF(message.message());
+        out.writeByte(message.messageType().ordinal());
+    }
+
+    /**
+     * Reads a message
+     *
+     * @param in where to read the message from
+     * @return the message
+     * @throws IOException if the message can not be read
+     */
+    public static Message readMessage(DataInput in) throws IOException {
+        UUID messageID = readUUID(in);
+        UUID customerID = readUUID(in);
+        UUID orderID = readUUID(in);
+        String message = in.readUTF();
+        int type = in.readUnsignedByte();
+
+        if (type >= MESSAGE_TYPES.length) throw new InvalidObjectException("Unknown message type " + type);
+
+        return new Message(messageID, customerID, orderID, message, MESSAGE_TYPES[type]);
+    }
+
+    /**
+     * Writes a menu
+     *
+     * @param out where to write the menu
+     * @param items the items on the menu, in menu order
+     * @throws IOException if the menu can not be written
+     */
+    public static void writeMenu(DataOutput out, Collection<Item> items) throws IOException {
+        writeVarInt(out, items.size());
+
+        for (Item item : items) writeItem(out, item);
+    }
+
+    /**
+     * Reads a menu
+     *
+     * @param in where to read the menu from
+     * @return a snapshot of the menu
+     * @throws IOException if the menu can not be read
+     */
+    public static MenuSnapshot readMenu(DataInput in) throws IOException {
+        int count = readVarInt(in);
+        List<Item> items = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) items.add(readItem(in));
+
+        return new MenuSnapshot(List.copyOf(items));
+    }
+
+    /**
+     * Writes the changes from a cached menu to the current one
+     * Each item is written as the position + 1 of the same item on the cached menu, or 0 and the item if it is new or changed,
+     * so an unchanged item takes one byte and an unchanged menu only its two hashes
+     *
+     * @param out where to write the changes
+     * @param diff the cached and current menus
+     * @throws IOException if the changes can not be written
+     */
+    public static void writeMenuDiff(DataOutput out, MenuDiff diff) throws IOException {
+        out.writeLong(diff.baseHash());
+        out.writeLong(diff.hash());
+
+        if (diff.isUnchanged()) return;
+
+        Map<String, Integer> positions = new HashMap<>();
+        List<Item> base = diff.base().items();
+        for (int i = 0; i < base.size(); i++) positions.put(base.get(i).getItemID(), i);
+
+        writeVarInt(out, diff.target().items().size());
+
+        for (Item item : diff.target().items()) {
+            Integer position = positions.get(item.getItemID());
+
+            if (position != null && sameItem(item, base.get(position))) {
+                writeVarInt(out, position + 1);
+            } else {
+                writeVarInt(out, 0);
+                writeItem(out, item);
+            }
+        }
+    }
+
+    /**
+     * Reads changes written by writeMenuDiff and applies them to the cached menu
+     *
+     * @param in where to read the changes from
+     * @param base the menu cached by this end, null if there is none
+     * @return a snapshot of the current menu
+     * @throws IOException if the changes can not be read, were made from another menu or do not give the menu they should
+     */
+    public static MenuSnapshot readMenuDiff(DataInput in, MenuSnapshot base) throws IOException {
+        long baseHash = in.readLong();
+        long hash = in.readLong();
+
+        if (base == null || base.hash() != baseHash) throw new InvalidObjectException("Menu changes are not from the cached menu");
+        if (hash == baseHash) return base;
+
+        int count = readVarInt(in);
+        List<Item> items = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int position = readVarInt(in);
+
+            if (position > base.items().size()) throw new InvalidObjectException("Invalid cached item " + position);
+
+            items.add(position == 0 ? readItem(in) : base.items().get(position - 1));
+        }
+
+        MenuSnapshot menu = new MenuSnapshot(List.copyOf(items));
+        if (menu.hash() != hash) throw new InvalidObjectException("Menu changes do not give the server's menu");
+
+        return menu;
+    }
+
+    /**
+     * Writes a delta
+     *
+     * @param out where to write the delta
+     * @param delta the delta to write
+     * @throws IOException if the delta can not be written
+     */
+    public static void writeDelta(DataOutput out, Delta delta) throws IOException {
+        out.writeLong(delta.sequence());
+
+        switch (delta.change()) {
+            case Change.OrderAdded added -> {
+                OrderSummary order = added.order();
+                out.writeByte(ORDER_ADDED);
+                writeUUID(out, order.orderID());
+                writeNullableString(out, order.customerName());
+                out.writeLong(order.timestamp().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(order.timestamp().getNano());
+                out.writeBoolean(order.online());
+                out.writeByte(order.state().ordinal());
+                writeVarInt(out, order.details().size());
+                for (String itemID : order.details()) out.writeUTF(itemID);
+            }
+            case Change.OrderMoved moved -> {
+                out.writeByte(ORDER_MOVED);
+                writeUUID(out, moved.orderID());
+                out.writeByte(moved.state().ordinal());
+            }
+            case Change.OrderCompleted completed -> {
+                out.writeByte(ORDER_COMPLETED);
+                writeUUID(out, completed.orderID());
+            }
+            case Change.PriceChanged price -> {
+                out.writeByte(PRICE_CHANGED);
+                out.writeUTF(price.itemID());
+                out.writeDouble(price.cost());
+            }
+            case Change.ItemAdded added -> {
+                out.writeByte(ITEM_ADDED);
+                writeItem(out, added.item());
+            }
+            case Change.ItemRemoved removed -> {
+                out.writeByte(ITEM_REMOVED);
+                out.writeUTF(removed.itemID());
+            }
+            case Change.MenuReplaced replaced -> {
+                out.writeByte(MENU_REPLACED);
+                writeMenu(out, replaced.items());
+            }
+        }
+    }
+
+    /**
+     * Reads a delta
+     *
+     * @param in where to read the delta from
+     * @return the delta
+     * @throws IOException if the delta can not be read
+     */
+    public static Delta readDelta(DataInput in) throws IOException {
+        long sequence = in.readLong();
+        int tag = in.readUnsignedByte();
+
+        Change change = switch (tag) {
+            case ORDER_ADDED -> {
+                UUID orderID = readUUID(in);
+                String customerName = readNullableString(in);
+                LocalDateTime timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+                boolean online = in.readBoolean();
+                OrderState state = readOrderState(in);
+
+                int count = readVarInt(in);
+                List<String> details = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) details.add(in.readUTF());
+
+                yield new Change.OrderAdded(new OrderSummary(orderID, customerName, timestamp, List.copyOf(details), online, state));
+            }
+            case ORDER_MOVED -> new Change.OrderMoved(readUUID(in), readOrderState(in));
+            case ORDER_COMPLETED -> new Change.OrderCompleted(readUUID(in));
+            case PRICE_CHANGED -> new Change.PriceChanged(in.readUTF(), in.readDouble());
+            case ITEM_ADDED -> new Change.ItemAdded(readItem(in));
+            case ITEM_REMOVED -> new Change.ItemRemoved(in.readUTF());
+            case MENU_REPLACED -> new Change.MenuReplaced(readMenu(in).items());
+            default -> throw new InvalidObjectException("Unknown change " + tag);
+        };
+
+        return new Delta(sequence, change);
+    }
+
+    /**
+     * Writes an order to a byte array
+     *
+     * @param order the order to write
+     * @param codes the item codes of the menu the order was made from
+     * @return the encoded order
+     * @throws IOException if an item is not on the menu
+     */
+    public static byte[] encodeOrder(Order order, ItemCodes codes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + order.getDetails().size());
+        writeOrder(new DataOutputStream(bytes), order, codes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads an order from a byte array
+     *
+     * @param bytes the encoded order
+     * @param codes the item codes of the menu the order was made from
+     * @param menu the menu used to work out the cost of the order
+     * @return the order
+     * @throws IOException if the order can not be read
+     */
+    public static Order decodeOrder(byte[] bytes, ItemCodes codes, ItemList menu) throws IOException {
+        return readOrder(new DataInputStream(new ByteArrayInputStream(bytes)), codes, menu);
+    }
+
+    /**
+     * Writes a UUID as two longs
+     *
+     * @param out where to write the UUID
+     * @param uuid the UUID
+     * @throws IOException if the UUID can not be written
+     */
+    static void writeUUID(DataOutput out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Reads a UUID written as two longs
+     *
+     * @param in where to read the UUID from
+     * @return the UUID
+     * @throws IOException if the UUID can not be read
+     */
+    static UUID readUUID(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    /**
+     * Writes a non negative int in as few bytes as possible, 7 bits at a time
+     *
+     * @param out where to write the value
+     * @param value the value
+     * @throws IOException if the value can not be written
+     */
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an int written by writeVarInt
+     *
+     * @param in where to read the value from
+     * @return the value
+     * @throws IOException if the value can not be read or is too long
+     */
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+
+        throw new InvalidObjectException("Variable length int is too long");
+    }
+
+    /**
+     * Writes an item
+     *
+     * @param out where to write the item
+     * @param item the item
+     * @throws IOException if the item can not be written
+     */
+    private static void writeItem(DataOutput out, Item item) throws IOException {
+        out.writeUTF(item.getItemID());
+        out.writeByte(item.getCategory().ordinal());
+        out.writeDouble(item.getCost());
+        out.writeUTF(item.getDescription());
+    }
+
+    /**
+     * Reads an item written by writeItem
+     *
+     * @param in where to read the item from
+     * @return the item
+     * @throws IOException if the item can not be read
+     */
+    private static Item readItem(DataInput in) throws IOException {
+        String itemID = in.readUTF();
+        int category = in.readUnsignedByte();
+        double cost = in.readDouble();
+        String description = in.readUTF();
+
+        if (category >= CATEGORIES.length) throw new InvalidObjectException("Unknown item category " + category);
+
+        try {
+            return new Item(itemID, CATEGORIES[category], cost, description);
+        } catch (InvalidItemIDException e) {
+            throw new InvalidObjectException(e.getMessage());
+        }
+    }
+
+    /**
+     * Checks if two items have the same ID, category, cost and description
+     *
+     * @param item the first item
+     * @param other the second item
+     * @return true if they would be written the same
+     */
+    private static boolean sameItem(Item item, Item other) {
+        return item.getItemID().equals(other.getItemID()) && item.getCategory() == other.getCategory()
+                && Double.compare(item.getCost(), other.getCost()) == 0 && item.getDescription().equals(other.getDescription());
+    }
+
+    /**
+     * Reads an order state written as its ordinal
+     *
+     * @param in where to read the state from
+     * @return the state
+     * @throws IOException if the state can not be read
+     */
+    private static OrderState readOrderState(DataInput in) throws IOException {
+        int state = in.readUnsignedByte();
+        if (state >= ORDER_STATES.length) throw new InvalidObjectException("Unknown order state " + state);
+        return ORDER_STATES[state];
+    }
+
+    /**
+     * Writes a string that may be null
+     *
+     * @param out where to write the string
+     * @param value the string
+     * @throws IOException if the string can not be written
+     */
+    private static void writeNullableString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    /**
+     * Reads a string written by writeNullableString
+     *
+     * @param in where to read the string from
+     * @return the string, or null
+     * @throws IOException if the string can not be read
+     */
+    private static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
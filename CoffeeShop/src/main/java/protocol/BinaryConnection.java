@@ -0,0 +1,137 @@
+package protocol;
+
+import interfaces.Connection;
+
+import java.io.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Connection that sends objects as length prefixed binary frames over a pair of blocking streams
+ * The frames are written and read by a FrameCodec
+ * Sends and receives are guarded by locks rather than monitors so a virtual thread blocked on the socket does not pin its carrier thread
+ */
+public class BinaryConnection implements Connection {
+    private final DataInputStream inputStream;
+
+    private final DataOutputStream outputStream;
+
+    private final int version;
+
+    private final FrameCodec codec;
+
+    /** Hash of the menu the client has cached, only known by the server end */
+    private final long cachedMenuHash;
+
+    private final ReentrantLock sendLock = new ReentrantLock();
+
+    private final ReentrantLock receiveLock = new ReentrantLock();
+
+    /**
+     * Constructor to wrap the streams of an open connection
+     *
+     * @param inputStream the stream to read frames from
+     * @param outputStream the stream to write frames to
+     * @param version the protocol version agreed for the connection
+     */
+    public BinaryConnection(InputStream inputStream, OutputStream outputStream, int version) {
+        this(inputStream, outputStream, version, MenuSnapshot.NO_HASH, null);
+    }
+
+    /**
+     * Constructor to wrap the streams of an open connection that has a cached menu
+     *
+     * @param inputStream the stream to read frames from
+     * @param outputStream the stream to write frames to
+     * @param version the protocol version agreed for the connection
+     * @param cachedMenuHash on the server end, the hash of the menu the client has cached
+     * @param cachedMenu on the client end, the menu it has cached, null if there is none
+     */
+    BinaryConnection(InputStream inputStream, OutputStream outputStream, int version, long cachedMenuHash, MenuSnapshot cachedMenu) {
+        this.inputStream = new DataInputStream(inputStream);
+        this.outputStream = new DataOutputStream(new BufferedOutputStream(outputStream));
+        this.version = version;
+        this.cachedMenuHash = cachedMenuHash;
+        this.codec = new FrameCodec(cachedMenu);
+    }
+
+    /**
+     * Sends an object as a single frame
+     * An order sent before any menu is preceded by the current menu so the other end knows the item codes
+     *
+     * @param object the object to send
+     * @throws IOException if the object can not be written
+     */
+    @Override
+    public void send(Object object) throws IOException {
+        sendLock.lock();
+        try {
+            // Encoded to memory first so the codec's monitor is not held while the socket blocks
+            outputStream.write(codec.encode(object));
+            outputStream.flush();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the next frame and reads the object in it
+     * A menu is returned as a MenuSnapshot
+     *
+     * @return the object received
+     * @throws IOException if the frame can not be read
+     * @throws ClassNotFoundException if the class of a serialized object can not be found
+     */
+    @Override
+    public Object receive() throws IOException, ClassNotFoundException {
+        byte[] frame;
+        byte type;
+
+        receiveLock.lock();
+        try {
+            int length = inputStream.readInt();
+            FrameCodec.checkLength(length);
+
+            type = inputStream.readByte();
+            frame = new byte[length - 1];
+            inputStream.readFully(frame);
+        } finally {
+            receiveLock.unlock();
+        }
+
+        return codec.decode(type, frame);
+    }
+
+    /**
+     * Returns the protocol version agreed when the connection was opened
+     *
+     * @return the version
+     */
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the hash of the menu the client said it has cached in the handshake
+     *
+     * @return the hash, 0 if there is none or this is the client end
+     */
+    @Override
+    public long getCachedMenuHash() {
+        return cachedMenuHash;
+    }
+
+    /**
+     * Closes both streams, trying the input stream even if the output stream fails
+     *
+     * @throws IOException if a stream fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            outputStream.close();
+        } finally {
+            inputStream.close();
+        }
+    }
+}
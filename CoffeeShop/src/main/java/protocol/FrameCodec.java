@@ -0,0 +1,200 @@
+package protocol;
+
+import feed.Delta;
+import item.ItemList;
+import message.Message;
+import order.Order;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * Turns objects into binary frames and frames back into objects for one connection
+ *
+ * Each frame is the length of its body, a byte giving the type of object and the object written by BinaryCodec
+ * Orders and order batches are written with the item codes of the menu last sent or received by this codec,
+ * objects with no binary form are sent using Java serialization inside a frame
+ * A client that has a menu cached can be sent the menu as the changes from it, which it reads back as the whole menu
+ *
+ * Used by the blocking BinaryConnection and by the non-blocking server, which read the length and type themselves
+ */
+public class FrameCodec {
+    /** Frame types */
+    public static final byte ORDER = 1;
+    public static final byte MESSAGE = 2;
+    public static final byte MENU = 3;
+    public static final byte OBJECT = 4;
+    public static final byte DELTA = 5;
+    public static final byte ORDER_BATCH = 6;
+    public static final byte MENU_DIFF = 7;
+
+    /** Size of the length at the start of each frame */
+    public static final int HEADER = Integer.BYTES;
+
+    /** Largest frame that will be read, anything larger means the stream is corrupt */
+    public static final int MAX_FRAME = 16 * 1024 * 1024;
+
+    /** Buffer each frame body is written to before its length is known */
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+    private final DataOutputStream bodyStream = new DataOutputStream(body);
+
+    /** Item codes of the menu last sent or received */
+    private volatile ItemCodes codes;
+
+    /** The menu cached by this end, which menu changes are applied to */
+    private final MenuSnapshot cachedMenu;
+
+    /**
+     * Constructor for a codec with no cached menu
+     */
+    public FrameCodec() {
+        this(null);
+    }
+
+    /**
+     * Constructor for a client codec that can read the menu as changes from its cached menu
+     *
+     * @param cachedMenu the menu named in the handshake, null if there is none
+     */
+    public FrameCodec(MenuSnapshot cachedMenu) {
+        this.cachedMenu = cachedMenu;
+    }
+
+    /**
+     * Writes an object as one frame
+     * An order or batch written before any menu is preceded by a frame with the current menu so the other end knows the item codes
+     *
+     * @param object the object to write
+     * @param out where to write the frame
+     * @throws IOException if the object can not be written
+     */
+    public synchronized void encode(Object object, DataOutput out) throws IOException {
+        try {
+            switch (object) {
+                case Order order -> {
+                    if (codes == null) encode(ItemList.getInstance(), out);
+                    BinaryCodec.writeOrder(bodyStream, order, codes);
+                    writeFrame(ORDER, out);
+                }
+                case OrderBatch batch -> {
+                    if (codes == null) encode(ItemList.getInstance(), out);
+                    BinaryCodec.writeOrderBatch(bodyStream, batch, codes);
+                    writeFrame(ORDER_BATCH, out);
+                }
+                case Message message -> {
+                    BinaryCodec.writeMessage(bodyStream, message);
+                    writeFrame(MESSAGE, out);
+                }
+                case ItemList itemList -> encode(new MenuSnapshot(List.copyOf(itemList.getSnapshot().items().values())), out);
+                case MenuSnapshot menu -> {
+                    BinaryCodec.writeMenu(bodyStream, menu.items());
+                    writeFrame(MENU, out);
+                    codes = menu.codes();
+                }
+                case MenuDiff diff -> {
+                    BinaryCodec.writeMenuDiff(bodyStream, diff);
+                    writeFrame(MENU_DIFF, out);
+                    codes = diff.target().codes();
+                }
+                case Delta delta -> {
+                    BinaryCodec.writeDelta(bodyStream, delta);
+                    writeFrame(DELTA, out);
+                }
+                case Serializable serializable -> {
+                    try (ObjectOutputStream objectStream = new ObjectOutputStream(body)) {
+                        objectStream.writeObject(serializable);
+                    }
+                    writeFrame(OBJECT, out);
+                }
+                default -> throw new NotSerializableException(object.getClass().getName());
+            }
+        } finally {
+            // Clears anything left from an object that failed part way through
+            body.reset();
+        }
+    }
+
+    /**
+     * Writes an object as one frame to a new byte array
+     *
+     * @param object the object to write
+     * @return the frame, or several frames if an order needed the menu sent first
+     * @throws IOException if the object can not be written
+     */
+    public byte[] encode(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        encode(object, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the object in a frame body
+     * A menu is returned as a MenuSnapshot, as are menu changes once applied to the cached menu
+     *
+     * @param type the frame type
+     * @param frame the frame body
+     * @return the object
+     * @throws IOException if the body can not be read
+     * @throws ClassNotFoundException if the class of a serialized object can not be found
+     */
+    public Object decode(byte type, byte[] frame) throws IOException, ClassNotFoundException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+
+        return switch (type) {
+            case ORDER -> {
+                ItemCodes current = codes;
+                if (current == null) throw new InvalidObjectException("Order received before the menu");
+                yield BinaryCodec.readOrder(in, current, ItemList.getInstance());
+            }
+            case ORDER_BATCH -> {
+                ItemCodes current = codes;
+                if (current == null) throw new InvalidObjectException("Order batch received before the menu");
+                yield BinaryCodec.readOrderBatch(in, current, ItemList.getInstance());
+            }
+            case MESSAGE -> BinaryCodec.readMessage(in);
+            case MENU -> {
+                MenuSnapshot menu = BinaryCodec.readMenu(in);
+                codes = menu.codes();
+                yield menu;
+            }
+            case MENU_DIFF -> {
+                MenuSnapshot menu = BinaryCodec.readMenuDiff(in, cachedMenu);
+                codes = menu.codes();
+                yield menu;
+            }
+            case DELTA -> BinaryCodec.readDelta(in);
+            case OBJECT -> {
+                try (ObjectInputStream objectStream = new ObjectInputStream(in)) {
+                    yield objectStream.readObject();
+                }
+            }
+            default -> throw new StreamCorruptedException("Unknown frame type " + type);
+        };
+    }
+
+    /**
+     * Checks the length read from the start of a frame
+     *
+     * @param length the length of the type and body
+     * @throws StreamCorruptedException if the length can not be a frame
+     */
+    public static void checkLength(int length) throws StreamCorruptedException {
+        if (length < 1 || length > MAX_FRAME) throw new StreamCorruptedException("Invalid frame length " + length);
+    }
+
+    /**
+     * Writes the frame body with its length and type and clears the body buffer
+     *
+     * @param type the frame type
+     * @param out where to write the frame
+     * @throws IOException if the frame can not be written
+     */
+    private void writeFrame(byte type, DataOutput out) throws IOException {
+        out.writeInt(body.size() + 1);
+        out.writeByte(type);
+        if (out instanceof OutputStream stream) body.writeTo(stream);
+        else out.write(body.toByteArray());
+        body.reset();
+    }
+}
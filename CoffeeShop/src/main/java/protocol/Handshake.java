@@ -0,0 +1,135 @@
+package protocol;
+
+import interfaces.Connection;
+
+import java.io.*;
+import java.net.Socket;
+
+/**
+ * Agrees which protocol a client and the server use when a client connects
+ *
+ * A client sends a magic number and the newest protocol version it supports, and the server replies with the
+ * version both ends will use, 0 meaning Java serialization
+ * A client that sends a Java serialization stream header instead is an older client and is given an ObjectConnection
+ * From version 4 a client also sends the hash of the menu it has cached, so the server can send only what has changed
+ */
+public final class Handshake {
+    /** Sent by a client at the start of a connection, "CSBP" */
+    public static final int MAGIC = 0x43534250;
+
+    /** System property that sets the newest version a client asks for, 0 to use Java serialization */
+    public static final String VERSION_PROPERTY = "coffeeshop.protocol.version";
+
+    private Handshake() {}
+
+    /**
+     * Opens a connection from the client side, asking for the newest version this client supports
+     *
+     * @param socket the connected socket
+     * @return the connection
+     * @throws IOException if the handshake fails
+     */
+    public static Connection connect(Socket socket) throws IOException {
+        return connect(socket, Integer.getInteger(VERSION_PROPERTY, BinaryCodec.VERSION));
+    }
+
+    /**
+     * Opens a connection from the client side, asking for the newest version this client supports
+     * and naming the menu the client has cached
+     *
+     * @param socket the connected socket
+     * @param cachedMenu the menu the client has cached, null if there is none
+     * @return the connection
+     * @throws IOException if the handshake fails
+     */
+    public static Connection connect(Socket socket, MenuSnapshot cachedMenu) throws IOException {
+        return connect(socket, Integer.getInteger(VERSION_PROPERTY, BinaryCodec.VERSION), cachedMenu);
+    }
+
+    /**
+     * Opens a connection from the client side
+     *
+     * @param socket the connected socket
+     * @param version the newest version to ask for
+     * @return the connection
+     * @throws IOException if the handshake fails
+     */
+    public static Connection connect(Socket socket, int version) throws IOException {
+        return connect(socket, version, null);
+    }
+
+    /**
+     * Opens a connection from the client side, naming the menu the client has cached
+     *
+     * @param socket the connected socket
+     * @param version the newest version to ask for
+     * @param cachedMenu the menu the client has cached, null if there is none
+     * @return the connection
+     * @throws IOException if the handshake fails
+     */
+    public static Connection connect(Socket socket, int version, MenuSnapshot cachedMenu) throws IOException {
+        InputStream in = new BufferedInputStream(socket.getInputStream());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        int requested = Math.clamp(version, 0, BinaryCodec.VERSION);
+
+        out.writeInt(MAGIC);
+        out.writeByte(requested);
+        if (requested >= BinaryCodec.CACHE_VERSION) out.writeLong(cachedMenu == null ? MenuSnapshot.NO_HASH : cachedMenu.hash());
+        out.flush();
+
+        int agreed = in.read();
+        if (agreed == -1) throw new EOFException("Server closed the connection during the handshake");
+
+        if (agreed >= BinaryCodec.CACHE_VERSION) {
+            return new BinaryConnection(in, socket.getOutputStream(), agreed, MenuSnapshot.NO_HASH, cachedMenu);
+        }
+
+        return open(in, socket.getOutputStream(), agreed);
+    }
+
+    /**
+     * Opens a connection from the server side, using the newest version both ends support
+     *
+     * @param socket the accepted socket
+     * @return the connection
+     * @throws IOException if the handshake fails
+     */
+    public static Connection accept(Socket socket) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(socket.getInputStream());
+        DataInputStream data = new DataInputStream(in);
+
+        in.mark(Integer.BYTES);
+
+        if (data.readInt() != MAGIC) {
+            // An older client that starts straight away with a Java serialization stream
+            in.reset();
+            return new ObjectConnection(in, socket.getOutputStream());
+        }
+
+        int requested = data.readUnsignedByte();
+        int agreed = Math.min(requested, BinaryCodec.VERSION);
+        long cachedMenuHash = requested >= BinaryCodec.CACHE_VERSION ? data.readLong() : MenuSnapshot.NO_HASH;
+
+        socket.getOutputStream().write(agreed);
+        socket.getOutputStream().flush();
+
+        if (agreed >= BinaryCodec.CACHE_VERSION) {
+            return new BinaryConnection(in, socket.getOutputStream(), agreed, cachedMenuHash, null);
+        }
+
+        return open(in, socket.getOutputStream(), agreed);
+    }
+
+    /**
+     * Creates the connection for an agreed version
+     *
+     * @param in the socket input stream
+     * @param out the socket output stream
+     * @param version the agreed version
+     * @return the connection
+     * @throws IOException if the connection can not be created
+     */
+    private static Connection open(InputStream in, OutputStream out, int version) throws IOException {
+        return version == 0 ? new ObjectConnection(in, out) : new BinaryConnection(in, out, version);
+    }
+}
@@ -0,0 +1,73 @@
+package protocol;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gives each item on a menu a small integer code so orders can be sent without their item IDs
+ * The code of an item is its position on the menu, so both ends of a connection give the same codes
+ * as long as they build them from the same menu snapshot
+ */
+public final class ItemCodes {
+    private final String[] itemIDs;
+
+    private final Map<String, Integer> codes;
+
+    /** Hash of the item IDs in order, sent with each order so a different menu is noticed */
+    private final int fingerprint;
+
+    /**
+     * Constructor to give codes to a list of item IDs
+     *
+     * @param itemIDs the item IDs in menu order
+     */
+    public ItemCodes(Collection<String> itemIDs) {
+        this.itemIDs = itemIDs.toArray(new String[0]);
+        this.codes = new HashMap<>(this.itemIDs.length * 2);
+
+        for (int i = 0; i < this.itemIDs.length; i++) codes.put(this.itemIDs[i], i);
+
+        this.fingerprint = Arrays.hashCode(this.itemIDs);
+    }
+
+    /**
+     * Returns the code for an item
+     *
+     * @param itemID the item ID
+     * @return the code, or -1 if the item is not on the menu
+     */
+    public int code(String itemID) {
+        Integer code = codes.get(itemID);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the item with a code
+     *
+     * @param code the code
+     * @return the item ID, or null if no item has the code
+     */
+    public String itemID(int code) {
+        return code >= 0 && code < itemIDs.length ? itemIDs[code] : null;
+    }
+
+    /**
+     * Returns the number of items on the menu
+     *
+     * @return the number of codes
+     */
+    public int size() {
+        return itemIDs.length;
+    }
+
+    /**
+     * Returns a hash of the item IDs in menu order
+     *
+     * @return the fingerprint of the menu the codes were built from
+     */
+    public int getFingerprint() {
+        return fingerprint;
+    }
+}
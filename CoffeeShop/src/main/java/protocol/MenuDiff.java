@@ -0,0 +1,32 @@
+package protocol;
+
+/**
+ * The menu sent to a client as the changes from a menu the client already has cached
+ * The server only sends one when it knows the menu the client named in its handshake,
+ * and the client reads it back into a MenuSnapshot of the server's menu
+ *
+ * @param base the menu the client has cached
+ * @param baseHash the hash of the cached menu
+ * @param target the server's menu
+ * @param hash the hash of the server's menu, the same as baseHash if the menu has not changed
+ */
+public record MenuDiff(MenuSnapshot base, long baseHash, MenuSnapshot target, long hash) {
+    /**
+     * Constructor working out the hashes of both menus
+     *
+     * @param base the menu the client has cached
+     * @param target the server's menu
+     */
+    public MenuDiff(MenuSnapshot base, MenuSnapshot target) {
+        this(base, base.hash(), target, target.hash());
+    }
+
+    /**
+     * Checks if the client's cached menu is still the server's menu
+     *
+     * @return true if nothing has changed
+     */
+    public boolean isUnchanged() {
+        return hash == baseHash;
+    }
+}
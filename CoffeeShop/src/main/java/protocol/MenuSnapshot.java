@@ -0,0 +1,74 @@
+package protocol;
+
+import item.Item;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A copy of the menu as it was when it was sent over a connection
+ *
+ * @param items the items in menu order
+ */
+public record MenuSnapshot(List<Item> items) {
+    /** Hash meaning no menu, sent by a client that has nothing cached */
+    public static final long NO_HASH = 0;
+
+    /**
+     * Returns the item IDs in menu order
+     *
+     * @return the item IDs
+     */
+    public List<String> itemIDs() {
+        return items.stream().map(Item::getItemID).toList();
+    }
+
+    /**
+     * Returns the items keyed by item ID, in menu order
+     *
+     * @return a map that can be given to ItemList.updateItems
+     */
+    public LinkedHashMap<String, Item> toMap() {
+        LinkedHashMap<String, Item> map = new LinkedHashMap<>();
+        for (Item item : items) map.put(item.getItemID(), item);
+        return map;
+    }
+
+    /**
+     * Returns the item codes for the menu
+     *
+     * @return codes for each item in menu order
+     */
+    public ItemCodes codes() {
+        return new ItemCodes(itemIDs());
+    }
+
+    /**
+     * Returns a hash of everything on the menu, so two ends can tell if they have the same menu without sending it
+     * Worked out from the menu as BinaryCodec writes it, so the order, IDs, categories, costs and descriptions all count
+     *
+     * @return the first 8 bytes of the SHA-256 of the menu, never NO_HASH
+     */
+    public long hash() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * items.size() + 8);
+
+        try {
+            BinaryCodec.writeMenu(new DataOutputStream(bytes), items);
+            long hash = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray())).getLong();
+
+            return hash == NO_HASH ? 1 : hash;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
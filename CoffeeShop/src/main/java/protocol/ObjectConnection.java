@@ -0,0 +1,93 @@
+package protocol;
+
+import interfaces.Connection;
+
+import java.io.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Connection that sends objects using Java serialization
+ * Used when the other end does not support the binary protocol
+ * Sends and receives are guarded by locks rather than monitors so a virtual thread blocked on the socket does not pin its carrier thread
+ */
+public class ObjectConnection implements Connection {
+    private final ObjectInputStream inputStream;
+
+    private final ObjectOutputStream outputStream;
+
+    private final ReentrantLock sendLock = new ReentrantLock();
+
+    private final ReentrantLock receiveLock = new ReentrantLock();
+
+    /**
+     * Constructor to wrap the streams of an open connection
+     * The output stream header is sent before the input stream header is read so both ends can open at the same time
+     *
+     * @param inputStream the stream to read objects from
+     * @param outputStream the stream to write objects to
+     * @throws IOException if the stream headers can not be written or read
+     */
+    public ObjectConnection(InputStream inputStream, OutputStream outputStream) throws IOException {
+        this.outputStream = new ObjectOutputStream(outputStream);
+        this.outputStream.flush();
+        this.inputStream = new ObjectInputStream(inputStream);
+    }
+
+    /**
+     * Sends an object using Java serialization
+     *
+     * @param object the object to send
+     * @throws IOException if the object can not be written
+     */
+    @Override
+    public void send(Object object) throws IOException {
+        sendLock.lock();
+        try {
+            outputStream.writeObject(object);
+            outputStream.flush();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the next object
+     *
+     * @return the object received
+     * @throws IOException if the object can not be read
+     * @throws ClassNotFoundException if the class of the object can not be found
+     */
+    @Override
+    public Object receive() throws IOException, ClassNotFoundException {
+        receiveLock.lock();
+        try {
+            return inputStream.readObject();
+        } finally {
+            receiveLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the protocol version of the connection
+     *
+     * @return 0 as objects are sent using Java serialization
+     */
+    @Override
+    public int getVersion() {
+        return 0;
+    }
+
+    /**
+     * Closes both streams, trying the input stream even if the output stream fails
+     *
+     * @throws IOException if a stream fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            outputStream.close();
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package protocol;
+
+import order.Order;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Several orders sent by a client in one frame
+ * The server answers each order with an ORDER_RECEIVED or ERROR message carrying its order ID
+ *
+ * @param orders the orders, in the order they should be queued
+ */
+public record OrderBatch(List<Order> orders) implements Serializable {
+    /**
+     * Constructor for a batch
+     *
+     * @param orders the orders, in the order they should be queued
+     * @throws IllegalArgumentException if the batch is empty
+     */
+    public OrderBatch {
+        if (orders.isEmpty()) throw new IllegalArgumentException("A batch must contain at least one order");
+        orders = List.copyOf(orders);
+    }
+}
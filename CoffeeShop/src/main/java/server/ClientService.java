@@ -3,7 +3,14 @@ package server;
 import client.Client;
 import client.SimUIModel;
 import exceptions.InvalidOrderException;
+import feed.ChangeFeed;
+import feed.Delta;
+import feed.FeedSnapshot;
+import feed.ResyncRequest;
+import interfaces.Connection;
+import interfaces.OrderHandler;
 import interfaces.OrderObserver;
+import interfaces.OutboundConnection;
 import item.ItemList;
 import logs.CoffeeShopLogger;
 import message.Message;
@@ -11,74 +18,145 @@ import message.MessageContent;
 import message.MessageType;
 import order.Order;
 import order.OrderList;
+import protocol.BinaryCodec;
+import protocol.Handshake;
+import protocol.MenuDiff;
+import protocol.MenuSnapshot;
+import protocol.OrderBatch;
 import utils.RetryPolicy;
+import utils.ThreadMode;
 
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Handles the communication between the server and a single client.
  * Implements the {@link Runnable} interface to allow for multi-threaded processing of client requests.
  * Each {@link ClientService} instance is responsible for managing a single client's socket connection.
+ * A client that understands deltas is sent a snapshot of the order queue and menu when it connects
+ * and then each change as it happens, rather than the whole order list and menu.
+ * A client that names a menu it has cached when it connects is sent only the changes from it.
+ * A client on a version with menu caching is sent the menu once when it connects, its first snapshot leaves the menu out
+ * if it has not changed since, older clients need it in the snapshot as well.
+ * Everything sent to the client goes through its own {@link OutboundQueue}, so a client that stops reading
+ * never holds up the staff, the change feed or the other clients.
  */
-public class ClientService implements Runnable, OrderObserver {
+public final class ClientService implements Runnable, OrderObserver {
+    /** Menus recently sent to clients, shared so a client can be sent the changes from a menu another client was sent */
+    private static final MenuHistory menuHistory = new MenuHistory(MenuHistory.DEFAULT_SIZE);
+
     private final Socket clientSocket;
-    private final ObjectOutputStream outputStream;
-    private final ObjectInputStream inputStream;
+    private final OutboundConnection connection;
+
+    /** The connection read by {@link #run()}, null if it is read by the {@link NioServer} */
+    private final Connection inbound;
     private final CoffeeShopLogger logger = CoffeeShopLogger.getInstance();
-    private final SimUIModel simUIModel;
+    private final OrderHandler orderHandler;
+    private final ItemList menu;
+    private final ChangeFeed feed = ChangeFeed.getInstance();
+    private final Consumer<Delta> deltaSender = this::sendDelta;
+    private final OutboundQueue outbound;
+
+    /** The menu sent when the client connected, until the first snapshot has been taken */
+    private volatile MenuSnapshot menuSent;
 
     /**
      * Constructor to initialise the client handler
+     * Agrees a protocol with the client before any objects are sent
      *
      * @param clientSocket the {@link Socket} that is created by the client
      */
     public ClientService(Socket clientSocket, SimUIModel simUIModel) throws IOException {
+        this(clientSocket, Handshake.accept(clientSocket), simUIModel, simUIModel.getMenu());
+    }
+
+    /**
+     * Constructor to initialise the client handler with any order handler
+     * Agrees a protocol with the client before any objects are sent
+     *
+     * @param clientSocket the {@link Socket} that is created by the client
+     * @param orderHandler what to do with each order received
+     * @param menu the menu sent to the client
+     */
+    ClientService(Socket clientSocket, OrderHandler orderHandler, ItemList menu) throws IOException {
+        this(clientSocket, Handshake.accept(clientSocket), orderHandler, menu);
+    }
+
+    /**
+     * Constructor to initialise the client handler for a connection that is read and written by the {@link NioServer}
+     * The handler does not have its own threads, objects are given to it with {@link #handle(Object)}
+     * and the connection takes what to send from {@link #getOutbound()}
+     *
+     * @param connection the connection to the client
+     * @param orderHandler what to do with each order received
+     * @param menu the menu sent to the client
+     * @param onReady run when there is something to send
+     */
+    ClientService(OutboundConnection connection, OrderHandler orderHandler, ItemList menu, Runnable onReady) {
+        this(null, null, connection, orderHandler, menu, onReady);
+    }
+
+    /**
+     * Constructor to initialise the client handler for a connection read by {@link #run()}
+     *
+     * @param clientSocket the socket read by {@link #run()}
+     * @param connection the connection to the client
+     * @param orderHandler what to do with each order received
+     * @param menu the menu sent to the client
+     */
+    private ClientService(Socket clientSocket, Connection connection, OrderHandler orderHandler, ItemList menu) {
+        this(clientSocket, connection, connection, orderHandler, menu, () -> {});
+    }
+
+    /**
+     * Constructor to initialise the client handler
+     *
+     * @param clientSocket the socket read by {@link #run()}, null if the connection is read by the {@link NioServer}
+     * @param inbound the connection read by {@link #run()}, null if it is read by the {@link NioServer}
+     * @param connection the connection to the client
+     * @param orderHandler what to do with each order received
+     * @param menu the menu sent to the client
+     * @param onReady run when there is something to send
+     */
+    private ClientService(Socket clientSocket, Connection inbound, OutboundConnection connection, OrderHandler orderHandler,
+                          ItemList menu, Runnable onReady) {
         this.clientSocket = clientSocket;
-        this.simUIModel = simUIModel;
-        this.inputStream = new ObjectInputStream(clientSocket.getInputStream());
-        this.outputStream = new ObjectOutputStream(clientSocket.getOutputStream());
-        outputStream.flush();
-        logger.logInfo("Initialising client handler for: " + clientSocket);
+        this.inbound = inbound;
+        this.connection = connection;
+        this.orderHandler = orderHandler;
+        this.menu = menu;
+        this.outbound = new OutboundQueue(OverflowPolicy.current(), this::snapshot, onReady, this::disconnect);
+        logger.logInfo("Initialising client handler for: " + (clientSocket != null ? clientSocket : connection)
+                + " using protocol version " + connection.getVersion());
     }
 
     /**
      * Executed within a separate thread
      * Initialises a {@link Client} instance for the client, handles the sending and receiving
      * of messages, and processes client orders.
+     * Objects for the client are written by a second thread of the current {@link ThreadMode}.
+     *
+     * @throws IllegalStateException if the connection is read by the {@link NioServer}
      */
     @Override
     public void run() {
+        if (inbound == null) throw new IllegalStateException("This client's connection is read by the NioServer");
+
+        ThreadMode.current().builder("client-writer").start(this::write);
+
         try {
             sendItemListToClient();
+            subscribe();
             // Now wait for orders from the client
             while (true) {
                 try {
                     logger.logDebug("Idling...");
-                    Object object = inputStream.readObject();
-
-                    // We only want to accept order objects
-                    // from the client for now
-                    if (!(object instanceof Order)) {
-                        continue;
-                    }
-
-                    Order receivedOrder = receiveOrder(object);
-
-                    System.out.println(receivedOrder.getCustomerName());
-
-                    receivedOrder.setClientService(this);
-
-                    logger.logInfo("Order " + receivedOrder.getOrderID());
-                    RetryPolicy.retryAndLog(() ->
-                        simUIModel.addOrder(receivedOrder),
-                            3
-                    );
+                    handle(inbound.receive());
                 } catch (EOFException e) {
                     logger.logInfo("Client disconnected: " + clientSocket.getInetAddress());
                     clientSocket.close();
@@ -91,21 +169,78 @@ public class ClientService implements Runnable, OrderObserver {
             }
         } catch (IOException | InvalidOrderException e) {
             logger.logSevere("Error in server: " + e.getCause() + e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Handles an object received from the client
+     * Orders are linked to this client so it is told about their progress
+     * and given to the simulation, anything else is ignored
+     * Each order in a batch is answered with an ORDER_RECEIVED or ERROR message as soon as the batch has been added,
+     * the client does not wait for them before sending more
+     *
+     * @param object the object received
+     * @throws InvalidOrderException if the order is null
+     */
+    void handle(Object object) throws IOException, ClassNotFoundException, InvalidOrderException {
+        if (object instanceof ResyncRequest request) {
+            resync(request.fromSequence());
+            return;
+        }
+
+        if (object instanceof OrderBatch batch) {
+            handleBatch(batch);
+            return;
+        }
+
+        // Otherwise we only want to accept order objects
+        if (!(object instanceof Order)) {
+            return;
+        }
+
+        Order receivedOrder = receiveOrder(object);
+
+        receivedOrder.setClientService(this);
+
+        logger.logInfo("Order " + receivedOrder.getOrderID());
+        RetryPolicy.retryAndLog(() ->
+            orderHandler.addOrder(receivedOrder),
+                3
+        );
+    }
+
+    /**
+     * Adds a batch of orders in one step and answers each order by its ID
+     *
+     * @param batch the batch
+     * @throws IOException if the client has been disconnected
+     */
+    private void handleBatch(OrderBatch batch) throws IOException {
+        for (Order order : batch.orders()) order.setClientService(this);
+
+        logger.logInfo("Batch of " + batch.orders().size() + " orders");
+        boolean[] added = orderHandler.addOrders(batch.orders());
+
+        for (int i = 0; i < added.length; i++) {
+            Order order = batch.orders().get(i);
+            MessageType type = added[i] ? MessageType.ORDER_RECEIVED : MessageType.ERROR;
+            sendMessage(new Message(order.getCustomerID(), order.getOrderID(), MessageContent.fromMessageType(type), type));
         }
     }
 
     /**
      * Sends a {@link Message} object to the server.
-     * The message is serialized and sent using {@link ObjectOutputStream}.
+     * The message is queued to be sent using the protocol agreed with the client, so this never waits for the client.
      *
      * @param message the {@link Message} object to be sent
-     * @throws IOException if an I/O error occurs while sending the object
+     * @throws IOException if the client has been disconnected
      */
-    public synchronized void sendMessage(Message message) throws IOException {
+    public void sendMessage(Message message) throws IOException {
         if (message == null) throw new NullPointerException("Message cannot be null");
 
-        outputStream.writeObject(message);
-        outputStream.flush();
+        sendObject(message);
     }
 
     /**
@@ -136,6 +271,115 @@ public class ClientService implements Runnable, OrderObserver {
         }
     }
 
+    /**
+     * Sends the client a snapshot of the order queue and menu, then each delta published after it
+     * Clients on protocol versions without deltas are not subscribed
+     */
+    void subscribe() {
+        if (connection.getVersion() < BinaryCodec.FEED_VERSION) return;
+
+        feed.subscribe(deltaSender, () -> outbound.offer(firstSnapshot()));
+    }
+
+    /**
+     * Stops sending deltas to the client and drops anything not yet sent
+     */
+    void close() {
+        feed.unsubscribe(deltaSender);
+        outbound.close();
+    }
+
+    /**
+     * Returns the queue of objects waiting to be sent to the client, which also says how far behind the client is
+     *
+     * @return the queue
+     */
+    public OutboundQueue getOutbound() {
+        return outbound;
+    }
+
+    /**
+     * Queues a delta for the client, called by the change feed
+     *
+     * @param delta the delta
+     */
+    private void sendDelta(Delta delta) {
+        if (!outbound.offer(delta)) feed.unsubscribe(deltaSender);
+    }
+
+    /**
+     * Takes a snapshot of the order queue and menu for the client
+     *
+     * @return the snapshot
+     */
+    private FeedSnapshot snapshot() {
+        return feed.snapshot(menu.getSnapshot().items().values());
+    }
+
+    /**
+     * Takes the snapshot sent when the client subscribes
+     * The client already has the current menu if it has not changed since it was sent when the client connected,
+     * so the menu is left out and any later change reaches the client as a delta
+     *
+     * @return the snapshot
+     */
+    private FeedSnapshot firstSnapshot() {
+        MenuSnapshot sent = menuSent;
+        menuSent = null;
+
+        if (sent == null || menuHistory.current(menu) != sent) return snapshot();
+
+        return feed.snapshot(null);
+    }
+
+    /**
+     * Writes queued objects to the client until the queue is closed or the connection fails
+     * Run on the writer thread of a blocking connection
+     */
+    private void write() {
+        try {
+            Object object;
+            while ((object = outbound.take()) != null) connection.send(object);
+        } catch (IOException e) {
+            logger.logWarning("Could not write to client: " + e.getMessage());
+            close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Disconnects a client whose queue is full, called by the queue when its policy is to disconnect
+     */
+    private void disconnect() {
+        logger.logWarning("Disconnecting client that is " + outbound.getLagMillis() + "ms behind after "
+                + outbound.getSent() + " objects sent");
+        close();
+
+        try {
+            connection.close();
+        } catch (IOException e) {
+            logger.logWarning("Failed to close client connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends a client that has missed deltas the deltas from a sequence number,
+     * or a new snapshot if they are no longer kept
+     *
+     * @param fromSequence the sequence number of the first delta missed
+     */
+    private void resync(long fromSequence) throws IOException {
+        Optional<List<Delta>> deltas = feed.since(fromSequence);
+
+        if (deltas.isEmpty()) {
+            outbound.offer(snapshot());
+            return;
+        }
+
+        for (Delta delta : deltas.get()) outbound.offer(delta);
+    }
+
     /**
      * Sends both the {@link OrderList} and {@link ItemList} to the client.
      * This is typically used to initialise the client with both order and menu data.
@@ -145,22 +389,42 @@ public class ClientService implements Runnable, OrderObserver {
      * @throws IOException if an I/O error occurs during transmission
      */
     private void sendOrderItemList(OrderList orderList, ItemList itemList) throws IOException {
-        outputStream.writeObject(itemList);
-        outputStream.writeObject(orderList);
-        outputStream.flush();
+        sendObject(itemList);
+        sendObject(orderList);
     }
 
     /**
      * Sends the current {@link ItemList} (menu) to the client.
-     * This method fetches the item list from the UI model and writes it to the output stream.
+     * This method writes the item list given when the handler was created to the connection.
+     * A client that named a menu it has cached is sent only the changes from it, if the server still knows that menu.
      * If an error occurs during transmission, it logs the error message to standard error.
      */
     public void sendItemListToClient() {
         try {
-            System.out.println("sending ItemList to Client" + simUIModel.getMenu().getMenu());
-            outputStream.writeObject(simUIModel.getMenu());  // Send item list to client
+            if (connection.getVersion() < BinaryCodec.CACHE_VERSION) {
+                logger.logDebug("Sending ItemList to client: " + menu.getItemCount() + " items");
+                sendObject(menu);  // Send item list to client
+                return;
+            }
+
+            Object menuUpdate = menuHistory.menuFor(menu, connection.getCachedMenuHash());
+            menuSent = menuUpdate instanceof MenuDiff diff ? diff.target() : (MenuSnapshot) menuUpdate;
+
+            logger.logDebug("Sending menu to client: " + (menuUpdate instanceof MenuDiff diff
+                    ? (diff.isUnchanged() ? "cached menu unchanged" : "changes from cached menu") : menu.getItemCount() + " items"));
+            sendObject(menuUpdate);
         } catch (IOException e) {
             System.err.println("Error sending item list to client: " + e.getMessage());
         }
     }
+
+    /**
+     * Queues an object to be sent to the client
+     *
+     * @param object the object to send
+     * @throws IOException if the client has been disconnected
+     */
+    private void sendObject(Object object) throws IOException {
+        if (!outbound.offer(object)) throw new IOException("Client has been disconnected");
+    }
 }
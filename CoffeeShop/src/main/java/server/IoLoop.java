@@ -0,0 +1,124 @@
+package server;
+
+import logs.CoffeeShopLogger;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A single I/O thread of the {@link NioServer}
+ * Waits on a selector for the connections registered with it to be readable or writable,
+ * and runs tasks given to it by other threads between selects
+ */
+class IoLoop implements Runnable {
+    private static final CoffeeShopLogger logger = CoffeeShopLogger.getInstance();
+
+    private final Selector selector;
+
+    /** Tasks from other threads, such as registering a connection or writing to one */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    /**
+     * Constructor to open the selector and create the thread
+     *
+     * @param name the name of the thread
+     * @throws IOException if the selector can not be opened
+     */
+    IoLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+    }
+
+    /**
+     * Starts the thread
+     */
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Runs a task on the I/O thread
+     *
+     * @param task the task to run
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (Thread.currentThread() != thread) selector.wakeup();
+    }
+
+    /**
+     * Returns the selector connections are registered with
+     * Must only be used on the I/O thread
+     *
+     * @return the selector
+     */
+    Selector selector() {
+        return selector;
+    }
+
+    /**
+     * Stops the thread and closes every connection registered with it
+     */
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Selects ready connections and reads or writes them until shut down
+     */
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                // Tasks added by this thread do not wake the selector, so do not wait if there are any
+                if (tasks.isEmpty()) selector.select();
+                else selector.selectNow();
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) task.run();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    NioConnection connection = (NioConnection) key.attachment();
+
+                    if (key.isValid() && key.isReadable()) connection.read();
+                    if (key.isValid() && key.isWritable()) connection.flush();
+                }
+            } catch (IOException e) {
+                logger.logSevere("Error in I/O thread " + thread.getName() + ": " + e.getMessage());
+            } catch (RuntimeException e) {
+                // One bad connection must not stop every other connection on this thread
+                logger.logSevere("Unexpected error in I/O thread " + thread.getName() + ": " + e);
+            }
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioConnection connection) connection.close();
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.logWarning("Failed to close selector: " + e.getMessage());
+        }
+    }
+}
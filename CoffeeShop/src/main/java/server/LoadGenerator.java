@@ -0,0 +1,230 @@
+package server;
+
+import interfaces.Connection;
+import item.ItemFileReader;
+import item.ItemList;
+import logs.CoffeeShopLogger;
+import order.Order;
+import protocol.Handshake;
+import protocol.MenuSnapshot;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opens many simulated customer connections at once and sends orders as fast as it can
+ *
+ * Each simulated client connects, agrees the protocol and waits for the menu, the time this takes is the accept latency
+ * Once every client is connected they all send their orders at the same time
+ * With no host given a local {@link NioServer} is started that counts the orders, so the throughput is orders received by the server
+ *
+ * Usage: LoadGenerator [clients] [orders per client] [host port]
+ */
+public class LoadGenerator {
+    /**
+     * Runs the load test
+     *
+     * @param args number of clients, orders per client, and optionally the host and port of a running server
+     */
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int ordersPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        // Logging every order would measure the logger rather than the server
+        CoffeeShopLogger.getInstance();
+        Logger.getLogger(CoffeeShopLogger.class.getName()).setLevel(Level.OFF);
+
+        if (args.length > 3) {
+            run(args[2], Integer.parseInt(args[3]), clients, ordersPerClient, null).print();
+            return;
+        }
+
+        ItemList menu = ItemList.getInstance();
+        if (menu.getItemCount() == 0) {
+            new ItemFileReader("menu.txt").readFile();
+        }
+
+        AtomicLong received = new AtomicLong();
+
+        try (NioServer server = new NioServer(order -> received.incrementAndGet() > 0, menu, 0, NioServer.defaultIoThreads())) {
+            server.start();
+
+            // A short run first so class loading and the JIT are not counted
+            run("localhost", server.getPort(), Math.min(clients, 200), ordersPerClient, received);
+
+            run("localhost", server.getPort(), clients, ordersPerClient, received).print();
+        }
+    }
+
+    /**
+     * Connects the clients, sends the orders and measures how long it takes
+     *
+     * @param host the server host
+     * @param port the server port
+     * @param clients the number of clients to connect
+     * @param ordersPerClient the number of orders each client sends
+     * @param received the number of orders the server has received, or null if the server is not local
+     * @return the results
+     */
+    public static Result run(String host, int port, int clients, int ordersPerClient, AtomicLong received) throws Exception {
+        long[] acceptNanos = new long[clients];
+        Connection[] connections = new Connection[clients];
+        CountDownLatch connected = new CountDownLatch(clients);
+        CountDownLatch go = new CountDownLatch(1);
+        long before = received == null ? 0 : received.get();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> sent = new ArrayList<>(clients);
+
+            for (int i = 0; i < clients; i++) {
+                int client = i;
+
+                sent.add(executor.submit(() -> {
+                    try {
+                        long start = System.nanoTime();
+                        Socket socket = new Socket(host, port);
+                        socket.setTcpNoDelay(true);
+                        Connection connection = Handshake.connect(socket);
+                        connections[client] = connection;
+
+                        MenuSnapshot menu = receiveMenu(connection);
+                        acceptNanos[client] = System.nanoTime() - start;
+
+                        List<Order> orders = createOrders(menu, ordersPerClient);
+
+                        connected.countDown();
+                        go.await();
+
+                        for (Order order : orders) connection.send(order);
+
+                        return orders.size();
+                    } finally {
+                        // A client that failed must not hold up the others
+                        if (acceptNanos[client] == 0) connected.countDown();
+                    }
+                }));
+            }
+
+            connected.await();
+            long start = System.nanoTime();
+            go.countDown();
+
+            int failed = 0;
+            long orders = 0;
+
+            for (Future<Integer> future : sent) {
+                try {
+                    orders += future.get();
+                } catch (ExecutionException e) {
+                    failed++;
+                }
+            }
+
+            // A local server is timed until it has received every order
+            if (received != null) {
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+                while (received.get() - before < orders && System.nanoTime() < deadline) Thread.sleep(1);
+                orders = received.get() - before;
+            }
+
+            long elapsed = System.nanoTime() - start;
+
+            for (Connection connection : connections) {
+                if (connection != null) connection.close();
+            }
+
+            long[] latencies = Arrays.stream(acceptNanos).filter(n -> n > 0).sorted().toArray();
+
+            return new Result(clients - failed, failed, orders, elapsed, latencies);
+        }
+    }
+
+    /**
+     * Waits for the menu the server sends when a client connects
+     *
+     * @param connection the client's connection
+     * @return the menu
+     */
+    private static MenuSnapshot receiveMenu(Connection connection) throws Exception {
+        Object object = connection.receive();
+        if (!(object instanceof MenuSnapshot snapshot)) throw new IOException("Expected the menu but got " + object);
+        return snapshot;
+    }
+
+    /**
+     * Builds the orders a client will send from the menu
+     *
+     * @param snapshot the menu sent by the server
+     * @param count the number of orders
+     * @return the orders
+     */
+    private static List<Order> createOrders(MenuSnapshot snapshot, int count) throws Exception {
+        // The local server shares this menu, a remote server's menu is copied in
+        ItemList menu = ItemList.getInstance();
+        synchronized (LoadGenerator.class) {
+            if (menu.getItemCount() == 0) menu.updateItems(snapshot.toMap());
+        }
+
+        List<String> itemIDs = List.copyOf(snapshot.toMap().keySet());
+        Random random = new Random();
+        List<Order> orders = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            ArrayList<String> details = new ArrayList<>();
+            for (int j = random.nextInt(5); j >= 0; j--) details.add(itemIDs.get(random.nextInt(itemIDs.size())));
+
+            orders.add(new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Load " + i,
+                    LocalDateTime.now(), details, menu, true));
+        }
+
+        return orders;
+    }
+
+    /**
+     * Results of a load test
+     *
+     * @param connected the number of clients that connected
+     * @param failed the number of clients that failed
+     * @param orders the number of orders sent, or received by a local server
+     * @param elapsedNanos the time taken to send the orders
+     * @param acceptNanos the accept latency of each connected client, sorted
+     */
+    public record Result(int connected, int failed, long orders, long elapsedNanos, long[] acceptNanos) {
+        /**
+         * Returns the orders per second
+         *
+         * @return the throughput
+         */
+        public double ordersPerSecond() {
+            return orders / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * Returns a percentile of the accept latency
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the latency in milliseconds
+         */
+        public double acceptMillis(double percentile) {
+            if (acceptNanos.length == 0) return 0;
+            int index = (int) Math.ceil(percentile / 100 * acceptNanos.length) - 1;
+            return acceptNanos[Math.clamp(index, 0, acceptNanos.length - 1)] / 1e6;
+        }
+
+        /**
+         * Prints the results
+         */
+        public void print() {
+            System.out.printf("Clients connected: %d, failed: %d%n", connected, failed);
+            System.out.printf("Accept latency ms: p50 %.2f, p95 %.2f, p99 %.2f, max %.2f%n",
+                    acceptMillis(50), acceptMillis(95), acceptMillis(99), acceptMillis(100));
+            System.out.printf("Orders: %d in %.1f ms, %.0f orders/sec%n", orders, elapsedNanos / 1e6, ordersPerSecond());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package server;
+
+import item.ItemList;
+import item.MenuVersion;
+import protocol.MenuDiff;
+import protocol.MenuSnapshot;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The last few menus sent to clients, kept by hash so a client that has one of them cached
+ * can be sent only the changes from it
+ * The snapshot and hash of the current menu are worked out once per menu version rather than once per client
+ */
+final class MenuHistory {
+    /** Number of menus kept */
+    static final int DEFAULT_SIZE = 16;
+
+    private final Map<Long, MenuSnapshot> menus;
+
+    private MenuVersion lastVersion;
+
+    private MenuSnapshot last;
+
+    private long lastHash;
+
+    /**
+     * Constructor
+     *
+     * @param size the number of menus kept, the least recently sent is dropped first
+     */
+    MenuHistory(int size) {
+        if (size < 1) throw new IllegalArgumentException("Menu history must keep at least one menu");
+
+        this.menus = new LinkedHashMap<>(size * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MenuSnapshot> eldest) {
+                return size() > size;
+            }
+        };
+    }
+
+    /**
+     * Returns a snapshot of the current menu and keeps it in the history
+     *
+     * @param itemList the menu
+     * @return the snapshot, the same object for as long as the menu does not change
+     */
+    synchronized MenuSnapshot current(ItemList itemList) {
+        MenuVersion version = itemList.getSnapshot();
+
+        if (version != lastVersion) {
+            last = new MenuSnapshot(List.copyOf(version.items().values()));
+            lastHash = last.hash();
+            lastVersion = version;
+        }
+
+        menus.put(lastHash, last);
+
+        return last;
+    }
+
+    /**
+     * Returns what to send a client so it has the current menu
+     *
+     * @param itemList the menu
+     * @param cachedHash the hash of the menu the client has cached
+     * @return the changes from the cached menu if it is in the history, otherwise a snapshot of the whole menu
+     */
+    synchronized Object menuFor(ItemList itemList, long cachedHash) {
+        MenuSnapshot current = current(itemList);
+        MenuSnapshot cached = cachedHash == MenuSnapshot.NO_HASH ? null : menus.get(cachedHash);
+
+        return cached == null ? current : new MenuDiff(cached, cachedHash, current, lastHash);
+    }
+}
@@ -0,0 +1,445 @@
+package server;
+
+import exceptions.InvalidOrderException;
+import interfaces.OrderHandler;
+import interfaces.OutboundConnection;
+import item.ItemList;
+import logs.CoffeeShopLogger;
+import order.Order;
+import protocol.BinaryCodec;
+import protocol.FrameCodec;
+import protocol.Handshake;
+import protocol.MenuSnapshot;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A client connection handled by the {@link NioServer}
+ *
+ * Bytes are read by the connection's I/O thread whenever the socket is readable, the handshake is answered
+ * and then each complete frame is decoded and passed to a handler thread, which gives it to the connection's {@link ClientService}
+ * The objects from one connection are handled one at a time in the order they arrived, so adding an order
+ * never holds up the I/O thread and the other connections on it
+ * If the handler thread falls behind, the I/O thread stops reading from the socket until it catches up,
+ * so a client sending faster than its orders can be added is held back by TCP rather than queued in memory
+ * Objects for the client are taken from its {@link ClientService}'s {@link OutboundQueue} and encoded by the I/O thread
+ * only when everything before them has been written, so a client that stops reading fills its own bounded queue
+ * and not the server's memory
+ * The I/O thread writes until the socket will not take any more and then waits for it to be writable again
+ *
+ * Only the binary protocol is supported, a client that asks for Java serialization is disconnected
+ */
+class NioConnection implements OutboundConnection {
+    private static final CoffeeShopLogger logger = CoffeeShopLogger.getInstance();
+
+    /** Size of the handshake sent by a client, the magic number and a version */
+    private static final int HANDSHAKE = Integer.BYTES + 1;
+
+    /** Size of the handshake sent by a client that asks for a version with menu caching, which adds its menu's hash */
+    private static final int CACHE_HANDSHAKE = HANDSHAKE + Long.BYTES;
+
+    /** Objects waiting to be handled before the I/O thread stops reading from the socket */
+    static final int MAX_PENDING = 64;
+
+    private final SocketChannel channel;
+
+    private final IoLoop loop;
+
+    /** Runs the work for the ClientService off the I/O thread */
+    private final Executor handlers;
+
+    /** Work for the ClientService waiting to be run, in the order it arrived */
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /** Whether a handler thread is running the pending work, so it is never run by two threads at once */
+    private final AtomicBoolean handling = new AtomicBoolean();
+
+    private final OrderHandler orderHandler;
+
+    private final ItemList menu;
+
+    /** Run once when the connection closes */
+    private final Runnable onClose;
+
+    private final FrameCodec codec = new FrameCodec();
+
+    /** Encoded frames waiting to be written, at most one taken from the outbound queue */
+    private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+
+    /** Whether a flush has been given to the I/O thread and not yet run */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private SelectionKey key;
+
+    /** Whether reading has stopped because too much work is pending, only used on the I/O thread */
+    private boolean readPaused;
+
+    /** Whether a frame is waiting for the socket to be writable, only used on the I/O thread */
+    private boolean writePending;
+
+    /** Bytes read that do not yet make a whole frame */
+    private ByteBuffer readBuffer = ByteBuffer.allocate(1024);
+
+    /** The agreed protocol version, 0 until the handshake has been read */
+    private volatile int version;
+
+    /** Hash of the menu the client has cached, sent in the handshake */
+    private long cachedMenuHash = MenuSnapshot.NO_HASH;
+
+    private ClientService service;
+
+    /**
+     * Constructor for an accepted connection
+     *
+     * @param channel the accepted socket channel, already non-blocking
+     * @param loop the I/O thread that reads and writes the connection
+     * @param handlers runs what is received off the I/O thread
+     * @param orderHandler what to do with each order received
+     * @param menu the menu sent to the client
+     * @param onClose run once when the connection closes
+     */
+    NioConnection(SocketChannel channel, IoLoop loop, Executor handlers, OrderHandler orderHandler, ItemList menu, Runnable onClose) {
+        this.channel = channel;
+        this.loop = loop;
+        this.handlers = handlers;
+        this.orderHandler = orderHandler;
+        this.menu = menu;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Registers the connection with its I/O thread's selector
+     * Must be run on the I/O thread
+     */
+    void register() {
+        try {
+            key = channel.register(loop.selector(), SelectionKey.OP_READ, this);
+        } catch (ClosedChannelException e) {
+            close();
+        }
+    }
+
+    /**
+     * Reads what is available from the socket and passes every complete frame to be handled
+     * Run on the I/O thread when the socket is readable
+     */
+    void read() {
+        try {
+            if (channel.read(readBuffer) == -1) {
+                close();
+                return;
+            }
+
+            readBuffer.flip();
+
+            if (version == 0 && !readHandshake()) {
+                readBuffer.compact();
+                return;
+            }
+
+            while (readBuffer.remaining() >= FrameCodec.HEADER) {
+                int length = readBuffer.getInt(readBuffer.position());
+                FrameCodec.checkLength(length);
+
+                if (readBuffer.remaining() < FrameCodec.HEADER + length) break;
+
+                readBuffer.position(readBuffer.position() + FrameCodec.HEADER);
+                byte type = readBuffer.get();
+                byte[] frame = new byte[length - 1];
+                readBuffer.get(frame);
+
+                Object object = codec.decode(type, frame);
+                dispatch(() -> handle(object));
+            }
+
+            readBuffer.compact();
+
+            // A frame larger than the buffer needs more room before the rest of it can be read
+            if (!readBuffer.hasRemaining()) {
+                readBuffer = ByteBuffer.allocate(readBuffer.capacity() * 2).put(readBuffer.flip());
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            logger.logSevere("Error while reading from client: " + e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Writes queued frames until there are none left or the socket will not take any more
+     * Run on the I/O thread
+     */
+    void flush() {
+        flushScheduled.set(false);
+
+        if (key == null || !key.isValid()) return;
+
+        try {
+            ByteBuffer buffer;
+
+            while ((buffer = nextBuffer()) != null) {
+                channel.write(buffer);
+
+                if (buffer.hasRemaining()) {
+                    // Wait for the socket to be writable again
+                    writePending = true;
+                    updateInterest();
+                    return;
+                }
+
+                outbound.poll();
+            }
+
+            writePending = false;
+            updateInterest();
+        } catch (IOException e) {
+            logger.logWarning("Error writing to client: " + e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Encodes an object and queues it to be written by the I/O thread
+     *
+     * @param object the object to send
+     * @throws IOException if the connection is closed or the object can not be encoded
+     */
+    @Override
+    public void send(Object object) throws IOException {
+        if (closed.get()) throw new IOException("Connection is closed");
+
+        // Frames must be queued in the order they were encoded
+        synchronized (codec) {
+            enqueue(ByteBuffer.wrap(codec.encode(object)));
+        }
+    }
+
+    /**
+     * Returns the protocol version agreed when the connection was opened
+     *
+     * @return the version, 0 if the handshake has not been read yet
+     */
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the hash of the menu the client said it has cached in the handshake
+     *
+     * @return the hash, 0 if there is none
+     */
+    @Override
+    public long getCachedMenuHash() {
+        return cachedMenuHash;
+    }
+
+    /**
+     * Closes the socket, anything still queued is dropped
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+
+        if (key != null) key.cancel();
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.logWarning("Failed to close client channel: " + e.getMessage());
+        }
+
+        outbound.clear();
+        if (service != null) service.close();
+        onClose.run();
+    }
+
+    /**
+     * Returns the address of the client
+     *
+     * @return the remote address
+     */
+    @Override
+    public String toString() {
+        try {
+            return "NioConnection" + channel.getRemoteAddress();
+        } catch (IOException e) {
+            return "NioConnection[closed]";
+        }
+    }
+
+    /**
+     * Reads the handshake, answers it and sends the menu
+     *
+     * @return true if the handshake has been read, false if more bytes are needed
+     * @throws IOException if the client did not send a binary protocol handshake
+     */
+    private boolean readHandshake() throws IOException {
+        if (readBuffer.remaining() >= Integer.BYTES && readBuffer.getInt(readBuffer.position()) != Handshake.MAGIC) {
+            throw new StreamCorruptedException("Client did not send a binary protocol handshake");
+        }
+
+        if (readBuffer.remaining() < HANDSHAKE) return false;
+
+        int requested = readBuffer.get(readBuffer.position() + Integer.BYTES) & 0xFF;
+
+        if (requested == 0) throw new StreamCorruptedException("Client asked for Java serialization");
+        if (requested >= BinaryCodec.CACHE_VERSION && readBuffer.remaining() < CACHE_HANDSHAKE) return false;
+
+        readBuffer.position(readBuffer.position() + HANDSHAKE);
+        if (requested >= BinaryCodec.CACHE_VERSION) cachedMenuHash = readBuffer.getLong();
+
+        version = Math.min(requested, BinaryCodec.VERSION);
+        enqueue(ByteBuffer.wrap(new byte[] { (byte) version }));
+
+        service = new ClientService(this, orderHandler, menu, this::scheduleFlush);
+        dispatch(() -> {
+            service.sendItemListToClient();
+            service.subscribe();
+        });
+
+        return true;
+    }
+
+    /**
+     * Gives an object received from the client to the ClientService, closing the connection if it can not be handled
+     * Run on a handler thread
+     *
+     * @param object the object
+     */
+    private void handle(Object object) {
+        try {
+            service.handle(object);
+        } catch (IOException | ClassNotFoundException | InvalidOrderException e) {
+            logger.logSevere("Error while handling client: " + e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Queues work to be run on a handler thread after the work already queued for this connection
+     * Stops reading from the socket if too much work is queued
+     * Run on the I/O thread
+     *
+     * @param work the work
+     */
+    private void dispatch(Runnable work) {
+        pending.add(work);
+
+        if (pendingCount.incrementAndGet() >= MAX_PENDING && !readPaused) {
+            readPaused = true;
+            updateInterest();
+        }
+
+        runPending();
+    }
+
+    /**
+     * Starts a handler thread on the pending work if one is not already running it
+     */
+    private void runPending() {
+        if (!handling.compareAndSet(false, true)) return;
+
+        try {
+            handlers.execute(this::handlePending);
+        } catch (RejectedExecutionException e) {
+            // The server is closing
+            handling.set(false);
+            close();
+        }
+    }
+
+    /**
+     * Runs the pending work in order until there is none left
+     * Asks the I/O thread to start reading again once enough of it has been done
+     * Run on a handler thread
+     */
+    private void handlePending() {
+        Runnable work;
+
+        while ((work = pending.poll()) != null) {
+            if (!closed.get()) work.run();
+
+            if (pendingCount.decrementAndGet() == MAX_PENDING / 2) loop.execute(this::resumeReading);
+        }
+
+        handling.set(false);
+
+        // Work added after the queue was found empty but before the flag was cleared
+        if (!pending.isEmpty()) runPending();
+    }
+
+    /**
+     * Starts reading from the socket again after it was stopped for too much pending work
+     * Run on the I/O thread
+     */
+    private void resumeReading() {
+        if (!readPaused) return;
+
+        readPaused = false;
+        updateInterest();
+    }
+
+    /**
+     * Sets what the selector waits for, reading unless it has been stopped and writing if a frame is waiting
+     * Run on the I/O thread
+     */
+    private void updateInterest() {
+        if (key == null || !key.isValid()) return;
+
+        key.interestOps((readPaused ? 0 : SelectionKey.OP_READ) | (writePending ? SelectionKey.OP_WRITE : 0));
+    }
+
+    /**
+     * Queues bytes to be written and makes sure the I/O thread will write them
+     *
+     * @param buffer the bytes to write
+     */
+    private void enqueue(ByteBuffer buffer) {
+        outbound.add(buffer);
+        scheduleFlush();
+    }
+
+    /**
+     * Makes sure the I/O thread will write what is queued
+     */
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) loop.execute(this::flush);
+    }
+
+    /**
+     * Returns the next frame to write, encoding the next object from the outbound queue if every frame has been written
+     * Run on the I/O thread
+     *
+     * @return the frame, or null if there is nothing to write
+     * @throws IOException if the object can not be encoded
+     */
+    private ByteBuffer nextBuffer() throws IOException {
+        ByteBuffer buffer = outbound.peek();
+        if (buffer != null || service == null) return buffer;
+
+        Object object = service.getOutbound().poll();
+        if (object == null) return null;
+
+        synchronized (codec) {
+            buffer = ByteBuffer.wrap(codec.encode(object));
+        }
+
+        outbound.add(buffer);
+        return buffer;
+    }
+}
@@ -0,0 +1,183 @@
+package server;
+
+import client.SimUIModel;
+import interfaces.OrderHandler;
+import item.ItemList;
+import logs.CoffeeShopLogger;
+import utils.ThreadMode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking server that handles every client with a small, fixed number of I/O threads
+ *
+ * One thread accepts connections and hands them out to the I/O threads in turn, each I/O thread
+ * waits on a selector for its connections to be readable or writable and reads and decodes frames,
+ * so the number of clients is not limited by the number of threads
+ * Decoded orders are handed to the simulation by handler threads of the current {@link ThreadMode},
+ * so an order that is slow to add never stops an I/O thread reading and writing its other connections
+ */
+public class NioServer implements Closeable {
+    private static final CoffeeShopLogger logger = CoffeeShopLogger.getInstance();
+
+    /** Number of connections the operating system may queue before they are accepted */
+    private static final int BACKLOG = 4096;
+
+    private final OrderHandler orderHandler;
+
+    private final ItemList menu;
+
+    private final int port;
+
+    private final IoLoop[] loops;
+
+    /** Runs what each connection receives, off the I/O threads */
+    private final ExecutorService handlers;
+
+    /** Number of open connections */
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private ServerSocketChannel serverChannel;
+
+    private Thread acceptThread;
+
+    /**
+     * Constructor for a server that gives orders to the simulation
+     *
+     * @param simUIModel the simulation model
+     * @param port the port to listen on, 0 for any free port
+     * @param ioThreads the number of I/O threads
+     * @throws IOException if a selector can not be opened
+     */
+    public NioServer(SimUIModel simUIModel, int port, int ioThreads) throws IOException {
+        this(simUIModel, simUIModel.getMenu(), port, ioThreads);
+    }
+
+    /**
+     * Constructor for a server that gives orders to any handler
+     *
+     * @param orderHandler what to do with each order received, called on a handler thread
+     * @param menu the menu sent to each client when it connects
+     * @param port the port to listen on, 0 for any free port
+     * @param ioThreads the number of I/O threads
+     * @throws IOException if a selector can not be opened
+     * @throws IllegalArgumentException if there is not at least one I/O thread
+     */
+    public NioServer(OrderHandler orderHandler, ItemList menu, int port, int ioThreads) throws IOException {
+        if (ioThreads < 1) throw new IllegalArgumentException("There must be at least one I/O thread");
+
+        this.orderHandler = orderHandler;
+        this.menu = menu;
+        this.port = port;
+        this.loops = new IoLoop[ioThreads];
+
+        for (int i = 0; i < ioThreads; i++) loops[i] = new IoLoop("nio-io-" + i);
+
+        this.handlers = ThreadMode.current().newExecutor(defaultHandlerThreads());
+    }
+
+    /**
+     * Returns the default number of I/O threads, one per processor up to four
+     *
+     * @return the number of I/O threads
+     */
+    public static int defaultIoThreads() {
+        return Math.clamp(Runtime.getRuntime().availableProcessors(), 1, 4);
+    }
+
+    /**
+     * Returns the default number of platform handler threads, two per processor so one waiting on a lock
+     * does not leave a processor idle
+     *
+     * @return the number of handler threads
+     */
+    public static int defaultHandlerThreads() {
+        return 2 * Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Starts listening and starts the I/O threads, returns once the server is accepting connections
+     *
+     * @throws IOException if the port can not be bound
+     */
+    public void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(port), BACKLOG);
+
+        for (IoLoop loop : loops) loop.start();
+
+        acceptThread = new Thread(this::acceptConnections, "nio-accept");
+        acceptThread.start();
+
+        logger.logInfo("Non-blocking server started on port " + getPort() + " with " + loops.length + " I/O threads");
+    }
+
+    /**
+     * Returns the port the server is listening on
+     *
+     * @return the bound port
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the number of clients connected
+     *
+     * @return the number of open connections
+     */
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * Stops accepting connections and closes every connection
+     */
+    @Override
+    public void close() {
+        try {
+            if (serverChannel != null) serverChannel.close();
+        } catch (IOException e) {
+            logger.logWarning("Failed to close server channel: " + e.getMessage());
+        }
+
+        for (IoLoop loop : loops) loop.shutdown();
+
+        handlers.shutdown();
+    }
+
+    /**
+     * Accepts connections until the server is closed, giving each to the next I/O thread in turn
+     */
+    private void acceptConnections() {
+        int next = 0;
+
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+                IoLoop loop = loops[next];
+                next = (next + 1) % loops.length;
+
+                connections.incrementAndGet();
+                NioConnection connection = new NioConnection(channel, loop, handlers, orderHandler, menu, connections::decrementAndGet);
+                loop.execute(connection::register);
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                logger.logSevere("Error accepting client: " + e.getMessage());
+            }
+        }
+    }
+}
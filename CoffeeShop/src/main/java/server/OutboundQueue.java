@@ -0,0 +1,353 @@
+package server;
+
+import feed.Delta;
+import feed.FeedSnapshot;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A bounded queue of objects waiting to be sent to one client
+ *
+ * Objects for a client are offered to its queue, which never waits for the client, and are written by the connection's own writer,
+ * a thread for a blocking connection or the I/O thread for a {@link NioConnection}
+ * A client that stops reading only fills its own queue, so the other clients, the change feed and the staff carry on
+ * When the queue is full its {@link OverflowPolicy} decides what is dropped
+ *
+ * The queue also keeps how far behind its client is, how many objects are waiting, how old the oldest one is
+ * and how many have been sent, dropped and coalesced
+ */
+public class OutboundQueue {
+    /** System property used to set the number of objects each client's queue holds */
+    public static final String CAPACITY_PROPERTY = "coffeeshop.server.outboundCapacity";
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** Stands in for a snapshot taken when it is sent, so it includes every change published while it was queued */
+    private static final Object SNAPSHOT = new Object();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+    private final int capacity;
+
+    private final OverflowPolicy policy;
+
+    /** Takes a snapshot of the order queue and menu for a coalesced queue */
+    private final Supplier<Object> snapshot;
+
+    /** Run when the queue is not empty, so the writer knows there is something to send */
+    private final Runnable onReady;
+
+    /** Run when the queue is full and the policy is to disconnect */
+    private final Runnable onDisconnect;
+
+    /** Whether a coalesced snapshot is waiting, the deltas offered after it are already in it */
+    private boolean snapshotQueued;
+
+    private boolean closed;
+
+    private int highWater;
+
+    private long sent;
+
+    private long dropped;
+
+    private long coalesced;
+
+    /**
+     * An object waiting to be sent
+     *
+     * @param object the object
+     * @param queuedAt when it was queued, from {@link System#nanoTime()}
+     */
+    private record Entry(Object object, long queuedAt) {}
+
+    /**
+     * Constructor for a queue with the capacity set by the system property
+     *
+     * @param policy what to do when the queue is full
+     * @param snapshot takes a snapshot of the order queue and menu, used when the queue is coalesced
+     * @param onReady run when an object is queued, so the writer knows there is something to send
+     * @param onDisconnect run when the queue is full and the policy is to disconnect
+     */
+    public OutboundQueue(OverflowPolicy policy, Supplier<Object> snapshot, Runnable onReady, Runnable onDisconnect) {
+        this(Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY), policy, snapshot, onReady, onDisconnect);
+    }
+
+    /**
+     * Constructor for a queue
+     *
+     * @param capacity the number of objects the queue holds
+     * @param policy what to do when the queue is full
+     * @param snapshot takes a snapshot of the order queue and menu, used when the queue is coalesced
+     * @param onReady run when an object is queued, so the writer knows there is something to send
+     * @param onDisconnect run when the queue is full and the policy is to disconnect
+     * @throws IllegalArgumentException if the capacity is less than two
+     */
+    public OutboundQueue(int capacity, OverflowPolicy policy, Supplier<Object> snapshot, Runnable onReady, Runnable onDisconnect) {
+        if (capacity < 2) throw new IllegalArgumentException("Capacity must be at least two");
+
+        this.capacity = capacity;
+        this.policy = policy;
+        this.snapshot = snapshot;
+        this.onReady = onReady;
+        this.onDisconnect = onDisconnect;
+    }
+
+    /**
+     * Queues an object to be sent, making room as the policy says if the queue is full
+     *
+     * @param object the object to send
+     * @return false if the queue has been closed or the client was disconnected, true otherwise
+     */
+    public boolean offer(Object object) {
+        boolean disconnected = false;
+
+        lock.lock();
+        try {
+            if (closed) return false;
+
+            if (entries.size() >= capacity && !(snapshotQueued && isFeed(object)) && !makeRoom()) {
+                closed = true;
+                disconnected = true;
+                dropped += entries.size() + 1;
+                entries.clear();
+            } else if (snapshotQueued && isFeed(object)) {
+                // The snapshot is taken when it is sent, so it will already include this change
+                coalesced++;
+                return true;
+            } else {
+                entries.add(new Entry(object, System.nanoTime()));
+                highWater = Math.max(highWater, entries.size());
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Run without the lock as both may call back into the queue
+        if (disconnected) {
+            onDisconnect.run();
+            return false;
+        }
+
+        onReady.run();
+        return true;
+    }
+
+    /**
+     * Removes the next object to send without waiting
+     *
+     * @return the object, or null if there is nothing to send
+     */
+    public Object poll() {
+        lock.lock();
+        try {
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the next object to send, waiting until there is one
+     *
+     * @return the object, or null if the queue has been closed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Object take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (entries.isEmpty() && !closed) notEmpty.await();
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops everything queued and stops any more objects being queued, a writer waiting in {@link #take()} is given null
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            entries.clear();
+            snapshotQueued = false;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of objects waiting to be sent
+     *
+     * @return the number of objects
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how long the oldest object has been waiting, which is how far behind the client is
+     *
+     * @return the time in milliseconds, 0 if nothing is waiting
+     */
+    public long getLagMillis() {
+        lock.lock();
+        try {
+            Entry oldest = entries.peek();
+            return oldest == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.queuedAt());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the most objects that have been waiting at once
+     *
+     * @return the number of objects
+     */
+    public int getHighWater() {
+        lock.lock();
+        try {
+            return highWater;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of objects given to the writer
+     *
+     * @return the number of objects
+     */
+    public long getSent() {
+        lock.lock();
+        try {
+            return sent;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of objects dropped because the queue was full
+     *
+     * @return the number of objects
+     */
+    public long getDropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of deltas and snapshots replaced by a single snapshot
+     *
+     * @return the number of objects
+     */
+    public long getCoalesced() {
+        lock.lock();
+        try {
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of objects the queue holds
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns what the queue does when it is full
+     *
+     * @return the policy
+     */
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Removes the next entry and takes the snapshot it stands for, must hold the lock
+     *
+     * @return the object, or null if there is nothing to send
+     */
+    private Object next() {
+        Entry entry = entries.poll();
+        if (entry == null) return null;
+
+        sent++;
+
+        if (entry.object() != SNAPSHOT) return entry.object();
+
+        snapshotQueued = false;
+        return snapshot.get();
+    }
+
+    /**
+     * Makes room in a full queue as the policy says, must hold the lock
+     *
+     * @return false if the client should be disconnected
+     */
+    private boolean makeRoom() {
+        if (policy == OverflowPolicy.DISCONNECT) return false;
+
+        if (policy == OverflowPolicy.COALESCE) {
+            int removed = 0;
+
+            for (Iterator<Entry> iterator = entries.iterator(); iterator.hasNext();) {
+                if (isFeed(iterator.next().object())) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+
+            if (removed > 0) {
+                coalesced += removed;
+                entries.add(new Entry(SNAPSHOT, System.nanoTime()));
+                snapshotQueued = true;
+            }
+
+            if (entries.size() < capacity) return true;
+        }
+
+        if (entries.poll().object() == SNAPSHOT) snapshotQueued = false;
+        dropped++;
+
+        return true;
+    }
+
+    /**
+     * Checks if an object is part of the change feed and so can be replaced by a later snapshot
+     *
+     * @param object the object
+     * @return true if the object is a delta or a snapshot
+     */
+    private static boolean isFeed(Object object) {
+        return object instanceof Delta || object instanceof FeedSnapshot || object == SNAPSHOT;
+    }
+}
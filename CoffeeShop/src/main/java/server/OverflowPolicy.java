@@ -0,0 +1,29 @@
+package server;
+
+/**
+ * What a client's {@link OutboundQueue} does when it is full because the client is not reading fast enough
+ *
+ * The policy is chosen with the coffeeshop.server.overflow system property, set to drop_oldest, coalesce or disconnect
+ */
+public enum OverflowPolicy {
+    /** The oldest queued object is dropped, a client that misses deltas asks for them again */
+    DROP_OLDEST,
+
+    /** Every queued delta and snapshot is replaced with one snapshot taken when it is sent, the oldest object is dropped if that does not make room */
+    COALESCE,
+
+    /** The client is disconnected */
+    DISCONNECT;
+
+    /** System property used to choose the policy */
+    public static final String PROPERTY = "coffeeshop.server.overflow";
+
+    /**
+     * Returns the policy set by the system property
+     *
+     * @return the policy, coalesce if the property is not set
+     */
+    public static OverflowPolicy current() {
+        return valueOf(System.getProperty(PROPERTY, COALESCE.name()).toUpperCase());
+    }
+}
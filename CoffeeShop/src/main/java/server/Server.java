@@ -1,13 +1,11 @@
 package server;
 
 import client.SimUIModel;
-import item.ItemList;
+import interfaces.Connection;
 import logs.CoffeeShopLogger;
-import order.OrderList;
+import utils.ThreadMode;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
 import java.io.UncheckedIOException;
 import java.net.ServerSocket;
 import java.net.Socket;
@@ -16,9 +14,20 @@ import java.util.concurrent.*;
 
 /**
  * The Server that runs the Simulation
+ * By default each client has its own {@link ClientService} thread, a platform thread from a fixed pool
+ * or a virtual thread depending on the {@link ThreadMode}, which supports every protocol version
+ * including Java serialization for older clients
+ * Setting the coffeeshop.server.mode system property to nio handles every client with a few I/O threads
+ * of a {@link NioServer} instead, which only supports the binary protocol
  */
 public class Server {
-    private static final CopyOnWriteArraySet<ObjectOutputStream> activeConnectionsInstance = new CopyOnWriteArraySet<>();
+    /** System property choosing how clients are handled, nio or blocking */
+    public static final String MODE_PROPERTY = "coffeeshop.server.mode";
+
+    /** System property setting the number of I/O threads used in nio mode */
+    public static final String IO_THREADS_PROPERTY = "coffeeshop.server.ioThreads";
+
+    private static final CopyOnWriteArraySet<Connection> activeConnectionsInstance = new CopyOnWriteArraySet<>();
     private static ExecutorService threadPool = null;
     private static final int port = 9876;
     private static final CoffeeShopLogger logger = CoffeeShopLogger.getInstance();
@@ -31,6 +40,7 @@ public class Server {
     private String host = "localhost";
     private int pool_size = 6;
     private SimUIModel simUIModel;
+    private NioServer nioServer;
 
     /**
      * Constructor
@@ -53,21 +63,26 @@ public class Server {
 
     /**
      * Start a new server instance
+     * In blocking mode, the default, it accepts connections until the server fails,
+     * in nio mode this returns once the server is accepting connections
      */
     public void start() {
+        if ("nio".equalsIgnoreCase(System.getProperty(MODE_PROPERTY, "blocking"))) {
+            startNonBlocking();
+            return;
+        }
+
         try (ServerSocket serverSocket = setupServer()) {
             logger.logInfo("Server started on " + host + ":" + port);
             // A Thread pool is used to handle multiple
-            // client connections concurrently
-            threadPool = Executors.newFixedThreadPool(pool_size);
+            // client connections concurrently, in virtual mode
+            // every client gets its own virtual thread instead
+            threadPool = ThreadMode.current().newExecutor(pool_size);
 
             while (true) {
                 Socket clientSocket = serverSocket.accept();
                 logger.logInfo("Client connected: " + clientSocket.getInetAddress());
 
-                updateClientItemList();
-                updateClientOrderList();
-
                 ClientService clientService = new ClientService(clientSocket, simUIModel);
                 activeClientServices.add(clientService);
                 threadPool.submit(clientService);
@@ -79,6 +94,20 @@ public class Server {
         }
     }
 
+    /**
+     * Start a {@link NioServer} that handles every client with a few I/O threads
+     */
+    private void startNonBlocking() {
+        try {
+            nioServer = new NioServer(simUIModel, port, Integer.getInteger(IO_THREADS_PROPERTY, NioServer.defaultIoThreads()));
+            nioServer.start();
+            logger.logInfo("Server started on " + host + ":" + port + " in nio mode");
+        } catch (IOException e) {
+            logger.logSevere("Error in server: " + e);
+            if (nioServer != null) nioServer.close();
+        }
+    }
+
     /**
      * Create a new Server on the specified port
      * @return the new instance of the server
@@ -98,7 +127,7 @@ public class Server {
      * so we only want to do it when a client connects
      * @return the current instance of connectionsSingleton
      */
-    public static CopyOnWriteArraySet<ObjectOutputStream> getActiveConnectionsInstance() {
+    public static CopyOnWriteArraySet<Connection> getActiveConnectionsInstance() {
         return activeConnectionsInstance;
     }
 
@@ -109,15 +138,15 @@ public class Server {
     /**
      * Adds a client connection to the activeConnections instance
      *
-     * @param clientOutputStream the ObjectOutputStream of the client to add
-     * @throws IllegalArgumentException if the clientOutputStream is null
+     * @param clientConnection the Connection of the client to add
+     * @throws IllegalArgumentException if the clientConnection is null
      */
-    public static synchronized void addClient(ObjectOutputStream clientOutputStream) {
-        if (clientOutputStream == null) {
-            throw new IllegalArgumentException("Client output stream cannot be null");
+    public static synchronized void addClient(Connection clientConnection) {
+        if (clientConnection == null) {
+            throw new IllegalArgumentException("Client connection cannot be null");
         }
 
-        if (!activeConnectionsInstance.add(clientOutputStream))
+        if (!activeConnectionsInstance.add(clientConnection))
             logger.logSevere("Client cannot be added");
 
         logger.logInfo("Client added. Total clients: " + activeConnectionsInstance.size());
@@ -126,59 +155,21 @@ public class Server {
     /**
      * Removes a client connection from the activeConnections instance
      *
-     * @param clientOutputStream the ObjectOutputStream of the client to remove
-     * @throws IllegalArgumentException if the clientOutputStream is null
+     * @param clientConnection the Connection of the client to remove
+     * @throws IllegalArgumentException if the clientConnection is null
      */
-    public static synchronized void removeClient(ObjectOutputStream clientOutputStream) {
-        if (clientOutputStream == null) {
-            throw new IllegalArgumentException("Client output stream cannot be null");
+    public static synchronized void removeClient(Connection clientConnection) {
+        if (clientConnection == null) {
+            throw new IllegalArgumentException("Client connection cannot be null");
         }
 
-        if (!activeConnectionsInstance.remove(clientOutputStream)) {
+        if (!activeConnectionsInstance.remove(clientConnection)) {
             logger.logSevere("Client not found in active connections.");
         }
 
         logger.logInfo("Total clients: " + activeConnectionsInstance.size());
     }
 
-    /**
-     * Broadcast OrderList or ItemList to a
-     * collection of clients
-     * @param listToSend the updated {@link OrderList} or {@link ItemList} to send
-     * @param <T> Generic type that must be {@link Serializable} to allow for polymorphism
-     * @throws IOException if an object is unable to be sent to a client
-     * @throws IllegalArgumentException if the list object is null
-     */
-    private synchronized <T extends Serializable> void broadcast(T listToSend) throws IOException {
-        if (listToSend == null) throw new IllegalArgumentException("List to send cannot be null");
-
-        CopyOnWriteArraySet<ObjectOutputStream> activeConnections = Server.getActiveConnectionsInstance();
-
-        for (ObjectOutputStream outputStream : activeConnections) {
-            logger.logInfo("Broadcasting " + listToSend.getClass().getName());
-            outputStream.writeObject(listToSend);
-        }
-    }
-
-    /**
-     * Broadcast OrderList to all connected clients
-     * @throws IOException if OrderList is unable to be sent
-     * to a client
-     */
-    public synchronized void updateClientOrderList() throws IOException {
-        broadcast(OrderList.getInstance());
-    }
-
-    /**
-     * Broadcast ItemList to all connected clients
-     * @throws IOException if ItemList is unable to be sent
-     * to a client
-     */
-    public synchronized void updateClientItemList() throws IOException {
-        broadcast(ItemList.getInstance());
-    }
-
-
     /**
      * Shuts down the thread pool gracefully, if the shutdown does not complete within
      * 10 seconds, the thread pool is forcibly terminated
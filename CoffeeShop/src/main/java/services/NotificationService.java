@@ -7,6 +7,7 @@ import message.MessageType;
 import server.ClientService;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Notification service for sending messages from the server to clients
@@ -18,7 +19,8 @@ import java.util.*;
  * @author Cameron Hunt
  */
 public class NotificationService implements INotificationService {
-    private final List<OrderObserver> observers = Collections.synchronizedList(new ArrayList<>());
+    /** Searched by every waiter while others add and remove, so it is copied on write rather than locked */
+    private final List<OrderObserver> observers = new CopyOnWriteArrayList<>();
     private final CoffeeShopLogger logger = CoffeeShopLogger.getInstance();
 
     /**
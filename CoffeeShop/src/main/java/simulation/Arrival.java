@@ -0,0 +1,14 @@
+package simulation;
+
+import order.Order;
+
+import java.time.Duration;
+
+/**
+ * An order arriving at the coffee shop during a simulation
+ *
+ * @param at how long after the simulation started the order arrives
+ * @param order the order
+ */
+public record Arrival(Duration at, Order order) {
+}
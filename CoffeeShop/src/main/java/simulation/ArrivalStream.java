@@ -0,0 +1,47 @@
+package simulation;
+
+import order.Order;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds the stream of arrivals a simulation replays from a list of orders, such as the orders in orders.txt
+ */
+public class ArrivalStream {
+    /**
+     * Replays orders at the times they were placed, the earliest order arriving as the simulation starts
+     *
+     * @param orders the orders, in any order
+     * @return the arrivals, earliest first
+     */
+    public static List<Arrival> fromTimestamps(List<Order> orders) {
+        List<Order> sorted = orders.stream().sorted(Comparator.comparing(Order::getTimestamp)).toList();
+        List<Arrival> arrivals = new ArrayList<>(sorted.size());
+
+        for (Order order : sorted) {
+            arrivals.add(new Arrival(Duration.between(sorted.getFirst().getTimestamp(), order.getTimestamp()), order));
+        }
+
+        return arrivals;
+    }
+
+    /**
+     * Replays orders one after another a fixed time apart, as the simulation adds the orders read from a file
+     *
+     * @param orders the orders, in the order they arrive
+     * @param interval the time between one order and the next
+     * @return the arrivals, earliest first
+     */
+    public static List<Arrival> atInterval(List<Order> orders, Duration interval) {
+        List<Arrival> arrivals = new ArrayList<>(orders.size());
+
+        for (int i = 0; i < orders.size(); i++) {
+            arrivals.add(new Arrival(interval.multipliedBy(i), orders.get(i)));
+        }
+
+        return arrivals;
+    }
+}
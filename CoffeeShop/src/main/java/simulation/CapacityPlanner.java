@@ -0,0 +1,87 @@
+package simulation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Finds the cheapest rota that serves a stream of orders quickly enough
+ *
+ * Every combination of waiters and baristas in a range is simulated with the same orders,
+ * and the cheapest rota whose 95th percentile order latency meets the target is chosen
+ */
+public class CapacityPlanner {
+    private final double waiterRate;
+
+    private final double baristaRate;
+
+    private final double chefRate;
+
+    /**
+     * Constructor where every staff member costs the same, so the cheapest rota has the fewest staff
+     */
+    public CapacityPlanner() {
+        this(1, 1, 1);
+    }
+
+    /**
+     * Constructor for a planner
+     *
+     * @param waiterRate the hourly cost of a waiter
+     * @param baristaRate the hourly cost of a barista
+     * @param chefRate the hourly cost of a chef
+     */
+    public CapacityPlanner(double waiterRate, double baristaRate, double chefRate) {
+        this.waiterRate = waiterRate;
+        this.baristaRate = baristaRate;
+        this.chefRate = chefRate;
+    }
+
+    /**
+     * Returns the hourly cost of a rota
+     *
+     * @param rota the rota
+     * @return the cost
+     */
+    public double cost(Rota rota) {
+        return rota.waiters() * waiterRate + rota.baristas() * baristaRate + rota.chefs() * chefRate;
+    }
+
+    /**
+     * Simulates every rota from one waiter and one barista up to the most of each
+     *
+     * @param arrivals the orders to replay
+     * @param staffDelay how long each step of a staff member's work takes
+     * @param maxWaiters the most waiters to try
+     * @param maxBaristas the most baristas to try
+     * @param chefs the number of chefs in every rota
+     * @return the result of each rota
+     */
+    public List<SimulationResult> sweep(List<Arrival> arrivals, Duration staffDelay, int maxWaiters, int maxBaristas, int chefs) {
+        List<SimulationResult> results = new ArrayList<>();
+
+        for (int waiters = 1; waiters <= maxWaiters; waiters++) {
+            for (int baristas = 1; baristas <= maxBaristas; baristas++) {
+                results.add(new EventSimulation(new Rota(waiters, baristas, chefs), staffDelay).run(arrivals));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Returns the cheapest rota that meets a target, the quicker one if two cost the same
+     *
+     * @param results the results of each rota
+     * @param targetP95 the longest the 95th percentile order may take
+     * @return the result of the cheapest rota, empty if no rota meets the target
+     */
+    public Optional<SimulationResult> cheapest(List<SimulationResult> results, Duration targetP95) {
+        return results.stream()
+                .filter(result -> result.meetsTarget(targetP95))
+                .min(Comparator.comparingDouble((SimulationResult result) -> cost(result.rota()))
+                        .thenComparingLong(result -> result.latency().getPercentile(95)));
+    }
+}
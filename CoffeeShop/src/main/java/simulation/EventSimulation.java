@@ -0,0 +1,396 @@
+package simulation;
+
+import interfaces.SchedulingPolicy;
+import item.ItemCategory;
+import item.ItemList;
+import order.ChannelPriorityPolicy;
+import order.Order;
+import order.OrderIndex;
+import order.OrderQueue;
+import order.SchedulingPolicyFactory;
+import utils.LatencyHistogram;
+import workers.Waiter;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless discrete event simulation of the coffee shop on a virtual clock
+ *
+ * The staff follow the same steps as the threaded simulation without sleeping:
+ * a waiter takes an order, handing its items to the chefs and baristas, and delivers it once every item is made,
+ * holding several orders in flight, while each chef or barista makes one item at a time in the order they were handed out
+ * Every step takes one staff delay, so an hour of orders is simulated in milliseconds
+ *
+ * Orders are picked from the queue by the same scheduling policies as the waiters,
+ * each waiter is given the priority it would have in the simulation
+ */
+public class EventSimulation {
+    private final Rota rota;
+
+    /** How long each step of a staff member's work takes (nanoseconds) */
+    private final long staffDelay;
+
+    private int maxOrdersInFlight = Waiter.DEFAULT_MAX_ORDERS_IN_FLIGHT;
+
+    private String schedulingPolicy = ChannelPriorityPolicy.NAME;
+
+    /**
+     * Constructor for a simulation
+     *
+     * @param rota the staff working
+     * @param staffDelay how long each step of a staff member's work takes
+     * @throws IllegalArgumentException if the delay is negative
+     */
+    public EventSimulation(Rota rota, Duration staffDelay) {
+        if (staffDelay.isNegative()) throw new IllegalArgumentException("Staff delay cannot be negative");
+
+        this.rota = rota;
+        this.staffDelay = staffDelay.toNanos();
+    }
+
+    /**
+     * Sets how many orders each waiter takes before waiting for one to be delivered
+     *
+     * @param maxOrdersInFlight the most orders in flight, at least 1
+     * @throws IllegalArgumentException if it is less than 1
+     */
+    public void setMaxOrdersInFlight(int maxOrdersInFlight) {
+        if (maxOrdersInFlight < 1) throw new IllegalArgumentException("A waiter must be able to take an order");
+        this.maxOrdersInFlight = maxOrdersInFlight;
+    }
+
+    /**
+     * Sets the policy the waiters use to pick the next order
+     *
+     * @param name the name of the policy
+     * @throws IllegalArgumentException if there is no policy with that name
+     */
+    public void setSchedulingPolicy(String name) {
+        if (SchedulingPolicyFactory.getPolicy(name) == null) throw new IllegalArgumentException("Unknown scheduling policy: " + name);
+        this.schedulingPolicy = name;
+    }
+
+    /**
+     * Replays a stream of arrivals until every order is complete
+     * An order arriving a second time is ignored
+     *
+     * @param arrivals the arrivals
+     * @return what happened
+     */
+    public SimulationResult run(List<Arrival> arrivals) {
+        return new Run(arrivals).run();
+    }
+
+    /**
+     * Something that happens at a point in simulated time
+     * Events at the same time happen in the order they were scheduled
+     *
+     * @param time when it happens (nanoseconds)
+     * @param sequence the order it was scheduled in
+     * @param action what happens
+     */
+    private record Event(long time, long sequence, Runnable action) implements Comparable<Event> {
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * An order a waiter has taken and the number of its items still to be made
+     */
+    private static class OrderInFlight {
+        private final SimulatedWaiter waiter;
+
+        private final long arrivedAt;
+
+        private int remaining;
+
+        private OrderInFlight(SimulatedWaiter waiter, long arrivedAt, int items) {
+            this.waiter = waiter;
+            this.arrivedAt = arrivedAt;
+            this.remaining = items;
+        }
+    }
+
+    /**
+     * A waiter and the orders it has in flight
+     */
+    private static class SimulatedWaiter {
+        private final double priority;
+
+        private boolean busy;
+
+        private int inFlight;
+
+        /** Orders with every item made, in the order they became ready */
+        private final Deque<OrderInFlight> ready = new ArrayDeque<>();
+
+        private SimulatedWaiter(double priority) {
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * The chefs or the baristas and the items waiting for them
+     */
+    private static class Makers {
+        private int idle;
+
+        private final Deque<OrderInFlight> items = new ArrayDeque<>();
+
+        private Makers(int staff) {
+            this.idle = staff;
+        }
+    }
+
+    /**
+     * The state of one replay, so a simulation can be run many times
+     */
+    private class Run {
+        private final List<Arrival> arrivals;
+
+        private final PriorityQueue<Event> events = new PriorityQueue<>();
+
+        private final OrderQueue queue = new OrderQueue();
+
+        private final OrderIndex index = new OrderIndex();
+
+        private final SchedulingPolicy policy = SchedulingPolicyFactory.getPolicy(schedulingPolicy);
+
+        private final List<SimulatedWaiter> waiters = new ArrayList<>();
+
+        private final Makers chefs = new Makers(rota.chefs());
+
+        private final Makers baristas = new Makers(rota.baristas());
+
+        private final Map<Order, Long> arrivedAt = new HashMap<>();
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private long now;
+
+        private long sequence;
+
+        private int completed;
+
+        private long lastCompletedAt;
+
+        /** Integral of the queue length over time, for the mean */
+        private double queueArea;
+
+        private long queueChangedAt;
+
+        private int queueLength;
+
+        private int maxQueueLength;
+
+        private int maxItemQueueLength;
+
+        private Run(List<Arrival> arrivals) {
+            this.arrivals = arrivals;
+
+            for (double priority : Waiter.getPriorities(rota.waiters())) waiters.add(new SimulatedWaiter(priority));
+        }
+
+        /**
+         * Processes every event in time order until there are none left
+         *
+         * @return what happened
+         */
+        private SimulationResult run() {
+            for (Arrival arrival : arrivals) {
+                schedule(arrival.at().toNanos(), () -> arrive(arrival.order()));
+            }
+
+            long start = arrivals.stream().mapToLong(arrival -> arrival.at().toNanos()).min().orElse(0);
+            now = start;
+            queueChangedAt = start;
+
+            Event event;
+            while ((event = events.poll()) != null) {
+                now = event.time();
+                event.action().run();
+            }
+
+            long makespan = Math.max(0, lastCompletedAt - start);
+            double meanQueueLength = makespan == 0 ? 0 : queueArea / makespan;
+
+            return new SimulationResult(rota, arrivedAt.size(), completed, Duration.ofNanos(makespan), latency,
+                    meanQueueLength, maxQueueLength, maxItemQueueLength);
+        }
+
+        /**
+         * Schedules an action
+         *
+         * @param time when it happens (nanoseconds)
+         * @param action what happens
+         */
+        private void schedule(long time, Runnable action) {
+            events.add(new Event(time, sequence++, action));
+        }
+
+        /**
+         * An order arrives and is queued for a waiter
+         *
+         * @param order the order
+         */
+        private void arrive(Order order) {
+            OrderIndex.Entry entry = index.register(order);
+            if (entry == null) return;
+
+            arrivedAt.put(order, now);
+            queue.offer(entry, Integer.MAX_VALUE);
+            queueChanged();
+
+            for (SimulatedWaiter waiter : waiters) next(waiter);
+        }
+
+        /**
+         * A waiter that is not busy delivers a ready order, otherwise takes a new order if it has room for one
+         *
+         * @param waiter the waiter
+         */
+        private void next(SimulatedWaiter waiter) {
+            if (waiter.busy) return;
+
+            OrderInFlight ready = waiter.ready.poll();
+
+            if (ready != null) {
+                waiter.busy = true;
+
+                schedule(now + staffDelay, () -> {
+                    waiter.busy = false;
+                    waiter.inFlight--;
+                    latency.record(now - ready.arrivedAt);
+                    completed++;
+                    lastCompletedAt = now;
+                    next(waiter);
+                });
+                return;
+            }
+
+            if (waiter.inFlight >= maxOrdersInFlight) return;
+
+            Order order = take(waiter.priority);
+            if (order == null) return;
+
+            queueChanged();
+            waiter.busy = true;
+            waiter.inFlight++;
+
+            OrderInFlight inFlight = new OrderInFlight(waiter, arrivedAt.get(order), order.getDetails().size());
+
+            // The items are handed out as the order is taken so they are made meanwhile
+            for (String item : order.getDetails()) {
+                ItemCategory category = ItemList.getInstance().itemExists(item) ? ItemList.getInstance().getCategory(item) : null;
+
+                if (isFood(category)) {
+                    make(chefs, inFlight);
+                } else if (isDrink(category)) {
+                    make(baristas, inFlight);
+                } else {
+                    made(inFlight);
+                }
+            }
+
+            if (order.getDetails().isEmpty()) waiter.ready.add(inFlight);
+
+            schedule(now + staffDelay, () -> {
+                waiter.busy = false;
+                next(waiter);
+            });
+        }
+
+        /**
+         * Takes the order the scheduling policy picks without waiting
+         *
+         * @param priority the waiter's priority
+         * @return the order, null if the queue is empty
+         */
+        private Order take(double priority) {
+            try {
+                return queue.take(policy, priority, 0, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        /**
+         * Hands an item to the chefs or baristas, an idle one starts on it straight away
+         *
+         * @param makers the chefs or baristas
+         * @param inFlight the order the item is for
+         */
+        private void make(Makers makers, OrderInFlight inFlight) {
+            makers.items.add(inFlight);
+            maxItemQueueLength = Math.max(maxItemQueueLength, makers.items.size());
+
+            start(makers);
+        }
+
+        /**
+         * Idle chefs or baristas start on the items waiting for them
+         *
+         * @param makers the chefs or baristas
+         */
+        private void start(Makers makers) {
+            while (makers.idle > 0 && !makers.items.isEmpty()) {
+                OrderInFlight inFlight = makers.items.poll();
+                makers.idle--;
+
+                schedule(now + staffDelay, () -> {
+                    makers.idle++;
+                    made(inFlight);
+                    start(makers);
+                });
+            }
+        }
+
+        /**
+         * An item of an order has been made, once every item is made the order is ready for its waiter to deliver
+         *
+         * @param inFlight the order the item is for
+         */
+        private void made(OrderInFlight inFlight) {
+            if (--inFlight.remaining > 0) return;
+
+            inFlight.waiter.ready.add(inFlight);
+            next(inFlight.waiter);
+        }
+
+        /**
+         * Records the number of orders waiting for a waiter changing
+         */
+        private void queueChanged() {
+            queueArea += (double) queueLength * (now - queueChangedAt);
+            queueChangedAt = now;
+            queueLength = queue.size();
+            maxQueueLength = Math.max(maxQueueLength, queueLength);
+        }
+    }
+
+    /**
+     * Returns whether an item in a category is made by a chef
+     *
+     * @param category the category, null if the item is not on the menu
+     * @return true for food
+     */
+    private static boolean isFood(ItemCategory category) {
+        return category == ItemCategory.ROLL || category == ItemCategory.FOOD || category == ItemCategory.PASTRY || category == ItemCategory.SNACK;
+    }
+
+    /**
+     * Returns whether an item in a category is made by a barista
+     *
+     * @param category the category, null if the item is not on the menu
+     * @return true for drinks
+     */
+    private static boolean isDrink(ItemCategory category) {
+        return category == ItemCategory.HOTDRINK || category == ItemCategory.SOFTDRINK;
+    }
+}
@@ -0,0 +1,63 @@
+package simulation;
+
+import item.ItemFileReader;
+import order.Order;
+import order.OrderFileReadWrite;
+import workers.Staff;
+
+import java.io.FileNotFoundException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs the coffee shop simulation without the GUI to plan how many staff are needed
+ *
+ * The orders in an orders file are replayed, one every half staff delay as the simulation adds them,
+ * against every rota of 1 to 10 waiters and 1 to 5 baristas, and the cheapest rota meeting the target p95 is printed
+ *
+ * Arguments, all optional: orders file (orders.txt), target p95 in seconds (60), simulation speed from 0 to 100 (50),
+ * staff experience from 1 to 5 (3), number of chefs (2)
+ */
+public class HeadlessSimulation {
+    private static final int MAX_WAITERS = 10;
+
+    private static final int MAX_BARISTAS = 5;
+
+    /**
+     * Runs the sweep and prints the result of each rota
+     *
+     * @param args the optional arguments
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        String ordersFile = args.length > 0 ? args[0] : "orders.txt";
+        Duration targetP95 = Duration.ofMillis((long) (1000 * (args.length > 1 ? Double.parseDouble(args[1]) : 60)));
+        double simSpeed = args.length > 2 ? Double.parseDouble(args[2]) : 50;
+        int experience = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        int chefs = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+
+        new ItemFileReader("menu.txt").readFile();
+        List<Order> orders = new OrderFileReadWrite(ordersFile).readOrders();
+
+        double defaultDelay = Staff.defaultDelayFor(simSpeed);
+        Duration staffDelay = Duration.ofMillis(Staff.delayFor(defaultDelay, experience));
+        List<Arrival> arrivals = ArrivalStream.atInterval(orders, Duration.ofMillis((long) (defaultDelay / 2)));
+
+        CapacityPlanner planner = new CapacityPlanner();
+
+        long started = System.nanoTime();
+        List<SimulationResult> results = planner.sweep(arrivals, staffDelay, MAX_WAITERS, MAX_BARISTAS, chefs);
+        long elapsed = System.nanoTime() - started;
+
+        results.forEach(System.out::println);
+        System.out.printf("%nSimulated %d rotas of %d orders in %d ms%n", results.size(), orders.size(), elapsed / 1_000_000);
+
+        Optional<SimulationResult> cheapest = planner.cheapest(results, targetP95);
+
+        if (cheapest.isPresent()) {
+            System.out.println("Cheapest rota with p95 within " + targetP95.toSeconds() + " s: " + cheapest.get());
+        } else {
+            System.out.println("No rota has p95 within " + targetP95.toSeconds() + " s");
+        }
+    }
+}
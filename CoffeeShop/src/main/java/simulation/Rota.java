@@ -0,0 +1,26 @@
+package simulation;
+
+/**
+ * How many of each staff member are working
+ *
+ * @param waiters the number of waiters
+ * @param baristas the number of baristas
+ * @param chefs the number of chefs
+ */
+public record Rota(int waiters, int baristas, int chefs) {
+    /**
+     * Constructor for a rota
+     *
+     * @throws IllegalArgumentException if there is not at least one of each staff member, as some orders could never be made
+     */
+    public Rota {
+        if (waiters < 1 || baristas < 1 || chefs < 1) {
+            throw new IllegalArgumentException("A rota needs at least one of each staff member");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return waiters + " waiters, " + baristas + " baristas, " + chefs + " chefs";
+    }
+}
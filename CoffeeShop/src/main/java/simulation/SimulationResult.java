@@ -0,0 +1,54 @@
+package simulation;
+
+import utils.LatencyHistogram;
+
+import java.time.Duration;
+
+/**
+ * What happened in one run of an EventSimulation
+ *
+ * @param rota the staff working
+ * @param orders the number of orders that arrived
+ * @param completed the number of orders completed
+ * @param makespan the simulated time from the first order arriving until the last was complete
+ * @param latency the simulated time from each order arriving until it was complete
+ * @param meanQueueLength the number of orders waiting for a waiter, averaged over the makespan
+ * @param maxQueueLength the most orders waiting for a waiter at once
+ * @param maxItemQueueLength the most items waiting for a chef or barista at once
+ */
+public record SimulationResult(Rota rota,
+                               int orders,
+                               int completed,
+                               Duration makespan,
+                               LatencyHistogram latency,
+                               double meanQueueLength,
+                               int maxQueueLength,
+                               int maxItemQueueLength) {
+    /**
+     * Returns the orders completed for each simulated hour
+     *
+     * @return the throughput, 0 if no time passed
+     */
+    public double throughputPerHour() {
+        if (makespan.isZero()) return 0;
+
+        return completed * (double) Duration.ofHours(1).toNanos() / makespan.toNanos();
+    }
+
+    /**
+     * Returns whether every order was completed and 95 percent of them within a target time
+     *
+     * @param targetP95 the longest the 95th percentile order may take
+     * @return true if the target was met
+     */
+    public boolean meetsTarget(Duration targetP95) {
+        return completed == orders && latency.getPercentile(95) <= targetP95.toNanos();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d/%d orders in %.1f s, %.0f orders/hour, queue mean %.1f max %d, item queue max %d, latency %s",
+                rota, completed, orders, makespan.toMillis() / 1000.0, throughputPerHour(),
+                meanQueueLength, maxQueueLength, maxItemQueueLength, latency);
+    }
+}
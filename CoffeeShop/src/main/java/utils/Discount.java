@@ -67,6 +67,7 @@ public enum Discount {
 
     /**
      * Method creates a data structure holding all the possible discount combinations
+     * This is the default set of discounts, orders look discounts up in the shared DiscountRules table built from it
      *
      * @return a Map with a set as a key and discount as the value
      */
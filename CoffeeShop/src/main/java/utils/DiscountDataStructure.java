@@ -2,62 +2,104 @@ package utils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * Class represents a custom data structure to deal with adding and removing available discounts
  *
- * Contains a 2-dimensional array list to hold discount information
- *
  * The data structure only contains discounts and the index of the items to apply the discount to
- * This works by adding possible discounts from the highest discount to lowest
- * And removing a discount will allow the calling method to apply it to its list of items
- * The removal method will then need to check for any discounts that can no longer be applied (ie cannot apply two discounts to the same item) and removes these from the data structure
- * The calling method needs to remove the item from its array list so the removal method must update the index positions accordingly
+ * Removing a discount returns the highest discount left, daily specials always come first (the most recently added first)
+ * and discounts of the same value come out in the order they were added
+ *
+ * Discounts are held in a binary heap of long keys, the key encodes the order the discount should come out in and which entry it is
+ * The discount and item indexes of each entry are held in parallel int arrays so no objects are created for each entry
+ *
+ * Only one discount can be applied to an item, so once a discount is removed its items are marked as used in a bit set
+ * Any discount left in the heap that uses one of those items is skipped when it reaches the top, rather than being searched for and removed
+ *
+ * Item indexes are given as positions in the calling method's list of items when the discounts are added, so all discounts should be added before any are removed
+ * removeEntry() returns the indexes after the items of every earlier discount have been removed from the calling method's list,
+ * next() and the getters return the original indexes and do not create any objects
  *
  * @author Fraser Holman
  */
 
 public class DiscountDataStructure {
+    /** Discounts indexed by ordinal */
+    private static final Discount[] DISCOUNTS = Discount.values();
+
+    /** Highest key given to a daily special, later daily specials are given lower keys so they come out first */
+    private static final long DAILY_SPECIAL_KEY = Integer.MAX_VALUE;
+
+    /** Heap of entry keys, the smallest key is the next discount to apply */
+    private long[] heap;
+
+    private int heapSize;
+
+    /** Discount ordinal of each entry, in the order the entries were added */
+    private int[] discounts;
+
+    /** First item index of each entry */
+    private int[] items1;
+
+    /** Second item index of each entry */
+    private int[] items2;
+
+    private int entries;
+
+    /** Bit set of the item indexes that already have a discount applied */
+    private long[] used;
 
-    private ArrayList<ArrayList<Object>> structure;
+    /** The entry found by the last call to next() */
+    private int current;
 
     /**
-     * Constructor to initialise the array list
+     * Constructor to initialise the arrays
      */
     public DiscountDataStructure() {
-        structure = new ArrayList<>();
+        heap = new long[16];
+        discounts = new int[16];
+        items1 = new int[16];
+        items2 = new int[16];
+        used = new long[1];
+        current = -1;
     }
 
     /**
      * Method adds a new discount entry to the structure data structure
-     * The add method will insert the new entry by size of discount
      *
      * @param discount Discount enum related to the pair
      * @param item1 Index that item1 appears in the list of items in the calling method
      * @param item2 Index that item2 appears in the list of items in the calling method
      */
     public void addEntry(Discount discount, int item1, int item2) {
-        // Check if either item is the daily special
-        if (discount == Discount.DAILY_SPECIAL) {
-            structure.addFirst(new ArrayList<>(Arrays.asList(discount, item1, item2)));
-            return;
+        if (entries == discounts.length) {
+            int capacity = entries * 2;
+            heap = Arrays.copyOf(heap, capacity);
+            discounts = Arrays.copyOf(discounts, capacity);
+            items1 = Arrays.copyOf(items1, capacity);
+            items2 = Arrays.copyOf(items2, capacity);
         }
 
-        int middle;
-        int high = structure.size();
-        int low = 0;
-
-        while (low < high) {
-            middle = (low + high) / 2;
-            if (discount.getValue() > ((Discount) structure.get(middle).getFirst()).getValue()) {
-                high = middle;
-            } else {
-                low = middle + 1;
-            }
+        int words = (Math.max(item1, item2) >> 6) + 1;
+        if (words > used.length) used = Arrays.copyOf(used, Math.max(words, used.length * 2));
+
+        int entry = entries++;
+
+        discounts[entry] = discount.ordinal();
+        items1[entry] = item1;
+        items2[entry] = item2;
+
+        // Daily specials are given the lowest keys, otherwise a higher discount gives a lower key
+        // The entry number in the low bits keeps discounts of the same value in the order they were added
+        long key;
+
+        if (discount == Discount.DAILY_SPECIAL) {
+            key = DAILY_SPECIAL_KEY - entry;
+        } else {
+            key = ((long) (101 - discount.getValue()) << 32) | entry;
         }
 
-        structure.add(low, new ArrayList<>(Arrays.asList(discount, item1, item2)));
+        siftUp(heapSize++, key);
     }
 
     /**
@@ -67,42 +109,168 @@ public class DiscountDataStructure {
      * The calling method can use this array list to apply the discount to the intended items
      */
     public ArrayList<Object> removeEntry() {
-        if (structure.isEmpty()) return null;
-
-        /** Removes the first entry or the highest discount from the datastructure */
-        ArrayList<Object> lastEntry = structure.removeFirst();
-
-        /** For loop to check for recurring item indexs that occur for different discounts
-         * This is important as we only want to apply one discount to one item
-         * So any item that has a discount applied to can be removed from the data structure */
-        for (int i=0; i<structure.size(); i++) {
-            /** Checks if the data structures second column contains an item which will have the discount applied and then removes this entry */
-            if (Objects.equals(structure.get(i).get(1), lastEntry.get(1)) || Objects.equals(structure.get(i).get(1), lastEntry.get(2))) {
-                structure.remove(i);
-                i-=1;
-            }
-            /** Checks if the data structures third column contains an item which will have the discount applied and then removes this entry */
-            else if (Objects.equals(structure.get(i).get(2), lastEntry.get(1)) || Objects.equals(structure.get(i).get(2), lastEntry.get(2))) {
-                structure.remove(i);
-                i-=1;
-            }
-            /** Then needs to shift the index value for any other discount entries in the data structure accordingly */
-            else {
-                if ((Integer) structure.get(i).get(1) > (Integer) lastEntry.get(2)) {
-                    structure.get(i).set(1, (Integer) structure.get(i).get(1) - 1);
-                }
-                if ((Integer) structure.get(i).get(1) > (Integer) lastEntry.get(1)) {
-                    structure.get(i).set(1, (Integer) structure.get(i).get(1) - 1);
-                }
-                if ((Integer) structure.get(i).get(2) > (Integer) lastEntry.get(2)) {
-                    structure.get(i).set(2, (Integer) structure.get(i).get(2) - 1);
-                }
-                if ((Integer) structure.get(i).get(2) > (Integer) lastEntry.get(1)) {
-                    structure.get(i).set(2, (Integer) structure.get(i).get(2) - 1);
-                }
-            }
-        }
+        int entry = pollAvailable();
+
+        if (entry == -1) return null;
+
+        /** Indexes are moved down by the number of items already removed before them */
+        ArrayList<Object> lastEntry = new ArrayList<>(Arrays.asList(
+                DISCOUNTS[discounts[entry]],
+                items1[entry] - usedBefore(items1[entry]),
+                items2[entry] - usedBefore(items2[entry])
+        ));
+
+        markUsed(entry);
 
         return lastEntry;
     }
+
+    /**
+     * Moves to the next discount to apply and marks its items as used
+     *
+     * @return True if there is another discount to apply, False otherwise
+     */
+    public boolean next() {
+        current = pollAvailable();
+
+        if (current == -1) return false;
+
+        markUsed(current);
+
+        return true;
+    }
+
+    /**
+     * Method to return the discount found by the last call to next()
+     *
+     * @return The discount to apply
+     */
+    public Discount getDiscount() {
+        return DISCOUNTS[discounts[current]];
+    }
+
+    /**
+     * Method to return the index of the first item found by the last call to next(), as it was when the discount was added
+     *
+     * @return The index of the first item
+     */
+    public int getItem1() {
+        return items1[current];
+    }
+
+    /**
+     * Method to return the index of the second item found by the last call to next(), as it was when the discount was added
+     *
+     * @return The index of the second item
+     */
+    public int getItem2() {
+        return items2[current];
+    }
+
+    /**
+     * Empties the data structure so it can be reused without allocating new arrays
+     */
+    public void clear() {
+        heapSize = 0;
+        entries = 0;
+        current = -1;
+        Arrays.fill(used, 0L);
+    }
+
+    /**
+     * Removes entries from the top of the heap until one is found whose items have not been used
+     *
+     * @return The entry number, or -1 if there are no entries left
+     */
+    private int pollAvailable() {
+        while (heapSize > 0) {
+            long key = heap[0];
+
+            long last = heap[--heapSize];
+            if (heapSize > 0) siftDown(0, last);
+
+            int entry = key <= DAILY_SPECIAL_KEY ? (int) (DAILY_SPECIAL_KEY - key) : (int) key;
+
+            if (!isUsed(items1[entry]) && !isUsed(items2[entry])) return entry;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Marks both items of an entry as used
+     *
+     * @param entry The entry number
+     */
+    private void markUsed(int entry) {
+        used[items1[entry] >> 6] |= 1L << items1[entry];
+        used[items2[entry] >> 6] |= 1L << items2[entry];
+    }
+
+    /**
+     * Checks if an item already has a discount applied
+     *
+     * @param item The item index
+     * @return True if the item has been used
+     */
+    private boolean isUsed(int item) {
+        return (used[item >> 6] & (1L << item)) != 0;
+    }
+
+    /**
+     * Counts the used items before an index
+     *
+     * @param item The item index
+     * @return The number of used items with a lower index
+     */
+    private int usedBefore(int item) {
+        int count = 0;
+        int word = item >> 6;
+
+        for (int i = 0; i < word; i++) count += Long.bitCount(used[i]);
+
+        return count + Long.bitCount(used[word] & ((1L << item) - 1));
+    }
+
+    /**
+     * Moves a key up the heap from a position until its parent is smaller
+     *
+     * @param position The position the key is placed at
+     * @param key The key
+     */
+    private void siftUp(int position, long key) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+
+            if (heap[parent] <= key) break;
+
+            heap[position] = heap[parent];
+            position = parent;
+        }
+
+        heap[position] = key;
+    }
+
+    /**
+     * Moves a key down the heap from a position until both children are larger
+     *
+     * @param position The position the key is placed at
+     * @param key The key
+     */
+    private void siftDown(int position, long key) {
+        int half = heapSize >>> 1;
+
+        while (position < half) {
+            int child = 2 * position + 1;
+
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+
+            if (key <= heap[child]) break;
+
+            heap[position] = heap[child];
+            position = child;
+        }
+
+        heap[position] = key;
+    }
 }
@@ -0,0 +1,455 @@
+package utils;
+
+import item.Item;
+import item.ItemCategory;
+import item.ItemList;
+import item.ItemRegistry;
+import item.MenuVersion;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Calculates the total and discounted cost of the items in an order
+ *
+ * Items are held in parallel arrays (item code, category and price in pence) in the order they were added
+ * Item codes come from the ItemRegistry, and are written out as item IDs when the engine is serialized
+ * An engine is held by every order, so the arrays start empty and are sized to the items rather than kept spare
+ * Discounts are looked up in the shared DiscountRules table, so no sets are built and no menu lookups are made while discounts are calculated
+ *
+ * Discounts are applied greedily in the same order as the original pair scan:
+ * daily special items first (from the last item back), then each discount value from highest to lowest,
+ * pairing each item with the first later item it can be discounted with
+ * This is a single pass per discount value over per category queues of item positions, rather than a scan of every pair
+ *
+ * Changes that cannot affect which items are paired (adding an item no other item can be paired with,
+ * or removing an item that was not discounted) only replay the discounts that were already found,
+ * unless the daily special or the discount rules have changed since the last calculation
+ */
+public class DiscountEngine implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Number of item categories */
+    private static final int CATEGORIES = DiscountRules.CATEGORIES;
+
+    private static final int[] NO_INTS = new int[0];
+
+    private static final double[] NO_SAVINGS = new double[0];
+
+    /** Item codes from the ItemRegistry, written out as item IDs */
+    private transient int[] codes;
+
+    private byte[] categories;
+
+    /** Price of each item in pence */
+    private int[] pence;
+
+    /** Whether each item had a discount applied in the last calculation */
+    private boolean[] discounted;
+
+    private int size;
+
+    /** Number of items held in each category */
+    private final int[] categoryCounts;
+
+    /** Amount taken off for each discounted item, in the order the discounts were applied */
+    private double[] savings;
+
+    private int savingsCount;
+
+    /** The code of the daily special item used in the last calculation, -1 if there was none */
+    private transient int dailySpecialCode;
+
+    /** The version of the discount rules used in the last calculation */
+    private int rulesVersion;
+
+    private double totalCost;
+
+    private double discountedCost;
+
+    /**
+     * Constructor to set up an empty engine
+     */
+    public DiscountEngine() {
+        codes = NO_INTS;
+        categories = new byte[0];
+        pence = NO_INTS;
+        discounted = new boolean[0];
+        savings = NO_SAVINGS;
+        categoryCounts = new int[CATEGORIES];
+        dailySpecialCode = -1;
+    }
+
+    /**
+     * Adds an item to the end of the order
+     *
+     * @param itemID The ID of the item
+     * @param category The category of the item
+     * @param cost The cost of the item, which is held to the nearest penny
+     */
+    public void add(String itemID, ItemCategory category, double cost) {
+        add(ItemRegistry.register(itemID), category.ordinal(), (int) Math.round(cost * MenuVersion.PENCE));
+    }
+
+    /**
+     * Adds an item on a version of the menu to the end of the order
+     *
+     * @param code The item's code
+     * @param menu The menu version to look up the item's category and cost
+     * @throws IllegalArgumentException if the item is not on the menu
+     */
+    public void add(int code, MenuVersion menu) {
+        if (!menu.isOnMenu(code)) throw new IllegalArgumentException("Invalid Item ID: " + menu.itemID(code));
+
+        add(code, menu.getCategoryOrdinal(code), (int) menu.getPence(code));
+    }
+
+    /**
+     * Adds an item to the end of the order
+     *
+     * @param code The item's code
+     * @param category The category ordinal of the item
+     * @param price The price of the item in pence
+     */
+    private void add(int code, int category, int price) {
+        if (size == codes.length) grow(size + 1);
+
+        codes[size] = code;
+        categories[size] = (byte) category;
+        pence[size] = price;
+        discounted[size] = false;
+        size++;
+
+        // Adding to the end of the order keeps the left to right sum the same as adding up every item again
+        totalCost += cost(size - 1);
+
+        DiscountRules rules = DiscountRules.current();
+        boolean canPair = canPair(rules, category);
+
+        categoryCounts[category]++;
+
+        if (canPair || code == dailySpecialCode || dailySpecialChanged() || rules.getVersion() != rulesVersion) {
+            calculate();
+        } else {
+            applySavings();
+        }
+    }
+
+    /**
+     * Adds several items to the end of the order, working out the discounts once at the end
+     * Used when a whole order is read in at once
+     *
+     * @param itemIDs The IDs of the items
+     * @param menu The menu to look up each item's category and cost
+     */
+    public void addAll(List<String> itemIDs, ItemList menu) {
+        addAll(itemIDs, menu.getSnapshot());
+    }
+
+    /**
+     * Adds several items to the end of the order, working out the discounts once at the end
+     * Every item is priced from the same version of the menu, each item ID is resolved to its code once
+     * and its category and cost are then read from the menu's arrays
+     *
+     * @param itemIDs The IDs of the items
+     * @param menu The menu version to look up each item's category and cost
+     * @throws IllegalArgumentException if an item is not on the menu
+     */
+    public void addAll(List<String> itemIDs, MenuVersion menu) {
+        if (size + itemIDs.size() > codes.length) grow(size + itemIDs.size());
+
+        for (String itemID : itemIDs) {
+            int code = menu.code(itemID);
+            if (code < 0) throw new IllegalArgumentException("Invalid Item ID: " + itemID);
+            int category = menu.getCategoryOrdinal(code);
+
+            codes[size] = code;
+            categories[size] = (byte) category;
+            pence[size] = (int) menu.getPence(code);
+            size++;
+
+            totalCost += cost(size - 1);
+            categoryCounts[category]++;
+        }
+
+        calculate();
+    }
+
+    /**
+     * Removes the item at a position in the order
+     *
+     * @param index The position of the item
+     */
+    public void remove(int index) {
+        Objects.checkIndex(index, size);
+
+        boolean wasDiscounted = discounted[index];
+
+        categoryCounts[categories[index]]--;
+
+        int moved = size - index - 1;
+        System.arraycopy(codes, index + 1, codes, index, moved);
+        System.arraycopy(categories, index + 1, categories, index, moved);
+        System.arraycopy(pence, index + 1, pence, index, moved);
+        System.arraycopy(discounted, index + 1, discounted, index, moved);
+        size--;
+
+        totalCost = 0.0;
+        for (int i = 0; i < size; i++) totalCost += cost(i);
+
+        // An item that was not discounted was never chosen as a pair so the remaining pairs do not change
+        if (wasDiscounted || dailySpecialChanged() || DiscountRules.current().getVersion() != rulesVersion) {
+            calculate();
+        } else {
+            applySavings();
+        }
+    }
+
+    /**
+     * Method to return the number of items
+     *
+     * @return The number of items in the order
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the code of the item at a position in the order
+     *
+     * @param index The position of the item
+     * @return The item's code in the ItemRegistry
+     */
+    public int getCode(int index) {
+        Objects.checkIndex(index, size);
+
+        return codes[index];
+    }
+
+    /**
+     * Returns the position of the first item with a code
+     *
+     * @param code The item's code
+     * @return The position, or -1 if the item is not in the order
+     */
+    public int indexOf(int code) {
+        for (int i = 0; i < size; i++) {
+            if (codes[i] == code) return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Method to return the cost before discounts
+     *
+     * @return The total cost
+     */
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Method to return the cost after discounts
+     *
+     * @return The discounted cost
+     */
+    public double getDiscountedCost() {
+        return discountedCost;
+    }
+
+    /**
+     * Works out which items are discounted from scratch
+     */
+    private void calculate() {
+        dailySpecialCode = dailySpecialCode();
+
+        DiscountRules rules = DiscountRules.current();
+        rulesVersion = rules.getVersion();
+
+        savingsCount = 0;
+        Arrays.fill(discounted, 0, size, false);
+
+        // Daily specials are applied first, starting from the last item
+        if (dailySpecialCode >= 0) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (codes[i] == dailySpecialCode) {
+                    discounted[i] = true;
+                    save(Discount.DAILY_SPECIAL, cost(i));
+                }
+            }
+        }
+
+        // The positions of undiscounted items in each category share one array, each category starting at starts[c]
+        int[] queue = new int[size];
+        int[] starts = new int[CATEGORIES];
+        int[] ends = new int[CATEGORIES];
+
+        for (int c = 1; c < CATEGORIES; c++) starts[c] = starts[c - 1] + categoryCounts[c - 1];
+        System.arraycopy(starts, 0, ends, 0, CATEGORIES);
+
+        for (int i = 0; i < size; i++) {
+            if (!discounted[i]) queue[ends[categories[i]]++] = i;
+        }
+
+        int[] heads = new int[CATEGORIES];
+
+        for (int tier = 0; tier < rules.tiers(); tier++) {
+            System.arraycopy(starts, 0, heads, 0, CATEGORIES);
+
+            for (int i = 0; i < size; i++) {
+                int mask = rules.partners(tier, categories[i]);
+
+                if (discounted[i] || mask == 0) continue;
+
+                int pair = -1;
+
+                // Finds the first undiscounted item after this one in any category it can be paired with
+                for (int c = 0; c < CATEGORIES; c++) {
+                    if ((mask & (1 << c)) == 0) continue;
+
+                    int head = heads[c];
+
+                    while (head < ends[c] && (queue[head] <= i || discounted[queue[head]])) head++;
+
+                    heads[c] = head;
+
+                    if (head < ends[c] && (pair == -1 || queue[head] < pair)) pair = queue[head];
+                }
+
+                if (pair == -1) continue;
+
+                Discount discount = rules.get(categories[i], categories[pair]);
+
+                discounted[i] = true;
+                discounted[pair] = true;
+
+                // The later item is discounted first to match the original calculation
+                save(discount, cost(pair));
+                save(discount, cost(i));
+            }
+        }
+
+        applySavings();
+    }
+
+    /**
+     * Records the amount taken off an item
+     *
+     * @param discount The discount applied
+     * @param cost The cost of the item
+     */
+    private void save(Discount discount, double cost) {
+        if (savingsCount == savings.length) savings = Arrays.copyOf(savings, Math.max(2, savingsCount * 2));
+
+        savings[savingsCount++] = cost - discount.calculateDiscount(cost);
+    }
+
+    /**
+     * Takes the recorded savings off the total cost, in the order they were found
+     */
+    private void applySavings() {
+        discountedCost = totalCost;
+
+        for (int i = 0; i < savingsCount; i++) discountedCost -= savings[i];
+    }
+
+    /**
+     * Checks if an item in a category could be paired with any item already in the order
+     *
+     * @param rules The discount rules in use
+     * @param category The category ordinal
+     * @return True if there is a discount for the category and a category already in the order
+     */
+    private boolean canPair(DiscountRules rules, int category) {
+        for (int tier = 0; tier < rules.tiers(); tier++) {
+            int mask = rules.partners(tier, category);
+
+            for (int c = 0; mask != 0; c++, mask >>>= 1) {
+                if ((mask & 1) != 0 && categoryCounts[c] > 0) return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if the daily special has changed since the last calculation
+     *
+     * @return True if the discounts need to be worked out again
+     */
+    private boolean dailySpecialChanged() {
+        return dailySpecialCode != dailySpecialCode();
+    }
+
+    /**
+     * Returns the code of the current daily special
+     *
+     * @return The code, or -1 if there is no daily special
+     */
+    private static int dailySpecialCode() {
+        Item dailySpecial = Discount.getDailySpecialItem();
+        return dailySpecial == null ? -1 : ItemRegistry.register(dailySpecial.getItemID());
+    }
+
+    /**
+     * Returns the cost of the item at a position, worked out from its price in pence
+     *
+     * @param index The position of the item
+     * @return The cost in pounds
+     */
+    private double cost(int index) {
+        return (double) pence[index] / MenuVersion.PENCE;
+    }
+
+    /**
+     * Grows the item arrays to hold at least a number of items
+     * Orders are usually small, so the arrays grow by half rather than doubling
+     *
+     * @param needed The number of items the arrays must hold
+     */
+    private void grow(int needed) {
+        int capacity = Math.max(needed, Math.max(4, codes.length + (codes.length >> 1)));
+
+        codes = Arrays.copyOf(codes, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        pence = Arrays.copyOf(pence, capacity);
+        discounted = Arrays.copyOf(discounted, capacity);
+    }
+
+    /**
+     * Writes the items and the daily special as item IDs, as codes are only meaningful inside one program
+     *
+     * @param out The stream to write to
+     * @throws IOException if the stream cannot be written to
+     */
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+
+        for (int i = 0; i < size; i++) out.writeUTF(ItemRegistry.itemID(codes[i]));
+        out.writeObject(ItemRegistry.itemID(dailySpecialCode));
+    }
+
+    /**
+     * Reads the items back, registering their item IDs
+     *
+     * @param in The stream to read from
+     * @throws IOException if the stream cannot be read
+     * @throws ClassNotFoundException if a class in the stream cannot be found
+     */
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        codes = new int[categories.length];
+        for (int i = 0; i < size; i++) codes[i] = ItemRegistry.register(in.readUTF());
+
+        String dailySpecialID = (String) in.readObject();
+        dailySpecialCode = dailySpecialID == null ? -1 : ItemRegistry.register(dailySpecialID);
+    }
+}
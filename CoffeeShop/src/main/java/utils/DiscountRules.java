@@ -0,0 +1,162 @@
+package utils;
+
+import item.ItemCategory;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable table of the discounts available for each pair of item categories
+ *
+ * One table is shared by every order, so orders no longer build or carry their own map of discounts
+ * Discounts are held in a square array indexed by the ordinals of the two categories, so a lookup does no hashing
+ *
+ * The table in use can be replaced at runtime with reload(), each new table is given the next version number
+ * Orders remember the version their discounts were worked out with and work them out again when it changes
+ */
+public final class DiscountRules {
+    /** Number of item categories */
+    static final int CATEGORIES = ItemCategory.values().length;
+
+    private static final ItemCategory[] VALUES = ItemCategory.values();
+
+    /** The table in use */
+    private static final AtomicReference<DiscountRules> current =
+            new AtomicReference<>(new DiscountRules(Discount.createDiscounts(), 1));
+
+    /** Discount for each pair of categories, null if there is no discount */
+    private final Discount[][] rules;
+
+    /** Bit mask of the categories each category can be paired with, one row per discount value from highest to lowest */
+    private final int[][] partners;
+
+    private final int version;
+
+    /**
+     * Constructor to build the table from a map of category pairs to discounts
+     *
+     * @param discounts Map with a set of two categories as a key and discount as the value
+     * @param version The version number of the table
+     */
+    private DiscountRules(Map<Set<ItemCategory>, Discount> discounts, int version) {
+        this.version = version;
+        rules = new Discount[CATEGORIES][CATEGORIES];
+
+        discounts.forEach((categories, discount) -> {
+            if (categories.size() != 2 || discount == null || discount == Discount.DAILY_SPECIAL) {
+                throw new IllegalArgumentException("Invalid discount rule: " + categories + " " + discount);
+            }
+
+            Iterator<ItemCategory> it = categories.iterator();
+            int first = it.next().ordinal();
+            int second = it.next().ordinal();
+
+            rules[first][second] = discount;
+            rules[second][first] = discount;
+        });
+
+        // Rules with the same discount value are applied together, in the order the items appear
+        int[] values = Arrays.stream(rules).flatMap(Arrays::stream).filter(Objects::nonNull)
+                .mapToInt(Discount::getValue).distinct().sorted().toArray();
+
+        partners = new int[values.length][CATEGORIES];
+
+        for (int tier = 0; tier < values.length; tier++) {
+            int value = values[values.length - 1 - tier];
+
+            for (int i = 0; i < CATEGORIES; i++) {
+                for (int j = 0; j < CATEGORIES; j++) {
+                    if (rules[i][j] != null && rules[i][j].getValue() == value) partners[tier][i] |= 1 << j;
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to return the table in use
+     *
+     * @return The current discount rules
+     */
+    public static DiscountRules current() {
+        return current.get();
+    }
+
+    /**
+     * Replaces the table in use with one built from a new set of discounts
+     * Orders already in progress pick up the new discounts the next time they change
+     *
+     * @param discounts Map with a set of two categories as a key and discount as the value
+     * @return The new discount rules
+     * @throws IllegalArgumentException if a key is not two different categories or a discount is missing
+     */
+    public static DiscountRules reload(Map<Set<ItemCategory>, Discount> discounts) {
+        return current.updateAndGet(old -> new DiscountRules(discounts, old.version + 1));
+    }
+
+    /**
+     * Method to return the discount for a pair of categories
+     *
+     * @param first The category of one item
+     * @param second The category of the other item
+     * @return The discount, or null if the pair has no discount
+     */
+    public Discount getDiscount(ItemCategory first, ItemCategory second) {
+        return rules[first.ordinal()][second.ordinal()];
+    }
+
+    /**
+     * Method to return the discounts a category can be given
+     *
+     * @param category The category
+     * @return Map of each category it can be paired with to the discount for the pair
+     */
+    public Map<ItemCategory, Discount> getDiscounts(ItemCategory category) {
+        EnumMap<ItemCategory, Discount> discounts = new EnumMap<>(ItemCategory.class);
+
+        for (int i = 0; i < CATEGORIES; i++) {
+            if (rules[category.ordinal()][i] != null) discounts.put(VALUES[i], rules[category.ordinal()][i]);
+        }
+
+        return Collections.unmodifiableMap(discounts);
+    }
+
+    /**
+     * Method to return the version number of the table
+     *
+     * @return The version, which goes up by one each time the table is reloaded
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Method to return the discount for a pair of category ordinals
+     *
+     * @param first The ordinal of one category
+     * @param second The ordinal of the other category
+     * @return The discount, or null if the pair has no discount
+     */
+    Discount get(int first, int second) {
+        return rules[first][second];
+    }
+
+    /**
+     * Method to return the number of different discount values
+     *
+     * @return The number of tiers
+     */
+    int tiers() {
+        return partners.length;
+    }
+
+    /**
+     * Method to return the categories a category can be paired with for one discount value
+     *
+     * @param tier The discount value, 0 being the highest
+     * @param category The ordinal of the category
+     * @return Bit mask of category ordinals
+     */
+    int partners(int tier, int category) {
+        return partners[tier][category];
+    }
+}
@@ -3,10 +3,13 @@ package utils;
 import interfaces.AbstractFileManager;
 import item.ItemList;
 import order.OrderList;
+import workers.RoleMetrics;
 
 import java.io.*;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Generates a report of all information from that day
@@ -23,17 +26,20 @@ public class GenerateReportFileWriter extends AbstractFileManager<Object, ArrayL
      */
     @Override
     public void writeToFile() {
-        ArrayList<String> report = generateReport();
         if (filePath != null) {
             try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-                // Write the orders to the order file
-                for (String order : report) {
-                    writer.write(order);
-                    writer.newLine();
-                }
+                // Each line is written as it is generated so the completed orders are never all held in memory
+                generateReport(line -> {
+                    try {
+                        writer.write(line);
+                        writer.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
 
                 writer.newLine();
-            } catch (IOException e) {
+            } catch (IOException | UncheckedIOException e) {
                 System.err.println("Error writing to the file: " + e.getMessage());
             }
         }
@@ -50,48 +56,69 @@ public class GenerateReportFileWriter extends AbstractFileManager<Object, ArrayL
     public static ArrayList<String> generateReport() {
         ArrayList<String> reportDetails = new ArrayList<>();
 
+        generateReport(reportDetails::add);
+
+        return reportDetails;
+    }
+
+    /**
+     * Generates the report one line at a time
+     *
+     * The completed orders are streamed from the OrderList and the totals come from its running totals,
+     * so the completed orders are not loaded into memory
+     *
+     * @param reportDetails receives each line of the report
+     */
+    public static void generateReport(Consumer<String> reportDetails) {
         ItemList items = ItemList.getInstance();
         OrderList orders = OrderList.getInstance();
 
         String[] IDs = items.getItemIDs();
-        String[] orderStrings = orders.getOrdersToString(true);
         HashMap<String, Double> orderedItems = orders.completedOrderItemCount();
 
-        reportDetails.add("=======================");
+        reportDetails.accept("=======================");
 
-        reportDetails.add("Current Order Details");
-        reportDetails.add("-----------------------");
+        reportDetails.accept("Current Order Details");
+        reportDetails.accept("-----------------------");
 
-        for (String o : orderStrings) {
-            reportDetails.add(o);
+        try (Stream<String> orderStrings = orders.getCompletedOrderLines()) {
+            orderStrings.forEach(reportDetails);
         }
 
-        reportDetails.add("-----------------------");
-        reportDetails.add("Number of Items Ordered");
-        reportDetails.add("-----------------------");
+        reportDetails.accept("-----------------------");
+        reportDetails.accept("Number of Items Ordered");
+        reportDetails.accept("-----------------------");
 
         for (String ID : IDs) {
-            reportDetails.add(ID + " = " + (int) orderedItems.getOrDefault(ID, 0.0).doubleValue());
+            reportDetails.accept(ID + " = " + (int) orderedItems.getOrDefault(ID, 0.0).doubleValue());
         }
 
-        reportDetails.add("-----------------------");
-        reportDetails.add("Total Cost Breakdown");
-        reportDetails.add("-----------------------");
+        reportDetails.accept("-----------------------");
+        reportDetails.accept("Total Cost Breakdown");
+        reportDetails.accept("-----------------------");
 
-        reportDetails.add("Total Income (Excluding Discounts) : £" + String.format("%.2f", orderedItems.get("total-cost")));
-        reportDetails.add("Total Income (Including Discounts) : £" + String.format("%.2f", orderedItems.get("discount-cost")));
-        reportDetails.add("Total Orders : " + ((int) orderedItems.get("num-orders").doubleValue()));
-        reportDetails.add("Average Spend Per Order (Excluding Discounts) : £" + String.format("%.2f",
+        reportDetails.accept("Total Income (Excluding Discounts) : £" + String.format("%.2f", orderedItems.get("total-cost")));
+        reportDetails.accept("Total Income (Including Discounts) : £" + String.format("%.2f", orderedItems.get("discount-cost")));
+        reportDetails.accept("Total Orders : " + ((int) orderedItems.get("num-orders").doubleValue()));
+        reportDetails.accept("Average Spend Per Order (Excluding Discounts) : £" + String.format("%.2f",
                 orderedItems.get("num-orders") != 0
                         ? orderedItems.get("total-cost") / orderedItems.get("num-orders")
                         : 0.0));
-        reportDetails.add("Average Spend Per Order (Including Discounts) : £" + String.format("%.2f",
+        reportDetails.accept("Average Spend Per Order (Including Discounts) : £" + String.format("%.2f",
                 orderedItems.get("num-orders") != 0
                         ? orderedItems.get("discount-cost") / orderedItems.get("num-orders")
                         : 0.0));
-        reportDetails.add("=======================");
 
-        return reportDetails;
+        String staffTimes = RoleMetrics.report();
+
+        if (!staffTimes.isEmpty()) {
+            reportDetails.accept("-----------------------");
+            reportDetails.accept("Staff Queue Wait and Service Times");
+            reportDetails.accept("-----------------------");
+            staffTimes.lines().forEach(reportDetails);
+        }
+
+        reportDetails.accept("=======================");
     }
 
     /**
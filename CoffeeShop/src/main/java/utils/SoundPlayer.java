@@ -9,6 +9,9 @@ import java.io.InputStream;
  * @author Mohd Faiz
  */
 public class SoundPlayer {
+    /** System property turning the sounds off when set to false, such as when benchmarking */
+    public static final String PROPERTY = "coffeeshop.sound";
+
     /**
      * Enum representing the different types of sounds available in the application.
      */
@@ -19,11 +22,15 @@ public class SoundPlayer {
     /**
      * Plays the specified sound type.
      * If the sound file cannot be loaded or found in the application then it will play system beep sound.
+     * The sound is loaded on a new thread of the current {@link ThreadMode}.
+     * Nothing is played when the {@link #PROPERTY} system property is false.
      *
      * @param type The type of sound to play (from the SoundType enum)
      */
     public static void playSound(SoundType type) {
-        new Thread(() -> {
+        if (!isEnabled()) return;
+
+        ThreadMode.current().builder("sound").start(() -> {
             try {
                 String soundFile = getSoundFile(type);
                 InputStream audioSrc = SoundPlayer.class.getResourceAsStream("/files/" + soundFile);
@@ -40,7 +47,16 @@ public class SoundPlayer {
             } catch (Exception e) {
                 System.err.println("Error playing sound: " + e.getMessage());
             }
-        }).start();
+        });
+    }
+
+    /**
+     * Returns whether sounds are played
+     *
+     * @return false if the {@link #PROPERTY} system property is false
+     */
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(PROPERTY));
     }
 
     /**
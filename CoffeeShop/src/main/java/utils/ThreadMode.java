@@ -0,0 +1,61 @@
+package utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Enum representing the kind of thread client handlers and staff members run on
+ * Chosen with the coffeeshop.threads system property, platform by default
+ */
+public enum ThreadMode {
+    /**
+     * Each client handler and staff member has its own operating system thread
+     */
+    PLATFORM,
+
+    /**
+     * Each client handler and staff member has its own virtual thread,
+     * blocking reads, waits and sleeps park the virtual thread and free the carrier thread for others
+     */
+    VIRTUAL;
+
+    /** System property choosing the thread mode, platform or virtual */
+    public static final String PROPERTY = "coffeeshop.threads";
+
+    /**
+     * Returns the thread mode set by the system property
+     *
+     * @return the thread mode, PLATFORM if the property is not set
+     * @throws IllegalArgumentException if the property is not platform or virtual
+     */
+    public static ThreadMode current() {
+        return valueOf(System.getProperty(PROPERTY, PLATFORM.name()).toUpperCase());
+    }
+
+    /**
+     * Returns a builder for threads of this kind
+     *
+     * @param name the name of the threads
+     * @return the thread builder
+     */
+    public Thread.Builder builder(String name) {
+        return switch (this) {
+            case PLATFORM -> Thread.ofPlatform().name(name);
+            case VIRTUAL -> Thread.ofVirtual().name(name);
+        };
+    }
+
+    /**
+     * Returns an executor that runs each task on a thread of this kind
+     * Platform threads are pooled, virtual threads are cheap so each task gets a new one
+     *
+     * @param poolSize the number of platform threads
+     * @return the executor
+     */
+    public ExecutorService newExecutor(int poolSize) {
+        return switch (this) {
+            case PLATFORM -> Executors.newFixedThreadPool(poolSize);
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+        };
+    }
+}
@@ -2,6 +2,7 @@ package workers;
 
 import exceptions.InvalidItemIDException;
 import interfaces.INotificationService;
+import item.ItemCategory;
 import item.ItemList;
 import logs.CoffeeShopLogger;
 import order.DrinkItem;
@@ -11,16 +12,18 @@ import order.OrderList;
 import server.ClientService;
 
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class represents how a Barista functions in the Coffee Shop Simulation
  *
  * This class uses two design patterns:
  * 1. Factory Design Pattern (with Staff and StaffFactory)
- * 2. Observer Design Pattern (between this class and DrinkList)
+ * 2. Producer Consumer pattern (items handed over by the DrinkList's dispatcher)
  *
  * Tasks:
- * 1. Check for Item by checking for items in DrinkList
+ * 1. Take the next Item handed over by the DrinkList
  * 2. Wait specified amount of time to complete Item
  * 3. Add Item to waiters list for processing
  *
@@ -34,12 +37,21 @@ public class Barista extends Staff<String> {
     private final StaffList staffList;
 
     /** Holds a single entry representing the current processed item and the corresponding waiter */
-    private Map.Entry<Waiter, DrinkItem> currentItem;
+    private volatile Map.Entry<Waiter, DrinkItem> currentItem;
+
+    /** The task holding the current item, completed once the item is made */
+    private volatile Dispatcher.Task<Map.Entry<Waiter, DrinkItem>> currentTask;
+
+    /** This barista's queue of items */
+    private final Dispatcher<Map.Entry<Waiter, DrinkItem>>.Worker queue;
+
+    /** How long to wait for an item before checking the staff member is still active (milliseconds) */
+    private static final long ITEM_WAIT_TIMEOUT = 500;
 
     /**
      * Tells if the staff member is currently active (ie not fired)
      */
-    private boolean active = true;
+    private volatile boolean active = true;
 
     /**
      * Logger instance
@@ -53,11 +65,22 @@ public class Barista extends Staff<String> {
      * @param experience Experience level of barista
      */
     public Barista(String name, int experience) {
+        this(name, experience, Set.of());
+    }
+
+    /**
+     * Constructor to set up a barista that only makes some categories of drink, such as hot drinks
+     *
+     * @param name       Name of Barista
+     * @param experience Experience level of barista
+     * @param categories The categories of drink made, every category if empty
+     */
+    public Barista(String name, int experience, Set<ItemCategory> categories) {
         super(name, experience);
         drinkList = DrinkList.getInstance();
         itemList = ItemList.getInstance();
         logger = CoffeeShopLogger.getInstance();
-        drinkList.registerObserver(this);
+        queue = drinkList.register(categories);
         staffList = StaffList.getInstance();
         staffList.add(this);
         logger.logInfo("Barista " + getWorkerName() + " added to the simulation.");
@@ -65,21 +88,18 @@ public class Barista extends Staff<String> {
 
     /**
      * Method gets next drink in drink list
-     * If there are no drinks left to process the Staff member thread will be left in the waiting state until notified
+     * If there are no drinks left to process the Staff member thread blocks until one is handed to it or the timeout expires
      */
     @Override
     public void getOrders() {
-        currentItem = drinkList.remove();
-
-        if (currentItem == null) {
-            try {
-                synchronized (this) {
-                    wait();
-                }
-            } catch (InterruptedException e) {
-                System.out.println(e.getMessage());
-            }
+        try {
+            currentTask = queue.take(ITEM_WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            logger.logSevere(e.getMessage());
+            currentTask = null;
         }
+
+        currentItem = currentTask == null ? null : currentTask.getItem();
     }
 
     /**
@@ -89,15 +109,23 @@ public class Barista extends Staff<String> {
      */
     @Override
     public boolean completeCurrentOrder() {
+        Dispatcher.Task<Map.Entry<Waiter, DrinkItem>> task = currentTask;
+        currentItem = null;
+        currentTask = null;
+
+        // Fails if the barista was removed meanwhile and the item has been given back to be made by someone else
+        if (task == null || !task.complete()) return false;
+
+        Map.Entry<Waiter, DrinkItem> item = task.getItem();
+
         try {
-            logger.logInfo(getWorkerName() + " completed item " + itemList.getDescription(currentItem.getValue().drinkItem()));
+            logger.logInfo(getWorkerName() + " completed item " + itemList.getDescription(item.getValue().drinkItem()));
         }
         catch (InvalidItemIDException e) {
             System.out.println(e.getMessage());
         }
 
-        currentItem.getKey().addItem(currentItem.getValue().drinkItem());
-        currentItem = null;
+        item.getKey().addItem(item.getValue().orderID(), item.getValue().drinkItem());
         return true;
     }
 
@@ -143,6 +171,15 @@ public class Barista extends Staff<String> {
         return itemDetails.toString();
     }
 
+    /**
+     * Method to return the categories this barista makes
+     *
+     * @return The categories, every category if empty
+     */
+    public Set<ItemCategory> getCategories() {
+        return queue.getCategories();
+    }
+
     /**
      * Method to return the role of the staff object in this case "barista"
      *
@@ -156,24 +193,29 @@ public class Barista extends Staff<String> {
      * Method used to remove staff member from the simulation
      */
     @Override
-    public synchronized void removeStaff() {
-        if (currentItem != null) drinkList.add(currentItem);
-        drinkList.removeObserver(this);
+    public void removeStaff() {
+        // Stopped first so an item the barista's own thread is still making is given back by whichever thread settles it
         active = false;
+        queue.unregister();
+        giveBackCurrentItem();
         staffList.remove(this.getID());
-        notifyAll(); // wakes up thread
         logger.logInfo("Barista " + getWorkerName() + " removed from the simulation.");
     }
 
     /**
-     * Method used by the Subject (DrinkList) to tell the Staff member that an order has been added
+     * Puts the item being made back on the DrinkList for another barista, unless it has already been made or given back
+     * Called by removeStaff and by the barista's own thread, the task makes sure only one of them puts it back
      */
-    public void update() {
-        synchronized (this) {
-            notifyAll();
-        }
+    private void giveBackCurrentItem() {
+        Dispatcher.Task<Map.Entry<Waiter, DrinkItem>> task = currentTask;
+        if (task != null && task.giveBack()) drinkList.add(task.getItem());
     }
 
+    /**
+     * Nothing to do as items are handed to the barista by the DrinkList's dispatcher
+     */
+    public void update() {}
+
     /**
      * This method is the Barista's thread
      */
@@ -188,6 +230,7 @@ public class Barista extends Staff<String> {
             delay(logger);
 
             if (active) completeCurrentOrder();
+            else giveBackCurrentItem();
 
             staffList.notifyObservers();
         }
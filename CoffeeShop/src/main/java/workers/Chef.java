@@ -2,19 +2,22 @@ package workers;
 
 import exceptions.InvalidItemIDException;
 import interfaces.INotificationService;
+import item.ItemCategory;
 import item.ItemList;
 import logs.CoffeeShopLogger;
 import order.*;
 
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class represents how a Chef functions in the Coffee Shop Simulation
  * This class uses two design patterns:
  * 1. Factory Design Pattern (with Staff and StaffFactory)
- * 2. Observer Design Pattern (between this class and FoodList)
+ * 2. Producer Consumer pattern (items handed over by the FoodList's dispatcher)
  * Tasks:
- * 1. Check for Item by checking for items in FoodList
+ * 1. Take the next Item handed over by the FoodList
  * 2. Wait specified amount of time to complete Item
  * 3. Add Item to waiters list for processing
  *
@@ -25,12 +28,21 @@ public class Chef extends Staff<String> {
 
     private final ItemList itemList;
 
-    private Map.Entry<Waiter, FoodItem> currentItem;
+    private volatile Map.Entry<Waiter, FoodItem> currentItem;
+
+    /** The task holding the current item, completed once the item is made */
+    private volatile Dispatcher.Task<Map.Entry<Waiter, FoodItem>> currentTask;
+
+    /** This chef's queue of items */
+    private final Dispatcher<Map.Entry<Waiter, FoodItem>>.Worker queue;
 
     private final StaffList staffList;
 
+    /** How long to wait for an item before checking the staff member is still active (milliseconds) */
+    private static final long ITEM_WAIT_TIMEOUT = 500;
+
     /** Tells if the staff member is currently active (ie not fired) */
-    private boolean active = true;
+    private volatile boolean active = true;
 
     /** Logger instance */
     private final CoffeeShopLogger logger;
@@ -42,11 +54,22 @@ public class Chef extends Staff<String> {
      * @param experience experience level of Chef
      */
     public Chef(String name, int experience) {
+        this(name, experience, Set.of());
+    }
+
+    /**
+     * Constructor to setup a Chef that only makes some categories of food, such as rolls
+     *
+     * @param name Name of Chef
+     * @param experience experience level of Chef
+     * @param categories The categories of food made, every category if empty
+     */
+    public Chef(String name, int experience, Set<ItemCategory> categories) {
         super(name, experience);
         foodList = FoodList.getInstance();
         itemList = ItemList.getInstance();
         logger = CoffeeShopLogger.getInstance();
-        foodList.registerObserver(this);
+        queue = foodList.register(categories);
         staffList = StaffList.getInstance();
         staffList.add(this);
         logger.logInfo("Chef " + getWorkerName() + " added to the simulation.");
@@ -54,22 +77,18 @@ public class Chef extends Staff<String> {
 
     /**
      * Method gets next food item in food list
-     * If there is no food left to process the Staff member thread will be left in the waiting state until notified
+     * If there is no food left to process the Staff member thread blocks until some is handed to it or the timeout expires
      */
     @Override
     public void getOrders() {
-        currentItem = foodList.remove();
-
-        if (currentItem == null) {
-            try {
-                synchronized (this) {
-                    wait();
-                }
-            }
-            catch (InterruptedException e) {
-                System.out.println(e.getMessage());
-            }
+        try {
+            currentTask = queue.take(ITEM_WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            logger.logSevere(e.getMessage());
+            currentTask = null;
         }
+
+        currentItem = currentTask == null ? null : currentTask.getItem();
     }
 
     /**
@@ -79,15 +98,23 @@ public class Chef extends Staff<String> {
      */
     @Override
     public boolean completeCurrentOrder() {
+        Dispatcher.Task<Map.Entry<Waiter, FoodItem>> task = currentTask;
+        currentItem = null;
+        currentTask = null;
+
+        // Fails if the chef was removed meanwhile and the item has been given back to be made by someone else
+        if (task == null || !task.complete()) return false;
+
+        Map.Entry<Waiter, FoodItem> item = task.getItem();
+
         try {
-            System.out.println(getWorkerName() + " completed item " + itemList.getDescription(currentItem.getValue().foodItem()));
-            logger.logInfo(getWorkerName() + " completed item " + itemList.getDescription(currentItem.getValue().foodItem()));
+            System.out.println(getWorkerName() + " completed item " + itemList.getDescription(item.getValue().foodItem()));
+            logger.logInfo(getWorkerName() + " completed item " + itemList.getDescription(item.getValue().foodItem()));
         } catch (InvalidItemIDException e) {
             System.out.println(e.getMessage());
         }
 
-        currentItem.getKey().addItem(currentItem.getValue().foodItem());
-        currentItem = null;
+        item.getKey().addItem(item.getValue().orderID(), item.getValue().foodItem());
         return true;
     }
 
@@ -123,6 +150,15 @@ public class Chef extends Staff<String> {
         return itemDetails.toString();
     }
 
+    /**
+     * Method to return the categories this chef makes
+     *
+     * @return The categories, every category if empty
+     */
+    public Set<ItemCategory> getCategories() {
+        return queue.getCategories();
+    }
+
     /**
      * Method to return the role of the staff object in this case "chef"
      *
@@ -145,24 +181,29 @@ public class Chef extends Staff<String> {
      * Method used to remove staff member from the simulation
      */
     @Override
-    public synchronized void removeStaff() {
-        if (currentItem != null) foodList.add(currentItem);
-        foodList.removeObserver(this);
+    public void removeStaff() {
+        // Stopped first so an item the chef's own thread is still making is given back by whichever thread settles it
         active = false;
+        queue.unregister();
+        giveBackCurrentItem();
         staffList.remove(this.getID());
-        notifyAll(); // wakes up thread
         logger.logInfo("Chef " + getWorkerName() + " removed from the simulation.");
     }
 
     /**
-     * Method used by the Subject (FoodList) to tell the Staff member that an order has been added
+     * Puts the item being made back on the FoodList for another chef, unless it has already been made or given back
+     * Called by removeStaff and by the chef's own thread, the task makes sure only one of them puts it back
      */
-    public void update() {
-        synchronized (this) {
-            notifyAll();
-        }
+    private void giveBackCurrentItem() {
+        Dispatcher.Task<Map.Entry<Waiter, FoodItem>> task = currentTask;
+        if (task != null && task.giveBack()) foodList.add(task.getItem());
     }
 
+    /**
+     * Nothing to do as items are handed to the chef by the FoodList's dispatcher
+     */
+    public void update() {}
+
     /**
      * This method is the Chef's thread
      */
@@ -177,6 +218,7 @@ public class Chef extends Staff<String> {
             delay(logger);
 
             if (active) completeCurrentOrder();
+            else giveBackCurrentItem();
 
             staffList.notifyObservers();
         }
@@ -0,0 +1,567 @@
+package workers;
+
+import item.ItemCategory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A bounded blocking queue that hands work to the staff members of one role
+ *
+ * Each staff member registers, optionally for only some item categories, and is given its own queue
+ * Work submitted while a staff member that handles its category is waiting goes straight to that one staff member
+ * and wakes only it, otherwise it is queued for the staff member handling its category with the least queued
+ * A staff member whose own queue is empty takes the newest work it handles from the longest queue of the others,
+ * so work queued behind a slow staff member is picked up by whoever is free first
+ * Work that no registered staff member handles waits in a sub-queue for its category until one registers
+ *
+ * The dispatcher holds at most its capacity of work, submitting more blocks until some is taken
+ * Everything is guarded by one lock, so work submitted by one thread is fully visible to the staff member that takes it
+ *
+ * The time each piece of work waits and the time it takes are recorded in the role's {@link RoleMetrics}
+ *
+ * @param <T> the type of work
+ */
+public class Dispatcher<T> {
+    /** Lock used instead of the monitor so a waiting virtual thread does not pin its carrier thread */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when work is taken so a blocked submit can continue */
+    private final Condition notFull = lock.newCondition();
+
+    /** Signalled when work is queued without being handed to a waiting staff member */
+    private final Condition queued = lock.newCondition();
+
+    private final List<Worker> workers = new ArrayList<>();
+
+    /** Staff members waiting for work, the one that most recently started waiting first */
+    private final ArrayDeque<Worker> idle = new ArrayDeque<>();
+
+    /** Work that no registered staff member handles, one sub-queue for each category */
+    private final Map<ItemCategory, ArrayDeque<Task<T>>> unassigned = new HashMap<>();
+
+    private final int capacity;
+
+    /** Returns the category of a piece of work, or null if any staff member can do it */
+    private final Function<T, ItemCategory> categoryOf;
+
+    private final RoleMetrics metrics;
+
+    /** Amount of work queued and not yet taken */
+    private int size;
+
+    private long stolen;
+
+    /**
+     * Constructor for an unbounded dispatcher where any staff member can do any work
+     *
+     * @param role the role of the staff members, such as "Barista"
+     */
+    public Dispatcher(String role) {
+        this(role, Integer.MAX_VALUE, item -> null);
+    }
+
+    /**
+     * Constructor for a dispatcher
+     *
+     * @param role the role of the staff members, such as "Barista"
+     * @param capacity the most work that can be queued
+     * @param categoryOf returns the category of a piece of work, or null if any staff member can do it
+     * @throws IllegalArgumentException if the capacity is less than one
+     */
+    public Dispatcher(String role, int capacity, Function<T, ItemCategory> categoryOf) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least one");
+
+        this.capacity = capacity;
+        this.categoryOf = categoryOf;
+        this.metrics = RoleMetrics.forRole(role);
+    }
+
+    /**
+     * Registers a staff member that can do any work
+     *
+     * @return the staff member's queue
+     */
+    public Worker register() {
+        return register(Set.of());
+    }
+
+    /**
+     * Registers a staff member that only does work in some categories
+     *
+     * @param categories the categories the staff member handles, every category if empty
+     * @return the staff member's queue
+     */
+    public Worker register(Set<ItemCategory> categories) {
+        Worker worker = new Worker(Set.copyOf(categories));
+
+        lock.lock();
+        try {
+            workers.add(worker);
+        } finally {
+            lock.unlock();
+        }
+
+        return worker;
+    }
+
+    /**
+     * Hands work to one staff member, waiting while the dispatcher is full
+     *
+     * @param item the work
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void submit(T item) throws InterruptedException {
+        Task<T> task = new Task<>(item, categoryOf.apply(item), metrics);
+
+        lock.lock();
+        try {
+            while (size >= capacity) notFull.await();
+            enqueue(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands work to one staff member, waiting up to a timeout while the dispatcher is full
+     *
+     * @param item the work
+     * @param timeout how long to wait
+     * @param unit the unit of the timeout
+     * @return true if the work was queued, false if the dispatcher was still full when the timeout expired
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean offer(T item, long timeout, TimeUnit unit) throws InterruptedException {
+        Task<T> task = new Task<>(item, categoryOf.apply(item), metrics);
+        long remaining = unit.toNanos(timeout);
+
+        lock.lock();
+        try {
+            while (size >= capacity) {
+                if (remaining <= 0) return false;
+                remaining = notFull.awaitNanos(remaining);
+            }
+
+            enqueue(task);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes queued work without a staff member and without waiting, taking the oldest unassigned work first
+     *
+     * @return the work, or null if nothing is queued
+     */
+    public T poll() {
+        lock.lock();
+        try {
+            Task<T> task = next(null);
+            return task == null ? null : task.item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes queued work without a staff member, waiting up to a timeout for some
+     *
+     * @param timeout how long to wait
+     * @param unit the unit of the timeout
+     * @return the work, or null if nothing was queued before the timeout expired
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+
+        lock.lock();
+        try {
+            while (true) {
+                Task<T> task = next(null);
+                if (task != null) return task.item;
+
+                if (remaining <= 0) return null;
+                remaining = queued.awaitNanos(remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of work queued and not yet taken
+     *
+     * @return the number of queued items
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of work queued in one category and not yet taken
+     *
+     * @param category the category
+     * @return the number of queued items
+     */
+    public int size(ItemCategory category) {
+        lock.lock();
+        try {
+            ArrayDeque<Task<T>> waiting = unassigned.get(category);
+            int count = waiting == null ? 0 : waiting.size();
+
+            for (Worker worker : workers) {
+                for (Task<T> task : worker.tasks) if (task.category == category) count++;
+            }
+
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the most work that can be queued
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of items taken by a staff member from another's queue
+     *
+     * @return the number of items
+     */
+    public long getStolen() {
+        lock.lock();
+        try {
+            return stolen;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how long work waits and takes for this role
+     *
+     * @return the metrics
+     */
+    public RoleMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Queues a new task, must hold the lock and there must be room
+     *
+     * @param task the task
+     */
+    private void enqueue(Task<T> task) {
+        size++;
+        assign(task);
+    }
+
+    /**
+     * Gives a task to a waiting staff member that handles it, or queues it with the least busy one,
+     * or in its category's sub-queue if no staff member handles it, must hold the lock
+     *
+     * @param task the task
+     */
+    private void assign(Task<T> task) {
+        for (Iterator<Worker> iterator = idle.iterator(); iterator.hasNext();) {
+            Worker waiting = iterator.next();
+
+            if (waiting.handles(task)) {
+                iterator.remove();
+                waiting.tasks.add(task);
+                waiting.ready.signal();
+                return;
+            }
+        }
+
+        Worker shortest = null;
+        for (Worker worker : workers) {
+            if (worker.handles(task) && (shortest == null || worker.tasks.size() < shortest.tasks.size())) shortest = worker;
+        }
+
+        if (shortest == null) unassigned.computeIfAbsent(task.category, category -> new ArrayDeque<>()).add(task);
+        else shortest.tasks.add(task);
+
+        queued.signal();
+    }
+
+    /**
+     * Takes the next task for a staff member, from its own queue first, then the oldest unassigned task it handles,
+     * then the newest task it handles from the longest queue of another staff member, must hold the lock
+     *
+     * @param worker the staff member, or null to take any task
+     * @return the task, or null if there is none
+     */
+    private Task<T> next(Worker worker) {
+        Task<T> task = worker == null ? null : worker.tasks.poll();
+        if (task == null) task = pollUnassigned(worker);
+        if (task == null) task = steal(worker);
+
+        if (task != null) {
+            size--;
+            notFull.signal();
+        }
+
+        return task;
+    }
+
+    /**
+     * Takes the oldest unassigned task a staff member handles, must hold the lock
+     *
+     * @param worker the staff member, or null to take any task
+     * @return the task, or null if there is none
+     */
+    private Task<T> pollUnassigned(Worker worker) {
+        ArrayDeque<Task<T>> oldest = null;
+
+        for (ArrayDeque<Task<T>> tasks : unassigned.values()) {
+            Task<T> head = tasks.peek();
+
+            if (head != null && (worker == null || worker.handles(head))
+                    && (oldest == null || head.queuedAt < oldest.peek().queuedAt)) oldest = tasks;
+        }
+
+        return oldest == null ? null : oldest.poll();
+    }
+
+    /**
+     * Takes the newest task a staff member handles from the longest queue holding one, must hold the lock
+     *
+     * @param thief the staff member taking the task, or null if it is not being taken by one
+     * @return the task, or null if no other queue holds a task the staff member handles
+     */
+    private Task<T> steal(Worker thief) {
+        Worker victim = null;
+        Task<T> newest = null;
+
+        for (Worker worker : workers) {
+            if (worker == thief || (victim != null && worker.tasks.size() <= victim.tasks.size())) continue;
+
+            for (Iterator<Task<T>> iterator = worker.tasks.descendingIterator(); iterator.hasNext();) {
+                Task<T> task = iterator.next();
+
+                if (thief == null || thief.handles(task)) {
+                    victim = worker;
+                    newest = task;
+                    break;
+                }
+            }
+        }
+
+        if (victim == null) return null;
+
+        victim.tasks.removeLastOccurrence(newest);
+        if (thief != null) stolen++;
+
+        return newest;
+    }
+
+    /**
+     * A staff member's queue of work
+     */
+    public class Worker {
+        private final ArrayDeque<Task<T>> tasks = new ArrayDeque<>();
+
+        /** Signalled when work is handed to this staff member while it is waiting */
+        private final Condition ready = lock.newCondition();
+
+        /** The categories this staff member handles, every category if empty */
+        private final Set<ItemCategory> categories;
+
+        private boolean closed;
+
+        /**
+         * Constructor for a staff member's queue
+         *
+         * @param categories the categories the staff member handles, every category if empty
+         */
+        private Worker(Set<ItemCategory> categories) {
+            this.categories = categories;
+        }
+
+        /**
+         * Takes the next piece of work, waiting until there is some
+         *
+         * @return the work, or null if the staff member has been unregistered
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public Task<T> take() throws InterruptedException {
+            return take(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Takes the next piece of work, from this staff member's own queue first, then any unassigned work it handles,
+         * then the longest queue of another staff member, waiting up to a timeout until there is some
+         *
+         * @param timeout how long to wait
+         * @param unit the unit of the timeout
+         * @return the work, or null if the timeout expired or the staff member has been unregistered
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public Task<T> take(long timeout, TimeUnit unit) throws InterruptedException {
+            long remaining = unit.toNanos(timeout);
+
+            lock.lock();
+            try {
+                while (!closed) {
+                    Task<T> task = next(this);
+
+                    if (task != null) {
+                        task.start();
+                        return task;
+                    }
+
+                    if (remaining <= 0) return null;
+
+                    idle.push(this);
+                    try {
+                        remaining = ready.awaitNanos(remaining);
+                    } finally {
+                        idle.remove(this);
+                    }
+                }
+
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the categories this staff member handles
+         *
+         * @return the categories, every category if empty
+         */
+        public Set<ItemCategory> getCategories() {
+            return categories;
+        }
+
+        /**
+         * Stops the staff member being given work, anything left in its queue is given to the others
+         * A staff member waiting in {@link #take(long, TimeUnit)} is given null
+         */
+        public void unregister() {
+            lock.lock();
+            try {
+                closed = true;
+                workers.remove(this);
+                idle.remove(this);
+
+                Task<T> task;
+                while ((task = tasks.poll()) != null) assign(task);
+
+                ready.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Checks if this staff member handles a task
+         *
+         * @param task the task
+         * @return true if the task has no category or its category is one this staff member handles
+         */
+        private boolean handles(Task<T> task) {
+            return categories.isEmpty() || task.category == null || categories.contains(task.category);
+        }
+    }
+
+    /**
+     * A piece of work and when it was queued and picked up
+     * A task is settled once, either completed or given back, so a staff member removed while doing the work
+     * and the staff member's own thread finishing it can not both act on it
+     *
+     * @param <T> the type of work
+     */
+    public static class Task<T> {
+        private final T item;
+
+        private final ItemCategory category;
+
+        private final RoleMetrics metrics;
+
+        private final long queuedAt = System.nanoTime();
+
+        private long startedAt;
+
+        /** Set once the work has been completed or given back */
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        /**
+         * Constructor for a queued task
+         *
+         * @param item the work
+         * @param category the category of the work, or null if any staff member can do it
+         * @param metrics where the times are recorded
+         */
+        private Task(T item, ItemCategory category, RoleMetrics metrics) {
+            this.item = item;
+            this.category = category;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Returns the work
+         *
+         * @return the work
+         */
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * Returns the category of the work
+         *
+         * @return the category, or null if any staff member can do it
+         */
+        public ItemCategory getCategory() {
+            return category;
+        }
+
+        /**
+         * Records the work being completed, unless it has already been given back
+         *
+         * @return true if the work is now complete, false if it was given back
+         */
+        public boolean complete() {
+            if (!settled.compareAndSet(false, true)) return false;
+
+            metrics.getServiceTime().record(System.nanoTime() - startedAt);
+            return true;
+        }
+
+        /**
+         * Gives the work up so it can be queued again, unless it has already been completed or given back
+         *
+         * @return true if the caller should queue the work again, false if it was already completed or given back
+         */
+        public boolean giveBack() {
+            return settled.compareAndSet(false, true);
+        }
+
+        /**
+         * Records the work being picked up
+         */
+        private void start() {
+            startedAt = System.nanoTime();
+            metrics.getQueueWait().record(startedAt - queuedAt);
+        }
+    }
+}
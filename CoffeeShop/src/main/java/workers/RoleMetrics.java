@@ -0,0 +1,95 @@
+package workers;
+
+import utils.LatencyHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How long work waits and how long it takes for each staff role
+ *
+ * Queue wait is the time from an order or item being queued until a staff member picks it up,
+ * service time is the time from it being picked up until it is complete
+ */
+public class RoleMetrics {
+    private static final Map<String, RoleMetrics> roles = new ConcurrentHashMap<>();
+
+    private final String role;
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+
+    /**
+     * Constructor for a role's metrics
+     *
+     * @param role the role, such as "Waiter"
+     */
+    private RoleMetrics(String role) {
+        this.role = role;
+    }
+
+    /**
+     * Returns the metrics for a role, creating them the first time
+     *
+     * @param role the role, such as "Waiter"
+     * @return the metrics
+     */
+    public static RoleMetrics forRole(String role) {
+        return roles.computeIfAbsent(role, RoleMetrics::new);
+    }
+
+    /**
+     * Forgets every role's metrics
+     * Used by tests and benchmarks
+     */
+    public static void resetAll() {
+        roles.clear();
+    }
+
+    /**
+     * Returns the queue wait and service time of every role, one role per line
+     *
+     * @return the report
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+
+        for (RoleMetrics metrics : new TreeMap<>(roles).values()) report.append(metrics).append("\n");
+
+        return report.toString();
+    }
+
+    /**
+     * Returns the role the metrics are for
+     *
+     * @return the role
+     */
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * Returns how long work waited before being picked up
+     *
+     * @return the histogram
+     */
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     * Returns how long work took once picked up
+     *
+     * @return the histogram
+     */
+    public LatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
+    @Override
+    public String toString() {
+        return role + " queue wait: " + queueWait + " | service time: " + serviceTime;
+    }
+}
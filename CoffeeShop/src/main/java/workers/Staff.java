@@ -4,12 +4,15 @@ import client.SimUIModel;
 import interfaces.Observer;
 import logs.CoffeeShopLogger;
 import order.Order;
+import utils.ThreadMode;
+
 import java.util.UUID;
 
 /**
  * Staff superclass
  * This class uses a Factory Design Pattern
  * Used by different staffs to ensure correct implementation
+ * Depending on the {@link ThreadMode} a staff member runs on its own platform thread or on a virtual thread
  *
  * @author Fraser Holman
  */
@@ -26,6 +29,9 @@ public abstract class Staff<T> extends Thread implements Observer {
     /** Staff members ID */
     private final UUID ID;
 
+    /** The thread running the staff member, null until started */
+    private volatile Thread worker;
+
     /**
      * Constructor to instantiate a new staff member
      *
@@ -82,7 +88,61 @@ public abstract class Staff<T> extends Thread implements Observer {
      * @param defaultDelay double representing the delay in completing orders
      */
     public void setDefaultDelay(double defaultDelay) {
-        this.defaultDelay = 10000.0 - ( defaultDelay / 100.0 * 10000.0 ) + 100.0;
+        this.defaultDelay = defaultDelayFor(defaultDelay);
+    }
+
+    /**
+     * Converts a simulation speed into the delay a staff member of middling experience takes
+     *
+     * @param simSpeed the simulation speed, between 0 and 100
+     * @return the delay in milliseconds
+     */
+    public static double defaultDelayFor(double simSpeed) {
+        return 10000.0 - ( simSpeed / 100.0 * 10000.0 ) + 100.0;
+    }
+
+    /**
+     * Returns how long a staff member takes over each step of their work
+     *
+     * @param defaultDelay the delay set from the simulation speed (milliseconds)
+     * @param experience the experience level of the staff member, more experienced staff are quicker
+     * @return the delay in milliseconds
+     */
+    public static long delayFor(double defaultDelay, int experience) {
+        return (long) (defaultDelay * ((6.0 - experience) / 5.0));
+    }
+
+    /**
+     * Starts the staff member on a thread of the current {@link ThreadMode}
+     * In platform mode the staff member is its own thread, in virtual mode it is run by a new virtual thread
+     *
+     * @throws IllegalThreadStateException if the staff member has already been started
+     */
+    @Override
+    public void start() {
+        ThreadMode mode = ThreadMode.current();
+
+        if (mode == ThreadMode.PLATFORM) {
+            super.start();
+            worker = this;
+            return;
+        }
+
+        synchronized (this) {
+            if (worker != null) throw new IllegalThreadStateException("Staff member already started");
+            worker = mode.builder(getWorkerName()).unstarted(this);
+        }
+
+        worker.start();
+    }
+
+    /**
+     * Returns the thread running the staff member
+     *
+     * @return the thread, null if the staff member has not been started
+     */
+    public Thread getWorkerThread() {
+        return worker;
     }
 
     /**
@@ -125,12 +185,13 @@ public abstract class Staff<T> extends Thread implements Observer {
 
     /**
      * Helper Method to add a delay
+     * Sleeps the current thread, so a virtual thread gives up its carrier thread while it sleeps
      */
     public void delay(CoffeeShopLogger logger) {
         try {
-                sleep((int) (defaultDelay * ((6.0 - getExperience()) / 5.0)));
-            } catch (InterruptedException e) {
-                logger.logSevere("InterruptedException in Waiter.run: " + e.getMessage());
-            }
+            Thread.sleep(delayFor(defaultDelay, getExperience()));
+        } catch (InterruptedException e) {
+            logger.logSevere("InterruptedException in " + getRole() + ".run: " + e.getMessage());
+        }
     }
 }
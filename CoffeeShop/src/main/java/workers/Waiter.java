@@ -1,14 +1,18 @@
 package workers;
 
-import exceptions.DuplicateOrderException;
 import exceptions.InvalidItemIDException;
-import exceptions.InvalidOrderException;
 import interfaces.INotificationService;
 import item.ItemCategory;
 import item.ItemList;
+import item.MenuVersion;
 import order.*;
 
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import logs.CoffeeShopLogger;
 
@@ -16,11 +20,14 @@ import logs.CoffeeShopLogger;
  * Class represents how a Waiter functions in the Coffee Shop Simulation
  * This class uses two design patterns:
  * 1. Factory Design Pattern (with Staff and StaffFactory)
- * 2. Observer Design Pattern (between this class and OrderList)
+ * 2. Producer Consumer pattern (blocking take from the OrderList queue)
  * Tasks:
  * 1. Check for Order by checking incomplete orders in OrderList
- * 2. Wait specified amount of time to complete order
- * 3. Add order to complete orders in OrderList
+ * 2. Hand its items to the chefs and baristas, taking more orders while they are made
+ * 3. Deliver each order once all of its items are made and add it to complete orders in OrderList
+ *
+ * Each item of an order in flight has a future the chef or barista completes,
+ * once every future of an order is complete the order is ready to be delivered
  *
  * @author Fraser Holman
  */
@@ -28,8 +35,10 @@ public class Waiter extends Staff<Order> {
     private final INotificationService notificationService;
     private final OrderList orderList;
     private StaffList staffList;
-    private Order currentOrder;
-    private boolean active = true;
+
+    /** The order the waiter is taking or delivering, null in between */
+    private volatile Order currentOrder;
+    private volatile boolean active = true;
 
     /** Whether the waiter prioritises online or in person order
      * 0-1 = the smaller the number the more it prioritises online orders
@@ -39,7 +48,23 @@ public class Waiter extends Staff<Order> {
     private double priority = 0;
     private static final List<Waiter> waiterList = new ArrayList<>();
     private static final CoffeeShopLogger logger = CoffeeShopLogger.getInstance();
-    private ArrayList<String> thisOrder;
+
+    /** How long a waiter blocks waiting for an order before checking it is still active (milliseconds) */
+    private static final long ORDER_WAIT_TIMEOUT = 500;
+
+    /** How long a waiter with orders in flight waits for one to be ready before looking for a new order (milliseconds) */
+    private static final long READY_WAIT_TIMEOUT = 50;
+
+    /** How many orders a waiter has in flight unless set otherwise */
+    public static final int DEFAULT_MAX_ORDERS_IN_FLIGHT = 3;
+
+    /** Orders taken but not yet delivered by order ID */
+    private final Map<UUID, OrderInFlight> ordersInFlight = new ConcurrentHashMap<>();
+
+    /** Orders with every item made, in the order they became ready */
+    private final BlockingQueue<OrderInFlight> readyOrders = new LinkedBlockingQueue<>();
+
+    private volatile int maxOrdersInFlight = DEFAULT_MAX_ORDERS_IN_FLIGHT;
 
     /**
      * Constructor to instantiate a new staff member
@@ -51,9 +76,7 @@ public class Waiter extends Staff<Order> {
         super(name, experience);
         this.notificationService = notificationService;
         orderList = OrderList.getInstance();
-        orderList.registerObserver(this);
         waiterList.add(this);
-        thisOrder = new ArrayList<>();
         staffList = StaffList.getInstance();
         staffList.add(this);
         updatePriority();
@@ -61,46 +84,87 @@ public class Waiter extends Staff<Order> {
     }
 
     /**
-     * Method gets next order in the OrderList queue
+     * Method gets next order in the OrderList queue and hands its items to the chefs and baristas
      *
-     * If there are no orders left the Staff member thread will be left in the waiting state until notified
+     * If there are no orders left the Staff member thread blocks in the OrderList until an order arrives or the timeout expires
      */
     @Override
     public void getOrders() {
-        if (orderList.getQueueSize(false) * priority > orderList.getQueueSize(true)) {
-            currentOrder = orderList.remove();
-        }
-        else {
-            currentOrder = orderList.removeOnline();
-        }
+        takeOrder(ORDER_WAIT_TIMEOUT);
+    }
 
-        if (currentOrder == null) {
-            try {
-                synchronized (this) {
-                    wait();
-                }
-            } catch (InterruptedException e) {
-                logger.logSevere(e.getMessage());
-            }
+    /**
+     * Takes the next order in the OrderList queue, if there is one, and hands its items to the chefs and baristas
+     *
+     * @param timeout how long to wait for an order (milliseconds), 0 to not wait
+     */
+    private void takeOrder(long timeout) {
+        Order order = null;
+
+        try {
+            order = orderList.take(priority, timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            // Interrupted to stop when the waiter is removed
+            if (active) logger.logSevere(e.getMessage());
         }
-        else {
-            for (String item : currentOrder.getDetails()) {
-                ItemList itemList = ItemList.getInstance();
-                ItemCategory category = itemList.getCategory(item);
 
-                if (isFoodCategory(category)) {
-                    FoodList foodList = FoodList.getInstance();
-                    FoodItem foodItem = new FoodItem(currentOrder.getOrderID(), item, currentOrder.getClientService());
-                    foodList.add(new AbstractMap.SimpleEntry<>(this, foodItem));
+        if (order == null) return;
+
+        currentOrder = order;
+        OrderInFlight inFlight = new OrderInFlight(order);
+        RoleMetrics.forRole(getRole()).getQueueWait().record(inFlight.startedAt - orderList.getQueuedAt(order));
+
+        // In flight before any item is handed out so an item made straight away is not missed
+        ordersInFlight.put(order.getOrderID(), inFlight);
+
+        // Each item ID is resolved to its code once, the category is then an array lookup
+        MenuVersion menu = ItemList.getInstance().getSnapshot();
+        List<String> details = order.getDetails();
+        for (int i = 0; i < details.size(); i++) {
+            String item = details.get(i);
+            ItemCategory category = menu.getCategory(menu.code(item));
+
+            if (isFoodCategory(category)) {
+                FoodItem foodItem = new FoodItem(order.getOrderID(), item, order.getClientService());
+
+                if (!FoodList.getInstance().add(new AbstractMap.SimpleEntry<>(this, foodItem))) {
+                    returnOrder(order);
+                    return;
                 }
+            } else if (isDrinkCategory(category)) {
+                DrinkItem drinkItem = new DrinkItem(order.getOrderID(), item, order.getClientService());
 
-                if (isDrinkCategory(category)) {
-                    DrinkList drinkList = DrinkList.getInstance();
-                    DrinkItem drinkItem = new DrinkItem(currentOrder.getOrderID(), item, currentOrder.getClientService());
-                    drinkList.add(new AbstractMap.SimpleEntry<>(this, drinkItem));
+                if (!DrinkList.getInstance().add(new AbstractMap.SimpleEntry<>(this, drinkItem))) {
+                    returnOrder(order);
+                    return;
                 }
+            } else {
+                // Nobody makes it, such as an item since removed from the menu, so it is not waited for
+                inFlight.items.get(i).complete(item);
             }
         }
+
+        inFlight.made.thenRun(() -> readyOrders.add(inFlight));
+    }
+
+    /**
+     * Puts an order back in the order list when the waiter was interrupted handing out its items
+     * Otherwise the items not handed out would never be made and the order would stay in flight
+     * Items already handed out are still made, but are ignored as the order is no longer in flight
+     *
+     * @param order the order being taken
+     */
+    private void returnOrder(Order order) {
+        currentOrder = null;
+
+        // Already returned if the waiter was removed while handing out the items
+        if (ordersInFlight.remove(order.getOrderID()) == null) return;
+
+        logger.logWarning("Waiter " + getWorkerName() + " could not hand out the items of order " + order.getOrderID() + ", returning it to the queue");
+
+        if (!orderList.requeue(order)) {
+            logger.logWarning("Could not return order to the queue: " + order.getOrderID());
+        }
     }
 
     /**
@@ -140,9 +204,8 @@ public class Waiter extends Staff<Order> {
             notificationService.removeObserver(currentOrder.getClientService());
         }
 
+        ordersInFlight.remove(currentOrder.getOrderID());
         currentOrder = null;
-
-        thisOrder = new ArrayList<>();
         return true;
     }
 
@@ -161,11 +224,14 @@ public class Waiter extends Staff<Order> {
         orderDetails.append("Staff Type : ").append("Waiter").append("\n");
         orderDetails.append("Staff Experience Level : ").append(this.getExperience()).append("\n");
 
+        Order currentOrder = getCurrentOrder();
+
         if (currentOrder == null) {
             orderDetails.append("Staff is Currently Idle").append("\n");
             return orderDetails.toString();
         }
 
+        orderDetails.append("Orders In Flight : ").append(ordersInFlight.size()).append("\n");
         orderDetails.append("Order ID : ").append(currentOrder.getOrderID()).append("\n");
         orderDetails.append("Customer Name : ").append(currentOrder.getCustomerName()).append("\n");
         orderDetails.append("Customer ID : ").append(currentOrder.getCustomerID()).append("\n");
@@ -197,10 +263,48 @@ public class Waiter extends Staff<Order> {
     /**
      * Method to return current order that is being processed
      *
-     * @return the current order that is being processed
+     * @return the order being taken or delivered, otherwise the oldest order in flight, null if there are none
      */
     public Order getCurrentOrder() {
-        return currentOrder;
+        Order order = currentOrder;
+        if (order != null) return order;
+
+        return ordersInFlight.values().stream()
+                .min(Comparator.comparingLong(inFlight -> inFlight.startedAt))
+                .map(inFlight -> inFlight.order)
+                .orElse(null);
+    }
+
+    /**
+     * Method to return every order the waiter has taken but not yet delivered
+     *
+     * @return the orders in flight, oldest first
+     */
+    public List<Order> getOrdersInFlight() {
+        return ordersInFlight.values().stream()
+                .sorted(Comparator.comparingLong(inFlight -> inFlight.startedAt))
+                .map(inFlight -> inFlight.order)
+                .toList();
+    }
+
+    /**
+     * Sets how many orders the waiter takes before waiting for one to be delivered
+     *
+     * @param maxOrdersInFlight the most orders in flight, at least 1
+     * @throws IllegalArgumentException if it is less than 1
+     */
+    public void setMaxOrdersInFlight(int maxOrdersInFlight) {
+        if (maxOrdersInFlight < 1) throw new IllegalArgumentException("A waiter must be able to take an order");
+        this.maxOrdersInFlight = maxOrdersInFlight;
+    }
+
+    /**
+     * Method to return how many orders the waiter takes before waiting for one to be delivered
+     *
+     * @return the most orders in flight
+     */
+    public int getMaxOrdersInFlight() {
+        return maxOrdersInFlight;
     }
 
     /**
@@ -220,53 +324,44 @@ public class Waiter extends Staff<Order> {
     }
 
     /**
-     * Method used by the Subject (OrderList) to tell the Staff member that an order has been added
+     * Items are handed back through each order's futures, so there is nothing to update
      */
     public void update() {
-        synchronized (this) {
-            notifyAll();
-        }
     }
 
     /**
      * Method used to remove staff member from the simulation
      */
     @Override
-    public synchronized void removeStaff() {
-        addBackOrder();
-        orderList.removeObserver(this);
+    public void removeStaff() {
+        // Stopped first so the waiter does not take back an order that has just been returned
         active = false;
+        addBackOrder();
         waiterList.remove(this);
         updatePriority();
-        notifyAll();
-        logger.logInfo("Waiter " + getWorkerName() + " removed from the simulation.");
-    }
 
-    /**
-     * Processing order method - waiter waits until all items have been made by chef's / barista's
-     */
-    public void processingOrder() {
-        while (thisOrder.size() != currentOrder.getDetails().size()) {
-            try {
-                synchronized (this) {
-                    notificationService.sendOrderProcessingNotification(currentOrder.getOrderID(), currentOrder.getClientService());
-                    wait();
-                }
-            } catch (InterruptedException e) {
-                logger.logSevere(e.getCause() + " " + e.getMessage());
-            }
-        }
+        // Wakes the waiter from waiting for an order or for one to be ready, so it stops straight away
+        Thread worker = getWorkerThread();
+        if (worker != null && worker != Thread.currentThread()) worker.interrupt();
+
+        logger.logInfo("Waiter " + getWorkerName() + " removed from the simulation.");
     }
 
     /**
      * Used by chefs/baristas to give back items to the desired waiter
+     * Completes the future of one not yet made item of the order, an item for an order no longer in flight is ignored
      *
+     * @param orderID ID of the order the item is for
      * @param item ItemID of completed item
      */
-    public void addItem(String item) {
-        synchronized (this) {
-            thisOrder.add(item);
-            notifyAll();
+    public void addItem(UUID orderID, String item) {
+        OrderInFlight inFlight = ordersInFlight.get(orderID);
+        if (inFlight == null) return;
+
+        List<String> details = inFlight.order.getDetails();
+        for (int i = 0; i < details.size(); i++) {
+            // complete only succeeds once, so two staff members making the same item fill different futures
+            if (details.get(i).equals(item) && inFlight.items.get(i).complete(item)) return;
         }
     }
 
@@ -292,14 +387,32 @@ public class Waiter extends Staff<Order> {
      * This will update all the waiters priorities whenever they are added or removed
      */
     private static void updatePriority() {
+        double[] priorities = getPriorities(waiterList.size());
+
+        for (int i = 0; i < priorities.length; i++) {
+            waiterList.get(i).setWaiterPriority(priorities[i]);
+        }
+    }
+
+    /**
+     * Returns the priority each waiter is given when there are a number of waiters
+     *
+     * @param waiters the number of waiters
+     * @return the priority of each waiter, in the order they were added
+     */
+    public static double[] getPriorities(int waiters) {
         // starting the priority at 0.6 this means the waiters will always favour online orders over in person orders
         double middlePriority = 0.8;
-        double tempPriority = Math.pow(middlePriority, waiterList.size());
-        double addition = waiterList.size() != 1 ? ( ( middlePriority - tempPriority ) * 2 ) / ( waiterList.size() - 1 ) : 0;
-        for (Waiter waiter : waiterList) {
-            waiter.setWaiterPriority(tempPriority);
+        double tempPriority = Math.pow(middlePriority, waiters);
+        double addition = waiters != 1 ? ( ( middlePriority - tempPriority ) * 2 ) / ( waiters - 1 ) : 0;
+
+        double[] priorities = new double[waiters];
+        for (int i = 0; i < waiters; i++) {
+            priorities[i] = tempPriority;
             tempPriority += addition;
         }
+
+        return priorities;
     }
 
     /**
@@ -311,9 +424,7 @@ public class Waiter extends Staff<Order> {
         StringBuilder orderString = new StringBuilder();
 
         for (Waiter waiter : waiterList) {
-            Order o = waiter.getCurrentOrder();
-
-            if (o != null) {
+            for (Order o : waiter.getOrdersInFlight()) {
                 String s = String.format("%s,%s,%s",
                         o.getCustomerName(),
                         o.getTimestamp().toString(),
@@ -328,46 +439,134 @@ public class Waiter extends Staff<Order> {
     }
 
     /**
-     * Method to return the current order back to the order list
+     * Method to return every order in flight back to the order list
      *
-     * @param waiter The waiter to have the order added back to the Order List
+     * @param waiter The waiter to have the orders added back to the Order List
      */
     private static void addBackOrder(Waiter waiter) {
-        if (waiter.getCurrentOrder() == null) return;
+        for (Order order : waiter.getOrdersInFlight()) {
+            waiter.ordersInFlight.remove(order.getOrderID());
 
-        try {
-            OrderList.getInstance().add(waiter.getCurrentOrder());
-        } catch (InvalidOrderException | DuplicateOrderException e) {
-            logger.logSevere(e.getCause() + " " + e.getMessage());
+            if (!OrderList.getInstance().requeue(order)) {
+                logger.logWarning("Could not return order to the queue: " + order.getOrderID());
+            }
         }
+
+        waiter.readyOrders.clear();
+        waiter.currentOrder = null;
     }
 
     /**
      * This method is the Waiter's thread
+     *
+     * Delivers any order that is ready, otherwise takes a new order while there is room for one in flight,
+     * otherwise waits a short while for an order to be ready
      */
     @Override
     public void run() {
         while (active) {
-            delay(logger);
-            getOrders();
-            staffList.notifyObservers();
+            OrderInFlight ready = readyOrders.poll();
 
-            if (currentOrder == null) continue;
+            if (ready == null && ordersInFlight.size() < maxOrdersInFlight) {
+                // Only block on the order list when no order in flight could become ready meanwhile
+                takeOrder(ordersInFlight.isEmpty() ? ORDER_WAIT_TIMEOUT : 0);
+                staffList.notifyObservers();
 
-            if (currentOrder.getClientService() != null) {
-                notificationService.addObserver(currentOrder.getClientService());
+                if (currentOrder != null) {
+                    startOrder(currentOrder);
+                    continue;
+                }
             }
 
-            orderList.notifyObservers();
-            processingOrder();
+            if (ready == null) {
+                try {
+                    ready = readyOrders.poll(readyWaitTimeout(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    if (active) logger.logSevere(e.getMessage());
+                }
+            }
+
+            if (ready != null) deliverOrder(ready);
+        }
+    }
+
+    /**
+     * Returns how long to wait for an order to be ready
+     * With no room for another order there is nothing else to do, with none in flight nothing can become ready
+     *
+     * @return the timeout (milliseconds)
+     */
+    private long readyWaitTimeout() {
+        if (ordersInFlight.isEmpty()) return 0;
+
+        return ordersInFlight.size() >= maxOrdersInFlight ? ORDER_WAIT_TIMEOUT : READY_WAIT_TIMEOUT;
+    }
+
+    /**
+     * Takes the order from the customer while its items are made, telling the customer it is being processed once
+     *
+     * @param order the order just taken
+     */
+    private void startOrder(Order order) {
+        if (hasClientService(order)) {
+            notificationService.addObserver(order.getClientService());
+            notificationService.sendOrderProcessingNotification(order.getOrderID(), order.getClientService());
+        }
+
+        orderList.notifyObservers();
+
+        // Taking the order, the chefs and baristas have already been handed its items so they work meanwhile
+        delay(logger);
+        currentOrder = null;
+    }
+
+    /**
+     * Delivers an order whose items have all been made
+     *
+     * @param ready the order to deliver
+     */
+    private void deliverOrder(OrderInFlight ready) {
+        // The order went back to the order list if the waiter was removed after it became ready
+        if (ordersInFlight.get(ready.order.getOrderID()) != ready) return;
+
+        currentOrder = ready.order;
+        delay(logger);
+
+        logger.logInfo(getWorkerName() + " completed order " + ready.order.getOrderID());
+
+        if (active) {
+            RoleMetrics.forRole(getRole()).getServiceTime().record(System.nanoTime() - ready.startedAt);
+            completeCurrentOrder();
+        }
+        orderList.notifyObservers();
+        staffList.notifyObservers();
+    }
+
+    /**
+     * An order the waiter has taken, with a future for each of its items completed once the item is made
+     */
+    private static class OrderInFlight {
+        private final Order order;
+
+        /** When the waiter took the order (nanoseconds) */
+        private final long startedAt = System.nanoTime();
+
+        /** One future for each item, in the same order as the order's details */
+        private final List<CompletableFuture<String>> items = new ArrayList<>();
 
-            delay(logger);
+        /** Completed once every item has been made */
+        private final CompletableFuture<Void> made;
 
-            logger.logInfo(getWorkerName() + " completed order " + currentOrder.getOrderID());
+        /**
+         * Constructor for an order in flight
+         *
+         * @param order the order taken
+         */
+        private OrderInFlight(Order order) {
+            this.order = order;
 
-            if (active) completeCurrentOrder();
-            orderList.notifyObservers();
-            staffList.notifyObservers();
+            for (int i = 0; i < order.getDetails().size(); i++) items.add(new CompletableFuture<>());
+            made = CompletableFuture.allOf(items.toArray(new CompletableFuture<?>[0]));
         }
     }
 }
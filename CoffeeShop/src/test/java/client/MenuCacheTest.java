@@ -0,0 +1,56 @@
+package client;
+
+import item.Item;
+import item.ItemCategory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import protocol.MenuSnapshot;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the MenuCache
+ * A saved menu must load back the same and a missing or damaged file must be treated as no cache
+ */
+public class MenuCacheTest {
+    @TempDir
+    Path folder;
+
+    /**
+     * Tests a saved menu loads back with the same items and hash, in a new cache as after a restart
+     */
+    @Test
+    void testSaveAndLoad() throws Exception {
+        Path file = folder.resolve("cache").resolve("menu.cache");
+        MenuSnapshot menu = new MenuSnapshot(List.of(new Item("RL1", ItemCategory.ROLL, 3.00, "BACON ROLL"),
+                new Item("HD1", ItemCategory.HOTDRINK, 2.00, "TEA")));
+
+        assertNull(new MenuCache(file).load());
+
+        new MenuCache(file).save(menu);
+        MenuSnapshot loaded = new MenuCache(file).load();
+
+        assertEquals(menu.itemIDs(), loaded.itemIDs());
+        assertEquals(menu.hash(), loaded.hash());
+        assertEquals("TEA", loaded.toMap().get("HD1").getDescription());
+        assertFalse(Files.exists(file.resolveSibling("menu.cache.tmp")));
+    }
+
+    /**
+     * Tests a damaged file is ignored rather than stopping the client
+     */
+    @Test
+    void testDamagedFile() throws Exception {
+        Path file = folder.resolve("menu.cache");
+
+        Files.write(file, new byte[] { 1, 2, 3 });
+        assertNull(new MenuCache(file).load());
+
+        Files.write(file, new byte[] { 0x43, 0x53, 0x4D, 0x43, 5 });
+        assertNull(new MenuCache(file).load());
+    }
+}
@@ -0,0 +1,202 @@
+package feed;
+
+import item.Item;
+import item.ItemList;
+import item.SetupItemFile;
+import order.Order;
+import order.OrderList;
+import order.OrderState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ChangeFeed and FeedReplica
+ * Changes to the order queue and the menu must be numbered in order, kept for clients that fall behind
+ * and rebuild the same state on a replica
+ */
+public class ChangeFeedTest {
+    private ItemList menu;
+
+    private ChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        ItemList.resetInstance();
+        menu = SetupItemFile.generateItemList();
+        OrderList.resetInstance();
+        ChangeFeed.resetInstance();
+        feed = ChangeFeed.getInstance();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // The menu is shared with the other tests
+        ItemList.resetInstance();
+    }
+
+    /**
+     * Tests the order list publishes a change when an order is added, taken and completed
+     */
+    @Test
+    void testOrderListPublishes() throws Exception {
+        OrderList orderList = OrderList.getInstance();
+        Order order = createOrder();
+
+        orderList.add(order);
+        Order taken = orderList.removeOnline();
+        orderList.completeOrder(taken);
+
+        List<Delta> deltas = feed.since(1).orElseThrow();
+
+        assertEquals(3, deltas.size());
+        assertEquals(new Change.OrderAdded(OrderSummary.of(order, OrderState.PENDING)), deltas.get(0).change());
+        assertEquals(new Change.OrderMoved(order.getOrderID(), OrderState.IN_PROGRESS), deltas.get(1).change());
+        assertEquals(new Change.OrderCompleted(order.getOrderID()), deltas.get(2).change());
+        assertEquals(List.of(1L, 2L, 3L), deltas.stream().map(Delta::sequence).toList());
+    }
+
+    /**
+     * Tests the item list publishes a change when the menu is changed
+     */
+    @Test
+    void testItemListPublishes() throws Exception {
+        menu.setCost("HD1", 9.99);
+        menu.remove("RL1");
+
+        List<Delta> deltas = feed.since(1).orElseThrow();
+
+        assertEquals(new Change.PriceChanged("HD1", 9.99), deltas.get(deltas.size() - 2).change());
+        assertEquals(new Change.ItemRemoved("RL1"), deltas.getLast().change());
+    }
+
+    /**
+     * Tests a snapshot only holds the orders not yet completed however many have been completed
+     */
+    @Test
+    void testSnapshotExcludesCompleted() throws Exception {
+        OrderList orderList = OrderList.getInstance();
+
+        for (int i = 0; i < 50; i++) {
+            orderList.add(createOrder());
+            orderList.completeOrder(orderList.removeOnline());
+        }
+
+        Order waiting = createOrder();
+        orderList.add(waiting);
+
+        FeedSnapshot snapshot = feed.snapshot(menu.getMenu().values());
+
+        assertEquals(feed.getSequence(), snapshot.sequence());
+        assertEquals(List.of(OrderSummary.of(waiting, OrderState.PENDING)), snapshot.orders());
+        assertEquals(menu.getItemCount(), snapshot.menu().size());
+    }
+
+    /**
+     * Tests only the most recent deltas are kept and older ones are not returned
+     */
+    @Test
+    void testHistoryOverflow() {
+        ChangeFeed small = new ChangeFeed(4);
+
+        for (int i = 0; i < 10; i++) small.publish(new Change.ItemRemoved("I" + i));
+
+        assertTrue(small.since(6).isEmpty());
+        assertEquals(List.of(7L, 8L, 9L, 10L), small.since(7).orElseThrow().stream().map(Delta::sequence).toList());
+        assertEquals(List.of(), small.since(11).orElseThrow());
+        assertTrue(small.since(12).isEmpty());
+    }
+
+    /**
+     * Tests a replica built from a snapshot and deltas matches the feed, ignores repeated deltas and stops at a gap
+     */
+    @Test
+    void testReplica() throws Exception {
+        OrderList orderList = OrderList.getInstance();
+        orderList.add(createOrder());
+
+        FeedReplica replica = new FeedReplica();
+        replica.reset(feed.snapshot(menu.getMenu().values()));
+        long start = feed.getSequence();
+
+        Order second = createOrder();
+        orderList.add(second);
+        orderList.removeOnline();
+        menu.setCost("HD1", 1.23);
+
+        List<Delta> deltas = feed.since(start + 1).orElseThrow();
+
+        assertFalse(replica.apply(deltas.get(1)));
+        assertEquals(start, replica.getSequence());
+
+        for (Delta delta : deltas) assertTrue(replica.apply(delta));
+        assertTrue(replica.apply(deltas.getFirst()));
+
+        assertEquals(feed.getSequence(), replica.getSequence());
+        assertEquals(feed.snapshot(menu.getMenu().values()).orders(), replica.getOrders());
+        assertEquals(1.23, replica.getMenu().get("HD1").getCost());
+    }
+
+    /**
+     * Tests a subscriber is given every delta after the point it subscribed at, in order and without gaps
+     */
+    @Test
+    void testSubscribe() throws Exception {
+        BlockingQueue<Delta> received = new LinkedBlockingQueue<>();
+        BlockingQueue<Long> subscribedAt = new LinkedBlockingQueue<>();
+
+        feed.publish(new Change.ItemRemoved("A"));
+        feed.subscribe(received::add, () -> subscribedAt.add(feed.getSequence()));
+
+        for (int i = 0; i < 100; i++) feed.publish(new Change.ItemRemoved("B" + i));
+
+        Long sequence = subscribedAt.poll(5, TimeUnit.SECONDS);
+        assertNotNull(sequence);
+
+        while (sequence < feed.getSequence()) {
+            Delta delta = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(delta);
+
+            // A delta published while subscribing may already be in the snapshot and arrive as well
+            if (delta.sequence() <= sequence) continue;
+            assertEquals(++sequence, delta.sequence());
+        }
+    }
+
+    /**
+     * Tests a subscriber that fails does not stop the others being given deltas
+     */
+    @Test
+    void testFailingSubscriber() throws Exception {
+        BlockingQueue<Delta> received = new LinkedBlockingQueue<>();
+
+        CountDownLatch subscribed = new CountDownLatch(2);
+
+        feed.subscribe(delta -> { throw new IllegalStateException("Closed"); }, subscribed::countDown);
+        feed.subscribe(received::add, subscribed::countDown);
+        assertTrue(subscribed.await(5, TimeUnit.SECONDS));
+
+        Delta delta = feed.publish(new Change.ItemAdded(new Item("NEW1", menu.getCategory("HD1"), 1.0, "New")));
+
+        assertEquals(delta, received.poll(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Creates an order without playing the sound for each item
+     *
+     * @return the order
+     */
+    private Order createOrder() throws Exception {
+        return new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                LocalDateTime.now(), new ArrayList<>(List.of("HD1", "RL1")), menu, true);
+    }
+}
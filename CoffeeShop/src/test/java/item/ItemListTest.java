@@ -343,4 +343,30 @@ public class ItemListTest {
 
     }
 
+    /**
+     * Tests a change publishes a new menu version and leaves earlier versions unchanged
+     */
+    @Test
+    void testSnapshots() throws InvalidItemIDException {
+        MenuVersion before = itemList.getSnapshot();
+
+        itemList.setCost("RL1", 4.0);
+        MenuVersion after = itemList.getSnapshot();
+
+        assertEquals(before.version() + 1, after.version());
+        assertEquals(3.0, before.getCost("RL1"));
+        assertEquals(4.0, after.getCost("RL1"));
+        assertSame(after, itemList.getSnapshot(), "Reading the menu should not copy it");
+        assertThrows(UnsupportedOperationException.class, () -> after.items().remove("RL1"));
+        assertThrows(InvalidItemIDException.class, () -> itemList.setCost("XX99", 1.0));
+
+        itemList.add(new Item("XX1", ItemCategory.SNACK, 1.0, "TEST ITEM"));
+        assertFalse(after.itemExists("XX1"));
+        assertTrue(itemList.getSnapshot().itemExists("XX1"));
+        assertEquals(after.version() + 1, itemList.getVersion());
+
+        /** Put the shared menu back for the other tests */
+        itemList.remove("XX1");
+        itemList.setCost("RL1", 3.0);
+    }
 }
@@ -0,0 +1,133 @@
+package item;
+
+import exceptions.InvalidItemIDException;
+import feed.Change;
+import feed.ChangeFeed;
+import feed.Delta;
+import order.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the MenuReloader
+ * A valid menu file must replace the menu as one change and an invalid one must leave it alone
+ */
+public class MenuReloaderTest {
+    private static final String MENU = """
+            RL1,ROLL,3.00,BACON ROLL,
+            HD1,HOTDRINK,2.00,TEA,
+            SD1,SOFTDRINK,1.50,COLA,
+            """;
+
+    @TempDir
+    Path folder;
+
+    private Path file;
+
+    private ItemList itemList;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ItemList.resetInstance();
+        itemList = SetupItemFile.generateItemList();
+
+        file = folder.resolve("menu.txt");
+        Files.writeString(file, MENU);
+    }
+
+    /**
+     * Puts the shared menu back for the other tests
+     */
+    @AfterEach
+    void tearDown() {
+        ItemList.resetInstance();
+        SetupItemFile.generateItemList();
+    }
+
+    /**
+     * Tests a valid file replaces the menu in one change sent to the clients, and orders keep their prices
+     */
+    @Test
+    void testReload() throws Exception {
+        Order order = new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                LocalDateTime.now(), new ArrayList<>(List.of("RL1")), itemList, false);
+        long version = itemList.getVersion();
+        long sequence = ChangeFeed.getInstance().getSequence();
+
+        Files.writeString(file, MENU.replace("3.00", "3.40"));
+        MenuReloader reloader = new MenuReloader(file, itemList);
+
+        assertTrue(reloader.reload());
+        assertEquals(version + 1, itemList.getVersion());
+        assertEquals(List.of("RL1", "HD1", "SD1"), List.of(itemList.getItemIDs()));
+        assertEquals(3.40, itemList.getCost("RL1"));
+
+        List<Delta> deltas = ChangeFeed.getInstance().since(sequence + 1).orElseThrow();
+        assertEquals(1, deltas.size());
+        assertInstanceOf(Change.MenuReplaced.class, deltas.getFirst().change());
+
+        assertEquals(3.00, order.getTotalCost());
+
+        // The same menu again is not a change
+        assertFalse(reloader.reload());
+        assertEquals(version + 1, itemList.getVersion());
+    }
+
+    /**
+     * Tests a file with any invalid line is rejected and the menu is kept
+     */
+    @Test
+    void testInvalidFileIsRejected() throws IOException {
+        long version = itemList.getVersion();
+        MenuReloader reloader = new MenuReloader(file, itemList);
+
+        for (String menu : new String[] { MENU + "XX1,NOTACATEGORY,1.00,BAD,\n", MENU + "XX1,SNACK,free,BAD,\n",
+                MENU + "XX1,SNACK,-1,BAD,\n", MENU + "XX1,SNACK\n", MENU + "RL1,ROLL,3.00,BACON ROLL,\n", "\n" }) {
+            Files.writeString(file, menu);
+
+            assertFalse(reloader.reload(), menu);
+            assertEquals(version, itemList.getVersion());
+        }
+
+        assertThrows(InvalidItemIDException.class, () -> MenuReloader.read(file));
+        Files.delete(file);
+        assertFalse(reloader.reload());
+        assertEquals(version, itemList.getVersion());
+    }
+
+    /**
+     * Tests the watcher reloads the menu when the file is replaced
+     */
+    @Test
+    void testWatch() throws Exception {
+        try (MenuReloader reloader = new MenuReloader(file, itemList, 50)) {
+            reloader.start();
+            assertThrows(IllegalStateException.class, reloader::start);
+
+            // Written to another file and moved over the menu, as an editor saving it would
+            Path saved = folder.resolve("menu.txt.tmp");
+            Files.writeString(saved, MENU.replace("TEA", "GREEN TEA"));
+            Files.move(saved, file, StandardCopyOption.REPLACE_EXISTING);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (itemList.getItemCount() != 3 && System.nanoTime() < deadline) Thread.sleep(20);
+
+            assertEquals(3, itemList.getItemCount());
+            assertEquals("GREEN TEA", itemList.getDescription("HD1"));
+        }
+    }
+}
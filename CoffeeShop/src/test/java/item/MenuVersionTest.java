@@ -0,0 +1,106 @@
+package item;
+
+import exceptions.InvalidItemIDException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the MenuVersion
+ * Codes must stay the same across versions and the price and category arrays must match the items
+ */
+public class MenuVersionTest {
+    private ItemList itemList;
+
+    @BeforeEach
+    void setUp() {
+        ItemList.resetInstance();
+        itemList = SetupItemFile.generateItemList();
+    }
+
+    /**
+     * Puts the shared menu back for the other tests
+     */
+    @AfterEach
+    void tearDown() {
+        ItemList.resetInstance();
+        SetupItemFile.generateItemList();
+    }
+
+    /**
+     * Tests every item has a dense code and its price and category can be read by code
+     */
+    @Test
+    void testCodes() {
+        MenuVersion menu = itemList.getSnapshot();
+
+        // Codes are shared with items other tests have registered, so there can be more codes than items
+        assertTrue(itemList.getItemCount() <= menu.codeCount());
+
+        for (String itemID : itemList.getItemIDs()) {
+            int code = menu.code(itemID);
+
+            assertTrue(code >= 0 && code < menu.codeCount());
+            assertEquals(itemID, menu.itemID(code));
+            assertEquals(itemList.getCategory(itemID), menu.getCategory(code));
+            assertEquals(itemList.getCost(itemID), menu.getCost(code));
+            assertEquals(Math.round(itemList.getCost(itemID) * 100), menu.getPence(code));
+        }
+
+        assertEquals(350, menu.getPence(menu.code("RL2")));
+        assertEquals(-1, menu.code("XX99"));
+        assertNull(menu.getCategory(-1));
+        assertArrayEquals(new int[] { menu.code("HD4"), -1, menu.code("RL1") }, menu.resolve(List.of("HD4", "XX99", "RL1")));
+    }
+
+    /**
+     * Tests codes are kept when prices change and items are removed and added again
+     */
+    @Test
+    void testCodesAreStable() throws InvalidItemIDException {
+        MenuVersion before = itemList.getSnapshot();
+        int code = before.code("HD1");
+
+        itemList.setCost("HD1", 2.49);
+        assertEquals(code, itemList.getSnapshot().code("HD1"));
+        assertEquals(249, itemList.getSnapshot().getPence(code));
+        assertEquals(200, before.getPence(code));
+
+        itemList.remove("HD1");
+        MenuVersion removed = itemList.getSnapshot();
+        assertEquals(-1, removed.code("HD1"));
+        assertFalse(removed.isOnMenu(code));
+        assertEquals("HD1", removed.itemID(code));
+
+        itemList.add(new Item("XX1", ItemCategory.SNACK, 1.0, "TEST ITEM"));
+        itemList.add(new Item("HD1", ItemCategory.HOTDRINK, 2.0, "TEA"));
+        MenuVersion after = itemList.getSnapshot();
+
+        assertEquals(code, after.code("HD1"));
+        assertEquals(ItemRegistry.code("XX1"), after.code("XX1"));
+        assertTrue(after.codeCount() > after.code("XX1"));
+        assertEquals(-1, before.code("XX1"));
+    }
+
+    /**
+     * Tests codes come from the shared registry, so they survive the ItemList being replaced
+     */
+    @Test
+    void testCodesAreShared() {
+        int code = itemList.getSnapshot().code("RL2");
+
+        ItemList.resetInstance();
+        assertEquals(-1, ItemList.getInstance().getSnapshot().code("RL2"));
+
+        SetupItemFile.generateItemList();
+        assertEquals(code, ItemList.getInstance().getSnapshot().code("RL2"));
+        assertEquals(code, ItemRegistry.code("RL2"));
+        assertEquals("RL2", ItemRegistry.itemID(code));
+        assertEquals(-1, ItemRegistry.code("NOT AN ITEM"));
+        assertNull(ItemRegistry.itemID(-1));
+    }
+}
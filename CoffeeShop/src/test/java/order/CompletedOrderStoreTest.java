@@ -0,0 +1,146 @@
+package order;
+
+import exceptions.InvalidItemIDException;
+import exceptions.InvalidOrderException;
+import item.SetupItemFile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the CompletedOrderStore
+ */
+public class CompletedOrderStoreTest {
+    private static final String[][] ITEMS = {
+            {"RL1", "HD4"},
+            {"FD2", "SD1", "HD1"},
+            {"RL2"},
+            {"HD4", "HD4", "FD5"},
+            {"RL1", "SD4"},
+            {"FD1", "HD2", "SD2"},
+            {"RL3", "HD3"}
+    };
+
+    private static List<Order> orders;
+
+    @TempDir
+    File directory;
+
+    @BeforeAll
+    static void setUp() throws InvalidOrderException, InvalidItemIDException {
+        SetupItemFile.generateItemList();
+
+        orders = new ArrayList<>();
+
+        for (String[] items : ITEMS) {
+            Order o = new Order();
+            for (String item : items) o.addItem(item);
+            orders.add(o);
+        }
+    }
+
+    /**
+     * Tests only the window is kept in memory and older orders are written to the segments in order
+     */
+    @Test
+    void testWindowAndSegments() {
+        CompletedOrderStore store = new CompletedOrderStore(3, 2, directory);
+
+        List<Order> spilled = new ArrayList<>();
+
+        for (Order o : orders) {
+            Order moved = store.add(o);
+            if (moved != null) spilled.add(moved);
+        }
+
+        assertEquals(orders.subList(0, 4), spilled);
+        assertEquals(orders.subList(4, 7), store.recent());
+        assertEquals(7, store.size());
+
+        // 4 orders written with 2 orders per segment
+        assertEquals(2, directory.listFiles().length);
+
+        try (Stream<String> lines = store.lines()) {
+            assertEquals(orders.stream().map(CompletedOrderStore::format).toList(), lines.toList());
+        }
+
+        store.close();
+    }
+
+    /**
+     * Tests the running totals match a summary built by walking every order, even once orders are written to disk
+     */
+    @Test
+    void testSummary() {
+        CompletedOrderStore store = new CompletedOrderStore(1, 10, directory);
+
+        HashMap<String, Double> expected = new HashMap<>();
+        double totalCost = 0;
+        double discountCost = 0;
+
+        for (Order o : orders) {
+            store.add(o);
+
+            totalCost += o.getTotalCost();
+            discountCost += o.getDiscountedCost();
+
+            for (String s : o.getDetails()) {
+                expected.put(s, expected.getOrDefault(s, 0.0) + 1.0);
+            }
+        }
+
+        expected.put("total-cost", totalCost);
+        expected.put("discount-cost", discountCost);
+        expected.put("num-orders", (double) orders.size());
+
+        assertEquals(expected, store.summary());
+
+        store.close();
+    }
+
+    /**
+     * Tests shrinking the window writes the extra orders to disk straight away
+     */
+    @Test
+    void testSetWindowSize() {
+        CompletedOrderStore store = new CompletedOrderStore(10, 10, directory);
+
+        for (Order o : orders) assertNull(store.add(o));
+
+        assertEquals(orders.subList(0, 5), store.setWindowSize(2));
+        assertEquals(orders.subList(5, 7), store.recent());
+
+        try (Stream<String> lines = store.lines()) {
+            assertEquals(7, lines.count());
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> store.setWindowSize(-1));
+
+        store.close();
+    }
+
+    /**
+     * Tests a store with no window keeps nothing in memory
+     */
+    @Test
+    void testEmptyWindow() {
+        CompletedOrderStore store = new CompletedOrderStore(0, 10, directory);
+
+        assertEquals(orders.get(0), store.add(orders.get(0)));
+        assertTrue(store.recent().isEmpty());
+
+        try (Stream<String> lines = store.lines()) {
+            assertEquals(List.of(CompletedOrderStore.format(orders.get(0))), lines.toList());
+        }
+
+        store.close();
+    }
+}
@@ -0,0 +1,188 @@
+package order;
+
+import item.ItemCategory;
+import item.ItemList;
+import item.SetupItemFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import workers.Barista;
+import workers.Dispatcher;
+import workers.RoleMetrics;
+import workers.StaffList;
+import workers.Waiter;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the DrinkList
+ * Many waiters add drinks while specialised and general baristas take them from a small bounded list,
+ * every drink must be made exactly once and only by a barista that makes its category,
+ * including while baristas are removed part way through making a drink
+ * The concurrent tests are repeated so different interleavings are tried
+ */
+public class DrinkListTest {
+    private static final int WAITERS = 4;
+
+    private static final int DRINKS = 500;
+
+    private ItemList menu;
+
+    private DrinkList drinkList;
+
+    @BeforeEach
+    void setUp() {
+        menu = SetupItemFile.generateItemList();
+        RoleMetrics.resetAll();
+        DrinkList.resetInstance(8);
+        drinkList = DrinkList.getInstance();
+    }
+
+    /**
+     * Tests no drink is lost, made twice or made by a barista that does not make its category
+     */
+    @RepeatedTest(20)
+    void testNoDrinkLostOrDuplicated() throws Exception {
+        String[] itemIDs = { "HD1", "SD1", "HD2", "SD2" };
+        int total = WAITERS * DRINKS;
+
+        Map<UUID, Integer> made = new ConcurrentHashMap<>();
+        AtomicInteger wrongCategory = new AtomicInteger();
+
+        List<Set<ItemCategory>> baristas = List.of(
+                Set.of(ItemCategory.HOTDRINK), Set.of(ItemCategory.HOTDRINK),
+                Set.of(ItemCategory.SOFTDRINK), Set.of(ItemCategory.SOFTDRINK),
+                Set.of());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> consumers = new ArrayList<>();
+
+            for (Set<ItemCategory> categories : baristas) {
+                Dispatcher<Map.Entry<Waiter, DrinkItem>>.Worker queue = drinkList.register(categories);
+
+                consumers.add(executor.submit(() -> {
+                    while (made.size() < total) {
+                        Dispatcher.Task<Map.Entry<Waiter, DrinkItem>> task = queue.take(50, TimeUnit.MILLISECONDS);
+                        if (task == null) continue;
+
+                        DrinkItem drink = task.getItem().getValue();
+                        if (!categories.isEmpty() && !categories.contains(menu.getCategory(drink.drinkItem()))) wrongCategory.incrementAndGet();
+
+                        made.merge(drink.orderID(), 1, Integer::sum);
+                        task.complete();
+                    }
+                    return null;
+                }));
+            }
+
+            for (int w = 0; w < WAITERS; w++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < DRINKS; i++) {
+                        DrinkItem drink = new DrinkItem(UUID.randomUUID(), itemIDs[i % itemIDs.length], null);
+                        assertTrue(drinkList.add(new AbstractMap.SimpleEntry<>(null, drink)));
+                        assertTrue(drinkList.size() <= 8);
+                    }
+                });
+            }
+
+            for (Future<?> consumer : consumers) consumer.get(30, TimeUnit.SECONDS);
+        }
+
+        assertEquals(total, made.size());
+        assertTrue(made.values().stream().allMatch(count -> count == 1));
+        assertEquals(0, wrongCategory.get());
+        assertEquals(0, drinkList.size());
+        assertEquals(total, drinkList.getDispatcher().getMetrics().getServiceTime().getCount());
+    }
+
+    /**
+     * Tests no drink is lost or made twice while baristas are removed part way through making one
+     * The drink a removed barista was making is either finished by that barista or given back to the list, never both
+     */
+    @RepeatedTest(value = 10, failureThreshold = 1)
+    void testNoDrinkLostOrDuplicatedWhileRemovingBaristas() throws Exception {
+        StaffList.resetInstance();
+        int total = 120;
+
+        // Room for every drink, so a drink given back never waits for a barista that has been removed
+        DrinkList.resetInstance(total);
+        drinkList = DrinkList.getInstance();
+
+        Map<UUID, Integer> made = new ConcurrentHashMap<>();
+        Waiter waiter = new Waiter("Counter", 1, null) {
+            @Override
+            public void addItem(UUID orderID, String item) {
+                made.merge(orderID, 1, Integer::sum);
+            }
+        };
+
+        Deque<Barista> baristas = new ArrayDeque<>();
+        for (int i = 0; i < 4; i++) baristas.add(startBarista(i));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> {
+                for (int i = 0; i < total; i++) {
+                    DrinkItem drink = new DrinkItem(UUID.randomUUID(), i % 2 == 0 ? "HD1" : "SD1", null);
+                    assertTrue(drinkList.add(new AbstractMap.SimpleEntry<>(waiter, drink)));
+                }
+            });
+
+            // Each barista takes 20ms over a drink, so most are removed while making one
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            for (int i = baristas.size(); made.size() < total && System.nanoTime() < deadline; i++) {
+                Thread.sleep(7);
+                baristas.removeFirst().removeStaff();
+                baristas.addLast(startBarista(i));
+            }
+        } finally {
+            for (Barista barista : baristas) barista.removeStaff();
+            waiter.removeStaff();
+        }
+
+        // A drink made twice would be counted after the last one is made
+        Thread.sleep(50);
+
+        assertEquals(total, made.size());
+        assertTrue(made.values().stream().allMatch(count -> count == 1), "A drink was made more than once");
+        assertEquals(0, drinkList.size());
+    }
+
+    /**
+     * Starts a barista that makes every category of drink, taking 20ms over each
+     *
+     * @param number used to name the barista
+     * @return the barista
+     */
+    private static Barista startBarista(int number) {
+        Barista barista = new Barista("Barista " + number, 5);
+        barista.setDefaultDelay(100);
+        barista.start();
+        return barista;
+    }
+
+    /**
+     * Tests a drink can be taken without registering, waiting for one to be added
+     */
+    @Test
+    void testPoll() throws Exception {
+        assertNull(drinkList.poll(10, TimeUnit.MILLISECONDS));
+
+        DrinkItem drink = new DrinkItem(UUID.randomUUID(), "HD1", null);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Map.Entry<Waiter, DrinkItem>> taken = executor.submit(() -> drinkList.poll(5, TimeUnit.SECONDS));
+
+            Thread.sleep(50);
+            drinkList.add(new AbstractMap.SimpleEntry<>(null, drink));
+
+            assertEquals(drink, taken.get(5, TimeUnit.SECONDS).getValue());
+        }
+
+        assertNull(drinkList.remove());
+        assertEquals(0, drinkList.size(ItemCategory.HOTDRINK));
+    }
+}
@@ -2,14 +2,16 @@ package order;
 
 import item.*;
 import org.junit.jupiter.api.BeforeAll;
-import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
-import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -77,4 +79,40 @@ public class OrderFileReadWriteTest {
                 orders.getOrderList().element().getOrderID(),
                 "Check the first OrderID of each element is identical");
     }
+
+    /**
+     * Tests each line that is not a valid order is skipped on its own and the lines after it are still read
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Test
+    void testSkipsBadLines(@TempDir Path dir) throws IOException {
+        String first = UUID.randomUUID() + "," + UUID.randomUUID() + ",Jane,2025-04-04T23:13:45.514,RL2;SD4,true,";
+        String last = UUID.randomUUID() + "," + UUID.randomUUID() + ",John,2025-04-05T10:00:00,FD3,false";
+
+        Path file = dir.resolve("orders.txt");
+        Files.write(file, List.of(
+                first,
+                "not a UUID," + UUID.randomUUID() + ",Jane,2025-04-04T23:13:45,RL2,true,",
+                UUID.randomUUID() + "," + UUID.randomUUID() + ",Jane,yesterday,RL2,true,",
+                "",
+                UUID.randomUUID() + "," + UUID.randomUUID() + ",Jane,2025-04-04T23:13:45",
+                last));
+
+        List<Order> orders = new ArrayList<>();
+        OrderFileReadWrite.LoadResult result = new OrderFileReadWrite(file).forEachOrder(orders::add);
+
+        assertEquals(new OrderFileReadWrite.LoadResult(2, 3), result);
+        assertEquals(List.of("RL2", "SD4"), orders.get(0).getDetails());
+        assertEquals("John", orders.get(1).getCustomerName());
+        assertFalse(orders.get(1).getOnlineStatus());
+    }
+
+    /**
+     * Tests reading a file that does not exist fails rather than reading nothing
+     */
+    @Test
+    void testMissingFile(@TempDir Path dir) {
+        assertThrows(FileNotFoundException.class, () -> new OrderFileReadWrite(dir.resolve("missing.txt")).readOrders());
+    }
 }
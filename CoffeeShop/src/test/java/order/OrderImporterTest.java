@@ -0,0 +1,79 @@
+package order;
+
+import item.ItemList;
+import item.SetupItemFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the OrderImporter
+ * Small chunks are used so lines are split between many chunks parsed on several threads
+ */
+public class OrderImporterTest {
+    private ItemList menu;
+
+    private OrderList orderList;
+
+    @BeforeEach
+    void setUp() {
+        menu = SetupItemFile.generateItemList();
+        OrderList.resetInstance();
+        orderList = OrderList.getInstance();
+    }
+
+    /**
+     * Tests orders are added in file order, with bad lines and repeated orders skipped
+     */
+    @Test
+    void testImportsInFileOrder(@TempDir Path dir) throws IOException {
+        List<String> lines = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        String[] itemIDs = { "RL2", "SD4", "FD3;HD1", "PSY2;SCK4;HD5" };
+
+        for (int i = 0; i < 500; i++) {
+            String orderID = UUID.randomUUID().toString();
+            lines.add(orderID + "," + UUID.randomUUID() + ",Jane,2025-04-04T23:13:45.514," + itemIDs[i % itemIDs.length] + "," + (i % 2 == 0) + ",");
+            expected.add(orderID);
+
+            if (i % 100 == 50) lines.add("not an order");
+            if (i % 100 == 75) lines.add(lines.get(lines.size() - 2));
+        }
+
+        Path file = dir.resolve("history.txt");
+        Files.write(file, lines);
+
+        OrderImporter.ImportResult result = new OrderImporter(file, menu, 4, 97).importOrders(orderList);
+
+        assertEquals(new OrderImporter.ImportResult(500, 5, 5), result);
+
+        String[] imported = orderList.getOrdersToString(false);
+        for (int i = 0; i < expected.size(); i++) assertTrue(imported[i].startsWith(expected.get(i)), "Order " + i);
+    }
+
+    /**
+     * Tests orders already in the OrderList are not imported again
+     */
+    @Test
+    void testSkipsOrdersAlreadyInList(@TempDir Path dir) throws Exception {
+        Order existing = new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                LocalDateTime.now(), new ArrayList<>(List.of("RL2")), menu, false);
+        orderList.add(existing);
+
+        Path file = dir.resolve("history.txt");
+        Files.write(file, List.of(existing.getOrderID() + "," + existing.getCustomerID() + ",Jane,2025-04-04T23:13:45,RL2,false,"));
+
+        assertEquals(new OrderImporter.ImportResult(0, 0, 1), new OrderImporter(file, menu, 2).importOrders(orderList));
+        assertThrows(IllegalArgumentException.class, () -> new OrderImporter(file, menu, 0));
+    }
+}
@@ -9,8 +9,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Tag;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -368,6 +371,34 @@ public class OrderListTest {
         }
     }
 
+    /**
+     * Tests adding a batch of orders, where invalid, duplicate and overflowing orders are turned down and the rest are queued in order
+     */
+    @Test
+    void testAddAll() throws Exception {
+        OrderList.resetInstance();
+        orderList = OrderList.getInstance();
+        orderList.setMaxQueueSize(3);
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Order o = new Order();
+            o.addItem("RL1");
+            orders.add(o);
+        }
+
+        orders.add(1, new Order());
+        orders.add(2, orders.getFirst());
+
+        assertArrayEquals(new boolean[] { true, false, false, true, true, false }, orderList.addAll(orders));
+        assertEquals(3, orderList.getQueueSize(false));
+        assertEquals(orders.getFirst(), orderList.getOrder(false));
+
+        // The order turned down because the queue was full can be added once there is room
+        assertTrue(orderList.remove(orders.getFirst().getOrderID()));
+        assertArrayEquals(new boolean[] { true }, orderList.addAll(List.of(orders.getLast())));
+    }
+
     /**
      * Tests adding online orders
      */
@@ -407,4 +438,102 @@ public class OrderListTest {
         }
     }
 
+    /**
+     * Tests an order taken by a waiter is tracked as in progress and can be put back in the queue
+     */
+    @Test
+    void testTakeAndRequeue() throws Exception {
+        OrderList.resetInstance();
+        orderList = OrderList.getInstance();
+
+        Order o = new Order();
+        o.addItem("RL1");
+        o.addItem("HD1");
+        assertTrue(orderList.add(o));
+
+        assertEquals(o, orderList.take(1, 10, TimeUnit.MILLISECONDS));
+
+        // The order is no longer waiting in the queue but is still known to the OrderList
+        assertThrows(InvalidOrderException.class, () -> orderList.getOrder(o.getOrderID()));
+        assertThrows(DuplicateOrderException.class, () -> orderList.add(o));
+
+        assertTrue(orderList.requeue(o));
+        assertFalse(orderList.requeue(o));
+        assertEquals(o, orderList.getOrder(o.getOrderID()));
+        assertEquals(1, orderList.getQueueSize(false));
+
+        assertTrue(orderList.remove(o.getOrderID()));
+        assertEquals(0, orderList.getQueueSize(false));
+        assertNull(orderList.take(1, 10, TimeUnit.MILLISECONDS));
+        assertThrows(DuplicateOrderException.class, () -> orderList.add(o));
+    }
+
+    /**
+     * Tests completed orders moved out of memory are still reported and still detected as duplicates
+     */
+    @Test
+    void testCompletedWindow() throws Exception {
+        OrderList.resetInstance();
+        orderList = OrderList.getInstance();
+        orderList.setCompletedWindowSize(1);
+
+        Order first = new Order();
+        first.addItem("RL1");
+        orderList.add(first);
+
+        Order second = new Order();
+        second.addItem("HD1");
+        second.getCustomer().setName("Fraser");
+        orderList.add(second);
+
+        orderList.remove(first.getOrderID());
+        orderList.remove(second.getOrderID());
+
+        assertEquals(2, orderList.getCompletedOrderCount());
+        assertEquals(2, orderList.getOrdersToString(true).length);
+        assertEquals(2, orderList.orderIDsToString(true).length);
+        assertEquals(first.getOrderID() + "," + first.getCustomerID(), orderList.orderIDsToString(true)[0]);
+
+        // Only the most recent completed order is kept for display
+        assertEquals(1, orderList.getOrdersForDisplay(2).split("\n").length);
+        assertTrue(orderList.getOrdersForDisplay(2).startsWith("Fraser"));
+
+        assertThrows(DuplicateOrderException.class, () -> orderList.add(first));
+        assertEquals(2.0, orderList.completedOrderItemCount().get("num-orders"));
+    }
+
+    /**
+     * Tests completed orders are removed from the index once they are moved out of memory,
+     * and are still detected as duplicates afterwards
+     */
+    @Test
+    void testCompletedOrdersLeaveIndex() throws Exception {
+        OrderList.resetInstance();
+        orderList = OrderList.getInstance();
+        orderList.setCompletedWindowSize(10);
+
+        List<Order> orders = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            Order order = new Order();
+            order.addItem("RL1");
+            orderList.add(order);
+            orders.add(order);
+
+            assertTrue(orderList.remove(order.getOrderID()));
+        }
+
+        assertEquals(200, orderList.getCompletedOrderCount());
+        assertEquals(10, orderList.getIndexSize());
+
+        for (Order order : orders) {
+            assertThrows(DuplicateOrderException.class, () -> orderList.add(order));
+            assertThrows(DuplicateOrderException.class, () -> orderList.addSimulation(order));
+        }
+
+        assertFalse(orderList.addAll(orders.subList(0, 20))[0]);
+
+        orderList.setCompletedWindowSize(0);
+        assertEquals(0, orderList.getIndexSize());
+    }
 }
@@ -0,0 +1,241 @@
+package order;
+
+import exceptions.InvalidOrderException;
+import item.SetupItemFile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the OrderQueue engine behind OrderList
+ * Includes a multi producer / multi consumer stress test that reports throughput for increasing thread counts
+ */
+public class OrderQueueTest {
+    /** Number of orders pushed through the queue in each stress run */
+    private static final int ORDERS_PER_RUN = 20000;
+
+    /** Orders are created once as building them is not what is being measured */
+    private static List<Order> orders;
+
+    @BeforeAll
+    static void setUp() throws InvalidOrderException {
+        SetupItemFile.generateItemList();
+
+        orders = new ArrayList<>(ORDERS_PER_RUN);
+
+        for (int i = 0; i < ORDERS_PER_RUN; i++) {
+            Order o = new Order();
+            if (i % 2 == 0) o.setOnlineStatus();
+            orders.add(o);
+        }
+    }
+
+    /**
+     * Tests orders are routed to the correct shard and the sizes are tracked
+     */
+    @Test
+    void testShardsAndSizes() {
+        OrderQueue queue = new OrderQueue();
+        OrderIndex index = new OrderIndex();
+
+        assertTrue(queue.offer(index.register(orders.get(0)), 10));
+        assertTrue(queue.offer(index.register(orders.get(1)), 10));
+        assertTrue(queue.offer(index.register(orders.get(3)), 10));
+
+        assertEquals(1, queue.size(true));
+        assertEquals(2, queue.size(false));
+        assertEquals(3, queue.size());
+
+        assertEquals(orders.get(0), queue.peek(true));
+        assertEquals(orders.get(1), queue.poll(false));
+        assertEquals(2, queue.size());
+    }
+
+    /**
+     * Tests the max queue size is enforced
+     */
+    @Test
+    void testMaxSize() {
+        OrderQueue queue = new OrderQueue();
+        OrderIndex index = new OrderIndex();
+
+        assertTrue(queue.offer(index.register(orders.get(0)), 2));
+        assertTrue(queue.offer(index.register(orders.get(1)), 2));
+        OrderIndex.Entry third = index.register(orders.get(2));
+        assertFalse(queue.offer(third, 2));
+
+        queue.poll(true);
+
+        assertTrue(queue.offer(third, 2));
+    }
+
+    /**
+     * Tests take returns null once the timeout expires on an empty queue
+     */
+    @Test
+    void testTakeTimesOut() throws InterruptedException {
+        OrderQueue queue = new OrderQueue();
+
+        long start = System.nanoTime();
+        assertNull(queue.take(1, 50, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    /**
+     * Tests a blocked consumer is woken when an order is added
+     */
+    @Test
+    void testTakeWakesOnOffer() throws Exception {
+        OrderQueue queue = new OrderQueue();
+        OrderIndex index = new OrderIndex();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<Order> taken = executor.submit(() -> queue.take(1, 5, TimeUnit.SECONDS));
+
+        Thread.sleep(50);
+        queue.offer(index.register(orders.get(0)), 10);
+
+        assertEquals(orders.get(0), taken.get(1, TimeUnit.SECONDS));
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tests removing an order by ID leaves no stale permit behind for consumers to spin on
+     */
+    @Test
+    void testRemoveByID() throws InterruptedException {
+        OrderQueue queue = new OrderQueue();
+        OrderIndex index = new OrderIndex();
+
+        queue.offer(index.register(orders.get(0)), 10);
+        queue.offer(index.register(orders.get(1)), 10);
+
+        assertTrue(queue.remove(index.get(orders.get(0).getOrderID())));
+        assertFalse(queue.remove(index.get(orders.get(0).getOrderID())));
+        assertEquals(OrderState.COMPLETE, index.get(orders.get(0).getOrderID()).getState());
+        assertNull(queue.peek(true));
+
+        assertEquals(orders.get(1), queue.take(1, 10, TimeUnit.MILLISECONDS));
+        assertNull(queue.take(1, 10, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.size());
+    }
+
+    /**
+     * Tests a taken order is marked in progress and can be put back at the front of its shard
+     */
+    @Test
+    void testClaimAndRequeue() throws InterruptedException {
+        OrderQueue queue = new OrderQueue();
+        OrderIndex index = new OrderIndex();
+
+        queue.offer(index.register(orders.get(1)), 10);
+        queue.offer(index.register(orders.get(3)), 10);
+
+        Order taken = queue.take(1, 10, TimeUnit.MILLISECONDS);
+        OrderIndex.Entry entry = index.get(taken.getOrderID());
+
+        assertEquals(OrderState.IN_PROGRESS, entry.getState());
+        assertFalse(queue.remove(entry), "An order in progress cannot be removed from the queue");
+
+        assertTrue(entry.transition(OrderState.IN_PROGRESS, OrderState.PENDING));
+        queue.requeue(entry);
+
+        assertEquals(2, queue.size());
+        assertEquals(taken, queue.peek(false));
+    }
+
+    /**
+     * Tests the priority rule used by waiters to pick between the in person and online shard
+     */
+    @Test
+    void testTakePriority() throws InterruptedException {
+        OrderQueue queue = new OrderQueue();
+        OrderIndex index = new OrderIndex();
+
+        queue.offer(index.register(orders.get(0)), 10); // online
+        queue.offer(index.register(orders.get(1)), 10); // in person
+        queue.offer(index.register(orders.get(3)), 10); // in person
+
+        // 2 * 0.8 > 1 so the in person shard is chosen
+        assertFalse(queue.take(0.8, 10, TimeUnit.MILLISECONDS).getOnlineStatus());
+        // 1 * 0.8 > 1 is false so the online shard is chosen
+        assertTrue(queue.take(0.8, 10, TimeUnit.MILLISECONDS).getOnlineStatus());
+        // online shard is empty so it falls back to the in person shard
+        assertFalse(queue.take(0.8, 10, TimeUnit.MILLISECONDS).getOnlineStatus());
+    }
+
+    /**
+     * Stress test with producers and consumers running at the same time
+     * Every order must be taken exactly once, throughput is printed for each thread count
+     */
+    @Test
+    void testConcurrentProducersAndConsumers() throws Exception {
+        for (int threads : new int[] {1, 2, 4, 8}) {
+            double throughput = runStress(threads);
+            System.out.printf("OrderQueue %d producers / %d consumers : %.0f orders/sec%n", threads, threads, throughput);
+        }
+    }
+
+    /**
+     * Pushes every order through a fresh queue using the given number of producers and consumers
+     *
+     * @param threads the number of producer threads and the number of consumer threads
+     * @return orders per second
+     */
+    private double runStress(int threads) throws Exception {
+        OrderQueue queue = new OrderQueue();
+        OrderIndex index = new OrderIndex();
+        ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        Set<UUID> taken = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(ORDERS_PER_RUN);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int p = 0; p < threads; p++) {
+            int producer = p;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = producer; i < ORDERS_PER_RUN; i += threads) {
+                    // A bounded queue means producers back off when the consumers fall behind
+                    OrderIndex.Entry entry = index.register(orders.get(i));
+                    while (!queue.offer(entry, 256)) Thread.onSpinWait();
+                }
+                return null;
+            }));
+        }
+
+        for (int c = 0; c < threads; c++) {
+            double priority = 0.5 + c;
+            futures.add(executor.submit(() -> {
+                start.await();
+                while (remaining.get() > 0) {
+                    Order o = queue.take(priority, 10, TimeUnit.MILLISECONDS);
+                    if (o == null) continue;
+                    if (!taken.add(o.getOrderID())) duplicates.incrementAndGet();
+                    remaining.decrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdownNow();
+
+        assertEquals(0, duplicates.get(), "No order should be taken twice");
+        assertEquals(ORDERS_PER_RUN, taken.size(), "Every order should be taken");
+        assertEquals(0, queue.size());
+
+        return ORDERS_PER_RUN / (elapsed / 1e9);
+    }
+}
@@ -7,6 +7,12 @@ import item.SetupItemFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -220,4 +226,89 @@ public class OrderTest {
             System.out.println(e.getMessage());
         }
     }
+
+    /**
+     * Tests an order records the menu version it was priced against and keeps its prices when the menu changes
+     */
+    @Test
+    public void testMenuVersion() throws InvalidItemIDException {
+        long version = itemList.getVersion();
+        assertEquals(version, order.getMenuVersion());
+
+        order.addItem("RL1");
+        assertEquals(version, order.getMenuVersion());
+
+        itemList.setCost("RL1", 10.0);
+        try {
+            assertEquals(3.0, order.getTotalCost(), 0.001);
+
+            order.addItem("RL1");
+            assertEquals(version + 1, order.getMenuVersion());
+            assertEquals(13.0, order.getTotalCost(), 0.001);
+        } finally {
+            itemList.setCost("RL1", 3.0);
+        }
+    }
+
+    /**
+     * Tests the order details are a read-only view that follows the items in the order
+     */
+    @Test
+    public void testDetailsView() throws InvalidItemIDException {
+        List<String> details = order.getDetails();
+
+        order.addItem("RL1");
+        order.addItem("HD1");
+        assertEquals(List.of("RL1", "HD1"), details);
+        assertThrows(UnsupportedOperationException.class, () -> details.add("SD1"));
+
+        order.removeItem("RL1");
+        assertEquals(List.of("HD1"), details);
+        assertFalse(order.removeItem("XX99"));
+    }
+
+    /**
+     * Tests an order read from file keeps its timestamp to the millisecond, and its customer's name
+     */
+    @Test
+    public void testTimestampAndCustomer() throws InvalidOrderException {
+        LocalDateTime timestamp = LocalDateTime.of(2025, 3, 1, 9, 30, 15, 123_456_789);
+        Order read = new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Fraser",
+                timestamp, new ArrayList<>(List.of("RL1", "SD1")), itemList, false);
+
+        assertEquals(LocalDateTime.of(2025, 3, 1, 9, 30, 15, 123_000_000), read.getTimestamp());
+        assertEquals("Fraser", read.getCustomerName());
+
+        read.getCustomer().setName("Alex");
+        assertEquals("Alex", read.getCustomerName());
+        assertSame(read.getCustomer(), read.getCustomer());
+    }
+
+    /**
+     * Tests a serialized order has the same items and costs when it is read back
+     */
+    @Test
+    public void testSerialization() throws Exception {
+        order.addItem("RL1");
+        order.addItem("HD1");
+        order.addItem("SD1");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(order);
+        }
+
+        Order copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (Order) in.readObject();
+        }
+
+        assertEquals(order.getDetails(), copy.getDetails());
+        assertEquals(order.getTimestamp(), copy.getTimestamp());
+        assertEquals(order.getTotalCost(), copy.getTotalCost());
+        assertEquals(order.getDiscountedCost(), copy.getDiscountedCost());
+
+        copy.removeItem("HD1");
+        assertEquals(List.of("RL1", "SD1"), copy.getDetails());
+    }
 }
@@ -0,0 +1,256 @@
+package order;
+
+import interfaces.SchedulingPolicy;
+import item.ItemCategory;
+import item.ItemList;
+import item.SetupItemFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the scheduling policies the waiters use to pick the next order
+ */
+public class SchedulingPolicyTest {
+    private ItemList menu;
+
+    private OrderQueue queue;
+
+    private OrderIndex index;
+
+    @BeforeEach
+    void setUp() {
+        menu = SetupItemFile.generateItemList();
+        queue = new OrderQueue();
+        index = new OrderIndex();
+    }
+
+    /**
+     * Tests the default policy is the rule the waiters have always used
+     */
+    @Test
+    void testChannelPriority() throws Exception {
+        offer(order(true, 0, "HD1"));
+        offer(order(false, 0, "HD1"));
+        offer(order(false, 0, "HD1"));
+
+        SchedulingPolicy policy = new ChannelPriorityPolicy();
+
+        // 2 * 0.8 > 1 so the in person queue is chosen, then 1 * 0.8 > 1 is false so the online queue is chosen
+        assertFalse(take(policy, 0.8).getOnlineStatus());
+        assertTrue(take(policy, 0.8).getOnlineStatus());
+        assertFalse(take(policy, 0.8).getOnlineStatus());
+        assertNull(take(policy, 0.8));
+    }
+
+    /**
+     * Tests each queue is given work in proportion to its weight, counting each item of an order
+     */
+    @Test
+    void testWeightedFair() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            offer(order(false, 0, "HD1"));
+            offer(order(true, 0, "HD1"));
+        }
+
+        SchedulingPolicy policy = new WeightedFairPolicy(2, 1);
+        assertEquals(List.of(false, false, true, false, false, true), channels(policy, 6));
+
+        queue = new OrderQueue();
+        for (int i = 0; i < 4; i++) {
+            offer(order(false, 0, "HD1"));
+            offer(order(true, 0, "HD1", "SD1"));
+        }
+
+        // An online order is twice the work so with equal weights it is taken half as often
+        policy = new WeightedFairPolicy();
+        assertEquals(List.of(false, false, true, false, false, true), channels(policy, 6));
+
+        assertThrows(IllegalArgumentException.class, () -> new WeightedFairPolicy(0, 1));
+    }
+
+    /**
+     * Tests a queue that was empty is not owed the work it missed
+     */
+    @Test
+    void testWeightedFairIdleQueue() throws Exception {
+        SchedulingPolicy policy = new WeightedFairPolicy();
+
+        for (int i = 0; i < 4; i++) offer(order(false, 0, "HD1"));
+        assertEquals(List.of(false, false), channels(policy, 2));
+
+        for (int i = 0; i < 2; i++) offer(order(true, 0, "HD1"));
+        assertEquals(List.of(false, true, false, true), channels(policy, 4));
+    }
+
+    /**
+     * Tests the order due soonest is taken, where in person orders are due sooner after being placed
+     */
+    @Test
+    void testEarliestDeadline() throws Exception {
+        Order recentInPerson = offer(order(false, 1, "HD1"));
+        Order recentOnline = offer(order(true, 5, "HD1"));
+        Order oldOnline = offer(order(true, 20, "HD1"));
+
+        EarliestDeadlinePolicy policy = new EarliestDeadlinePolicy();
+
+        assertEquals(oldOnline.getTimestamp().plus(EarliestDeadlinePolicy.DEFAULT_ONLINE_SLA), policy.getDeadline(oldOnline));
+        assertEquals(oldOnline, take(policy, 1));
+        assertEquals(recentInPerson, take(policy, 1));
+        assertEquals(recentOnline, take(policy, 1));
+
+        // With a longer in person service level the online order is due first
+        policy = new EarliestDeadlinePolicy(Duration.ofMinutes(30), Duration.ofMinutes(1));
+        offer(recentInPerson = order(false, 1, "HD1"));
+        offer(recentOnline = order(true, 5, "HD1"));
+
+        assertEquals(recentOnline, take(policy, 1));
+        assertEquals(recentInPerson, take(policy, 1));
+    }
+
+    /**
+     * Tests the order quickest to prepare is taken from anywhere in either queue
+     */
+    @Test
+    void testShortestJob() throws Exception {
+        Order large = offer(order(false, 3, "HD1", "SD1", "FD1"));
+        Order small = offer(order(true, 2, "HD1"));
+        Order medium = offer(order(false, 1, "HD1", "SD1"));
+        Order olderSmall = offer(order(false, 4, "SD1"));
+
+        ShortestJobPolicy policy = new ShortestJobPolicy();
+
+        assertEquals(olderSmall, take(policy, 1));
+        assertEquals(small, take(policy, 1));
+        assertEquals(medium, take(policy, 1));
+        assertEquals(large, take(policy, 1));
+        assertEquals(0, queue.size());
+
+        // Hot drinks are estimated to take much longer than anything else
+        policy = new ShortestJobPolicy(Map.of(ItemCategory.HOTDRINK, 5.0));
+        Order hotDrink = order(false, 0, "HD1");
+        Order food = order(false, 0, "FD1", "FD2", "RL1");
+
+        assertEquals(5, policy.estimatePrepTime(hotDrink));
+        assertEquals(3, policy.estimatePrepTime(food));
+
+        offer(hotDrink);
+        offer(food);
+        assertEquals(food, take(policy, 1));
+    }
+
+    /**
+     * Tests an order taken from the middle of a queue is unlinked, so putting it back does not leave it in the queue twice
+     */
+    @Test
+    void testTakeFromMiddleAndRequeue() throws Exception {
+        Order first = offer(order(false, 0, "HD1", "SD1"));
+        Order removed = offer(order(false, 0, "HD1", "SD1"));
+        Order small = offer(order(false, 0, "HD1"));
+        offer(order(false, 0, "HD1", "SD1"));
+
+        assertTrue(queue.remove(index.get(removed.getOrderID())));
+        assertEquals(small, take(new ShortestJobPolicy(), 1));
+        assertEquals(2, queue.size(false));
+
+        OrderIndex.Entry entry = index.get(small.getOrderID());
+        assertTrue(entry.transition(OrderState.IN_PROGRESS, OrderState.PENDING));
+        queue.requeue(entry);
+
+        assertEquals(3, queue.shard(false).size());
+        assertEquals(small, queue.peek(false));
+        assertEquals(small, take(new ChannelPriorityPolicy(), 1));
+        assertEquals(first, take(new ChannelPriorityPolicy(), 1));
+    }
+
+    /**
+     * Tests the policy used by the OrderList can be changed and every completed order's latency is recorded
+     */
+    @Test
+    void testOrderListPolicy() throws Exception {
+        OrderList.resetInstance();
+        OrderList orderList = OrderList.getInstance();
+
+        assertEquals(ChannelPriorityPolicy.NAME, orderList.getSchedulingPolicy().getName());
+
+        orderList.add(order(false, 0, "HD1", "SD1"));
+        Order small = order(false, 0, "HD1");
+        orderList.add(small);
+
+        orderList.setSchedulingPolicy(SchedulingPolicyFactory.getPolicy("shortest job"));
+        Order taken = orderList.take(1, 10, TimeUnit.MILLISECONDS);
+        assertEquals(small, taken);
+
+        orderList.completeOrder(taken);
+        assertEquals(1, orderList.getOrderLatency().getCount());
+    }
+
+    /**
+     * Tests the factory creates every policy by name
+     */
+    @Test
+    void testFactory() {
+        for (String name : SchedulingPolicyFactory.POLICIES) {
+            assertEquals(name, SchedulingPolicyFactory.getPolicy(name).getName());
+        }
+
+        assertEquals(ChannelPriorityPolicy.NAME, SchedulingPolicyFactory.POLICIES.getFirst());
+        assertNull(SchedulingPolicyFactory.getPolicy("random"));
+    }
+
+    /**
+     * Creates an order
+     *
+     * @param online whether the order is online
+     * @param minutesAgo how long ago the order was placed
+     * @param items the item IDs
+     * @return the order
+     */
+    private Order order(boolean online, int minutesAgo, String... items) throws Exception {
+        return new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                LocalDateTime.now().minusMinutes(minutesAgo), new ArrayList<>(List.of(items)), menu, online);
+    }
+
+    /**
+     * Adds an order to the queue
+     *
+     * @param order the order
+     * @return the order
+     */
+    private Order offer(Order order) {
+        assertTrue(queue.offer(index.register(order), 100));
+        return order;
+    }
+
+    /**
+     * Takes the next order without waiting
+     *
+     * @param policy the policy picking the order
+     * @param priority the waiter priority
+     * @return the order, null if the queue is empty
+     */
+    private Order take(SchedulingPolicy policy, double priority) throws InterruptedException {
+        return queue.take(policy, priority, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes orders, returning whether each one was online
+     *
+     * @param policy the policy picking the orders
+     * @param count how many orders to take
+     * @return whether each order taken was online
+     */
+    private List<Boolean> channels(SchedulingPolicy policy, int count) throws InterruptedException {
+        List<Boolean> channels = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) channels.add(take(policy, 1).getOnlineStatus());
+
+        return channels;
+    }
+}
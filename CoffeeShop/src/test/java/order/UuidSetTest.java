@@ -0,0 +1,54 @@
+package order;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the UuidSet used to remember the IDs of completed orders
+ */
+public class UuidSetTest {
+    /**
+     * Tests IDs are still found after the table has grown many times
+     */
+    @Test
+    void testAddAndContains() {
+        UuidSet set = new UuidSet();
+        List<UUID> ids = new ArrayList<>();
+
+        for (int i = 0; i < 10000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            assertTrue(set.add(id));
+        }
+
+        assertEquals(10000, set.size());
+
+        for (UUID id : ids) {
+            assertTrue(set.contains(id));
+            assertFalse(set.add(id));
+        }
+
+        assertFalse(set.contains(UUID.randomUUID()));
+        assertEquals(10000, set.size());
+    }
+
+    /**
+     * Tests the all zero ID is held apart from the empty slots
+     */
+    @Test
+    void testZeroID() {
+        UuidSet set = new UuidSet();
+        UUID zero = new UUID(0, 0);
+
+        assertFalse(set.contains(zero));
+        assertTrue(set.add(zero));
+        assertTrue(set.contains(zero));
+        assertFalse(set.add(zero));
+        assertEquals(1, set.size());
+    }
+}
@@ -0,0 +1,275 @@
+package protocol;
+
+import feed.Change;
+import feed.Delta;
+import feed.OrderSummary;
+import item.Item;
+import item.ItemCategory;
+import item.ItemList;
+import item.SetupItemFile;
+import message.Message;
+import message.MessageContent;
+import message.MessageType;
+import order.Order;
+import order.OrderState;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the BinaryCodec
+ * Orders, messages and menus are written and read back and must come back the same
+ */
+public class BinaryCodecTest {
+    private static ItemList menu;
+
+    private static ItemCodes codes;
+
+    @BeforeAll
+    static void setUp() {
+        menu = SetupItemFile.generateItemList();
+        codes = new ItemCodes(List.of(menu.getItemIDs()));
+    }
+
+    /**
+     * Tests an order comes back with the same IDs, items, timestamp and costs
+     */
+    @Test
+    void testOrderRoundTrip() throws Exception {
+        Order order = createOrder("Jane", "HD1", "PSY1", "RL1", "HD1", "SCK1");
+
+        Order decoded = BinaryCodec.decodeOrder(BinaryCodec.encodeOrder(order, codes), codes, menu);
+
+        assertEquals(order.getOrderID(), decoded.getOrderID());
+        assertEquals(order.getCustomerID(), decoded.getCustomerID());
+        assertEquals(order.getCustomerName(), decoded.getCustomerName());
+        assertEquals(order.getTimestamp(), decoded.getTimestamp());
+        assertEquals(order.getDetails(), decoded.getDetails());
+        assertEquals(order.getOnlineStatus(), decoded.getOnlineStatus());
+        assertEquals(order.getTotalCost(), decoded.getTotalCost());
+        assertEquals(order.getDiscountedCost(), decoded.getDiscountedCost());
+    }
+
+    /**
+     * Tests an order is a small fraction of the size of the same order sent with Java serialization
+     */
+    @Test
+    void testOrderIsSmaller() throws Exception {
+        Order order = createOrder("Jane", "HD1", "PSY1", "RL1");
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(order);
+        }
+
+        int binary = BinaryCodec.encodeOrder(order, codes).length;
+
+        assertTrue(binary * 10 < serialized.size(), binary + " bytes against " + serialized.size());
+    }
+
+    /**
+     * Tests an order without a customer name can be sent
+     */
+    @Test
+    void testOrderWithoutName() throws Exception {
+        Order order = createOrder(null);
+
+        Order decoded = BinaryCodec.decodeOrder(BinaryCodec.encodeOrder(order, codes), codes, menu);
+
+        assertNull(decoded.getCustomerName());
+        assertTrue(decoded.getDetails().isEmpty());
+    }
+
+    /**
+     * Tests an order made from a different menu is rejected
+     */
+    @Test
+    void testDifferentMenu() throws Exception {
+        Order order = createOrder("Jane", "HD1");
+        ItemCodes other = new ItemCodes(List.of("HD1", "RL1"));
+
+        byte[] bytes = BinaryCodec.encodeOrder(order, other);
+
+        assertThrows(InvalidObjectException.class, () -> BinaryCodec.decodeOrder(bytes, codes, menu));
+        assertThrows(IOException.class, () -> BinaryCodec.encodeOrder(createOrder("Jane", "FD1"), other));
+    }
+
+    /**
+     * Tests a message comes back the same
+     */
+    @Test
+    void testMessageRoundTrip() throws Exception {
+        Message message = new Message(UUID.randomUUID(), UUID.randomUUID(),
+                MessageContent.fromMessageType(MessageType.ORDER_COMPLETE), MessageType.ORDER_COMPLETE);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.writeMessage(new DataOutputStream(bytes), message);
+
+        assertEquals(message, BinaryCodec.readMessage(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    /**
+     * Tests a menu comes back with the same items in the same order
+     */
+    @Test
+    void testMenuRoundTrip() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.writeMenu(new DataOutputStream(bytes), menu.getMenu().values());
+
+        MenuSnapshot snapshot = BinaryCodec.readMenu(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(List.of(menu.getItemIDs()), List.copyOf(snapshot.toMap().keySet()));
+        assertEquals(codes.getFingerprint(), snapshot.codes().getFingerprint());
+
+        for (Item item : snapshot.items()) {
+            assertEquals(menu.getCategory(item.getItemID()), item.getCategory());
+            assertEquals(menu.getCost(item.getItemID()), item.getCost());
+            assertEquals(menu.getDescription(item.getItemID()), item.getDescription());
+        }
+    }
+
+    /**
+     * Tests menu changes give the new menu when applied to the cached one, and an unchanged menu is only its hashes
+     */
+    @Test
+    void testMenuDiff() throws Exception {
+        MenuSnapshot cached = new MenuSnapshot(List.copyOf(menu.getMenu().values()));
+
+        List<Item> items = new ArrayList<>(cached.items());
+        items.set(0, items.getFirst().withCost(items.getFirst().getCost() + 0.10));
+        items.remove(1);
+        items.add(new Item("XX1", ItemCategory.SNACK, 1.00, "TEST ITEM"));
+        MenuSnapshot changed = new MenuSnapshot(List.copyOf(items));
+
+        byte[] unchanged = writeMenuDiff(new MenuDiff(cached, cached));
+        assertEquals(2 * Long.BYTES, unchanged.length);
+        assertSame(cached, BinaryCodec.readMenuDiff(new DataInputStream(new ByteArrayInputStream(unchanged)), cached));
+
+        byte[] diff = writeMenuDiff(new MenuDiff(cached, changed));
+        MenuSnapshot applied = BinaryCodec.readMenuDiff(new DataInputStream(new ByteArrayInputStream(diff)), cached);
+
+        assertEquals(changed.itemIDs(), applied.itemIDs());
+        assertEquals(changed.hash(), applied.hash());
+        assertEquals(items.getFirst().getCost(), applied.items().getFirst().getCost());
+
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        BinaryCodec.writeMenu(new DataOutputStream(whole), changed.items());
+        assertTrue(diff.length < whole.size() / 2, diff.length + " bytes");
+
+        // Changes from a menu this end does not have are rejected
+        assertThrows(InvalidObjectException.class, () -> BinaryCodec.readMenuDiff(new DataInputStream(new ByteArrayInputStream(diff)), changed));
+        assertThrows(InvalidObjectException.class, () -> BinaryCodec.readMenuDiff(new DataInputStream(new ByteArrayInputStream(diff)), null));
+    }
+
+    /**
+     * Tests every kind of delta comes back the same
+     */
+    @Test
+    void testDeltaRoundTrip() throws Exception {
+        Order order = createOrder(null, "HD1", "RL1");
+        List<Change> changes = List.of(
+                new Change.OrderAdded(OrderSummary.of(order, OrderState.PENDING)),
+                new Change.OrderMoved(order.getOrderID(), OrderState.IN_PROGRESS),
+                new Change.OrderCompleted(order.getOrderID()),
+                new Change.PriceChanged("HD1", 2.75),
+                new Change.ItemRemoved("RL1"),
+                new Change.MenuReplaced(List.copyOf(menu.getMenu().values())));
+
+        long sequence = 1L << 40;
+
+        for (Change change : changes) {
+            Delta delta = new Delta(sequence++, change);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BinaryCodec.writeDelta(new DataOutputStream(bytes), delta);
+            Delta decoded = BinaryCodec.readDelta(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+            if (change instanceof Change.MenuReplaced replaced) {
+                assertEquals(delta.sequence(), decoded.sequence());
+                List<Item> items = ((Change.MenuReplaced) decoded.change()).items();
+                assertEquals(replaced.items().stream().map(Item::getItemID).toList(), items.stream().map(Item::getItemID).toList());
+            } else {
+                assertEquals(delta, decoded);
+            }
+        }
+    }
+
+    /**
+     * Tests a delta for a new order is much smaller than sending the whole order list
+     */
+    @Test
+    void testDeltaIsSmaller() throws Exception {
+        Order order = createOrder("Jane", "HD1", "PSY1", "RL1");
+
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        BinaryCodec.writeDelta(new DataOutputStream(delta), new Delta(1, new Change.OrderAdded(OrderSummary.of(order, OrderState.PENDING))));
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(order);
+        }
+
+        assertTrue(delta.size() * 10 < serialized.size(), delta.size() + " bytes against " + serialized.size());
+    }
+
+    /**
+     * Tests a batch comes back with the same orders in the same order
+     */
+    @Test
+    void testOrderBatchRoundTrip() throws Exception {
+        OrderBatch batch = new OrderBatch(List.of(createOrder("Jane", "HD1", "RL1"), createOrder(null, "PSY1"), createOrder("Sam", "SCK1", "HD1")));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.writeOrderBatch(new DataOutputStream(bytes), batch, codes);
+        OrderBatch decoded = BinaryCodec.readOrderBatch(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), codes, menu);
+
+        assertEquals(batch.orders().stream().map(Order::getOrderID).toList(), decoded.orders().stream().map(Order::getOrderID).toList());
+        assertEquals(batch.orders().stream().map(Order::getDetails).toList(), decoded.orders().stream().map(Order::getDetails).toList());
+        assertThrows(IllegalArgumentException.class, () -> new OrderBatch(List.of()));
+    }
+
+    /**
+     * Tests variable length ints use one byte for small values and come back the same
+     */
+    @Test
+    void testVarInt() throws Exception {
+        for (int value : new int[] { 0, 1, 127, 128, 300, 16383, 16384, Integer.MAX_VALUE }) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BinaryCodec.writeVarInt(new DataOutputStream(bytes), value);
+
+            if (value < 128) assertEquals(1, bytes.size());
+            assertEquals(value, BinaryCodec.readVarInt(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        }
+    }
+
+    /**
+     * Writes menu changes to a new byte array
+     *
+     * @param diff the menus
+     * @return the bytes written
+     */
+    private static byte[] writeMenuDiff(MenuDiff diff) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryCodec.writeMenuDiff(new DataOutputStream(bytes), diff);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Creates an order without playing the sound for each item
+     *
+     * @param name the customer name
+     * @param itemIDs the items in the order
+     * @return the order
+     */
+    private static Order createOrder(String name, String... itemIDs) throws Exception {
+        return new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), name,
+                LocalDateTime.now(), new ArrayList<>(List.of(itemIDs)), menu, true);
+    }
+}
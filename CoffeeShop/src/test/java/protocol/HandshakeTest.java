@@ -0,0 +1,170 @@
+package protocol;
+
+import interfaces.Connection;
+import item.ItemList;
+import item.SetupItemFile;
+import message.Message;
+import message.MessageType;
+import order.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests a client and the server agree a protocol and can send orders, messages and menus with it
+ */
+public class HandshakeTest {
+    private ServerSocket serverSocket;
+
+    private ExecutorService executor;
+
+    private ItemList menu;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        serverSocket = new ServerSocket(0);
+        executor = Executors.newSingleThreadExecutor();
+        menu = SetupItemFile.generateItemList();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        serverSocket.close();
+    }
+
+    /**
+     * Tests a new client and the server use the binary protocol
+     */
+    @Test
+    void testBinary() throws Exception {
+        Future<Connection> accepted = executor.submit(() -> Handshake.accept(serverSocket.accept()));
+
+        try (Socket socket = new Socket("localhost", serverSocket.getLocalPort());
+             Connection client = Handshake.connect(socket, BinaryCodec.VERSION);
+             Connection server = accepted.get(5, TimeUnit.SECONDS)) {
+            assertInstanceOf(BinaryConnection.class, client);
+            assertEquals(BinaryCodec.VERSION, server.getVersion());
+
+            exchange(client, server);
+        }
+    }
+
+    /**
+     * Tests a client names its cached menu in the handshake and reads the changes from it back as the whole menu
+     */
+    @Test
+    void testCachedMenu() throws Exception {
+        MenuSnapshot cached = new MenuSnapshot(List.copyOf(menu.getMenu().values()));
+        Future<Connection> accepted = executor.submit(() -> Handshake.accept(serverSocket.accept()));
+
+        try (Socket socket = new Socket("localhost", serverSocket.getLocalPort());
+             Connection client = Handshake.connect(socket, BinaryCodec.CACHE_VERSION, cached);
+             Connection server = accepted.get(5, TimeUnit.SECONDS)) {
+            assertEquals(BinaryCodec.CACHE_VERSION, server.getVersion());
+            assertEquals(cached.hash(), server.getCachedMenuHash());
+
+            server.send(new MenuDiff(cached, cached));
+            assertSame(cached, client.receive());
+
+            // Orders are written with the codes of the menu the changes gave
+            Order order = createOrder();
+            client.send(order);
+            assertEquals(order.getDetails(), ((Order) server.receive()).getDetails());
+        }
+    }
+
+    /**
+     * Tests a client that asks for version 0 is given Java serialization
+     */
+    @Test
+    void testSerializedFallback() throws Exception {
+        Future<Connection> accepted = executor.submit(() -> Handshake.accept(serverSocket.accept()));
+
+        try (Socket socket = new Socket("localhost", serverSocket.getLocalPort());
+             Connection client = Handshake.connect(socket, 0);
+             Connection server = accepted.get(5, TimeUnit.SECONDS)) {
+            assertInstanceOf(ObjectConnection.class, client);
+            assertInstanceOf(ObjectConnection.class, server);
+
+            exchange(client, server);
+        }
+    }
+
+    /**
+     * Tests a client that does not send a handshake is still understood
+     */
+    @Test
+    void testOlderClient() throws Exception {
+        Future<Connection> accepted = executor.submit(() -> Handshake.accept(serverSocket.accept()));
+
+        try (Socket socket = new Socket("localhost", serverSocket.getLocalPort())) {
+            ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+            out.flush();
+            ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+
+            try (Connection server = accepted.get(5, TimeUnit.SECONDS)) {
+                assertEquals(0, server.getVersion());
+
+                Order order = createOrder();
+                out.writeObject(order);
+                out.flush();
+                assertEquals(order.getOrderID(), ((Order) server.receive()).getOrderID());
+
+                server.send(menu);
+                assertEquals(menu.getItemCount(), ((ItemList) in.readObject()).getItemCount());
+            }
+        }
+    }
+
+    /**
+     * Sends a menu and a message from the server and an order from the client
+     *
+     * @param client the client end of the connection
+     * @param server the server end of the connection
+     */
+    private void exchange(Connection client, Connection server) throws Exception {
+        server.send(menu);
+        Object received = client.receive();
+
+        if (received instanceof MenuSnapshot snapshot) {
+            assertEquals(List.of(menu.getItemIDs()), List.copyOf(snapshot.toMap().keySet()));
+        } else {
+            assertEquals(menu.getItemCount(), ((ItemList) received).getItemCount());
+        }
+
+        Order order = createOrder();
+        client.send(order);
+        Order receivedOrder = (Order) server.receive();
+
+        assertEquals(order.getOrderID(), receivedOrder.getOrderID());
+        assertEquals(order.getDetails(), receivedOrder.getDetails());
+        assertEquals(order.getDiscountedCost(), receivedOrder.getDiscountedCost());
+
+        Message message = new Message(UUID.randomUUID(), order.getOrderID(), "Complete", MessageType.ORDER_COMPLETE);
+        server.send(message);
+        assertEquals(message, client.receive());
+    }
+
+    /**
+     * Creates an order without playing the sound for each item
+     *
+     * @return the order
+     */
+    private Order createOrder() throws Exception {
+        return new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                LocalDateTime.now(), new ArrayList<>(List.of("HD1", "PSY1", "RL1")), menu, true);
+    }
+}
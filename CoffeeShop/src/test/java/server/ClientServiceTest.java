@@ -0,0 +1,134 @@
+package server;
+
+import feed.Change;
+import feed.ChangeFeed;
+import interfaces.Connection;
+import item.Item;
+import item.ItemCategory;
+import item.ItemList;
+import item.SetupItemFile;
+import message.Message;
+import message.MessageContent;
+import message.MessageType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import protocol.Handshake;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ClientService on the blocking server
+ * Each client is read by its own thread and written by another, so a client that stops reading must not hold up the rest
+ */
+public class ClientServiceTest {
+    private ItemList menu;
+
+    private ServerSocket serverSocket;
+
+    private ExecutorService serverThreads;
+
+    /** Services in the order their clients connected */
+    private final List<ClientService> services = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        menu = SetupItemFile.generateItemList();
+        ChangeFeed.resetInstance();
+
+        serverThreads = Executors.newVirtualThreadPerTaskExecutor();
+        serverSocket = new ServerSocket(0);
+
+        serverThreads.submit(() -> {
+            while (!serverSocket.isClosed()) {
+                Socket socket = serverSocket.accept();
+                ClientService service = new ClientService(socket, order -> true, menu);
+                services.add(service);
+                serverThreads.submit(service);
+            }
+
+            return null;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        System.clearProperty(OverflowPolicy.PROPERTY);
+        System.clearProperty(OutboundQueue.CAPACITY_PROPERTY);
+
+        serverSocket.close();
+        serverThreads.shutdownNow();
+    }
+
+    /**
+     * Tests a client that stops reading is disconnected when the policy says so,
+     * while the other clients are still sent every change
+     */
+    @Test
+    void testSlowClientDisconnected() throws Exception {
+        System.setProperty(OverflowPolicy.PROPERTY, "disconnect");
+        System.setProperty(OutboundQueue.CAPACITY_PROPERTY, "16");
+        ChangeFeed feed = ChangeFeed.getInstance();
+
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(4096);
+            socket.connect(new InetSocketAddress("localhost", serverSocket.getLocalPort()));
+            Handshake.connect(socket);
+
+            waitFor(() -> services.size() == 1);
+            ClientService slowService = services.getFirst();
+
+            // The menu and the first snapshot are queued once the client is subscribed, so it is sent the whole burst
+            waitFor(() -> slowService.getOutbound().getSent() + slowService.getOutbound().getQueued() >= 2);
+
+            // Only the slow client has a small queue, the other must keep up with the whole burst
+            System.clearProperty(OutboundQueue.CAPACITY_PROPERTY);
+
+            AtomicLong last = new AtomicLong(Long.MAX_VALUE);
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                Connection connection = Handshake.connect(new Socket("localhost", serverSocket.getLocalPort()));
+                Future<Long> reader = executor.submit(() -> NioServerTest.readFeed(connection, last));
+
+                List<Item> items = new ArrayList<>();
+                for (int i = 0; i < 1000; i++) items.add(new Item("BIG" + i, ItemCategory.FOOD, i, "Item number " + i));
+
+                for (int i = 0; i < 300; i++) feed.publish(new Change.MenuReplaced(items));
+
+                last.set(feed.getSequence() + 1);
+                feed.publish(new Change.ItemRemoved("BIG0"));
+
+                assertEquals(last.get(), reader.get(30, TimeUnit.SECONDS));
+            }
+
+            waitFor(() -> slowService.getOutbound().getDropped() > 0);
+
+            Message message = new Message(UUID.randomUUID(), UUID.randomUUID(),
+                    MessageContent.fromMessageType(MessageType.ORDER_COMPLETE), MessageType.ORDER_COMPLETE);
+            assertThrows(IOException.class, () -> slowService.sendMessage(message));
+            assertEquals(OverflowPolicy.DISCONNECT, slowService.getOutbound().getPolicy());
+        }
+    }
+
+    /**
+     * Waits up to ten seconds for a condition to be true
+     *
+     * @param condition the condition
+     */
+    private static void waitFor(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (!condition.call()) {
+            if (System.nanoTime() > deadline) fail("Timed out waiting");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package server;
+
+import client.MenuCache;
+import feed.ChangeFeed;
+import feed.FeedSnapshot;
+import interfaces.Connection;
+import item.Item;
+import item.ItemCategory;
+import item.ItemList;
+import item.SetupItemFile;
+import order.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import protocol.Handshake;
+import protocol.MenuSnapshot;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests clients with the menu cached connect without being sent the menu again
+ * Measures the time from connecting to having the menu and the order queue for many clients with a warm cache and a cold one
+ */
+public class MenuCacheConnectTest {
+    private static final int CLIENTS = 500;
+
+    /** Clients connecting at the same time */
+    private static final int CONCURRENCY = 32;
+
+    /** Items added to the menu so it is the size of a real menu with descriptions */
+    private static final int EXTRA_ITEMS = 500;
+
+    @TempDir
+    Path folder;
+
+    private ItemList menu;
+
+    private NioServer server;
+
+    private final Queue<Order> received = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ChangeFeed.resetInstance();
+        ItemList.resetInstance();
+        menu = SetupItemFile.generateItemList();
+
+        LinkedHashMap<String, Item> items = menu.getMenu();
+        for (int i = 0; i < EXTRA_ITEMS; i++) {
+            items.put("MC" + i, new Item("MC" + i, ItemCategory.FOOD, 1 + i % 10, "Menu cache test item number " + i));
+        }
+        menu.updateItems(items);
+
+        server = new NioServer(received::add, menu, 0, 2);
+        server.start();
+    }
+
+    /**
+     * Puts the shared menu back for the other tests
+     */
+    @AfterEach
+    void tearDown() {
+        server.close();
+        ItemList.resetInstance();
+        SetupItemFile.generateItemList();
+    }
+
+    /**
+     * Tests clients with the current menu cached are only told it has not changed, and measures how long
+     * each client takes to be ready with a warm cache and a cold one
+     */
+    @Test
+    void testWarmCache() throws Exception {
+        MenuCache cache = new MenuCache(folder.resolve("menu.cache"));
+        assertNull(cache.load());
+
+        // The first client saves the menu it was sent, as a real client would
+        Ready first = connect(null);
+        cache.save(first.menu());
+
+        MenuSnapshot cached = cache.load();
+        assertEquals(first.menu().hash(), cached.hash());
+
+        // Warms up both paths so neither is measured while being compiled
+        connectAll(null, CLIENTS / 5);
+        connectAll(cached, CLIENTS / 5);
+
+        List<Ready> cold = connectAll(null, CLIENTS);
+        List<Ready> warm = connectAll(cached, CLIENTS);
+
+        for (Ready ready : cold) {
+            assertEquals(menu.getItemCount(), ready.menu().items().size());
+            assertNull(ready.snapshot().menu());
+        }
+
+        for (Ready ready : warm) {
+            assertEquals(cached.hash(), ready.menu().hash());
+            assertNull(ready.snapshot().menu());
+        }
+
+        double coldBytes = cold.stream().mapToLong(Ready::bytes).average().orElseThrow();
+        double warmBytes = warm.stream().mapToLong(Ready::bytes).average().orElseThrow();
+
+        System.out.printf("Connect to ready, %d clients, %d menu items : cold %s, %.0f bytes each : warm %s, %.0f bytes each%n",
+                CLIENTS, menu.getItemCount(), describe(cold), coldBytes, describe(warm), warmBytes);
+
+        assertTrue(warmBytes * 10 < coldBytes, warmBytes + " bytes warm, " + coldBytes + " bytes cold");
+    }
+
+    /**
+     * Tests a client with an older menu cached is sent only what has changed and ends up with the current menu
+     */
+    @Test
+    void testChangedMenu() throws Exception {
+        Ready first = connect(null);
+        MenuSnapshot cached = first.menu();
+
+        menu.setCost("MC0", 9.99);
+        menu.remove("MC1");
+
+        Ready changed = connect(cached);
+        Ready cold = connect(null);
+
+        assertEquals(cold.menu().hash(), changed.menu().hash());
+        assertEquals(9.99, changed.menu().toMap().get("MC0").getCost());
+        assertFalse(changed.menu().toMap().containsKey("MC1"));
+        assertNull(changed.snapshot().menu());
+        assertTrue(changed.bytes() * 10 < cold.bytes(), changed.bytes() + " bytes changed, " + cold.bytes() + " bytes cold");
+
+        // A menu the server has never sent is answered with the whole menu
+        MenuSnapshot unknown = new MenuSnapshot(List.of(new Item("XX1", ItemCategory.SNACK, 1.00, "UNKNOWN")));
+        Ready replaced = connect(unknown);
+
+        assertEquals(cold.menu().hash(), replaced.menu().hash());
+    }
+
+    /**
+     * Connects many clients, a few at a time
+     *
+     * @param cached the menu each client has cached, null for none
+     * @param clients the number of clients
+     * @return what each client received and how long it took
+     */
+    private List<Ready> connectAll(MenuSnapshot cached, int clients) throws Exception {
+        List<Ready> results = new ArrayList<>(clients);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY)) {
+            List<Future<Ready>> futures = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) futures.add(executor.submit(() -> connect(cached)));
+
+            for (Future<Ready> future : futures) results.add(future.get(60, TimeUnit.SECONDS));
+        }
+
+        return results;
+    }
+
+    /**
+     * Connects a client and waits until it has the menu and the snapshot of the order queue
+     *
+     * @param cached the menu the client has cached, null for none
+     * @return what the client received and how long it took
+     */
+    private Ready connect(MenuSnapshot cached) throws Exception {
+        LongAdder bytes = new LongAdder();
+
+        try (Socket socket = new CountingSocket(bytes)) {
+            long start = System.nanoTime();
+            socket.connect(new InetSocketAddress("localhost", server.getPort()));
+
+            try (Connection connection = Handshake.connect(socket, cached)) {
+                MenuSnapshot received = (MenuSnapshot) connection.receive();
+                FeedSnapshot snapshot = (FeedSnapshot) connection.receive();
+
+                return new Ready(received, snapshot, System.nanoTime() - start, bytes.sum());
+            }
+        }
+    }
+
+    /**
+     * Describes the connect to ready times of many clients
+     *
+     * @param results the clients
+     * @return the mean and 99th percentile in milliseconds
+     */
+    private static String describe(List<Ready> results) {
+        long[] nanos = results.stream().mapToLong(Ready::nanos).sorted().toArray();
+        double mean = Arrays.stream(nanos).average().orElseThrow();
+
+        return String.format("mean %.2fms p99 %.2fms", mean / 1e6, nanos[(int) (nanos.length * 0.99)] / 1e6);
+    }
+
+    /**
+     * What a client received before it was ready
+     *
+     * @param menu the menu
+     * @param snapshot the first snapshot of the order queue
+     * @param nanos the time from connecting to having both
+     * @param bytes the bytes read from the socket
+     */
+    private record Ready(MenuSnapshot menu, FeedSnapshot snapshot, long nanos, long bytes) {}
+
+    /**
+     * A socket that counts the bytes read from it
+     */
+    private static class CountingSocket extends Socket {
+        private final LongAdder bytes;
+
+        CountingSocket(LongAdder bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b != -1) bytes.increment();
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = super.read(buffer, offset, length);
+                    if (read > 0) bytes.add(read);
+                    return read;
+                }
+            };
+        }
+    }
+}
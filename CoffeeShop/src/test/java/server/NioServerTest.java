@@ -0,0 +1,398 @@
+package server;
+
+import feed.*;
+import interfaces.Connection;
+import interfaces.OrderHandler;
+import item.Item;
+import item.ItemCategory;
+import item.ItemList;
+import item.SetupItemFile;
+import message.Message;
+import message.MessageType;
+import order.Order;
+import order.OrderList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import protocol.BinaryCodec;
+import protocol.Handshake;
+import protocol.MenuSnapshot;
+import protocol.OrderBatch;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the NioServer
+ * Many clients connect at once, more than the blocking server has threads, and every order must arrive
+ */
+public class NioServerTest {
+    private static final int CLIENTS = 100;
+
+    private static final int ORDERS = 5;
+
+    private ItemList menu;
+
+    private NioServer server;
+
+    /** Orders received by the server */
+    private final Queue<Order> received = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        menu = SetupItemFile.generateItemList();
+        server = new NioServer(received::add, menu, 0, 2);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    /**
+     * Tests every client is sent the menu and every order sent by every client is received
+     */
+    @Test
+    void testManyClients() throws Exception {
+        Set<UUID> sent = ConcurrentHashMap.newKeySet();
+        List<Connection> connections = Collections.synchronizedList(new ArrayList<>());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> clients = new ArrayList<>();
+
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.add(executor.submit(() -> {
+                    Connection connection = Handshake.connect(new Socket("localhost", server.getPort()));
+                    connections.add(connection);
+
+                    MenuSnapshot snapshot = (MenuSnapshot) connection.receive();
+                    assertEquals(menu.getItemCount(), snapshot.items().size());
+
+                    for (int j = 0; j < ORDERS; j++) {
+                        Order order = createOrder();
+                        sent.add(order.getOrderID());
+                        connection.send(order);
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> client : clients) client.get(30, TimeUnit.SECONDS);
+        }
+
+        waitFor(() -> received.size() == CLIENTS * ORDERS);
+
+        assertEquals(sent, received.stream().map(Order::getOrderID).collect(Collectors.toSet()));
+        assertEquals(CLIENTS, server.getConnectionCount());
+
+        for (Connection connection : connections) connection.close();
+
+        waitFor(() -> server.getConnectionCount() == 0);
+    }
+
+    /**
+     * Tests an order is linked to its client so notifications about it reach the client
+     */
+    @Test
+    void testNotification() throws Exception {
+        try (Connection connection = Handshake.connect(new Socket("localhost", server.getPort()))) {
+            assertInstanceOf(MenuSnapshot.class, connection.receive());
+
+            Order order = createOrder();
+            connection.send(order);
+
+            waitFor(() -> !received.isEmpty());
+
+            ClientService service = received.peek().getClientService();
+            assertNotNull(service);
+
+            service.sendOrderNotification(order.getOrderID(), MessageType.ORDER_COMPLETE);
+
+            Message message = receive(connection, Message.class);
+            assertEquals(order.getOrderID(), message.orderID());
+            assertEquals(MessageType.ORDER_COMPLETE, message.messageType());
+        }
+    }
+
+    /**
+     * Tests every order in a batch is answered by its order ID, and an order the server turns down is answered with an error
+     */
+    @Test
+    void testOrderBatch() throws Exception {
+        server.close();
+        OrderList.resetInstance();
+        OrderList orderList = OrderList.getInstance();
+        server = new NioServer(new OrderListHandler(orderList), menu, 0, 2);
+        server.start();
+
+        try (Connection connection = Handshake.connect(new Socket("localhost", server.getPort()))) {
+            assertInstanceOf(MenuSnapshot.class, connection.receive());
+
+            Order first = createOrder();
+            Order second = createOrder();
+            connection.send(new OrderBatch(List.of(first, second, first)));
+
+            List<Message> acks = new ArrayList<>();
+            for (int i = 0; i < 3; i++) acks.add(receive(connection, Message.class));
+
+            assertEquals(List.of(first.getOrderID(), second.getOrderID(), first.getOrderID()), acks.stream().map(Message::orderID).toList());
+            assertEquals(List.of(MessageType.ORDER_RECEIVED, MessageType.ORDER_RECEIVED, MessageType.ERROR),
+                    acks.stream().map(Message::messageType).toList());
+            assertEquals(2, orderList.getQueueSize(true));
+            assertNotNull(orderList.getOrder(second.getOrderID()).getClientService());
+        }
+    }
+
+    /**
+     * Tests an order that is slow to add does not hold up the other clients on the same I/O thread
+     */
+    @Test
+    void testSlowOrderDoesNotBlockIo() throws Exception {
+        server.close();
+        CountDownLatch release = new CountDownLatch(1);
+        server = new NioServer(order -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return received.add(order);
+        }, menu, 0, 1);
+        server.start();
+
+        try (Connection slow = Handshake.connect(new Socket("localhost", server.getPort()))) {
+            assertInstanceOf(MenuSnapshot.class, slow.receive());
+            slow.send(createOrder());
+
+            // The only I/O thread must still answer a new client while the order is being added
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                try (Connection other = Handshake.connect(new Socket("localhost", server.getPort()))) {
+                    assertInstanceOf(MenuSnapshot.class, other.receive());
+                }
+            });
+
+            release.countDown();
+            waitFor(() -> received.size() == 1);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Tests a client is sent the menu once, then a snapshot of the queue, then a delta for each change,
+     * and is sent the deltas again when it asks to resync
+     */
+    @Test
+    void testChangeFeed() throws Exception {
+        OrderList.resetInstance();
+        ChangeFeed.resetInstance();
+        ChangeFeed feed = ChangeFeed.getInstance();
+
+        Order waiting = createOrder();
+        OrderList.getInstance().add(waiting);
+
+        try (Connection connection = Handshake.connect(new Socket("localhost", server.getPort()))) {
+            MenuSnapshot sent = (MenuSnapshot) connection.receive();
+
+            // The menu has just been sent, so it is not sent again in the snapshot
+            FeedSnapshot snapshot = receive(connection, FeedSnapshot.class);
+            assertEquals(1, snapshot.orders().size());
+            assertEquals(waiting.getOrderID(), snapshot.orders().getFirst().orderID());
+            assertNull(snapshot.menu());
+
+            FeedReplica replica = new FeedReplica();
+            replica.resetMenu(sent.items());
+            replica.reset(snapshot);
+            assertEquals(menu.getItemCount(), replica.getMenu().size());
+
+            Order order = createOrder();
+            OrderList.getInstance().add(order);
+            menu.setCost("HD1", menu.getCost("HD1"));
+
+            while (replica.getSequence() < feed.getSequence()) {
+                assertTrue(replica.apply(receive(connection, Delta.class)));
+            }
+
+            assertEquals(2, replica.getOrders().size());
+
+            connection.send(new ResyncRequest(snapshot.sequence() + 1));
+
+            Delta resent = receive(connection, Delta.class);
+            assertEquals(snapshot.sequence() + 1, resent.sequence());
+            assertEquals(order.getOrderID(), ((Change.OrderAdded) resent.change()).order().orderID());
+        }
+
+        // A client from before menu caching still needs the menu in its snapshot
+        try (Connection older = Handshake.connect(new Socket("localhost", server.getPort()), BinaryCodec.BATCH_VERSION)) {
+            assertInstanceOf(MenuSnapshot.class, older.receive());
+            assertEquals(menu.getItemCount(), receive(older, FeedSnapshot.class).menu().size());
+        }
+    }
+
+    /**
+     * Tests a client that stops reading only fills its own queue,
+     * the other clients are still sent every change and a notification to it does not wait
+     */
+    @Test
+    void testSlowClient() throws Exception {
+        System.setProperty(OutboundQueue.CAPACITY_PROPERTY, "16");
+        ChangeFeed.resetInstance();
+        ChangeFeed feed = ChangeFeed.getInstance();
+
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(4096);
+            socket.connect(new InetSocketAddress("localhost", server.getPort()));
+            Connection slow = Handshake.connect(socket);
+
+            Order order = createOrder();
+            slow.send(order);
+            waitFor(() -> !received.isEmpty());
+            ClientService slowService = received.peek().getClientService();
+
+            AtomicLong last = new AtomicLong(Long.MAX_VALUE);
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<Long>> readers = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    Connection connection = Handshake.connect(new Socket("localhost", server.getPort()));
+                    readers.add(executor.submit(() -> readFeed(connection, last)));
+                }
+
+                List<Item> items = new ArrayList<>();
+                for (int i = 0; i < 1000; i++) items.add(new Item("BIG" + i, ItemCategory.FOOD, i, "Item number " + i));
+
+                for (int i = 0; i < 300; i++) feed.publish(new Change.MenuReplaced(items));
+
+                last.set(feed.getSequence() + 1);
+                feed.publish(new Change.ItemRemoved("BIG0"));
+
+                for (Future<Long> reader : readers) assertEquals(last.get(), reader.get(30, TimeUnit.SECONDS));
+            }
+
+            assertTimeoutPreemptively(Duration.ofSeconds(1),
+                    () -> slowService.sendOrderNotification(order.getOrderID(), MessageType.ORDER_COMPLETE));
+
+            OutboundQueue queue = slowService.getOutbound();
+            assertTrue(queue.getQueued() <= 16);
+            assertTrue(queue.getCoalesced() > 0);
+        } finally {
+            System.clearProperty(OutboundQueue.CAPACITY_PROPERTY);
+        }
+    }
+
+    /**
+     * Tests clients that do not use the binary protocol are disconnected
+     */
+    @Test
+    void testSerializedClientRejected() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.setSoTimeout(5000);
+            assertThrows(EOFException.class, () -> Handshake.connect(socket, 0));
+        }
+
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.setSoTimeout(5000);
+            new ObjectOutputStream(socket.getOutputStream()).flush();
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    /**
+     * Keeps a replica of the change feed up to date until it reaches a sequence number, asking to resync after a gap
+     *
+     * @param connection the connection to receive from
+     * @param last the sequence number to stop at
+     * @return the sequence number of the replica
+     */
+    static long readFeed(Connection connection, AtomicLong last) throws Exception {
+        try (connection) {
+            FeedReplica replica = new FeedReplica();
+            long requested = 0;
+
+            while (replica.getSequence() < last.get()) {
+                Object object = connection.receive();
+
+                if (object instanceof FeedSnapshot snapshot) replica.reset(snapshot);
+
+                if (object instanceof Delta delta && !replica.apply(delta) && requested != replica.getSequence() + 1) {
+                    requested = replica.getSequence() + 1;
+                    connection.send(new ResyncRequest(requested));
+                }
+            }
+
+            return replica.getSequence();
+        }
+    }
+
+    /**
+     * Adds orders to an OrderList, a batch in one step
+     *
+     * @param orderList the OrderList
+     */
+    private record OrderListHandler(OrderList orderList) implements OrderHandler {
+        @Override
+        public boolean addOrder(Order order) {
+            return orderList.addAll(List.of(order))[0];
+        }
+
+        @Override
+        public boolean[] addOrders(List<Order> orders) {
+            return orderList.addAll(orders);
+        }
+    }
+
+    /**
+     * Receives objects until one of a type arrives, skipping anything else sent in between
+     *
+     * @param connection the connection to receive from
+     * @param type the type wanted
+     * @return the object
+     */
+    private static <T> T receive(Connection connection, Class<T> type) throws Exception {
+        while (true) {
+            Object object = connection.receive();
+            if (type.isInstance(object)) return type.cast(object);
+        }
+    }
+
+    /**
+     * Waits up to ten seconds for a condition to be true
+     *
+     * @param condition the condition
+     */
+    private static void waitFor(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (!condition.call()) {
+            if (System.nanoTime() > deadline) fail("Timed out waiting");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Creates an order without playing the sound for each item
+     *
+     * @return the order
+     */
+    private Order createOrder() throws IOException {
+        try {
+            return new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                    LocalDateTime.now(), new ArrayList<>(List.of("HD1", "PSY1", "RL1")), menu, true);
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package server;
+
+import feed.Change;
+import feed.Delta;
+import feed.FeedSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the OutboundQueue
+ * A full queue must drop, coalesce or disconnect as its policy says and keep count of what it did
+ */
+public class OutboundQueueTest {
+    private static final FeedSnapshot SNAPSHOT = new FeedSnapshot(100, List.of(), List.of());
+
+    private final AtomicInteger ready = new AtomicInteger();
+
+    private final AtomicInteger disconnected = new AtomicInteger();
+
+    /**
+     * Tests objects come out in the order they went in and the writer is told each time
+     */
+    @Test
+    void testOrder() throws Exception {
+        OutboundQueue queue = createQueue(4, OverflowPolicy.DISCONNECT);
+
+        assertTrue(queue.offer("a"));
+        assertTrue(queue.offer("b"));
+
+        assertEquals(2, ready.get());
+        assertEquals(2, queue.getQueued());
+        assertEquals("a", queue.take());
+        assertEquals("b", queue.poll());
+        assertNull(queue.poll());
+        assertEquals(2, queue.getSent());
+        assertEquals(2, queue.getHighWater());
+        assertEquals(0, queue.getLagMillis());
+    }
+
+    /**
+     * Tests the oldest object is dropped when the queue is full
+     */
+    @Test
+    void testDropOldest() {
+        OutboundQueue queue = createQueue(3, OverflowPolicy.DROP_OLDEST);
+
+        for (int i = 0; i < 5; i++) assertTrue(queue.offer(i));
+
+        assertEquals(List.of(2, 3, 4), drain(queue));
+        assertEquals(2, queue.getDropped());
+        assertEquals(0, disconnected.get());
+    }
+
+    /**
+     * Tests the deltas in a full queue are replaced by one snapshot taken when it is sent,
+     * the deltas offered after it are left out and messages are kept
+     */
+    @Test
+    void testCoalesce() {
+        OutboundQueue queue = createQueue(4, OverflowPolicy.COALESCE);
+
+        queue.offer("message");
+        for (int i = 1; i <= 3; i++) queue.offer(delta(i));
+        queue.offer(delta(4));
+        queue.offer(delta(5));
+        queue.offer("another message");
+
+        assertEquals(List.of("message", SNAPSHOT, "another message"), drain(queue));
+        assertEquals(5, queue.getCoalesced());
+        assertEquals(0, queue.getDropped());
+
+        // Once the snapshot has been sent deltas are queued again
+        queue.offer(delta(6));
+        assertEquals(List.of(delta(6)), drain(queue));
+    }
+
+    /**
+     * Tests the oldest object is dropped when a full queue has nothing to coalesce
+     */
+    @Test
+    void testCoalesceWithoutDeltas() {
+        OutboundQueue queue = createQueue(2, OverflowPolicy.COALESCE);
+
+        for (int i = 0; i < 3; i++) queue.offer("message " + i);
+
+        assertEquals(List.of("message 1", "message 2"), drain(queue));
+        assertEquals(1, queue.getDropped());
+    }
+
+    /**
+     * Tests the client is disconnected once when its queue is full and nothing more is queued
+     */
+    @Test
+    void testDisconnect() throws Exception {
+        OutboundQueue queue = createQueue(2, OverflowPolicy.DISCONNECT);
+
+        assertTrue(queue.offer("a"));
+        assertTrue(queue.offer("b"));
+        assertFalse(queue.offer("c"));
+        assertFalse(queue.offer("d"));
+
+        assertEquals(1, disconnected.get());
+        assertEquals(3, queue.getDropped());
+        assertEquals(0, queue.getQueued());
+        assertNull(queue.take());
+    }
+
+    /**
+     * Tests a writer waiting for an object is woken when the queue is closed
+     */
+    @Test
+    void testCloseWakesWriter() throws Exception {
+        OutboundQueue queue = createQueue(2, OverflowPolicy.DROP_OLDEST);
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                assertNull(queue.take());
+            } catch (InterruptedException e) {
+                fail(e);
+            }
+        });
+
+        Thread.sleep(50);
+        queue.close();
+        writer.join(5000);
+
+        assertFalse(writer.isAlive());
+        assertFalse(queue.offer("a"));
+    }
+
+    /**
+     * Tests the lag is how long the oldest object has been waiting
+     */
+    @Test
+    void testLag() throws Exception {
+        OutboundQueue queue = createQueue(2, OverflowPolicy.DROP_OLDEST);
+
+        queue.offer("a");
+        Thread.sleep(50);
+
+        assertTrue(queue.getLagMillis() >= 50);
+    }
+
+    /**
+     * Tests a queue must hold at least two objects
+     */
+    @Test
+    void testCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> createQueue(1, OverflowPolicy.COALESCE));
+    }
+
+    /**
+     * Creates a queue that counts how often the writer is told and the client is disconnected
+     *
+     * @param capacity the number of objects the queue holds
+     * @param policy what to do when the queue is full
+     * @return the queue
+     */
+    private OutboundQueue createQueue(int capacity, OverflowPolicy policy) {
+        return new OutboundQueue(capacity, policy, () -> SNAPSHOT, ready::incrementAndGet, disconnected::incrementAndGet);
+    }
+
+    /**
+     * Creates a delta
+     *
+     * @param sequence the sequence number
+     * @return the delta
+     */
+    private static Delta delta(long sequence) {
+        return new Delta(sequence, new Change.ItemRemoved("HD" + sequence));
+    }
+
+    /**
+     * Takes everything from a queue without waiting
+     *
+     * @param queue the queue
+     * @return the objects in the order they were taken
+     */
+    private static List<Object> drain(OutboundQueue queue) {
+        List<Object> objects = new ArrayList<>();
+
+        Object object;
+        while ((object = queue.poll()) != null) objects.add(object);
+
+        return objects;
+    }
+}
@@ -0,0 +1,162 @@
+package simulation;
+
+import item.ItemList;
+import item.SetupItemFile;
+import order.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the headless discrete event simulation and the capacity planner
+ * Each step of a staff member's work takes one second of simulated time
+ */
+public class EventSimulationTest {
+    private static final Duration DELAY = Duration.ofSeconds(1);
+
+    private ItemList menu;
+
+    @BeforeEach
+    void setUp() {
+        menu = SetupItemFile.generateItemList();
+    }
+
+    /**
+     * Tests the items of an order are made while the waiter takes it, then the waiter delivers it
+     */
+    @Test
+    void testSingleOrder() throws Exception {
+        SimulationResult result = new EventSimulation(new Rota(1, 1, 1), DELAY)
+                .run(ArrivalStream.atInterval(List.of(order("HD1", "FD1")), DELAY));
+
+        assertEquals(1, result.completed());
+        assertEquals(DELAY.multipliedBy(2).toNanos(), result.latency().getMax());
+        assertEquals(DELAY.multipliedBy(2), result.makespan());
+        assertEquals(1, result.maxQueueLength());
+    }
+
+    /**
+     * Tests items queue for a single barista and the order is delivered once the last one is made
+     */
+    @Test
+    void testItemsQueue() throws Exception {
+        SimulationResult result = new EventSimulation(new Rota(1, 1, 1), DELAY)
+                .run(ArrivalStream.atInterval(List.of(order("HD1", "SD1", "HD2")), DELAY));
+
+        assertEquals(DELAY.multipliedBy(4).toNanos(), result.latency().getMax());
+        // The barista starts on the first drink straight away so two wait
+        assertEquals(2, result.maxItemQueueLength());
+    }
+
+    /**
+     * Tests a waiter holding one order at a time finishes later than one taking the next order while items are made
+     */
+    @Test
+    void testOrdersInFlight() throws Exception {
+        List<Arrival> arrivals = ArrivalStream.atInterval(List.of(order("HD1", "SD1", "HD2"), order("FD1", "FD2", "RL1")), Duration.ZERO);
+
+        EventSimulation oneAtATime = new EventSimulation(new Rota(1, 1, 1), DELAY);
+        oneAtATime.setMaxOrdersInFlight(1);
+
+        // One at a time both orders wait for their three items one after the other, in flight they are made together
+        assertEquals(Duration.ofSeconds(8), oneAtATime.run(arrivals).makespan());
+        assertEquals(Duration.ofSeconds(5), new EventSimulation(new Rota(1, 1, 1), DELAY).run(arrivals).makespan());
+        assertThrows(IllegalArgumentException.class, () -> oneAtATime.setMaxOrdersInFlight(0));
+    }
+
+    /**
+     * Tests replaying the same orders again gives the same result, and an order arriving twice is only served once
+     */
+    @Test
+    void testRepeatable() throws Exception {
+        List<Order> orders = orders(200);
+        List<Arrival> arrivals = new ArrayList<>(ArrivalStream.atInterval(orders, Duration.ofMillis(500)));
+        arrivals.add(new Arrival(Duration.ofHours(1), orders.getFirst()));
+
+        EventSimulation simulation = new EventSimulation(new Rota(2, 2, 2), DELAY);
+        simulation.setSchedulingPolicy("Shortest Job");
+
+        SimulationResult first = simulation.run(arrivals);
+        SimulationResult second = simulation.run(arrivals);
+
+        assertEquals(200, first.orders());
+        assertEquals(200, first.completed());
+        assertEquals(first.makespan(), second.makespan());
+        assertEquals(first.latency().getPercentile(95), second.latency().getPercentile(95));
+        assertTrue(first.meanQueueLength() > 0 && first.meanQueueLength() <= first.maxQueueLength());
+        assertThrows(IllegalArgumentException.class, () -> simulation.setSchedulingPolicy("random"));
+    }
+
+    /**
+     * Tests orders replayed from their timestamps arrive in the order they were placed
+     */
+    @Test
+    void testFromTimestamps() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        Order late = order(now.plusMinutes(5), "HD1");
+        Order early = order(now, "HD1");
+
+        List<Arrival> arrivals = ArrivalStream.fromTimestamps(List.of(late, early));
+
+        assertEquals(List.of(new Arrival(Duration.ZERO, early), new Arrival(Duration.ofMinutes(5), late)), arrivals);
+    }
+
+    /**
+     * Tests the planner picks the cheapest rota meeting the target and nothing cheaper meets it
+     */
+    @Test
+    void testCheapestRota() throws Exception {
+        List<Arrival> arrivals = ArrivalStream.atInterval(orders(300), Duration.ofMillis(400));
+        Duration target = Duration.ofSeconds(20);
+
+        CapacityPlanner planner = new CapacityPlanner(10, 12, 15);
+        List<SimulationResult> results = planner.sweep(arrivals, DELAY, 10, 5, 3);
+        assertEquals(50, results.size());
+
+        SimulationResult cheapest = planner.cheapest(results, target).orElseThrow();
+        assertTrue(cheapest.meetsTarget(target));
+
+        for (SimulationResult result : results) {
+            if (planner.cost(result.rota()) < planner.cost(cheapest.rota())) assertFalse(result.meetsTarget(target), result.toString());
+        }
+
+        assertTrue(planner.cheapest(results, Duration.ofMillis(1)).isEmpty());
+        assertEquals(10 * 2 + 12 * 3 + 15, planner.cost(new Rota(2, 3, 1)));
+        assertThrows(IllegalArgumentException.class, () -> new Rota(0, 1, 1));
+    }
+
+    /**
+     * Creates a list of orders of one to four items
+     *
+     * @param count the number of orders
+     * @return the orders
+     */
+    private List<Order> orders(int count) throws Exception {
+        String[] items = { "HD1", "FD1", "SD1", "RL1", "PSY1", "HD2" };
+        Random random = new Random(7);
+        List<Order> orders = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            String[] details = new String[1 + random.nextInt(4)];
+            for (int j = 0; j < details.length; j++) details[j] = items[random.nextInt(items.length)];
+
+            orders.add(order(details));
+        }
+
+        return orders;
+    }
+
+    private Order order(String... items) throws Exception {
+        return order(LocalDateTime.now(), items);
+    }
+
+    private Order order(LocalDateTime timestamp, String... items) throws Exception {
+        return new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                timestamp, new ArrayList<>(List.of(items)), menu, false);
+    }
+}
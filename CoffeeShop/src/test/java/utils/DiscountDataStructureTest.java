@@ -0,0 +1,127 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the DiscountDataStructure
+ * The entries a pair scan would add for random orders are added to both the data structure and the original list based version
+ * and both must give back exactly the same discounts and indexes
+ */
+public class DiscountDataStructureTest {
+    private static final Discount[] PAIR_DISCOUNTS = { Discount.DISCOUNT10, Discount.DISCOUNT25, Discount.DISCOUNT50 };
+
+    /**
+     * Tests entries come out with the highest discount first and in the order they were added
+     */
+    @Test
+    void testOrder() {
+        DiscountDataStructure structure = new DiscountDataStructure();
+
+        structure.addEntry(Discount.DISCOUNT10, 0, 1);
+        structure.addEntry(Discount.DISCOUNT25, 2, 3);
+        structure.addEntry(Discount.DISCOUNT50, 4, 5);
+        structure.addEntry(Discount.DISCOUNT25, 6, 7);
+        structure.addEntry(Discount.DAILY_SPECIAL, 8, 8);
+        structure.addEntry(Discount.DAILY_SPECIAL, 9, 9);
+
+        assertEquals(List.of(Discount.DAILY_SPECIAL, 9, 9), structure.removeEntry());
+        assertEquals(List.of(Discount.DAILY_SPECIAL, 8, 8), structure.removeEntry());
+        assertEquals(List.of(Discount.DISCOUNT50, 4, 5), structure.removeEntry());
+        assertEquals(List.of(Discount.DISCOUNT25, 2, 3), structure.removeEntry());
+        // Items 2 and 3 have been removed from the caller's list so 6 and 7 move down
+        assertEquals(List.of(Discount.DISCOUNT25, 2, 3), structure.removeEntry());
+        assertEquals(List.of(Discount.DISCOUNT10, 0, 1), structure.removeEntry());
+        assertNull(structure.removeEntry());
+    }
+
+    /**
+     * Tests an entry using an item that already has a discount is skipped
+     */
+    @Test
+    void testOneDiscountPerItem() {
+        DiscountDataStructure structure = new DiscountDataStructure();
+
+        structure.addEntry(Discount.DISCOUNT50, 0, 1);
+        structure.addEntry(Discount.DISCOUNT25, 1, 2);
+        structure.addEntry(Discount.DISCOUNT10, 2, 3);
+
+        assertTrue(structure.next());
+        assertEquals(Discount.DISCOUNT50, structure.getDiscount());
+        assertTrue(structure.next());
+        assertEquals(Discount.DISCOUNT10, structure.getDiscount());
+        assertEquals(2, structure.getItem1());
+        assertEquals(3, structure.getItem2());
+        assertFalse(structure.next());
+    }
+
+    /**
+     * Tests random sets of entries give the same result as the original list based data structure
+     */
+    @Test
+    void testMatchesListVersion() {
+        Random random = new Random(99);
+        DiscountDataStructure reused = new DiscountDataStructure();
+
+        for (int n = 0; n < 500; n++) {
+            DiscountDataStructure structure = new DiscountDataStructure();
+            LegacyDiscountDataStructure legacy = new LegacyDiscountDataStructure();
+            reused.clear();
+
+            addRandomEntries(random, random.nextInt(150), structure, legacy, reused);
+
+            List<Object> expected;
+            Set<Integer> usedItems = new HashSet<>();
+
+            while ((expected = legacy.removeEntry()) != null) {
+                assertEquals(expected, structure.removeEntry());
+
+                // The allocation free methods give the same discounts, using the original indexes
+                assertTrue(reused.next());
+                assertEquals(expected.getFirst(), reused.getDiscount());
+                assertFalse(usedItems.contains(reused.getItem1()));
+                assertFalse(usedItems.contains(reused.getItem2()));
+                usedItems.add(reused.getItem1());
+                usedItems.add(reused.getItem2());
+            }
+
+            assertNull(structure.removeEntry());
+            assertFalse(reused.next());
+        }
+    }
+
+    /**
+     * Adds the entries a pair scan would add for a random order
+     *
+     * @param random the source of random entries
+     * @param items the number of items in the order
+     * @param structures the data structures to add the entries to
+     */
+    private static void addRandomEntries(Random random, int items, Object... structures) {
+        List<Object[]> entries = new ArrayList<>();
+
+        for (int i = 0; i < items; i++) {
+            if (random.nextInt(10) == 0) entries.add(new Object[] { Discount.DAILY_SPECIAL, i, i });
+        }
+
+        for (int i = 0; i < items; i++) {
+            for (int j = i + 1; j < items; j++) {
+                if (random.nextInt(4) == 0) entries.add(new Object[] { PAIR_DISCOUNTS[random.nextInt(PAIR_DISCOUNTS.length)], i, j });
+            }
+        }
+
+        for (Object[] entry : entries) {
+            for (Object structure : structures) {
+                if (structure instanceof DiscountDataStructure s) s.addEntry((Discount) entry[0], (Integer) entry[1], (Integer) entry[2]);
+                else ((LegacyDiscountDataStructure) structure).addEntry((Discount) entry[0], (Integer) entry[1], (Integer) entry[2]);
+            }
+        }
+    }
+}
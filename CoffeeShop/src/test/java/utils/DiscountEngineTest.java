@@ -0,0 +1,213 @@
+package utils;
+
+import item.ItemList;
+import item.SetupItemFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the DiscountEngine
+ * Random orders are built up and taken apart one item at a time and after every change the engine
+ * must give exactly the same totals as the original pair scan
+ */
+public class DiscountEngineTest {
+    /** Number of random orders checked in each test */
+    private static final int ORDERS = 300;
+
+    /** Largest number of items put in a random order */
+    private static final int MAX_ITEMS = 40;
+
+    private static ItemList menu;
+
+    private static String[] itemIDs;
+
+    @BeforeAll
+    static void setUp() {
+        menu = SetupItemFile.generateItemList();
+        itemIDs = menu.getItemIDs();
+    }
+
+    @AfterEach
+    void resetDailySpecial() {
+        Discount.setDailySpecialItem(null);
+    }
+
+    /**
+     * Tests random orders with no daily special
+     */
+    @Test
+    void testMatchesPairScan() {
+        checkRandomOrders(new Random(2024), false);
+    }
+
+    /**
+     * Tests random orders with a random daily special for each order
+     */
+    @Test
+    void testMatchesPairScanWithDailySpecial() {
+        checkRandomOrders(new Random(42), true);
+    }
+
+    /**
+     * Tests orders using only a few items so the same categories and items are repeated many times
+     */
+    @Test
+    void testMatchesPairScanWithRepeatedItems() {
+        Random random = new Random(7);
+
+        for (int n = 0; n < ORDERS; n++) {
+            String[] few = { "HD1", "PSY1", "RL1", "SD1", "SCK1", "FD1" };
+            Discount.setDailySpecialItem(random.nextBoolean() ? menu.getMenu().get(few[random.nextInt(few.length)]) : null);
+
+            DiscountEngine engine = new DiscountEngine();
+            List<String> details = new ArrayList<>();
+
+            for (int i = 0; i < MAX_ITEMS; i++) {
+                String itemID = few[random.nextInt(random.nextInt(few.length) + 1)];
+                engine.add(itemID, menu.getCategory(itemID), menu.getCost(itemID));
+                details.add(itemID);
+                assertMatches(details, engine);
+            }
+        }
+    }
+
+    /**
+     * Tests the discounts are worked out again when the daily special changes part way through an order
+     */
+    @Test
+    void testDailySpecialChanges() {
+        DiscountEngine engine = new DiscountEngine();
+        List<String> details = new ArrayList<>();
+
+        for (String itemID : new String[] { "HD1", "PSY1", "SD1" }) {
+            engine.add(itemID, menu.getCategory(itemID), menu.getCost(itemID));
+            details.add(itemID);
+        }
+
+        assertMatches(details, engine);
+
+        Discount.setDailySpecialItem(menu.getMenu().get("PSY1"));
+
+        // A snack can not be paired with anything in the order, but the daily special has changed
+        engine.add("SCK1", menu.getCategory("SCK1"), menu.getCost("SCK1"));
+        details.add("SCK1");
+
+        assertMatches(details, engine);
+    }
+
+    /**
+     * Tests adding a whole order at once gives the same totals as adding one item at a time
+     */
+    @Test
+    void testAddAll() {
+        Random random = new Random(11);
+
+        for (int n = 0; n < ORDERS; n++) {
+            Discount.setDailySpecialItem(random.nextBoolean() ? menu.getMenu().get(randomItem(random)) : null);
+
+            List<String> details = new ArrayList<>();
+            int size = random.nextInt(MAX_ITEMS + 1);
+
+            while (details.size() < size) details.add(randomItem(random));
+
+            DiscountEngine engine = new DiscountEngine();
+            engine.addAll(details, menu);
+
+            assertMatches(details, engine);
+        }
+    }
+
+    /**
+     * Tests removing items from an empty engine is rejected
+     */
+    @Test
+    void testRemoveOutOfRange() {
+        DiscountEngine engine = new DiscountEngine();
+
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.remove(0));
+        assertEquals(0.0, engine.getTotalCost());
+        assertEquals(0.0, engine.getDiscountedCost());
+    }
+
+    /**
+     * Tests the data structure moves later items down by one when a daily special is taken out
+     */
+    @Test
+    void testDailySpecialShift() {
+        DiscountDataStructure structure = new DiscountDataStructure();
+
+        structure.addEntry(Discount.DISCOUNT25, 2, 3);
+        structure.addEntry(Discount.DAILY_SPECIAL, 0, 0);
+
+        assertEquals(Discount.DAILY_SPECIAL, structure.removeEntry().get(0));
+        assertEquals(List.of(Discount.DISCOUNT25, 1, 2), structure.removeEntry());
+        assertNull(structure.removeEntry());
+    }
+
+    /**
+     * Builds random orders, adding items and removing items from random positions
+     *
+     * @param random the source of random orders
+     * @param dailySpecial whether to pick a random daily special for each order
+     */
+    private void checkRandomOrders(Random random, boolean dailySpecial) {
+        for (int n = 0; n < ORDERS; n++) {
+            Discount.setDailySpecialItem(dailySpecial ? menu.getMenu().get(randomItem(random)) : null);
+
+            DiscountEngine engine = new DiscountEngine();
+            List<String> details = new ArrayList<>();
+            int size = random.nextInt(MAX_ITEMS + 1);
+
+            while (details.size() < size) {
+                String itemID = randomItem(random);
+                engine.add(itemID, menu.getCategory(itemID), menu.getCost(itemID));
+                details.add(itemID);
+                assertMatches(details, engine);
+
+                // Sometimes take an item back out, from anywhere in the order
+                if (random.nextInt(4) == 0) {
+                    int index = random.nextInt(details.size());
+                    engine.remove(index);
+                    details.remove(index);
+                    assertMatches(details, engine);
+                }
+            }
+
+            while (!details.isEmpty()) {
+                int index = random.nextInt(details.size());
+                engine.remove(index);
+                details.remove(index);
+                assertMatches(details, engine);
+            }
+        }
+    }
+
+    /**
+     * Checks the engine gives exactly the same totals as the pair scan
+     *
+     * @param details the items in the order
+     * @param engine the engine holding the same items
+     */
+    private static void assertMatches(List<String> details, DiscountEngine engine) {
+        assertEquals(details.size(), engine.size());
+        assertEquals(LegacyDiscountCalculator.totalCost(details, menu), engine.getTotalCost(), "Total cost for " + details);
+        assertEquals(LegacyDiscountCalculator.discountedCost(details, menu), engine.getDiscountedCost(), "Discounted cost for " + details);
+    }
+
+    /**
+     * Picks a random item from the menu
+     *
+     * @param random the source of random items
+     * @return an item ID
+     */
+    private static String randomItem(Random random) {
+        return itemIDs[random.nextInt(itemIDs.length)];
+    }
+}
@@ -0,0 +1,91 @@
+package utils;
+
+import item.ItemCategory;
+import item.ItemList;
+import item.SetupItemFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the shared DiscountRules table
+ */
+public class DiscountRulesTest {
+    @AfterEach
+    void restoreRules() {
+        DiscountRules.reload(Discount.createDiscounts());
+    }
+
+    /**
+     * Tests the table gives the same discount as the map it was built from, in either order, for every pair of categories
+     */
+    @Test
+    void testMatchesCreateDiscounts() {
+        Map<Set<ItemCategory>, Discount> discounts = Discount.createDiscounts();
+        DiscountRules rules = DiscountRules.current();
+
+        for (ItemCategory first : ItemCategory.values()) {
+            for (ItemCategory second : ItemCategory.values()) {
+                Discount expected = first == second ? null : discounts.get(Set.of(first, second));
+                assertEquals(expected, rules.getDiscount(first, second), first + " " + second);
+            }
+        }
+
+        assertEquals(Map.of(ItemCategory.ROLL, Discount.DISCOUNT25, ItemCategory.PASTRY, Discount.DISCOUNT50,
+                ItemCategory.SNACK, Discount.DISCOUNT25), rules.getDiscounts(ItemCategory.HOTDRINK));
+    }
+
+    /**
+     * Tests every caller shares the same table until it is reloaded
+     */
+    @Test
+    void testReload() {
+        DiscountRules before = DiscountRules.current();
+        assertSame(before, DiscountRules.current());
+
+        DiscountRules after = DiscountRules.reload(Map.of(Set.of(ItemCategory.FOOD, ItemCategory.SNACK), Discount.DISCOUNT10));
+
+        assertSame(after, DiscountRules.current());
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(Discount.DISCOUNT10, after.getDiscount(ItemCategory.SNACK, ItemCategory.FOOD));
+        assertNull(after.getDiscount(ItemCategory.HOTDRINK, ItemCategory.ROLL));
+
+        // The old table is left as it was
+        assertEquals(Discount.DISCOUNT25, before.getDiscount(ItemCategory.HOTDRINK, ItemCategory.ROLL));
+    }
+
+    /**
+     * Tests invalid rules are rejected and the table in use is kept
+     */
+    @Test
+    void testInvalidRules() {
+        DiscountRules before = DiscountRules.current();
+
+        assertThrows(IllegalArgumentException.class, () -> DiscountRules.reload(Map.of(Set.of(ItemCategory.FOOD), Discount.DISCOUNT10)));
+        assertThrows(IllegalArgumentException.class, () -> DiscountRules.reload(Map.of(Set.of(ItemCategory.FOOD, ItemCategory.SNACK), Discount.DAILY_SPECIAL)));
+        assertSame(before, DiscountRules.current());
+    }
+
+    /**
+     * Tests an order works its discounts out again after the rules are reloaded, even when the item added could not be paired
+     */
+    @Test
+    void testEngineUsesReloadedRules() {
+        ItemList menu = SetupItemFile.generateItemList();
+        DiscountEngine engine = new DiscountEngine();
+
+        engine.add("HD1", menu.getCategory("HD1"), menu.getCost("HD1"));
+        engine.add("RL1", menu.getCategory("RL1"), menu.getCost("RL1"));
+        assertEquals(3.75, engine.getDiscountedCost());
+
+        DiscountRules.reload(Map.of(Set.of(ItemCategory.HOTDRINK, ItemCategory.ROLL), Discount.DISCOUNT50));
+
+        // A soft drink can not be paired with anything in the order
+        engine.add("SD1", menu.getCategory("SD1"), menu.getCost("SD1"));
+        assertEquals(4.0, engine.getDiscountedCost());
+    }
+}
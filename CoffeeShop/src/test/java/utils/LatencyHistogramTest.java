@@ -0,0 +1,102 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the LatencyHistogram
+ * Percentiles must be within an eighth of the true value
+ */
+public class LatencyHistogramTest {
+    /**
+     * Tests an empty histogram reports nothing
+     */
+    @Test
+    void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, histogram.getMean());
+    }
+
+    /**
+     * Tests percentiles of 1 to 10000 are close to the true values
+     */
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 1; i <= 10000; i++) histogram.record(i * 1000L);
+
+        for (double percentile : new double[] { 50, 95, 99, 100 }) {
+            double expected = percentile * 100 * 1000;
+            long actual = histogram.getPercentile(percentile);
+
+            assertTrue(actual >= expected && actual <= expected * 1.125, percentile + ": " + actual);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_500, histogram.getMean(), 0.001);
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(101));
+    }
+
+    /**
+     * Tests every value is counted in a bucket that covers it
+     */
+    @Test
+    void testBuckets() {
+        for (long value = 0; value < 1 << 20; value += 7) {
+            int index = LatencyHistogram.index(value);
+
+            assertTrue(value <= LatencyHistogram.highestValue(index));
+            if (index > 0) assertTrue(value > LatencyHistogram.highestValue(index - 1));
+        }
+
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(LatencyHistogram.index(Long.MAX_VALUE)));
+    }
+
+    /**
+     * Tests adding one histogram to another counts the durations of both
+     */
+    @Test
+    void testAdd() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+
+        for (int i = 1; i <= 100; i++) first.record(i);
+        for (int i = 101; i <= 200; i++) second.record(i);
+
+        first.add(second);
+
+        assertEquals(200, first.getCount());
+        assertEquals(200, first.getMax());
+        assertEquals(100.5, first.getMean(), 0.001);
+        assertTrue(first.getPercentile(50) >= 100 && first.getPercentile(50) <= 112);
+        assertEquals(100, second.getCount());
+    }
+
+    /**
+     * Tests durations recorded from many threads are all counted
+     */
+    @Test
+    void testConcurrentRecord() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 8; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) histogram.record(i);
+                });
+            }
+        }
+
+        assertEquals(80000, histogram.getCount());
+        assertEquals(9999, histogram.getMax());
+    }
+}
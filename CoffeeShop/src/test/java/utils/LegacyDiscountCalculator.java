@@ -0,0 +1,102 @@
+package utils;
+
+import item.Item;
+import item.ItemCategory;
+import item.ItemList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copy of the pair scan Order used to work out its discounted cost before the DiscountEngine
+ * Used as the reference the engine is tested and benchmarked against
+ */
+public class LegacyDiscountCalculator {
+    /**
+     * Adds up the cost of every item in the order
+     *
+     * @param orderDetails the item IDs in the order
+     * @param menu the menu to look up costs in
+     * @return the total cost
+     */
+    public static double totalCost(List<String> orderDetails, ItemList menu) {
+        double totalCost = 0.0;
+        for (String itemID : orderDetails) {
+            totalCost += menu.getCost(itemID);
+        }
+        return totalCost;
+    }
+
+    /**
+     * Works out the discounted cost by checking every pair of items
+     *
+     * @param orderDetails the item IDs in the order
+     * @param menu the menu to look up costs and categories in
+     * @return the discounted cost
+     */
+    public static double discountedCost(List<String> orderDetails, ItemList menu) {
+        Map<Set<ItemCategory>, Discount> discountsMap = Discount.createDiscounts();
+
+        double discountedCost = totalCost(orderDetails, menu);
+
+        ArrayList<String> myOrderDetails = new ArrayList<>(orderDetails);
+
+        LegacyDiscountDataStructure structure = new LegacyDiscountDataStructure();
+
+        Item dailySpecial = Discount.getDailySpecialItem();
+        if (dailySpecial != null) {
+            for (int i = 0; i < myOrderDetails.size(); i++) {
+                if (myOrderDetails.get(i).equals(dailySpecial.getItemID())) {
+                    structure.addEntry(Discount.DAILY_SPECIAL, i, i);
+                }
+            }
+        }
+
+        for (int i = 0; i < myOrderDetails.size(); i++) {
+            for (int j = i + 1; j < myOrderDetails.size(); j++) {
+                if (menu.getCategory(myOrderDetails.get(i)) != menu.getCategory(myOrderDetails.get(j))) {
+                    Discount d = discountsMap.get(Set.of(menu.getCategory(myOrderDetails.get(i)), menu.getCategory(myOrderDetails.get(j))));
+                    if (d != null) {
+                        structure.addEntry(d, i, j);
+                    }
+                }
+            }
+        }
+
+        ArrayList<Object> s = structure.removeEntry();
+
+        while (s != null) {
+            Discount discount = (Discount) s.get(0);
+
+            int index1 = (Integer) s.get(1);
+            int index2 = (Integer) s.get(2);
+
+            if (discount == Discount.DAILY_SPECIAL) {
+                if (index1 < myOrderDetails.size()) {
+                    discountedCost -= (menu.getCost(myOrderDetails.get(index1)) - discount.calculateDiscount(menu.getCost(myOrderDetails.get(index1))));
+                    myOrderDetails.remove(index1);
+                }
+            }
+            else {
+                int higherIndex = Math.max(index1, index2);
+                int lowerIndex = Math.min(index1, index2);
+
+                if (higherIndex < myOrderDetails.size() && lowerIndex < myOrderDetails.size()) {
+                    discountedCost -= (menu.getCost(myOrderDetails.get(higherIndex)) -
+                            discount.calculateDiscount(menu.getCost(myOrderDetails.get(higherIndex))));
+                    discountedCost -= (menu.getCost(myOrderDetails.get(lowerIndex)) -
+                            discount.calculateDiscount(menu.getCost(myOrderDetails.get(lowerIndex))));
+
+                    myOrderDetails.remove(higherIndex);
+                    myOrderDetails.remove(lowerIndex);
+                }
+            }
+
+            s = structure.removeEntry();
+        }
+
+        return discountedCost;
+    }
+}
@@ -0,0 +1,108 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Copy of the original list based DiscountDataStructure
+ * Used as the reference the primitive DiscountDataStructure is tested and benchmarked against
+ */
+public class LegacyDiscountDataStructure {
+
+    private ArrayList<ArrayList<Object>> structure;
+
+    /**
+     * Constructor to initialise the array list
+     */
+    public LegacyDiscountDataStructure() {
+        structure = new ArrayList<>();
+    }
+
+    /**
+     * Method adds a new discount entry to the structure data structure
+     * The add method will insert the new entry by size of discount
+     *
+     * @param discount Discount enum related to the pair
+     * @param item1 Index that item1 appears in the list of items in the calling method
+     * @param item2 Index that item2 appears in the list of items in the calling method
+     */
+    public void addEntry(Discount discount, int item1, int item2) {
+        // Check if either item is the daily special
+        if (discount == Discount.DAILY_SPECIAL) {
+            structure.addFirst(new ArrayList<>(Arrays.asList(discount, item1, item2)));
+            return;
+        }
+
+        int middle;
+        int high = structure.size();
+        int low = 0;
+
+        while (low < high) {
+            middle = (low + high) / 2;
+            if (discount.getValue() > ((Discount) structure.get(middle).getFirst()).getValue()) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+
+        structure.add(low, new ArrayList<>(Arrays.asList(discount, item1, item2)));
+    }
+
+    /**
+     *
+     * @return Array List of the current discount to apply and what items to apply it to
+     * The array list is in the format (Discount, Item1 Index, Item2 Index)
+     * The calling method can use this array list to apply the discount to the intended items
+     */
+    public ArrayList<Object> removeEntry() {
+        if (structure.isEmpty()) return null;
+
+        /** Removes the first entry or the highest discount from the datastructure */
+        ArrayList<Object> lastEntry = structure.removeFirst();
+
+        /** For loop to check for recurring item indexs that occur for different discounts
+         * This is important as we only want to apply one discount to one item
+         * So any item that has a discount applied to can be removed from the data structure */
+        for (int i=0; i<structure.size(); i++) {
+            /** Checks if the data structures second column contains an item which will have the discount applied and then removes this entry */
+            if (Objects.equals(structure.get(i).get(1), lastEntry.get(1)) || Objects.equals(structure.get(i).get(1), lastEntry.get(2))) {
+                structure.remove(i);
+                i-=1;
+            }
+            /** Checks if the data structures third column contains an item which will have the discount applied and then removes this entry */
+            else if (Objects.equals(structure.get(i).get(2), lastEntry.get(1)) || Objects.equals(structure.get(i).get(2), lastEntry.get(2))) {
+                structure.remove(i);
+                i-=1;
+            }
+            /** Then needs to shift the index value for any other discount entries in the data structure accordingly */
+            else {
+                structure.get(i).set(1, shiftIndex((Integer) structure.get(i).get(1), lastEntry));
+                structure.get(i).set(2, shiftIndex((Integer) structure.get(i).get(2), lastEntry));
+            }
+        }
+
+        return lastEntry;
+    }
+
+    /**
+     * Works out the new position of an item once the items of a removed entry have been taken out of the list
+     * A daily special entry only removes one item (both indexes are the same) so it only shifts by one
+     *
+     * @param index The position of the item before the removal
+     * @param removed The entry that has been removed
+     * @return The position of the item after the removal
+     */
+    private static int shiftIndex(int index, ArrayList<Object> removed) {
+        int item1 = (Integer) removed.get(1);
+        int item2 = (Integer) removed.get(2);
+
+        int shift = 0;
+
+        if (index > item1) shift++;
+        if (item1 != item2 && index > item2) shift++;
+
+        return index - shift;
+    }
+}
@@ -0,0 +1,230 @@
+package workers;
+
+import item.ItemCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Dispatcher
+ * Each item must go to exactly one staff member, idle staff must take work queued behind busy ones,
+ * and nothing may be lost or handed out twice
+ */
+class DispatcherTest {
+    private Dispatcher<Integer> dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        RoleMetrics.resetAll();
+        dispatcher = new Dispatcher<>("Test");
+    }
+
+    /**
+     * Tests an item submitted while two staff members wait wakes only one of them
+     */
+    @Test
+    void testHandsToOneWaitingWorker() throws Exception {
+        Dispatcher<Integer>.Worker first = dispatcher.register();
+        Dispatcher<Integer>.Worker second = dispatcher.register();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Dispatcher.Task<Integer>> a = executor.submit(() -> first.take(500, TimeUnit.MILLISECONDS));
+            Future<Dispatcher.Task<Integer>> b = executor.submit(() -> second.take(500, TimeUnit.MILLISECONDS));
+
+            Thread.sleep(50);
+            dispatcher.submit(1);
+
+            List<Integer> taken = new ArrayList<>();
+            for (Future<Dispatcher.Task<Integer>> future : List.of(a, b)) {
+                Dispatcher.Task<Integer> task = future.get(5, TimeUnit.SECONDS);
+                if (task != null) taken.add(task.getItem());
+            }
+
+            assertEquals(List.of(1), taken);
+        }
+    }
+
+    /**
+     * Tests a staff member with an empty queue takes the newest item from the longest queue
+     */
+    @Test
+    void testWorkStealing() throws Exception {
+        Dispatcher<Integer>.Worker first = dispatcher.register();
+        dispatcher.register();
+
+        // Nobody is waiting, so the items are shared between the two queues
+        for (int i = 0; i < 4; i++) dispatcher.submit(i);
+
+        Set<Integer> taken = new HashSet<>();
+        for (int i = 0; i < 4; i++) taken.add(first.take(0, TimeUnit.MILLISECONDS).getItem());
+
+        assertEquals(Set.of(0, 1, 2, 3), taken);
+        assertEquals(2, dispatcher.getStolen());
+        assertNull(first.take(0, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Tests a staff member that leaves gives its queued items to the others and is not given any more
+     */
+    @Test
+    void testUnregister() throws Exception {
+        Dispatcher<Integer>.Worker first = dispatcher.register();
+        Dispatcher<Integer>.Worker second = dispatcher.register();
+
+        dispatcher.submit(1);
+        dispatcher.submit(2);
+        second.unregister();
+
+        assertNull(second.take(1, TimeUnit.SECONDS));
+        assertEquals(2, dispatcher.size());
+        assertNotNull(first.take(0, TimeUnit.MILLISECONDS));
+        assertNotNull(first.take(0, TimeUnit.MILLISECONDS));
+        assertEquals(0, dispatcher.getStolen());
+    }
+
+    /**
+     * Tests items submitted before any staff member registers are kept until one does
+     */
+    @Test
+    void testUnassigned() throws Exception {
+        dispatcher.submit(1);
+        dispatcher.submit(2);
+
+        assertEquals(1, dispatcher.poll());
+        assertEquals(2, dispatcher.register().take(0, TimeUnit.MILLISECONDS).getItem());
+        assertNull(dispatcher.poll());
+    }
+
+    /**
+     * Tests the queue wait and service time of each item are recorded for the role
+     */
+    @Test
+    void testMetrics() throws Exception {
+        Dispatcher<Integer>.Worker worker = dispatcher.register();
+
+        dispatcher.submit(1);
+        Thread.sleep(20);
+
+        Dispatcher.Task<Integer> task = worker.take(0, TimeUnit.MILLISECONDS);
+        Thread.sleep(20);
+        task.complete();
+
+        RoleMetrics metrics = RoleMetrics.forRole("Test");
+        assertSame(metrics, dispatcher.getMetrics());
+        assertEquals(1, metrics.getQueueWait().getCount());
+        assertEquals(1, metrics.getServiceTime().getCount());
+        assertTrue(metrics.getQueueWait().getMax() >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(metrics.getServiceTime().getMax() >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(RoleMetrics.report().startsWith("Test queue wait: count 1"));
+    }
+
+    /**
+     * Tests submitting to a full dispatcher waits until an item is taken and offering gives up after the timeout
+     */
+    @Test
+    void testCapacity() throws Exception {
+        Dispatcher<Integer> bounded = new Dispatcher<>("Test", 2, item -> null);
+        bounded.submit(1);
+        bounded.submit(2);
+
+        assertFalse(bounded.offer(3, 10, TimeUnit.MILLISECONDS));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> blocked = executor.submit(() -> {
+                bounded.submit(3);
+                return null;
+            });
+
+            Thread.sleep(50);
+            assertFalse(blocked.isDone());
+
+            assertEquals(1, bounded.poll(0, TimeUnit.MILLISECONDS));
+            blocked.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(2, bounded.size());
+        assertThrows(IllegalArgumentException.class, () -> new Dispatcher<Integer>("Test", 0, item -> null));
+    }
+
+    /**
+     * Tests items only go to staff members that handle their category,
+     * and wait in their category's sub-queue while nobody does
+     */
+    @Test
+    void testCategories() throws Exception {
+        Dispatcher<String> drinks = new Dispatcher<>("Test", 10, item -> item.startsWith("HD") ? ItemCategory.HOTDRINK : ItemCategory.SOFTDRINK);
+        Dispatcher<String>.Worker hot = drinks.register(Set.of(ItemCategory.HOTDRINK));
+
+        drinks.submit("SD1");
+        drinks.submit("HD1");
+        drinks.submit("SD2");
+
+        assertEquals("HD1", hot.take(0, TimeUnit.MILLISECONDS).getItem());
+        assertNull(hot.take(0, TimeUnit.MILLISECONDS));
+        assertEquals(2, drinks.size(ItemCategory.SOFTDRINK));
+
+        Dispatcher<String>.Worker soft = drinks.register(Set.of(ItemCategory.SOFTDRINK));
+        Dispatcher.Task<String> task = soft.take(0, TimeUnit.MILLISECONDS);
+        assertEquals("SD1", task.getItem());
+        assertEquals(ItemCategory.SOFTDRINK, task.getCategory());
+        assertEquals("SD2", soft.take(0, TimeUnit.MILLISECONDS).getItem());
+    }
+
+    /**
+     * Tests many producers and staff members, some leaving part way through, lose and duplicate nothing
+     */
+    @Test
+    void testNothingLostOrDuplicated() throws Exception {
+        int producers = 4;
+        int items = 5000;
+        Set<Integer> taken = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+
+        List<Dispatcher<Integer>.Worker> workers = new ArrayList<>();
+        for (int i = 0; i < 6; i++) workers.add(dispatcher.register());
+        Set<Dispatcher<Integer>.Worker> left = ConcurrentHashMap.newKeySet();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> consumers = new ArrayList<>();
+
+            for (Dispatcher<Integer>.Worker worker : workers) {
+                consumers.add(executor.submit(() -> {
+                    while (taken.size() < producers * items && !left.contains(worker)) {
+                        Dispatcher.Task<Integer> task = worker.take(50, TimeUnit.MILLISECONDS);
+                        if (task == null) continue;
+
+                        if (!taken.add(task.getItem())) duplicates.incrementAndGet();
+                        task.complete();
+                    }
+                    return null;
+                }));
+            }
+
+            for (int p = 0; p < producers; p++) {
+                int first = p * items;
+                executor.submit(() -> {
+                    for (int i = first; i < first + items; i++) dispatcher.submit(i);
+                    return null;
+                });
+            }
+
+            // Two staff members leave while items are still arriving
+            Thread.sleep(5);
+            for (Dispatcher<Integer>.Worker worker : workers.subList(0, 2)) {
+                left.add(worker);
+                worker.unregister();
+            }
+
+            for (Future<?> consumer : consumers) consumer.get(30, TimeUnit.SECONDS);
+        }
+
+        assertEquals(0, duplicates.get());
+        assertEquals(producers * items, taken.size());
+        assertEquals(0, dispatcher.size());
+    }
+}
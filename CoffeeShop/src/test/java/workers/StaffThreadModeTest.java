@@ -0,0 +1,109 @@
+package workers;
+
+import item.ItemList;
+import item.SetupItemFile;
+import order.DrinkList;
+import order.FoodList;
+import order.Order;
+import order.OrderList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import services.NotificationService;
+import utils.ThreadMode;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests staff members run on the thread set by the {@link ThreadMode}
+ * and still hand items between each other when waiting on virtual threads
+ */
+class StaffThreadModeTest {
+    private ItemList menu;
+
+    private OrderList orderList;
+
+    @BeforeEach
+    void setUp() {
+        menu = SetupItemFile.generateItemList();
+        OrderList.resetInstance();
+        DrinkList.resetInstance();
+        FoodList.resetInstance();
+        StaffList.resetInstance();
+        orderList = OrderList.getInstance();
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty(ThreadMode.PROPERTY);
+
+        for (Staff<?> staff : StaffList.getInstance().getStaffList().values()) {
+            staff.removeStaff();
+        }
+    }
+
+    /**
+     * Tests staff are their own platform thread by default
+     */
+    @Test
+    void testPlatformThreads() {
+        Staff<?> staff = StaffFactory.getStaff("barista", "Bob", 5, new NotificationService());
+        staff.start();
+
+        assertSame(staff, staff.getWorkerThread());
+        assertFalse(staff.getWorkerThread().isVirtual());
+    }
+
+    /**
+     * Tests staff started in virtual mode run on virtual threads and can only be started once
+     */
+    @Test
+    void testVirtualThreads() {
+        System.setProperty(ThreadMode.PROPERTY, "virtual");
+
+        Staff<?> staff = StaffFactory.getStaff("chef", "Bob", 5, new NotificationService());
+        assertNull(staff.getWorkerThread());
+
+        staff.start();
+
+        assertTrue(staff.getWorkerThread().isVirtual());
+        assertEquals("Bob", staff.getWorkerThread().getName());
+        assertThrows(IllegalThreadStateException.class, staff::start);
+    }
+
+    /**
+     * Tests orders are completed by a waiter, a barista and a chef waking each other on virtual threads
+     */
+    @Test
+    void testVirtualStaffCompleteOrders() throws Exception {
+        System.setProperty(ThreadMode.PROPERTY, "virtual");
+        NotificationService notificationService = new NotificationService();
+
+        List<Staff<?>> staff = List.of(
+                StaffFactory.getStaff("waiter", "Waiter", 5, notificationService),
+                StaffFactory.getStaff("barista", "Barista", 5, notificationService),
+                StaffFactory.getStaff("chef", "Chef", 5, notificationService));
+
+        StaffList.getInstance().setDefaultDelay(100);
+        staff.forEach(Staff::start);
+
+        for (int i = 0; i < 3; i++) {
+            orderList.add(new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                    LocalDateTime.now(), new ArrayList<>(List.of("HD1", "FD1", "SD1")), menu, true));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (orderList.getCompletedOrderCount() < 3) {
+            if (System.nanoTime() > deadline) fail("Orders were not completed");
+            Thread.sleep(10);
+        }
+
+        for (Staff<?> member : staff) assertTrue(member.getWorkerThread().isVirtual());
+    }
+}
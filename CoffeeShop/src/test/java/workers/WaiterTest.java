@@ -3,10 +3,26 @@ package workers;
 import static org.junit.jupiter.api.Assertions.*;
 
 import interfaces.INotificationService;
+import item.ItemList;
+import item.SetupItemFile;
+import order.DrinkList;
+import order.FoodItem;
+import order.FoodList;
+import order.Order;
+import order.OrderList;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import services.NotificationService;
+
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 /**
  * JUnit tests for Staff class and Staff Factory
@@ -72,4 +88,140 @@ class WaiterTest {
     void testStaffFactory() {
         assertInstanceOf(Waiter.class, StaffFactory.getStaff("waiter", "John", 2, notificationService));
     }
+
+    /**
+     * Tests a waiter takes several orders while their items are made and delivers each once all its items are made
+     */
+    @Test
+    void testOrdersInFlight() throws Exception {
+        ItemList menu = SetupItemFile.generateItemList();
+        OrderList.resetInstance();
+        DrinkList.resetInstance();
+        FoodList.resetInstance();
+        StaffList.resetInstance();
+        OrderList orderList = OrderList.getInstance();
+
+        Waiter waiter = (Waiter) StaffFactory.getStaff("waiter", "Jill", 5, new NotificationService());
+        waiter.setMaxOrdersInFlight(2);
+        StaffList.getInstance().setDefaultDelay(100);
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                    LocalDateTime.now(), new ArrayList<>(List.of("HD1", "HD1", "FD1")), menu, true);
+            orders.add(order);
+            orderList.add(order);
+        }
+
+        try {
+            waiter.start();
+
+            // Nobody makes the items, so the waiter stops once it has two orders in flight
+            awaitTrue(() -> waiter.getOrdersInFlight().size() == 2);
+            Thread.sleep(100);
+            assertEquals(orders.subList(0, 2), waiter.getOrdersInFlight());
+            assertEquals(4, DrinkList.getInstance().size());
+            assertEquals(2, FoodList.getInstance().size());
+
+            // The second order is ready first, an item for an order not in flight is ignored
+            waiter.addItem(orders.get(2).getOrderID(), "HD1");
+            for (String item : List.of("HD1", "FD1", "HD1")) waiter.addItem(orders.get(1).getOrderID(), item);
+
+            // The order is counted as complete just before the waiter lets it go and takes the next one
+            awaitTrue(() -> orderList.getCompletedOrderCount() == 1);
+            awaitTrue(() -> waiter.getOrdersInFlight().size() == 2 && waiter.getOrdersInFlight().contains(orders.get(2)));
+            assertEquals(List.of(orders.get(0), orders.get(2)), waiter.getOrdersInFlight());
+
+            waiter.addItem(orders.get(0).getOrderID(), "HD1");
+            waiter.addItem(orders.get(0).getOrderID(), "FD1");
+            Thread.sleep(100);
+            assertEquals(1, orderList.getCompletedOrderCount());
+
+            waiter.addItem(orders.get(0).getOrderID(), "HD1");
+            awaitTrue(() -> orderList.getCompletedOrderCount() == 2);
+        } finally {
+            waiter.removeStaff();
+        }
+
+        // The order still in flight goes back to the order list
+        assertTrue(waiter.getOrdersInFlight().isEmpty());
+        assertEquals(1, orderList.getQueueSize(true) + orderList.getQueueSize(false));
+        assertThrows(IllegalArgumentException.class, () -> waiter.setMaxOrdersInFlight(0));
+    }
+
+    /**
+     * Tests an order goes back to the order list when the waiter is interrupted while handing out its items,
+     * rather than staying in flight with an item nobody will make
+     */
+    @Test
+    void testInterruptedHandingOutItems() throws Exception {
+        ItemList menu = SetupItemFile.generateItemList();
+        OrderList.resetInstance();
+        DrinkList.resetInstance();
+        FoodList.resetInstance(1);
+        StaffList.resetInstance();
+        OrderList orderList = OrderList.getInstance();
+
+        Waiter waiter = (Waiter) StaffFactory.getStaff("waiter", "Jill", 5, new NotificationService());
+        StaffList.getInstance().setDefaultDelay(100);
+
+        // Fills the food list so the waiter waits to hand out the food item
+        FoodList.getInstance().add(new AbstractMap.SimpleEntry<>(waiter, new FoodItem(UUID.randomUUID(), "FD1", null)));
+
+        Order order = new Order(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Jane",
+                LocalDateTime.now(), new ArrayList<>(List.of("FD1")), menu, true);
+        orderList.add(order);
+
+        try {
+            waiter.start();
+
+            awaitTrue(() -> waiter.getOrdersInFlight().contains(order));
+            Thread.sleep(100);
+
+            waiter.getWorkerThread().interrupt();
+            Thread.sleep(100);
+
+            // Once there is room the order is taken again and its item handed out
+            assertNotNull(FoodList.getInstance().remove());
+            awaitTrue(() -> FoodList.getInstance().size() == 1 && waiter.getOrdersInFlight().contains(order));
+
+            waiter.addItem(order.getOrderID(), "FD1");
+            awaitTrue(() -> orderList.getCompletedOrderCount() == 1);
+        } finally {
+            waiter.removeStaff();
+            FoodList.resetInstance();
+        }
+    }
+
+    /**
+     * Tests removing a waiter wakes it from waiting for an order, rather than it stopping only once the wait times out
+     */
+    @Test
+    void testRemoveWakesWaiter() throws Exception {
+        OrderList.resetInstance();
+        StaffList.resetInstance();
+
+        Waiter waiter = (Waiter) StaffFactory.getStaff("waiter", "Jill", 5, new NotificationService());
+        waiter.start();
+        Thread.sleep(50);
+
+        waiter.removeStaff();
+        waiter.getWorkerThread().join(250);
+
+        assertFalse(waiter.getWorkerThread().isAlive());
+    }
+
+    /**
+     * Waits up to five seconds for a condition to hold
+     *
+     * @param condition the condition
+     */
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("Timed out");
+            Thread.sleep(10);
+        }
+    }
 }